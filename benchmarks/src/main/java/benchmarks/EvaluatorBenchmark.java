@@ -0,0 +1,103 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ast.Program;
+import compiler.Bytecode;
+import compiler.Compiler;
+import evaluator.Evaluator;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyObject;
+import specializer.SpecializingInterpreter;
+import vm.VM;
+
+/*
+ * Whole programs on each engine: recursive fib, map/reduce written in
+ * Monkey, hash lookups and string building. Programs are parsed (and
+ * compiled, for the VM) once in setup, so only execution is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+    @Param({"eval", "vm", "specializing"})
+    String engine;
+
+    Program fib;
+    Program mapReduce;
+    Program hashLookups;
+    Program stringBuilding;
+    Bytecode fibCode;
+    Bytecode mapReduceCode;
+    Bytecode hashLookupsCode;
+    Bytecode stringBuildingCode;
+
+    @Setup
+    public void setup() {
+        fib = Scripts.parse(Scripts.FIB);
+        mapReduce = Scripts.parse(Scripts.MAP_REDUCE);
+        hashLookups = Scripts.parse(Scripts.HASH_LOOKUPS);
+        stringBuilding = Scripts.parse(Scripts.STRING_BUILDING);
+        fibCode = compile(fib);
+        mapReduceCode = compile(mapReduce);
+        hashLookupsCode = compile(hashLookups);
+        stringBuildingCode = compile(stringBuilding);
+    }
+
+    private static Bytecode compile(Program program) {
+        Compiler compiler = new Compiler();
+        compiler.compile(program);
+        return compiler.bytecode();
+    }
+
+    private MonkeyObject run(Program program, Bytecode code) {
+        MonkeyObject result;
+        if (engine.equals("vm")) {
+            result = new VM(code).run();
+        } else if (engine.equals("specializing")) {
+            result = SpecializingInterpreter.eval(program, new Environment());
+        } else {
+            result = Evaluator.eval(program, new Environment());
+        }
+        if (result instanceof MonkeyError) {
+            throw new IllegalStateException(result.Inspect());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public MonkeyObject fib25() {
+        return run(fib, fibCode);
+    }
+
+    @Benchmark
+    public MonkeyObject mapReduce() {
+        return run(mapReduce, mapReduceCode);
+    }
+
+    @Benchmark
+    public MonkeyObject hashLookups() {
+        return run(hashLookups, hashLookupsCode);
+    }
+
+    @Benchmark
+    public MonkeyObject stringBuilding() {
+        return run(stringBuilding, stringBuildingCode);
+    }
+}
@@ -0,0 +1,57 @@
+package benchmarks;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import monkeyobject.HashKey;
+import monkeyobject.HashPair;
+import monkeyobject.MonkeyHash;
+import monkeyobject.MonkeyInt;
+
+/*
+ * Builds a hash one key at a time while keeping every intermediate
+ * version alive, which is what `put` does in Monkey code: the trie-backed
+ * MonkeyHash against copying a HashMap on every update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashBenchmark {
+    @Param({"5000"})
+    int puts;
+
+    @Benchmark
+    public MonkeyHash trie() {
+        MonkeyHash hash = new MonkeyHash();
+        for (int i = 0; i < puts; i++) {
+            MonkeyInt key = MonkeyInt.valueOf(i);
+            hash = hash.put(key.getHashKey(), new HashPair(key, key));
+        }
+        return hash;
+    }
+
+    @Benchmark
+    public HashMap<HashKey, HashPair> copy() {
+        HashMap<HashKey, HashPair> pairs = new HashMap<>();
+        for (int i = 0; i < puts; i++) {
+            MonkeyInt key = MonkeyInt.valueOf(i);
+            pairs = new HashMap<>(pairs);
+            pairs.put(key.getHashKey(), new HashPair(key, key));
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import compiler.Bytecode;
+import compiler.BytecodeImage;
+import compiler.Compiler;
+
+/*
+ * Getting a large script ready to run on the VM from its source file
+ * (read, lex, parse, compile) against loading its bytecode image.
+ * -bm ss -i 1 -f 5 shows the cold start instead of steady state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageBenchmark {
+    @Param({"1000000"})
+    int chars;
+
+    Path source;
+    Path image;
+
+    @Setup
+    public void setup() throws IOException {
+        source = Files.createTempFile("monkey", ".monkey");
+        image = Files.createTempFile("monkey", ".mkc");
+        Files.writeString(source, Scripts.large(chars), StandardCharsets.UTF_8);
+        BytecodeImage.write(fromSource(), image);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(image);
+    }
+
+    @Benchmark
+    public Bytecode fromSource() throws IOException {
+        Compiler compiler = new Compiler();
+        compiler.compile(Scripts.parse(Files.readString(source, StandardCharsets.UTF_8)));
+        return compiler.bytecode();
+    }
+
+    @Benchmark
+    public Bytecode fromImage() throws IOException {
+        return BytecodeImage.read(image);
+    }
+}
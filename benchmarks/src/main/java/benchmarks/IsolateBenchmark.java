@@ -0,0 +1,75 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ast.Program;
+import isolate.Isolate;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyObject;
+import repl.Engine;
+
+/*
+ * One shared program evaluated over and over in an isolate per thread.
+ * Isolates share nothing mutable, so throughput should grow with the
+ * thread count until the cores run out; compare runs with -t 1, -t 2,
+ * -t 4 and so on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IsolateBenchmark {
+    static final String TENANT_PROGRAM =
+        "let counter = counter + 1;"
+        + "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } };"
+        + "let data = {\"id\": id, \"fib\": fib(12), \"items\": push([1, 2, 3], id)};"
+        + "data[\"fib\"] + data[\"items\"][3] * 1000 + counter * 1000000;";
+
+    @Param({"EVALUATOR", "VM", "SPECIALIZING"})
+    Engine engine;
+
+    Program program;
+    final AtomicInteger ids = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+        program = Scripts.parse(TENANT_PROGRAM);
+    }
+
+    /* Each thread's own tenant. */
+    @State(Scope.Thread)
+    public static class Tenant {
+        Isolate isolate;
+
+        @Setup
+        public void setup(IsolateBenchmark shared) {
+            isolate = new Isolate(shared.engine);
+            isolate.define("id", MonkeyInt.valueOf(shared.ids.getAndIncrement()));
+            isolate.define("counter", MonkeyInt.valueOf(0));
+        }
+    }
+
+    @Benchmark
+    public MonkeyObject eval(Tenant tenant) {
+        MonkeyObject result = tenant.isolate.eval(program);
+        if (!(result instanceof MonkeyInt)) {
+            throw new IllegalStateException(result.Inspect());
+        }
+        return result;
+    }
+}
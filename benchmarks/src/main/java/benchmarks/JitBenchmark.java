@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ast.Program;
+import evaluator.Evaluator;
+import jit.Jit;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyObject;
+
+/* Recursive fib on the tree-walker with and without the JIT. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JitBenchmark {
+    @Param({"true", "false"})
+    boolean jit;
+
+    Program fib;
+
+    @Setup
+    public void setup() {
+        fib = Scripts.parse(Scripts.FIB);
+        Jit.setEnabled(jit);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Jit.setEnabled(true);
+    }
+
+    @Benchmark
+    public MonkeyObject fib() {
+        return Evaluator.eval(fib, new Environment());
+    }
+}
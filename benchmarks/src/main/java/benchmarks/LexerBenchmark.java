@@ -0,0 +1,55 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lexer.Lexer;
+import lexer.TokenBuffer;
+import token.Token;
+
+/* Lexing a large generated script, token by token and into a TokenBuffer. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+    @Param({"1000000"})
+    int chars;
+
+    char[] source;
+    TokenBuffer buffer;
+
+    @Setup
+    public void setup() {
+        source = Scripts.large(chars).toCharArray();
+        buffer = new TokenBuffer();
+    }
+
+    @Benchmark
+    public int nextToken() {
+        Lexer l = new Lexer(source);
+        int count = 0;
+        while (l.nextToken().type != Token.EOF) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int tokenize() {
+        return new Lexer(source).tokenize(buffer).size();
+    }
+}
@@ -0,0 +1,119 @@
+package benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ast.Program;
+import compiler.Bytecode;
+import compiler.Compiler;
+import evaluator.Evaluator;
+import evaluator.ParallelArrays;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyObject;
+import specializer.SpecializingInterpreter;
+import vm.VM;
+
+/*
+ * map against pmap over the same CPU-bound function, with pmap on a
+ * pool of each size in threads. The function only does arithmetic, so
+ * pmap is allowed to split it up (see FunctionLiteral.pure).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelBenchmark {
+    @Param({"eval", "vm", "specializing"})
+    String engine;
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    @Param({"4096"})
+    int elements;
+
+    Program map;
+    Program pmap;
+    Bytecode mapCode;
+    Bytecode pmapCode;
+    ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        map = Scripts.parse(program("map"));
+        pmap = Scripts.parse(program("pmap"));
+        mapCode = compile(map);
+        pmapCode = compile(pmap);
+        pool = new ForkJoinPool(threads);
+        ParallelArrays.setPool(pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ParallelArrays.setPool(ForkJoinPool.commonPool());
+        pool.shutdown();
+    }
+
+    /* Sums f over an array of elements, f being two hundred lets of arithmetic. */
+    private String program(String builtin) {
+        StringBuilder work = new StringBuilder("let a = x;");
+        String last = "a";
+        for (int i = 0; i < 100; i++) {
+            String next = Scripts.name(i);
+            work.append("let ").append(next).append(" = ").append(last).append(" * 31 + ")
+                .append(i).append(";")
+                .append("let ").append(next).append(" = ").append(next).append(" - ")
+                .append(next).append(" / 1000003 * 1000003;");
+            last = next;
+        }
+        return "let xs = pmap(range(0, " + elements + "), fn(x) { x });"
+            + "reduce(" + builtin + "(xs, fn(x) { " + work + last + " }), 0, fn(a, b) { a + b });";
+    }
+
+    private static Bytecode compile(Program program) {
+        Compiler compiler = new Compiler();
+        compiler.compile(program);
+        return compiler.bytecode();
+    }
+
+    private MonkeyObject run(Program program, Bytecode code) {
+        MonkeyObject result;
+        if (engine.equals("vm")) {
+            result = new VM(code).run();
+        } else if (engine.equals("specializing")) {
+            result = SpecializingInterpreter.eval(program, new Environment());
+        } else {
+            result = Evaluator.eval(program, new Environment());
+        }
+        if (result instanceof MonkeyError) {
+            throw new IllegalStateException(result.Inspect());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public MonkeyObject map() {
+        return run(map, mapCode);
+    }
+
+    @Benchmark
+    public MonkeyObject pmap() {
+        return run(pmap, pmapCode);
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ast.Program;
+
+/* Parsing deeply nested expressions, a large script, and a small snippet. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"500"})
+    int depth;
+
+    String nested;
+    String large;
+
+    @Setup
+    public void setup() {
+        nested = Scripts.nested(depth);
+        large = Scripts.large(200000);
+    }
+
+    @Benchmark
+    public Program nestedExpression() {
+        return Scripts.parse(nested);
+    }
+
+    @Benchmark
+    public Program largeScript() {
+        return Scripts.parse(large);
+    }
+
+    @Benchmark
+    public Program smallSnippet() {
+        return Scripts.parse("let add = fn(a, b) { a + b }; add(1, 2);");
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import ast.Program;
+import lexer.Lexer;
+import parser.Parser;
+
+/* Monkey sources shared by the suites. */
+final class Scripts {
+    private Scripts() {}
+
+    static final String FIB =
+        "let fib = fn(n) { if (n < 2) { return n; } fib(n - 1) + fib(n - 2) }; fib(25);";
+
+    static final String MAP_REDUCE =
+        "let map = fn(arr, f) {"
+        + "  let iter = fn(arr, acc) { if (len(arr) == 0) { acc } else { iter(rest(arr), push(acc, f(first(arr)))) } };"
+        + "  iter(arr, [])"
+        + "};"
+        + "let reduce = fn(arr, initial, f) {"
+        + "  let iter = fn(arr, result) { if (len(arr) == 0) { result } else { iter(rest(arr), f(result, first(arr))) } };"
+        + "  iter(arr, initial)"
+        + "};"
+        + "let range = fn(n, acc) { if (n == 0) { acc } else { range(n - 1, push(acc, n)) } };"
+        + "let xs = range(2000, []);"
+        + "reduce(map(xs, fn(x) { x * 2 }), 0, fn(a, b) { a + b });";
+
+    static final String HASH_LOOKUPS =
+        "let fill = fn(h, i, n) { if (i == n) { h } else { fill(put(h, i, i * i), i + 1, n) } };"
+        + "let h = fill({}, 0, 1000);"
+        + "let sum = fn(i, acc) { if (i == 1000) { acc } else { sum(i + 1, acc + h[i]) } };"
+        + "sum(0, 0);";
+
+    static final String STRING_BUILDING =
+        "let build = fn(s, n) { if (n == 0) { return s; } build(s + \"<td>cell</td>\", n - 1) };"
+        + "len(build(\"\", 100000));";
+
+    /* Identifiers can't contain digits, so number them in letters. */
+    static String name(int i) {
+        StringBuilder out = new StringBuilder("helper");
+        do {
+            out.append((char)('a' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return out.toString();
+    }
+
+    /* A script of roughly the given number of characters. */
+    static String large(int chars) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; out.length() < chars; i++) {
+            out.append("let ").append(name(i)).append(" = fn(x, y) {\n")
+               .append("    if (x < y) { return x * ").append(i).append(" + y; }\n")
+               .append("    let total = [x, y, \"label\"][0] - ").append(name(i)).append("(y, x);\n")
+               .append("    {\"total\": total, \"ok\": total != 0}\n")
+               .append("};\n");
+        }
+        return out.toString();
+    }
+
+    /* ((((1 + 1) * 2) + 3) ...) nested the given number of levels deep. */
+    static String nested(int depth) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            out.append('(');
+        }
+        out.append('1');
+        for (int i = 0; i < depth; i++) {
+            out.append(i % 2 == 0 ? " + " : " * ").append(i).append(')');
+        }
+        return out.toString();
+    }
+
+    static Program parse(String source) {
+        Parser p = new Parser(new Lexer(source));
+        Program program = p.parseProgram();
+        if (!p.errors.isEmpty()) {
+            throw new IllegalStateException(String.join("\n", p.errors));
+        }
+        return program;
+    }
+}
@@ -0,0 +1,93 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ast.Program;
+import compiler.Bytecode;
+import compiler.Compiler;
+import evaluator.Evaluator;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyObject;
+import specializer.SpecializingInterpreter;
+import vm.VM;
+
+/*
+ * Sums the doubled multiples of 3 below elements, once over an index
+ * array built by recursive push and once over range. -prof gc shows how
+ * much less the lazy pipeline allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SequenceBenchmark {
+    @Param({"eval", "vm", "specializing"})
+    String engine;
+
+    @Param({"1000000"})
+    int elements;
+
+    Program arrays;
+    Program sequences;
+    Bytecode arraysCode;
+    Bytecode sequencesCode;
+
+    @Setup
+    public void setup() {
+        arrays = Scripts.parse(
+            "let numbers = fn(n, acc) { if (n == 0) { acc } else { numbers(n - 1, push(acc, n - 1)) } };"
+            + "reduce(map(filter(numbers(" + elements + ", []), fn(x) { x / 3 * 3 == x }),"
+            + " fn(x) { x * 2 }), 0, fn(a, b) { a + b });");
+        sequences = Scripts.parse(
+            "reduce(map(filter(range(0, " + elements + "), fn(x) { x / 3 * 3 == x }),"
+            + " fn(x) { x * 2 }), 0, fn(a, b) { a + b });");
+        arraysCode = compile(arrays);
+        sequencesCode = compile(sequences);
+    }
+
+    private static Bytecode compile(Program program) {
+        Compiler compiler = new Compiler();
+        compiler.compile(program);
+        return compiler.bytecode();
+    }
+
+    private MonkeyObject run(Program program, Bytecode code) {
+        MonkeyObject result;
+        if (engine.equals("vm")) {
+            result = new VM(code).run();
+        } else if (engine.equals("specializing")) {
+            result = SpecializingInterpreter.eval(program, new Environment());
+        } else {
+            result = Evaluator.eval(program, new Environment());
+        }
+        if (result instanceof MonkeyError) {
+            throw new IllegalStateException(result.Inspect());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public MonkeyObject arrays() {
+        return run(arrays, arraysCode);
+    }
+
+    @Benchmark
+    public MonkeyObject sequences() {
+        return run(sequences, sequencesCode);
+    }
+}
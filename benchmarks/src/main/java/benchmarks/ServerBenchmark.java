@@ -0,0 +1,83 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cache.ProgramCache;
+import repl.Engine;
+import server.Response;
+import server.ScriptClient;
+import server.ScriptServer;
+
+/*
+ * Round trips to a ScriptServer on localhost, each benchmark thread
+ * sending the same small script over its own connection. Sampling mode
+ * reports the p50 and p99 latency; -t sets the number of clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class ServerBenchmark {
+    static final String SCRIPT =
+        "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } }; fib(10);";
+
+    @Param({"EVALUATOR", "VM", "SPECIALIZING"})
+    Engine engine;
+
+    ScriptServer server;
+    int port;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new ScriptServer(engine, new ProgramCache());
+        port = server.listen(0);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    /* Each thread's own connection. */
+    @State(Scope.Thread)
+    public static class Client {
+        ScriptClient client;
+
+        @Setup
+        public void setup(ServerBenchmark shared) throws IOException {
+            client = new ScriptClient(shared.port);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            client.close();
+        }
+    }
+
+    @Benchmark
+    public Response request(Client client) throws IOException {
+        Response response = client.client.eval(SCRIPT);
+        if (!response.ok) {
+            throw new IllegalStateException(response.body);
+        }
+        return response;
+    }
+}
@@ -6,6 +6,8 @@ public class CallExpression implements Expression{
     Token token;
     public Expression function;
     public Expression[] arguments;
+    /* Set by the resolver when the call's value is its function's result. */
+    public boolean tail = false;
 
     public CallExpression(Token token, Expression function) {
         this.token = token;
@@ -18,6 +20,14 @@ public class CallExpression implements Expression{
         return token.literal;
     }
 
+    public int line() {
+        return token.line;
+    }
+
+    public int column() {
+        return token.column;
+    }
+
     public String toString() {
         String output = function.toString();
 
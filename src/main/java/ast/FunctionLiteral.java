@@ -8,6 +8,16 @@ public class FunctionLiteral implements Expression{
     Token token;
     public ArrayList<Identifier> parameters;
     public BlockStatement body;
+    /* Number of slots a call frame needs, or -1 if never resolved. */
+    public int frameSize = -1;
+    /* Name of the let that binds it, or null for an anonymous function. */
+    public String name;
+    /*
+     * False if the body, or a function nested in it, calls anything but
+     * one of Resolver.LEAF_BUILTINS. Other functions and parameters could
+     * do anything, so they are not followed.
+     */
+    public boolean pure = true;
 
     public FunctionLiteral(Token token) {
         this.token = token;
@@ -19,6 +29,14 @@ public class FunctionLiteral implements Expression{
         return token.literal;
     }
 
+    public int line() {
+        return token.line;
+    }
+
+    public int column() {
+        return token.column;
+    }
+
     public String toString() {
         String output = getTokenLiteral();
 
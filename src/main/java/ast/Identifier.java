@@ -5,6 +5,13 @@ import token.Token;
 public class Identifier implements Expression {
     Token token;
     public String value;
+    /*
+     * Filled in by resolver.Resolver: how many frames out the binding
+     * lives and its index there. A slot of -1 means the name has to be
+     * looked up by name, starting that many frames out.
+     */
+    public int depth = 0;
+    public int slot = -1;
 
     public Identifier(Token token, String value){
         this.token = token;
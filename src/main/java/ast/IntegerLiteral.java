@@ -1,13 +1,18 @@
 package ast;
 
+import monkeyobject.MonkeyInt;
 import token.Token;
 
 public class IntegerLiteral implements Expression{
     Token token;
-    public long value;
+    public final long value;
+    /* The value as an object, made once so evaluating the literal never allocates. */
+    public final MonkeyInt constant;
 
-    public IntegerLiteral(Token token) {
+    public IntegerLiteral(Token token, long value) {
         this.token = token;
+        this.value = value;
+        this.constant = MonkeyInt.valueOf(value);
     }
 
     public void expressionNode() {}
@@ -1,5 +1,11 @@
 package ast;
 
+/*
+ * Nothing writes to a program's nodes once Parser.parseProgram has
+ * returned it: the resolver's annotations are filled in before that, and
+ * the engines only read the tree. So one parsed program can be evaluated
+ * by any number of threads at once.
+ */
 public class Program implements Node{
     public Statement[] statements;
 
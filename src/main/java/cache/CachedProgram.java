@@ -0,0 +1,49 @@
+package cache;
+
+import java.util.List;
+
+import ast.Program;
+import compiler.Bytecode;
+import compiler.Compiler;
+
+/*
+ * The front-end output for one source text. Instances are shared between
+ * every caller that asks the cache for the same source, so the program
+ * is treated as read-only: evaluate it, never rewrite it.
+ */
+public final class CachedProgram {
+    public final String source;
+    public final Program program;
+    public final List<String> errors;
+    private volatile Bytecode bytecode;
+
+    CachedProgram(String source, Program program, List<String> errors) {
+        this.source = source;
+        this.program = program;
+        this.errors = List.copyOf(errors);
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    /*
+     * Bytecode for running the program on a fresh VM, compiled the first
+     * time it's asked for.
+     */
+    public Bytecode bytecode() {
+        Bytecode compiled = bytecode;
+        if (compiled == null) {
+            synchronized (this) {
+                compiled = bytecode;
+                if (compiled == null) {
+                    Compiler compiler = new Compiler();
+                    compiler.compile(program);
+                    compiled = compiler.bytecode();
+                    bytecode = compiled;
+                }
+            }
+        }
+        return compiled;
+    }
+}
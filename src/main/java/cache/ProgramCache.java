@@ -0,0 +1,136 @@
+package cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import lexer.Lexer;
+import monkeyobject.HashKey;
+import parser.Parser;
+
+/*
+ * Remembers parsed programs by source text, so running the same snippet
+ * again skips the lexer and parser. Entries are found by a 64-bit hash of
+ * the source and then compared in full, so a hash collision can never
+ * hand back the wrong program.
+ *
+ * Eviction is least-recently-used and kicks in when either the number of
+ * entries or their total source length goes over its limit. All methods
+ * are safe to call from several threads; parsing happens outside the
+ * lock, so two threads missing on the same source at once may both parse
+ * it, but only one result is kept.
+ */
+public class ProgramCache {
+    public final static int DEFAULT_MAX_ENTRIES = 1024;
+    public final static long DEFAULT_MAX_SOURCE_CHARS = 16L << 20;
+
+    private final int maxEntries;
+    private final long maxSourceChars;
+    private final LinkedHashMap<Key, CachedProgram> entries =
+        new LinkedHashMap<>(16, 0.75f, true);
+    private long sourceChars;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ProgramCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_SOURCE_CHARS);
+    }
+
+    public ProgramCache(int maxEntries, long maxSourceChars) {
+        if (maxEntries < 1 || maxSourceChars < 1) {
+            throw new IllegalArgumentException("cache limits must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxSourceChars = maxSourceChars;
+    }
+
+    private static class Key {
+        final long hash;
+        final String source;
+
+        Key(String source) {
+            this.hash = HashKey.hashString(source);
+            this.source = source;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            } else if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)o;
+            return hash == other.hash && source.equals(other.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int)(hash ^ (hash >>> 32));
+        }
+    }
+
+    public CachedProgram get(String source) {
+        Key key = new Key(source);
+        synchronized (entries) {
+            CachedProgram cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        misses.increment();
+        Parser p = new Parser(new Lexer(source));
+        CachedProgram parsed = new CachedProgram(source, p.parseProgram(), p.errors);
+
+        synchronized (entries) {
+            CachedProgram raced = entries.putIfAbsent(key, parsed);
+            if (raced != null) {
+                return raced;
+            }
+            sourceChars += source.length();
+            evict();
+        }
+        return parsed;
+    }
+
+    /* Caller holds the lock. Always keeps the newest entry. */
+    private void evict() {
+        Iterator<Map.Entry<Key, CachedProgram>> eldest = entries.entrySet().iterator();
+        while (entries.size() > 1
+               && (entries.size() > maxEntries || sourceChars > maxSourceChars)) {
+            sourceChars -= eldest.next().getKey().source.length();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            sourceChars = 0;
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+}
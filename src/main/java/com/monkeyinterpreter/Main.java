@@ -1,12 +1,235 @@
 package com.monkeyinterpreter;
 
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import ast.Program;
+import cache.ProgramCache;
+import compiler.Bytecode;
+import compiler.BytecodeImage;
+import compiler.CompileException;
+import compiler.Compiler;
+import evaluator.EvaluationContext;
+import evaluator.Evaluator;
+import evaluator.Profiler;
+import jit.Jit;
+import lexer.Lexer;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyObject;
+import parser.Parser;
+import repl.Engine;
 import repl.REPL;
+import server.ScriptServer;
+import vm.VM;
 
 public class Main {
+    private final static int DEFAULT_PORT = 7070;
+
     public static void main(String[] args) {
+        Engine engine = Engine.EVALUATOR;
+        int maxFrames = VM.MAX_FRAMES;
+        String script = null;
+        String command = null;
+        String output = null;
+        String profile = null;
+        int port = DEFAULT_PORT;
+        boolean stdin = false;
+        long maxSteps = -1;
+        long timeoutMillis = -1;
+        long maxMemory = -1;
+        int first = 0;
+        if (args.length > 0 && (args[0].equals("compile") || args[0].equals("run")
+                                || args[0].equals("serve"))) {
+            command = args[0];
+            first = 1;
+        }
+
+        for (int i = first; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--engine=vm")) {
+                engine = Engine.VM;
+            } else if (arg.equals("--engine=specializing")) {
+                engine = Engine.SPECIALIZING;
+            } else if (arg.equals("--engine=eval")) {
+                engine = Engine.EVALUATOR;
+            } else if (arg.equals("--unboxed-arithmetic")) {
+                Evaluator.setUnboxedArithmetic(true);
+            } else if (arg.startsWith("--profile=")) {
+                profile = arg.substring("--profile=".length());
+            } else if (arg.startsWith("--port=")) {
+                port = (int)longFlag(arg, "--port=");
+            } else if (arg.equals("--stdin")) {
+                stdin = true;
+            } else if (arg.startsWith("--max-steps=")) {
+                maxSteps = longFlag(arg, "--max-steps=");
+            } else if (arg.startsWith("--timeout-ms=")) {
+                timeoutMillis = longFlag(arg, "--timeout-ms=");
+            } else if (arg.startsWith("--max-memory=")) {
+                maxMemory = longFlag(arg, "--max-memory=");
+            } else if (arg.startsWith("--max-frames=")) {
+                try {
+                    maxFrames = Integer.parseInt(arg.substring("--max-frames=".length()));
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid frame limit: %s\n", arg);
+                    System.exit(1);
+                }
+            } else if (!arg.startsWith("--") && script == null) {
+                script = arg;
+            } else if (!arg.startsWith("--") && "compile".equals(command) && output == null) {
+                output = arg;
+            } else {
+                System.err.printf("Unknown argument: %s\n", arg);
+                System.exit(1);
+            }
+        }
+
+        if ("serve".equals(command)) {
+            ScriptServer server = new ScriptServer(engine, new ProgramCache());
+            server.setMaxFrames(maxFrames);
+            server.setFuel(maxSteps);
+            server.setTimeout(timeoutMillis);
+            server.setMemoryLimit(maxMemory);
+            serve(server, port, stdin);
+            return;
+        } else if (command != null && script == null) {
+            System.err.println("usage: Main compile <script> [image] | Main run <image> | Main serve");
+            System.exit(1);
+        } else if ("compile".equals(command)) {
+            compile(script, output != null ? output : imageName(script));
+            return;
+        } else if ("run".equals(command)) {
+            run(script, maxFrames, REPL.newContext(maxSteps, timeoutMillis, maxMemory));
+            return;
+        }
+
+        if (profile != null) {
+            if (engine != Engine.EVALUATOR) {
+                System.err.println("--profile needs --engine=eval");
+                System.exit(1);
+            }
+            // Compiled functions call each other out of the profiler's sight.
+            Jit.setEnabled(false);
+            Evaluator.setProfiler(new Profiler());
+        }
+
+        if (script != null) {
+            try {
+                REPL.runFile(Path.of(script), engine, maxFrames, maxSteps, timeoutMillis, maxMemory);
+            } catch (IOException e) {
+                System.err.printf("Could not read %s: %s\n", script, e.getMessage());
+                System.exit(1);
+            }
+            writeProfile(profile);
+            return;
+        }
+
         System.out.println("Hello! Welcome to the Monkey programming language!");
         System.out.println("Feel free to type in commands.");
         System.out.println("Type .quit to quit.");
-        REPL.start();
+        REPL.start(engine, maxFrames, maxSteps, timeoutMillis, maxMemory);
+        writeProfile(profile);
+    }
+
+    /* Collapsed stacks go to the file for flame graph tools, a summary to stderr. */
+    private static void writeProfile(String file) {
+        Profiler profiler = Evaluator.getProfiler();
+        if (file == null || profiler == null) {
+            return;
+        }
+
+        try (Writer out = Files.newBufferedWriter(Path.of(file))) {
+            profiler.writeCollapsed(out);
+        } catch (IOException e) {
+            System.err.printf("Could not write %s: %s\n", file, e.getMessage());
+            System.exit(1);
+        }
+        System.err.print(profiler.report());
+    }
+
+    private static long longFlag(String arg, String name) {
+        try {
+            return Long.parseLong(arg.substring(name.length()));
+        } catch (NumberFormatException e) {
+            System.err.printf("Invalid number: %s\n", arg);
+            System.exit(1);
+            return -1;
+        }
+    }
+
+    /*
+     * Serves scripts on a loopback port until killed, or over stdin and
+     * stdout until stdin ends. Scripts' puts output goes to stderr then,
+     * so it can't get mixed into the responses.
+     */
+    private static void serve(ScriptServer server, int port, boolean stdin) {
+        try {
+            if (stdin) {
+                PrintStream out = System.out;
+                System.setOut(System.err);
+                server.serve(System.in, out);
+                server.close();
+                return;
+            }
+
+            int bound = server.listen(port);
+            System.err.printf("Serving scripts on 127.0.0.1:%d (%s threads)\n", bound,
+                              server.usesVirtualThreads() ? "virtual" : "platform");
+            Thread.currentThread().join();
+        } catch (IOException e) {
+            System.err.printf("Server failed: %s\n", e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String imageName(String script) {
+        int dot = script.lastIndexOf('.');
+        return (dot > 0 ? script.substring(0, dot) : script) + ".mkc";
+    }
+
+    /* Compiles a script to a bytecode image that `run` can start directly. */
+    private static void compile(String script, String output) {
+        try {
+            Parser p = new Parser(Lexer.mapFile(Path.of(script)));
+            Program prog = p.parseProgram();
+            if (p.errors.size() > 0) {
+                for (String msg : p.errors) {
+                    System.err.printf("%s: %s\n", script, msg);
+                }
+                System.exit(1);
+            }
+
+            Compiler compiler = new Compiler();
+            compiler.compile(prog);
+            BytecodeImage.write(compiler.bytecode(), Path.of(output));
+        } catch (IOException | CompileException e) {
+            System.err.printf("Could not compile %s: %s\n", script, e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void run(String image, int maxFrames, EvaluationContext context) {
+        Bytecode bytecode;
+        try {
+            bytecode = BytecodeImage.read(Path.of(image));
+        } catch (IOException e) {
+            System.err.printf("Could not load %s: %s\n", image, e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        VM machine = new VM(bytecode);
+        machine.setMaxFrames(maxFrames);
+        if (context != null) {
+            machine.setContext(context);
+        }
+        MonkeyObject result = machine.run();
+        if (result instanceof MonkeyError) {
+            System.out.printf("%s\n", result.Inspect());
+        }
     }
 }
@@ -0,0 +1,17 @@
+package compiler;
+
+import monkeyobject.MonkeyObject;
+
+public class Bytecode {
+    public byte[] instructions;
+    public MonkeyObject[] constants;
+    /* Names of the global slots, used for "identifier not found" errors. */
+    public String[] globalNames;
+
+    public Bytecode(byte[] instructions, MonkeyObject[] constants,
+        String[] globalNames) {
+        this.instructions = instructions;
+        this.constants = constants;
+        this.globalNames = globalNames;
+    }
+}
@@ -0,0 +1,238 @@
+package compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import evaluator.Evaluator;
+import monkeyobject.MonkeyCompiledFunction;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyObject;
+import monkeyobject.MonkeyString;
+
+/*
+ * On-disk form of compiled bytecode, so a deployment can compile its
+ * scripts ahead of time and start them without lexing or parsing.
+ *
+ * Layout, big-endian:
+ *
+ *   "MNKY"  u16 version  u32 payload length  u32 CRC32 of payload
+ *   payload:
+ *     builtin names      (string array; the compiler refers to builtins by index)
+ *     instructions       (u32 length, bytes)
+ *     constants          (u32 count, then per constant a u8 tag and its body)
+ *     global names       (string array)
+ *
+ * Strings are a u32 UTF-8 byte length followed by the bytes, with length
+ * 0xFFFFFFFF standing for null.
+ */
+public class BytecodeImage {
+    public final static int VERSION = 2;
+    private final static byte[] MAGIC = { 'M', 'N', 'K', 'Y' };
+    private final static int HEADER_SIZE = MAGIC.length + 2 + 4 + 4;
+
+    private final static int INTEGER_TAG = 1;
+    private final static int STRING_TAG = 2;
+    private final static int FUNCTION_TAG = 3;
+
+    private BytecodeImage() {}
+
+    public static byte[] write(Bytecode bytecode) {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        try (DataOutputStream payload = new DataOutputStream(payloadBytes)) {
+            writeStrings(payload, Evaluator.builtinNames());
+            writeBytes(payload, bytecode.instructions);
+            payload.writeInt(bytecode.constants.length);
+            for (MonkeyObject constant : bytecode.constants) {
+                writeConstant(payload, constant);
+            }
+            writeStrings(payload, bytecode.globalNames);
+        } catch (IOException e) {
+            throw new AssertionError("in-memory stream failed", e);
+        }
+
+        byte[] body = payloadBytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        ByteBuffer image = ByteBuffer.allocate(HEADER_SIZE + body.length);
+        image.put(MAGIC);
+        image.putShort((short)VERSION);
+        image.putInt(body.length);
+        image.putInt((int)crc.getValue());
+        image.put(body);
+        return image.array();
+    }
+
+    public static void write(Bytecode bytecode, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer image = ByteBuffer.wrap(write(bytecode));
+            while (image.hasRemaining()) {
+                channel.write(image);
+            }
+        }
+    }
+
+    /* Reads the whole file into one buffer and decodes it. */
+    public static Bytecode read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("image too large: " + size + " bytes");
+            }
+            ByteBuffer image = ByteBuffer.allocate((int)size);
+            while (image.hasRemaining() && channel.read(image) >= 0) {
+            }
+            image.flip();
+            return read(image);
+        }
+    }
+
+    public static Bytecode read(ByteBuffer image) throws IOException {
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            image.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("not a Monkey bytecode image");
+            }
+            int version = image.getShort();
+            if (version != VERSION) {
+                throw new IOException("unsupported image version " + version
+                                      + ", expected " + VERSION);
+            }
+            int length = image.getInt();
+            int checksum = image.getInt();
+            if (length != image.remaining()) {
+                throw new IOException("image is truncated or has trailing bytes");
+            }
+
+            ByteBuffer payload = image.slice();
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if ((int)crc.getValue() != checksum) {
+                throw new IOException("image checksum mismatch");
+            }
+
+            String[] builtins = readStrings(payload);
+            if (!Arrays.equals(builtins, Evaluator.builtinNames())) {
+                throw new IOException("image was compiled against different builtins");
+            }
+            byte[] instructions = readBytes(payload);
+            MonkeyObject[] constants = new MonkeyObject[readCount(payload, 1)];
+            for (int i = 0; i < constants.length; i++) {
+                constants[i] = readConstant(payload);
+            }
+            String[] globalNames = readStrings(payload);
+            return new Bytecode(instructions, constants, globalNames);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("image is truncated", e);
+        }
+    }
+
+    private static void writeConstant(DataOutputStream out, MonkeyObject constant)
+            throws IOException {
+        if (constant instanceof MonkeyInt) {
+            out.writeByte(INTEGER_TAG);
+            out.writeLong(((MonkeyInt)constant).value);
+        } else if (constant instanceof MonkeyString) {
+            out.writeByte(STRING_TAG);
+            writeString(out, ((MonkeyString)constant).value());
+        } else if (constant instanceof MonkeyCompiledFunction) {
+            MonkeyCompiledFunction fn = (MonkeyCompiledFunction)constant;
+            out.writeByte(FUNCTION_TAG);
+            out.writeInt(fn.numLocals);
+            out.writeInt(fn.numParameters);
+            writeBytes(out, fn.instructions);
+            writeStrings(out, fn.localNames);
+            out.writeBoolean(fn.pure);
+        } else {
+            throw new IllegalArgumentException("can't store constant of type " + constant.Type());
+        }
+    }
+
+    private static MonkeyObject readConstant(ByteBuffer in) throws IOException {
+        int tag = in.get();
+        switch (tag) {
+            case INTEGER_TAG:
+                return MonkeyInt.valueOf(in.getLong());
+            case STRING_TAG:
+                return new MonkeyString(readString(in));
+            case FUNCTION_TAG:
+                int numLocals = in.getInt();
+                int numParameters = in.getInt();
+                byte[] instructions = readBytes(in);
+                MonkeyCompiledFunction fn = new MonkeyCompiledFunction(instructions, numLocals,
+                                                                       numParameters,
+                                                                       readStrings(in));
+                fn.pure = in.get() != 0;
+                return fn;
+            default:
+                throw new IOException("unknown constant tag " + tag);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /*
+     * A length or count read from the image, checked against the bytes
+     * left before anything is allocated for it: a corrupt or hostile
+     * image must not get to ask for a 2 GB array.
+     */
+    private static int readCount(ByteBuffer in, int bytesEach) throws IOException {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / bytesEach) {
+            throw new IOException("image is truncated");
+        }
+        return count;
+    }
+
+    private static byte[] readBytes(ByteBuffer in) throws IOException {
+        byte[] bytes = new byte[readCount(in, 1)];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        if (str == null) {
+            out.writeInt(-1);
+            return;
+        }
+        writeBytes(out, str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        if (in.getInt(in.position()) == -1) {
+            in.getInt();
+            return null;
+        }
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] strs) throws IOException {
+        out.writeInt(strs.length);
+        for (String str : strs) {
+            writeString(out, str);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer in) throws IOException {
+        // Every string takes at least its 4-byte length.
+        String[] strs = new String[readCount(in, 4)];
+        for (int i = 0; i < strs.length; i++) {
+            strs[i] = readString(in);
+        }
+        return strs;
+    }
+}
@@ -0,0 +1,14 @@
+package compiler;
+
+/*
+ * A program the VM can't represent, such as one with more constants or
+ * locals than its instructions can address. Callers that run bytecode
+ * report it like any other error.
+ */
+public class CompileException extends RuntimeException {
+    private final static long serialVersionUID = 1L;
+
+    public CompileException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,435 @@
+package compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+
+import ast.ArrayLiteral;
+import ast.BlockStatement;
+import ast.Bool;
+import ast.CallExpression;
+import ast.Expression;
+import ast.ExpressionStatement;
+import ast.FunctionLiteral;
+import ast.HashLiteral;
+import ast.Identifier;
+import ast.IfExpression;
+import ast.IndexExpression;
+import ast.InfixExpression;
+import ast.IntegerLiteral;
+import ast.LetStatement;
+import ast.Node;
+import ast.PrefixExpression;
+import ast.Program;
+import ast.ReturnStatement;
+import ast.Statement;
+import ast.StringLiteral;
+import evaluator.Evaluator;
+import monkeyobject.MonkeyCompiledFunction;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyObject;
+import monkeyobject.MonkeyString;
+import resolver.Resolver;
+
+/*
+ * Lowers an ast.Program into a flat instruction stream plus a constant pool
+ * for the vm package. Runtime errors (type mismatches, unknown identifiers,
+ * ...) are left to the VM so both engines report them identically.
+ *
+ * One difference remains: closures copy their free variables when they
+ * are made, so a function can't see a local let that comes after it
+ * (mutually recursive local functions), where the tree-walker looks the
+ * name up when it runs. Globals are declared up front and don't have
+ * this problem. Programs too large for the operand widths in Opcode
+ * throw a CompileException.
+ */
+public class Compiler {
+    private ArrayList<MonkeyObject> constants;
+    private SymbolTable symbolTable;
+    private ArrayList<CompilationScope> scopes = new ArrayList<>();
+    private int scopeIndex;
+
+    private static class EmittedInstruction {
+        byte opcode;
+        int position;
+
+        EmittedInstruction(byte opcode, int position) {
+            this.opcode = opcode;
+            this.position = position;
+        }
+    }
+
+    private static class CompilationScope {
+        ByteArrayOutputStream instructions = new ByteArrayOutputStream();
+        EmittedInstruction lastInstruction;
+        EmittedInstruction previousInstruction;
+        boolean pure = true;
+    }
+
+    public Compiler() {
+        this(newGlobalSymbolTable(), new ArrayList<>());
+    }
+
+    /*
+     * Lets the REPL keep globals and constants alive between lines.
+     */
+    public Compiler(SymbolTable symbolTable, ArrayList<MonkeyObject> constants) {
+        this.symbolTable = symbolTable;
+        this.constants = constants;
+        scopes.add(new CompilationScope());
+    }
+
+    public static SymbolTable newGlobalSymbolTable() {
+        SymbolTable table = new SymbolTable();
+        String[] names = Evaluator.builtinNames();
+        for (int i = 0; i < names.length; i++) {
+            table.defineBuiltin(i, names[i]);
+        }
+        return table;
+    }
+
+    public Bytecode bytecode() {
+        return new Bytecode(currentInstructions(),
+                            constants.toArray(new MonkeyObject[0]),
+                            symbolTable.names());
+    }
+
+    public void compile(Node node) {
+        /* Program */
+        if (node instanceof Program) {
+            Statement[] statements = ((Program)node).statements;
+            declareGlobals(statements);
+            for (Statement stmt : statements) {
+                compile(stmt);
+            }
+        }
+        /* Statements */
+        else if (node instanceof BlockStatement) {
+            for (Statement stmt : ((BlockStatement)node).statements) {
+                compile(stmt);
+            }
+        } else if (node instanceof ExpressionStatement) {
+            Expression expr = ((ExpressionStatement)node).expression;
+            if (expr == null) {
+                return;
+            }
+            compile(expr);
+            emit(Opcode.POP);
+        } else if (node instanceof LetStatement) {
+            compileLetStatement((LetStatement)node);
+        } else if (node instanceof ReturnStatement) {
+            compile(((ReturnStatement)node).returnValue);
+            emit(Opcode.RETURN_VALUE);
+        }
+        /* Expressions */
+        else if (node instanceof CallExpression) {
+            CallExpression call = (CallExpression)node;
+            compile(call.function);
+            if (!callsLeafBuiltin(call)) {
+                // Functions around this one are no purer than it is.
+                for (int i = 1; i <= scopeIndex; i++) {
+                    scopes.get(i).pure = false;
+                }
+            }
+            for (Expression arg : call.arguments) {
+                compile(arg);
+            }
+            // The VM reuses the caller's frame for calls the resolver
+            // found in tail position.
+            emit(call.tail ? Opcode.TAIL_CALL : Opcode.CALL,
+                 call.arguments.length);
+        } else if (node instanceof IfExpression) {
+            compileIfExpression((IfExpression)node);
+        } else if (node instanceof InfixExpression) {
+            compileInfixExpression((InfixExpression)node);
+        } else if (node instanceof IndexExpression) {
+            compile(((IndexExpression)node).left);
+            compile(((IndexExpression)node).index);
+            emit(Opcode.INDEX);
+        } else if (node instanceof PrefixExpression) {
+            compile(((PrefixExpression)node).right);
+            switch (((PrefixExpression)node).operator) {
+                case "!":
+                    emit(Opcode.BANG);
+                    break;
+                case "-":
+                    emit(Opcode.MINUS);
+                    break;
+            }
+        }
+        /* Literals/Others */
+        else if (node instanceof ArrayLiteral) {
+            Expression[] elements = ((ArrayLiteral)node).elements;
+            for (Expression el : elements) {
+                compile(el);
+            }
+            emit(Opcode.ARRAY, elements.length);
+        } else if (node instanceof Bool) {
+            emit(((Bool)node).value ? Opcode.TRUE : Opcode.FALSE);
+        } else if (node instanceof FunctionLiteral) {
+            compileFunctionLiteral((FunctionLiteral)node, null);
+        } else if (node instanceof Identifier) {
+            compileIdentifier((Identifier)node);
+        } else if (node instanceof IntegerLiteral) {
+            MonkeyInt integer = ((IntegerLiteral)node).constant;
+            emit(Opcode.CONSTANT, addConstant(integer));
+        } else if (node instanceof HashLiteral) {
+            HashLiteral hash = (HashLiteral)node;
+            for (var entry : hash.pairs.entrySet()) {
+                compile(entry.getKey());
+                compile(entry.getValue());
+            }
+            emit(Opcode.HASH, hash.pairs.size() * 2);
+        } else if (node instanceof StringLiteral) {
+            MonkeyString str = new MonkeyString(((StringLiteral)node).value);
+            emit(Opcode.CONSTANT, addConstant(str));
+        }
+    }
+
+    /*
+     * Top-level functions may refer to globals that are bound further down
+     * the program (mutual recursion), which the tree-walker resolves lazily
+     * through its environment. Reserve their slots before compiling.
+     */
+    private void declareGlobals(Statement[] statements) {
+        for (Statement stmt : statements) {
+            if (stmt instanceof LetStatement) {
+                symbolTable.declareGlobal(((LetStatement)stmt).name.value);
+            }
+        }
+    }
+
+    private void compileLetStatement(LetStatement stmt) {
+        if (stmt.value instanceof FunctionLiteral) {
+            compileFunctionLiteral((FunctionLiteral)stmt.value,
+                                   stmt.name.value);
+        } else {
+            compile(stmt.value);
+        }
+
+        Symbol symbol = symbolTable.define(stmt.name.value);
+        if (symbol.scope == Symbol.GLOBAL_SCOPE) {
+            emit(Opcode.SET_GLOBAL, symbol.index);
+        } else {
+            emit(Opcode.SET_LOCAL, symbol.index);
+        }
+    }
+
+    /*
+     * The resolver's test, but by symbol, since a global the REPL defined
+     * on an earlier line can hide a builtin. The callee is compiled by
+     * now, so resolving it again defines nothing new.
+     */
+    private boolean callsLeafBuiltin(CallExpression call) {
+        if (!(call.function instanceof Identifier)) {
+            return false;
+        }
+        String name = ((Identifier)call.function).value;
+        Symbol symbol = symbolTable.resolve(name);
+        return symbol != null && symbol.scope == Symbol.BUILTIN_SCOPE
+            && Resolver.LEAF_BUILTINS.contains(name);
+    }
+
+    private void compileIdentifier(Identifier ident) {
+        Symbol symbol = symbolTable.resolve(ident.value);
+        if (symbol == null) {
+            symbol = symbolTable.declareGlobal(ident.value);
+        }
+        loadSymbol(symbol);
+    }
+
+    private void loadSymbol(Symbol symbol) {
+        switch (symbol.scope) {
+            case Symbol.GLOBAL_SCOPE:
+                emit(Opcode.GET_GLOBAL, symbol.index);
+                break;
+            case Symbol.LOCAL_SCOPE:
+                emit(Opcode.GET_LOCAL, symbol.index);
+                break;
+            case Symbol.BUILTIN_SCOPE:
+                emit(Opcode.GET_BUILTIN, symbol.index);
+                break;
+            case Symbol.FREE_SCOPE:
+                emit(Opcode.GET_FREE, symbol.index);
+                break;
+            case Symbol.FUNCTION_SCOPE:
+                emit(Opcode.CURRENT_CLOSURE);
+                break;
+        }
+    }
+
+    private void compileInfixExpression(InfixExpression expr) {
+        compile(expr.left);
+        compile(expr.right);
+
+        switch (expr.operator) {
+            case "+":
+                emit(Opcode.ADD);
+                break;
+            case "-":
+                emit(Opcode.SUB);
+                break;
+            case "*":
+                emit(Opcode.MUL);
+                break;
+            case "/":
+                emit(Opcode.DIV);
+                break;
+            case "<":
+                emit(Opcode.LESS_THAN);
+                break;
+            case ">":
+                emit(Opcode.GREATER_THAN);
+                break;
+            case "==":
+                emit(Opcode.EQUAL);
+                break;
+            case "!=":
+                emit(Opcode.NOT_EQUAL);
+                break;
+        }
+    }
+
+    private void compileIfExpression(IfExpression expr) {
+        compile(expr.condition);
+
+        // Bogus offsets, patched once the branches have been emitted.
+        int jumpNotTruthyPos = emit(Opcode.JUMP_NOT_TRUTHY, 9999);
+        compileBranch(expr.consequence);
+
+        int jumpPos = emit(Opcode.JUMP, 9999);
+        changeOperand(jumpNotTruthyPos, currentLength());
+
+        if (expr.alternative == null) {
+            emit(Opcode.NULL);
+        } else {
+            compileBranch(expr.alternative);
+        }
+        changeOperand(jumpPos, currentLength());
+    }
+
+    /*
+     * Branches of an if expression leave their value on the stack rather
+     * than popping it like a statement would.
+     */
+    private void compileBranch(BlockStatement block) {
+        compile(block);
+        if (lastInstructionIs(Opcode.POP)) {
+            removeLastInstruction();
+        } else {
+            emit(Opcode.NULL);
+        }
+    }
+
+    private void compileFunctionLiteral(FunctionLiteral fn, String name) {
+        enterScope();
+
+        if (name != null) {
+            symbolTable.defineFunctionName(name);
+        }
+        for (Identifier param : fn.parameters) {
+            symbolTable.define(param.value);
+        }
+
+        compile(fn.body);
+
+        if (lastInstructionIs(Opcode.POP)) {
+            replaceLastPopWithReturn();
+        }
+        if (!lastInstructionIs(Opcode.RETURN_VALUE)) {
+            emit(Opcode.RETURN);
+        }
+
+        ArrayList<Symbol> freeSymbols = symbolTable.freeSymbols;
+        int numLocals = symbolTable.numDefinitions;
+        String[] localNames = symbolTable.names();
+        boolean pure = scopes.get(scopeIndex).pure;
+        byte[] instructions = leaveScope();
+
+        for (Symbol free : freeSymbols) {
+            loadSymbol(free);
+        }
+
+        MonkeyCompiledFunction compiled = new MonkeyCompiledFunction(
+            instructions, numLocals, fn.parameters.size(), localNames);
+        compiled.pure = pure;
+        emit(Opcode.CLOSURE, addConstant(compiled), freeSymbols.size());
+    }
+
+    /* Helper Functions */
+    private int addConstant(MonkeyObject obj) {
+        constants.add(obj);
+        return constants.size() - 1;
+    }
+
+    private int emit(byte op, int... operands) {
+        CompilationScope scope = scopes.get(scopeIndex);
+        int position = scope.instructions.size();
+        scope.instructions.writeBytes(Opcode.make(op, operands));
+
+        scope.previousInstruction = scope.lastInstruction;
+        scope.lastInstruction = new EmittedInstruction(op, position);
+        return position;
+    }
+
+    private byte[] currentInstructions() {
+        return scopes.get(scopeIndex).instructions.toByteArray();
+    }
+
+    private int currentLength() {
+        return scopes.get(scopeIndex).instructions.size();
+    }
+
+    private void replaceInstructions(byte[] instructions) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(instructions);
+        scopes.get(scopeIndex).instructions = out;
+    }
+
+    private void changeOperand(int position, int operand) {
+        byte[] ins = currentInstructions();
+        byte[] patched = Opcode.make(ins[position], operand);
+        System.arraycopy(patched, 0, ins, position, patched.length);
+        replaceInstructions(ins);
+    }
+
+    private boolean lastInstructionIs(byte op) {
+        EmittedInstruction last = scopes.get(scopeIndex).lastInstruction;
+        return last != null && last.opcode == op;
+    }
+
+    private void removeLastInstruction() {
+        CompilationScope scope = scopes.get(scopeIndex);
+        byte[] ins = currentInstructions();
+        byte[] trimmed = new byte[scope.lastInstruction.position];
+        System.arraycopy(ins, 0, trimmed, 0, trimmed.length);
+        replaceInstructions(trimmed);
+
+        scope = scopes.get(scopeIndex);
+        scope.lastInstruction = scope.previousInstruction;
+    }
+
+    private void replaceLastPopWithReturn() {
+        CompilationScope scope = scopes.get(scopeIndex);
+        int position = scope.lastInstruction.position;
+        byte[] ins = currentInstructions();
+        ins[position] = Opcode.RETURN_VALUE;
+        replaceInstructions(ins);
+
+        scope = scopes.get(scopeIndex);
+        scope.lastInstruction.opcode = Opcode.RETURN_VALUE;
+    }
+
+    private void enterScope() {
+        scopes.add(new CompilationScope());
+        scopeIndex++;
+        symbolTable = new SymbolTable(symbolTable);
+    }
+
+    private byte[] leaveScope() {
+        byte[] instructions = currentInstructions();
+        scopes.remove(scopeIndex);
+        scopeIndex--;
+        symbolTable = symbolTable.outer;
+        return instructions;
+    }
+}
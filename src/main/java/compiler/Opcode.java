@@ -0,0 +1,141 @@
+package compiler;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Opcodes understood by the virtual machine. Every instruction is a single
+ * opcode byte followed by its operands, big-endian, with the widths given
+ * in OPERAND_WIDTHS.
+ */
+public final class Opcode {
+    public final static byte CONSTANT = 0;
+    public final static byte ADD = 1;
+    public final static byte SUB = 2;
+    public final static byte MUL = 3;
+    public final static byte DIV = 4;
+    public final static byte POP = 5;
+    public final static byte TRUE = 6;
+    public final static byte FALSE = 7;
+    public final static byte EQUAL = 8;
+    public final static byte NOT_EQUAL = 9;
+    public final static byte GREATER_THAN = 10;
+    public final static byte LESS_THAN = 11;
+    public final static byte MINUS = 12;
+    public final static byte BANG = 13;
+    public final static byte JUMP_NOT_TRUTHY = 14;
+    public final static byte JUMP = 15;
+    public final static byte NULL = 16;
+    public final static byte GET_GLOBAL = 17;
+    public final static byte SET_GLOBAL = 18;
+    public final static byte ARRAY = 19;
+    public final static byte HASH = 20;
+    public final static byte INDEX = 21;
+    public final static byte CALL = 22;
+    public final static byte RETURN_VALUE = 23;
+    public final static byte RETURN = 24;
+    public final static byte GET_LOCAL = 25;
+    public final static byte SET_LOCAL = 26;
+    public final static byte GET_BUILTIN = 27;
+    public final static byte CLOSURE = 28;
+    public final static byte GET_FREE = 29;
+    public final static byte CURRENT_CLOSURE = 30;
+    public final static byte TAIL_CALL = 31;
+
+    private final static String[] NAMES = {
+        "OpConstant", "OpAdd", "OpSub", "OpMul", "OpDiv", "OpPop", "OpTrue",
+        "OpFalse", "OpEqual", "OpNotEqual", "OpGreaterThan", "OpLessThan",
+        "OpMinus", "OpBang", "OpJumpNotTruthy", "OpJump", "OpNull",
+        "OpGetGlobal", "OpSetGlobal", "OpArray", "OpHash", "OpIndex", "OpCall",
+        "OpReturnValue", "OpReturn", "OpGetLocal", "OpSetLocal",
+        "OpGetBuiltin", "OpClosure", "OpGetFree", "OpCurrentClosure",
+        "OpTailCall"
+    };
+
+    private final static int[][] OPERAND_WIDTHS = {
+        {2}, {}, {}, {}, {}, {}, {},
+        {}, {}, {}, {}, {},
+        {}, {}, {2}, {2}, {},
+        {2}, {2}, {2}, {2}, {}, {1},
+        {}, {}, {1}, {1},
+        {1}, {2, 1}, {1}, {},
+        {1}
+    };
+
+    public final static String OPERAND_TOO_LARGE_ERR_FMT =
+        "program too large for the VM: %s operand %d exceeds %d";
+
+    private Opcode() {}
+
+    public static String name(byte op) {
+        return NAMES[op];
+    }
+
+    public static int[] operandWidths(byte op) {
+        return OPERAND_WIDTHS[op];
+    }
+
+    /*
+     * Operands are unsigned; one that doesn't fit its width would wrap
+     * around to a different constant, slot or jump target, so it is an
+     * error instead.
+     */
+    public static byte[] make(byte op, int... operands) {
+        int[] widths = OPERAND_WIDTHS[op];
+        int length = 1;
+        for (int i = 0; i < widths.length; i++) {
+            length += widths[i];
+            int max = (1 << (8 * widths[i])) - 1;
+            if (operands[i] < 0 || operands[i] > max) {
+                throw new CompileException(String.format(OPERAND_TOO_LARGE_ERR_FMT,
+                                                         NAMES[op], operands[i], max));
+            }
+        }
+
+        ByteBuffer instruction = ByteBuffer.allocate(length);
+        instruction.put(op);
+        for (int i = 0; i < widths.length; i++) {
+            switch (widths[i]) {
+                case 2:
+                    instruction.putShort((short)operands[i]);
+                    break;
+                case 1:
+                    instruction.put((byte)operands[i]);
+                    break;
+            }
+        }
+
+        return instruction.array();
+    }
+
+    public static int readUint16(byte[] ins, int offset) {
+        return ((ins[offset] & 0xFF) << 8) | (ins[offset + 1] & 0xFF);
+    }
+
+    public static int readUint8(byte[] ins, int offset) {
+        return ins[offset] & 0xFF;
+    }
+
+    /*
+     * Human readable listing of an instruction stream, mostly useful when
+     * debugging the compiler or writing tests against it.
+     */
+    public static String disassemble(byte[] ins) {
+        StringBuilder output = new StringBuilder();
+
+        int i = 0;
+        while (i < ins.length) {
+            byte op = ins[i];
+            output.append(String.format("%04d %s", i, NAMES[op]));
+            i++;
+
+            for (int w : OPERAND_WIDTHS[op]) {
+                int operand = w == 2 ? readUint16(ins, i) : readUint8(ins, i);
+                output.append(" ").append(operand);
+                i += w;
+            }
+            output.append("\n");
+        }
+
+        return output.toString();
+    }
+}
@@ -0,0 +1,26 @@
+package compiler;
+
+public class Symbol {
+    public final static String GLOBAL_SCOPE = "GLOBAL";
+    public final static String LOCAL_SCOPE = "LOCAL";
+    public final static String BUILTIN_SCOPE = "BUILTIN";
+    public final static String FREE_SCOPE = "FREE";
+    public final static String FUNCTION_SCOPE = "FUNCTION";
+
+    public String name;
+    public String scope;
+    public int index;
+    /*
+     * Globals are declared up front so functions can refer to ones that are
+     * bound later, but a top-level read must still only see a global once
+     * its let statement has been compiled.
+     */
+    boolean defined;
+
+    public Symbol(String name, String scope, int index) {
+        this.name = name;
+        this.scope = scope;
+        this.index = index;
+        this.defined = true;
+    }
+}
@@ -0,0 +1,103 @@
+package compiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public class SymbolTable {
+    SymbolTable outer;
+    HashMap<String, Symbol> store = new HashMap<>();
+    int numDefinitions;
+    ArrayList<Symbol> freeSymbols = new ArrayList<>();
+    /* Slot names, indexed like the symbols they belong to. */
+    ArrayList<String> names = new ArrayList<>();
+
+    public SymbolTable() { }
+
+    public SymbolTable(SymbolTable outer) {
+        this.outer = outer;
+    }
+
+    public Symbol define(String name) {
+        Symbol symbol = store.get(name);
+        if (symbol != null && symbol.scope == Symbol.GLOBAL_SCOPE) {
+            symbol.defined = true;
+            return symbol;
+        }
+
+        String scope = outer == null ? Symbol.GLOBAL_SCOPE : Symbol.LOCAL_SCOPE;
+        symbol = new Symbol(name, scope, numDefinitions);
+        store.put(name, symbol);
+        numDefinitions++;
+        names.add(name);
+        return symbol;
+    }
+
+    /*
+     * Reserves a global slot without making it visible to top-level reads.
+     * Used for names that are bound by a later let statement, or never.
+     */
+    Symbol declareGlobal(String name) {
+        SymbolTable global = this;
+        while (global.outer != null) {
+            global = global.outer;
+        }
+
+        Symbol symbol = global.store.get(name);
+        if (symbol == null) {
+            symbol = global.define(name);
+            symbol.defined = false;
+        }
+        return symbol;
+    }
+
+    public Symbol defineBuiltin(int index, String name) {
+        Symbol symbol = new Symbol(name, Symbol.BUILTIN_SCOPE, index);
+        store.put(name, symbol);
+        return symbol;
+    }
+
+    public Symbol defineFunctionName(String name) {
+        Symbol symbol = new Symbol(name, Symbol.FUNCTION_SCOPE, 0);
+        store.put(name, symbol);
+        return symbol;
+    }
+
+    private Symbol defineFree(Symbol original) {
+        freeSymbols.add(original);
+
+        Symbol symbol = new Symbol(original.name, Symbol.FREE_SCOPE,
+                                   freeSymbols.size() - 1);
+        store.put(original.name, symbol);
+        return symbol;
+    }
+
+    public Symbol resolve(String name) {
+        return resolve(name, true);
+    }
+
+    private Symbol resolve(String name, boolean innermost) {
+        Symbol symbol = store.get(name);
+        if (symbol != null && !symbol.defined && innermost) {
+            symbol = null;
+        }
+
+        if (symbol == null && outer != null) {
+            symbol = outer.resolve(name, false);
+            if (symbol == null) {
+                return null;
+            }
+
+            if (symbol.scope == Symbol.GLOBAL_SCOPE
+                || symbol.scope == Symbol.BUILTIN_SCOPE) {
+                return symbol;
+            }
+            return defineFree(symbol);
+        }
+
+        return symbol;
+    }
+
+    public String[] names() {
+        return names.toArray(new String[0]);
+    }
+}
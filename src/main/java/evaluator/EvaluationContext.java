@@ -0,0 +1,282 @@
+package evaluator;
+
+import monkeyobject.BuiltinFunction;
+import monkeyobject.MonkeyArray;
+import monkeyobject.MonkeyChannel;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyHash;
+import monkeyobject.MonkeyObject;
+import monkeyobject.MonkeyString;
+import monkeyobject.MonkeyTask;
+
+/*
+ * Limits for one evaluation: a budget of steps, a deadline and a flag
+ * another thread can raise with cancel(). Every engine calls tick() once
+ * per step (per node in the tree-walker, per instruction in the VM, per
+ * statement and call in the specializer), which is a decrement and a
+ * compare. The deadline and the flag are only looked at when a slice of
+ * SLICE steps runs out, so a stop takes effect within that many steps.
+ *
+ * It also keeps a rough account of memory. Engines charge the arrays,
+ * hashes and strings they build and the call frames they push, sized by
+ * the estimates below, and credit frames back when they return. The JVM
+ * does not say when values die, so values stay charged for the rest of
+ * the run; the account is an upper bound on what the script holds.
+ *
+ * Once a limit is hit, tick() keeps returning true and the engine unwinds
+ * with error(), a MonkeyError, rather than an exception. A context is
+ * used by one evaluation at a time; only cancel() may come from another
+ * thread.
+ *
+ * Tasks started with spawn run under a context of their own from
+ * forTask(). It counts the task's steps, but draws them from the fuel of
+ * the context it came from and charges memory there too, so the whole
+ * evaluation stays within one set of limits. Cancelling that context, or
+ * it hitting a limit, stops its tasks as well.
+ */
+public final class EvaluationContext {
+    final static int SLICE = 1024;
+
+    /* Where steps and memory come from: this context, or the one it was forked from. */
+    private final EvaluationContext root;
+    /* Set once a task draws on this context; accounting then takes its lock. */
+    private volatile boolean shared;
+
+    private long fuel = Long.MAX_VALUE;   // steps not yet handed to a slice
+    private long limit = Long.MAX_VALUE;
+    private long granted;                 // steps handed out so far
+    private int countdown;                // steps left in the current slice
+    private long deadline;                // System.nanoTime() to stop at
+    private long timeoutMillis = -1;
+    private volatile boolean cancelled;
+    private volatile MonkeyError error;
+
+    private long memoryLimit = Long.MAX_VALUE;
+    private long bytesInUse;
+    private long peakBytes;
+    private long totalBytes;
+
+    public EvaluationContext() {
+        this.root = this;
+    }
+
+    private EvaluationContext(EvaluationContext root) {
+        this.root = root;
+        this.timeoutMillis = root.timeoutMillis;
+        this.deadline = root.deadline;
+    }
+
+    /* A context for a task spawned by the evaluation running under this one. */
+    public EvaluationContext forTask() {
+        root.shared = true;
+        return new EvaluationContext(root);
+    }
+
+    /* At most this many steps; the count starts over from here. */
+    public void setFuel(long steps) {
+        fuel = steps;
+        limit = steps;
+        granted = 0;
+        countdown = 0;
+    }
+
+    /* Stops evaluation once this much time has passed from now. */
+    public void setTimeout(long millis) {
+        timeoutMillis = millis;
+        deadline = System.nanoTime() + millis * 1_000_000;
+    }
+
+    /* Stops evaluation once the bytes charged and not released pass this. */
+    public void setMemoryLimit(long bytes) {
+        memoryLimit = bytes;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long stepsUsed() {
+        return granted - Math.max(countdown, 0);
+    }
+
+    /* Most bytes charged at once over the run. */
+    public long peakBytes() {
+        return peakBytes;
+    }
+
+    /* Every byte charged over the run, released or not. */
+    public long totalBytes() {
+        return totalBytes;
+    }
+
+    public long bytesInUse() {
+        return bytesInUse;
+    }
+
+    /* Why evaluation stopped, or null while it may go on. */
+    public MonkeyError error() {
+        return error;
+    }
+
+    /* Charges one step; true when the engine has to stop. */
+    public boolean tick() {
+        return --countdown < 0 && refill();
+    }
+
+    /*
+     * Looks at the deadline and the cancel flag without charging a step,
+     * for builtins that block; true when the engine has to stop.
+     */
+    public boolean check() {
+        if (error == null) {
+            error = stopError();
+        }
+        return error != null;
+    }
+
+    /* Charges an allocation; true when it went over the memory limit. */
+    public boolean allocate(long bytes) {
+        if (root != this) {
+            if (root.allocate(bytes) && error == null) {
+                error = root.error;
+            }
+            return error != null;
+        } else if (shared) {
+            synchronized (this) {
+                return charge(bytes);
+            }
+        }
+        return charge(bytes);
+    }
+
+    private boolean charge(long bytes) {
+        totalBytes += bytes;
+        bytesInUse += bytes;
+        if (bytesInUse > peakBytes) {
+            peakBytes = bytesInUse;
+        }
+        if (bytesInUse > memoryLimit && error == null) {
+            error = Evaluator.createNewError(Evaluator.OUT_OF_MEMORY_ERR_FMT, memoryLimit);
+        }
+        return error != null;
+    }
+
+    /* Credits back what a call frame was charged once it returns. */
+    public void release(long bytes) {
+        if (root != this) {
+            root.release(bytes);
+        } else if (shared) {
+            synchronized (this) {
+                bytesInUse -= bytes;
+            }
+        } else {
+            bytesInUse -= bytes;
+        }
+    }
+
+    /* Estimates, in bytes, for a 64-bit JVM with compressed references. */
+    public static long arrayBytes(int elements) {
+        return 40 + 4L * elements;
+    }
+
+    public static long hashBytes(int pairs) {
+        return 32 + 56L * pairs;
+    }
+
+    public static long stringBytes(int chars) {
+        return 40 + 2L * chars;
+    }
+
+    public static long frameBytes(int slots) {
+        return 32 + 4L * slots;
+    }
+
+    /* A channel's queue, and a node per value waiting in it. */
+    public static long channelBytes(int buffered) {
+        return 64 + 24L * buffered;
+    }
+
+    /* A task's future and its thread's bookkeeping and first stack chunk. */
+    public static long taskBytes() {
+        return 1024;
+    }
+
+    /*
+     * What a builtin's result cost. push adds one entry to an array it
+     * shares the rest of with its argument, and rest is a view of its
+     * argument; put and delete do the same with hashes. Other arrays,
+     * such as map's or take's, are new all the way through. A result that
+     * is the argument itself, or a lazy sequence, costs nothing.
+     */
+    public static long resultBytes(BuiltinFunction builtin, MonkeyObject[] args,
+                                   MonkeyObject result) {
+        if (args.length > 0 && result == args[0]) {
+            return 0;
+        } else if (result instanceof MonkeyArray) {
+            return builtin.sharesArgument ? arrayBytes(1)
+                                          : arrayBytes(((MonkeyArray)result).size());
+        } else if (result instanceof MonkeyHash) {
+            return hashBytes(1);
+        } else if (result instanceof MonkeyString) {
+            return stringBytes(((MonkeyString)result).length());
+        } else if (result instanceof MonkeyChannel) {
+            return channelBytes(0);
+        } else if (result instanceof MonkeyTask) {
+            return taskBytes();
+        }
+        return 0;
+    }
+
+    private MonkeyError stopError() {
+        if (root != this && root.error != null) {
+            return root.error;
+        } else if (cancelled || root.cancelled) {
+            return Evaluator.createNewError(Evaluator.CANCELLED_ERR_FMT);
+        } else if (timeoutMillis >= 0 && System.nanoTime() - deadline >= 0) {
+            return Evaluator.createNewError(Evaluator.TIMEOUT_ERR_FMT, timeoutMillis);
+        }
+        return null;
+    }
+
+    private boolean refill() {
+        if (error == null) {
+            error = stopError();
+        }
+        if (error == null) {
+            int slice = root.grant();
+            if (slice == 0) {
+                error = Evaluator.createNewError(Evaluator.OUT_OF_FUEL_ERR_FMT, root.limit);
+            } else {
+                // This step comes out of the new slice.
+                granted += slice;
+                countdown = slice - 1;
+                return false;
+            }
+        }
+        countdown = 0;
+        return true;
+    }
+
+    /* The next slice of fuel, or 0 once it has run out. */
+    private int grant() {
+        if (shared) {
+            synchronized (this) {
+                return take();
+            }
+        }
+        return take();
+    }
+
+    private int take() {
+        if (fuel <= 0) {
+            return 0;
+        }
+        int slice = (int)Math.min(SLICE, fuel);
+        fuel -= slice;
+        return slice;
+    }
+}
@@ -1,7 +1,10 @@
 package evaluator;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 import ast.ArrayLiteral;
@@ -24,105 +27,134 @@ import ast.Program;
 import ast.ReturnStatement;
 import ast.Statement;
 import ast.StringLiteral;
+import jit.Jit;
 import monkeyobject.BuiltinFunction;
 import monkeyobject.Environment;
 import monkeyobject.HashKey;
 import monkeyobject.HashPair;
+import monkeyobject.Invoker;
 import monkeyobject.Hashable;
 import monkeyobject.MonkeyArray;
 import monkeyobject.MonkeyBool;
+import monkeyobject.MonkeyChannel;
 import monkeyobject.MonkeyError;
 import monkeyobject.MonkeyFunction;
 import monkeyobject.MonkeyHash;
 import monkeyobject.MonkeyInt;
 import monkeyobject.MonkeyNull;
 import monkeyobject.MonkeyObject;
+import monkeyobject.MonkeyRange;
 import monkeyobject.MonkeyReturnValue;
+import monkeyobject.MonkeySequence;
 import monkeyobject.MonkeyString;
+import monkeyobject.MonkeyTask;
+import monkeyobject.ObjectType;
+import resolver.Resolver;
 
 public final class Evaluator {
-    private final static MonkeyBool TRUE = new MonkeyBool(true);
-    private final static MonkeyBool FALSE = new MonkeyBool(false);
-    private final static MonkeyNull NULL = new MonkeyNull();
+    private final static MonkeyBool TRUE = MonkeyBool.TRUE;
+    private final static MonkeyBool FALSE = MonkeyBool.FALSE;
+    private final static MonkeyNull NULL = MonkeyNull.NULL;
+
+    /*
+     * When set, nested integer arithmetic is computed in longs and only
+     * the final result gets boxed.
+     */
+    private static volatile boolean unboxedArithmetic = false;
+    /* Null unless profiling, which then costs calls one check each. */
+    private static volatile Profiler profiler = null;
 
     /* Error Message Format Strings */
-    private final static String IDENTIFIER_NOT_FOUND_ERR_FMT =
+    public final static String IDENTIFIER_NOT_FOUND_ERR_FMT =
         "identifier not found: %s";
-    private final static String NOT_A_FUNCTION_ERR_FMT = "not a function: %s";
-    private final static String TYPE_MISMATCH_ERR_FMT =
+    public final static String NOT_A_FUNCTION_ERR_FMT = "not a function: %s";
+    public final static String TYPE_MISMATCH_ERR_FMT =
         "type mismatch: %s %s %s";
-    private final static String UNKNOWN_OPERATOR_PREFIX_ERR_FMT = 
+    public final static String UNKNOWN_OPERATOR_PREFIX_ERR_FMT = 
         "unknown operator: %s%s";
-    private final static String UNKNOWN_OPERATOR_MINUS_ERR_FMT =
+    public final static String UNKNOWN_OPERATOR_MINUS_ERR_FMT =
         "unknown operator: -%s";
-    private final static String UNKNOWN_OPERATOR_INFIX_ERR_FMT =
+    public final static String UNKNOWN_OPERATOR_INFIX_ERR_FMT =
         "unknown operator: %s %s %s";
-    private final static String WRONG_NUM_ARGUMENTS_ERR_FMT =
+    public final static String WRONG_NUM_ARGUMENTS_ERR_FMT =
         "wrong number of arguments: got=%d, want=%d";
-    private final static String ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT =
+    public final static String ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT =
         "argument to '%s' not supported, got %s";
-    private final static String INDEX_OPERATOR_NOT_SUPPORTED_ERR_FMT =
+    public final static String INDEX_OPERATOR_NOT_SUPPORTED_ERR_FMT =
         "index operator not supported: %s";
-    private final static String UNUSABLE_AS_HASH_OBJ_ERR_FMT = "unusable as hash key: %s";
+    public final static String UNUSABLE_AS_HASH_OBJ_ERR_FMT = "unusable as hash key: %s";
+    public final static String STACK_OVERFLOW_ERR_FMT = "stack overflow";
+    public final static String OUT_OF_FUEL_ERR_FMT = "step limit exceeded: %d";
+    public final static String TIMEOUT_ERR_FMT = "time limit exceeded: %d ms";
+    public final static String CANCELLED_ERR_FMT = "evaluation cancelled";
+    public final static String OUT_OF_MEMORY_ERR_FMT = "memory limit exceeded: %d bytes";
 
     /* Builtin Functions */
-    private static Function<MonkeyObject[], MonkeyObject> BUILTIN_LEN = 
-        (args) -> {
+    /*
+     * len, first, last and rest also take lazy sequences, which may have
+     * to call functions back to find out.
+     */
+    private static BiFunction<MonkeyObject[], Invoker, MonkeyObject> BUILTIN_LEN =
+        (args, invoker) -> {
             if (args.length != 1) {
                 return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 1);
+            } else if (args[0] instanceof MonkeySequence) {
+                return Sequences.length((MonkeySequence)args[0], invoker);
             } else if (args[0] instanceof MonkeyArray) {
-                return new MonkeyInt(((MonkeyArray)args[0]).elements.length);
+                return MonkeyInt.valueOf(((MonkeyArray)args[0]).size());
             } else if (args[0] instanceof MonkeyString) {
-                return new MonkeyInt((((MonkeyString)args[0]).value).length());
+                return MonkeyInt.valueOf(((MonkeyString)args[0]).length());
+            } else if (args[0] instanceof MonkeyHash) {
+                return MonkeyInt.valueOf(((MonkeyHash)args[0]).size());
             }
             return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
                                 "len", ((MonkeyObject)args[0]).Type());
         };
-    private static Function<MonkeyObject[], MonkeyObject> BUILTIN_FIRST = 
-        (args) -> {
+    private static BiFunction<MonkeyObject[], Invoker, MonkeyObject> BUILTIN_FIRST =
+        (args, invoker) -> {
             if (args.length != 1) {
                 return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 1);
-            } else if (args[0].Type() != MonkeyArray.ARRAY_OBJ) {
+            } else if (args[0] instanceof MonkeySequence) {
+                return ((MonkeySequence)args[0]).get(0, invoker);
+            } else if (args[0].objectType() != ObjectType.ARRAY) {
                 return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
                                     "first", args[0].Type());
             }
             MonkeyArray arr = ((MonkeyArray)args[0]);
-            if (arr.elements.length > 0) {
-                return arr.elements[0];
+            if (arr.size() > 0) {
+                return arr.first();
             }
             return NULL;
         };
-    private static Function<MonkeyObject[], MonkeyObject> BUILTIN_LAST = 
-        (args) -> {
+    private static BiFunction<MonkeyObject[], Invoker, MonkeyObject> BUILTIN_LAST =
+        (args, invoker) -> {
             if (args.length != 1) {
                 return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 1);
-            } else if (args[0].Type() != MonkeyArray.ARRAY_OBJ) {
+            } else if (args[0] instanceof MonkeySequence) {
+                return Sequences.last((MonkeySequence)args[0], invoker);
+            } else if (args[0].objectType() != ObjectType.ARRAY) {
                 return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
                                     "last", args[0].Type());
             }
             MonkeyArray arr = ((MonkeyArray)args[0]);
-            if (arr.elements.length > 0) {
-                return arr.elements[arr.elements.length - 1];
+            if (arr.size() > 0) {
+                return arr.last();
             }
             return NULL;
         };
-    private static Function<MonkeyObject[], MonkeyObject> BUILTIN_REST = 
-        (args) -> {
+    private static BiFunction<MonkeyObject[], Invoker, MonkeyObject> BUILTIN_REST =
+        (args, invoker) -> {
             if (args.length != 1) {
                 return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 1);
-            } else if (args[0].Type() != MonkeyArray.ARRAY_OBJ) {
+            } else if (args[0] instanceof MonkeySequence) {
+                return ((MonkeySequence)args[0]).rest();
+            } else if (args[0].objectType() != ObjectType.ARRAY) {
                 return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
                                     "rest", args[0].Type());
             }
             MonkeyArray arr = ((MonkeyArray)args[0]);
-            int len = arr.elements.length;
-
-            if (arr.elements.length > 0) {
-                MonkeyObject[] newElements = new MonkeyObject[len - 1];
-                for (int i = 0; i < newElements.length; i++) {
-                    newElements[i] = arr.elements[i + 1];
-                }
-                return new MonkeyArray(newElements);
+            if (arr.size() > 0) {
+                return arr.rest();
             }
             return NULL;
         };
@@ -130,19 +162,11 @@ public final class Evaluator {
         (args) -> {
             if (args.length != 2) {
                 return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 2);
-            } else if (args[0].Type() != MonkeyArray.ARRAY_OBJ) {
+            } else if (args[0].objectType() != ObjectType.ARRAY) {
                 return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
                                     "push", args[0].Type());
             }
-            MonkeyArray arr = ((MonkeyArray)args[0]);
-            int len = arr.elements.length;
-
-            MonkeyObject[] newElements = new MonkeyObject[len + 1];
-            for (int i = 0; i < arr.elements.length; i++) {
-                newElements[i] = arr.elements[i];
-            }
-            newElements[len] = args[1];
-            return new MonkeyArray(newElements);
+            return ((MonkeyArray)args[0]).push(args[1]);
         };
     private static Function<MonkeyObject[], MonkeyObject> BUILTIN_PUTS = 
         (args) -> {
@@ -151,17 +175,358 @@ public final class Evaluator {
             }
             return NULL;
         };
-    private static HashMap<String,BuiltinFunction> BUILTIN_FUNCTIONS = new HashMap<>() {{
+    private static Function<MonkeyObject[], MonkeyObject> BUILTIN_PUT =
+        (args) -> {
+            if (args.length != 3) {
+                return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 3);
+            } else if (args[0].objectType() != ObjectType.HASH) {
+                return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                    "put", args[0].Type());
+            } else if (!(args[1] instanceof Hashable)) {
+                return createNewError(UNUSABLE_AS_HASH_OBJ_ERR_FMT, args[1].Type());
+            }
+            HashKey key = ((Hashable)args[1]).getHashKey();
+            return ((MonkeyHash)args[0]).put(key, new HashPair(args[1], args[2]));
+        };
+    private static Function<MonkeyObject[], MonkeyObject> BUILTIN_DELETE =
+        (args) -> {
+            if (args.length != 2) {
+                return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 2);
+            } else if (args[0].objectType() != ObjectType.HASH) {
+                return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                    "delete", args[0].Type());
+            } else if (!(args[1] instanceof Hashable)) {
+                return createNewError(UNUSABLE_AS_HASH_OBJ_ERR_FMT, args[1].Type());
+            }
+            return ((MonkeyHash)args[0]).delete(((Hashable)args[1]).getHashKey());
+        };
+    /*
+     * map, filter and reduce call back into the engine through an
+     * Invoker; pmap and pfilter may also call from other threads.
+     */
+    private static BiFunction<MonkeyObject[], Invoker, MonkeyObject> BUILTIN_MAP =
+        (args, invoker) -> mapArray("map", args, invoker, false);
+    private static BiFunction<MonkeyObject[], Invoker, MonkeyObject> BUILTIN_FILTER =
+        (args, invoker) -> filterArray("filter", args, invoker, false);
+    private static BiFunction<MonkeyObject[], Invoker, MonkeyObject> BUILTIN_REDUCE =
+        (args, invoker) -> {
+            if (args.length != 3) {
+                return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 3);
+            } else if (args[0].objectType() != ObjectType.ARRAY
+                       && args[0].objectType() != ObjectType.SEQUENCE) {
+                return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                    "reduce", args[0].Type());
+            } else if (!isCallable(args[2])) {
+                return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                    "reduce", args[2].Type());
+            }
+            MonkeySequence.Cursor elements = cursor(args[0], invoker);
+            MonkeyObject result = args[1];
+            for (MonkeyObject element = elements.next(); element != null;
+                 element = elements.next()) {
+                // Builtins run no steps of their own, so reduce(range, [], take) still stops.
+                MonkeyError stop = MonkeySequence.step(invoker);
+                if (stop != null) {
+                    return stop;
+                } else if (isError(element)) {
+                    return element;
+                }
+                result = invoker.call(args[2], new MonkeyObject[] {result, element});
+                if (result == null) {
+                    result = NULL;
+                } else if (isError(result)) {
+                    return result;
+                }
+            }
+            return result;
+        };
+    private static BiFunction<MonkeyObject[], Invoker, MonkeyObject> BUILTIN_PMAP =
+        (args, invoker) -> mapArray("pmap", args, invoker, true);
+    private static BiFunction<MonkeyObject[], Invoker, MonkeyObject> BUILTIN_PFILTER =
+        (args, invoker) -> filterArray("pfilter", args, invoker, true);
+    /*
+     * Tasks and channels. spawn passes any arguments after the function
+     * on to it; await hands back the task's value, or its error.
+     */
+    private static BiFunction<MonkeyObject[], Invoker, MonkeyObject> BUILTIN_SPAWN =
+        (args, invoker) -> {
+            if (args.length < 1) {
+                return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 1);
+            }
+            Invoker task = invoker.task();
+            if (!isCallable(args[0]) || task == null) {
+                return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                    "spawn", args[0].Type());
+            }
+            return Tasks.spawn(args[0], Arrays.copyOfRange(args, 1, args.length), task);
+        };
+    private static BiFunction<MonkeyObject[], Invoker, MonkeyObject> BUILTIN_AWAIT =
+        (args, invoker) -> {
+            if (args.length != 1) {
+                return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 1);
+            } else if (args[0].objectType() != ObjectType.TASK) {
+                return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                    "await", args[0].Type());
+            }
+            return Tasks.await((MonkeyTask)args[0], invoker.context());
+        };
+    private static Function<MonkeyObject[], MonkeyObject> BUILTIN_CHAN =
+        (args) -> {
+            if (args.length != 1) {
+                return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 1);
+            } else if (args[0].objectType() != ObjectType.INTEGER
+                       || ((MonkeyInt)args[0]).value < 0
+                       || ((MonkeyInt)args[0]).value > Integer.MAX_VALUE) {
+                return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                    "chan", args[0].Type());
+            }
+            return new MonkeyChannel((int)((MonkeyInt)args[0]).value);
+        };
+    private static BiFunction<MonkeyObject[], Invoker, MonkeyObject> BUILTIN_SEND =
+        (args, invoker) -> {
+            if (args.length != 2) {
+                return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 2);
+            } else if (args[0].objectType() != ObjectType.CHANNEL) {
+                return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                    "send", args[0].Type());
+            }
+            return Tasks.send((MonkeyChannel)args[0], args[1], invoker.context());
+        };
+    private static BiFunction<MonkeyObject[], Invoker, MonkeyObject> BUILTIN_RECV =
+        (args, invoker) -> {
+            if (args.length != 1) {
+                return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 1);
+            } else if (args[0].objectType() != ObjectType.CHANNEL) {
+                return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                    "recv", args[0].Type());
+            }
+            return Tasks.recv((MonkeyChannel)args[0], invoker.context());
+        };
+    /*
+     * Lazy sequences. range counts from start up to end, by step if given;
+     * take keeps the first n elements of a sequence, or of an array.
+     */
+    private static Function<MonkeyObject[], MonkeyObject> BUILTIN_RANGE =
+        (args) -> {
+            if (args.length < 2 || args.length > 3) {
+                return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length,
+                                      args.length < 2 ? 2 : 3);
+            }
+            for (MonkeyObject arg : args) {
+                if (arg.objectType() != ObjectType.INTEGER) {
+                    return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                          "range", arg.Type());
+                }
+            }
+            long step = args.length == 3 ? ((MonkeyInt)args[2]).value : 1;
+            if (step == 0) {
+                return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                      "range", args[2].Type());
+            }
+            return new MonkeyRange(((MonkeyInt)args[0]).value,
+                                   ((MonkeyInt)args[1]).value, step);
+        };
+    private static Function<MonkeyObject[], MonkeyObject> BUILTIN_TAKE =
+        (args) -> {
+            if (args.length != 2) {
+                return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 2);
+            } else if (args[0].objectType() != ObjectType.ARRAY
+                       && args[0].objectType() != ObjectType.SEQUENCE) {
+                return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                    "take", args[0].Type());
+            } else if (args[1].objectType() != ObjectType.INTEGER
+                       || ((MonkeyInt)args[1]).value < 0) {
+                return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                    "take", args[1].Type());
+            }
+            long count = ((MonkeyInt)args[1]).value;
+            if (args[0] instanceof MonkeySequence) {
+                return Sequences.take((MonkeySequence)args[0], count);
+            }
+            MonkeyArray arr = (MonkeyArray)args[0];
+            return count >= arr.size()
+                ? arr : new MonkeyArray(Arrays.copyOf(arr.toArray(), (int)count));
+        };
+    /* Read-only once built; builtins keep no state, so every thread shares them. */
+    private final static Map<String,BuiltinFunction> BUILTIN_FUNCTIONS =
+        Collections.unmodifiableMap(new LinkedHashMap<>() {{
         put("len", new BuiltinFunction(BUILTIN_LEN));
         put("first", new BuiltinFunction(BUILTIN_FIRST));
         put("last", new BuiltinFunction(BUILTIN_LAST));
-        put("rest", new BuiltinFunction(BUILTIN_REST));
-        put("push", new BuiltinFunction(BUILTIN_PUSH));
+        put("rest", new BuiltinFunction(BUILTIN_REST, true));
+        put("push", new BuiltinFunction(BUILTIN_PUSH, true));
         put("puts", new BuiltinFunction(BUILTIN_PUTS));
-    }};
+        put("put", new BuiltinFunction(BUILTIN_PUT));
+        put("delete", new BuiltinFunction(BUILTIN_DELETE));
+        put("map", new BuiltinFunction(BUILTIN_MAP));
+        put("filter", new BuiltinFunction(BUILTIN_FILTER));
+        put("reduce", new BuiltinFunction(BUILTIN_REDUCE));
+        put("pmap", new BuiltinFunction(BUILTIN_PMAP));
+        put("pfilter", new BuiltinFunction(BUILTIN_PFILTER));
+        put("spawn", new BuiltinFunction(BUILTIN_SPAWN));
+        put("await", new BuiltinFunction(BUILTIN_AWAIT));
+        put("chan", new BuiltinFunction(BUILTIN_CHAN));
+        put("send", new BuiltinFunction(BUILTIN_SEND));
+        put("recv", new BuiltinFunction(BUILTIN_RECV));
+        put("range", new BuiltinFunction(BUILTIN_RANGE));
+        put("take", new BuiltinFunction(BUILTIN_TAKE));
+    }});
+
+    /* Shared by every call made without limits; it keeps no state. */
+    private final static Invoker INVOKER = new CallbackInvoker(null);
 
     private Evaluator() {}
 
+    /*
+     * Calls functions back for builtins, charging them to context like
+     * any other call. Without limits or a profiler the tree-walker keeps
+     * no per-call state, so pure functions can be called from several
+     * threads at once.
+     */
+    private static class CallbackInvoker implements Invoker {
+        private final EvaluationContext context;
+
+        CallbackInvoker(EvaluationContext context) {
+            this.context = context;
+        }
+
+        public MonkeyObject call(MonkeyObject fn, MonkeyObject[] args) {
+            return applyFunction(fn, args, null, context);
+        }
+
+        @Override
+        public Invoker fork(MonkeyObject fn) {
+            if (context != null || profiler != null || !(fn instanceof MonkeyFunction)) {
+                return null;
+            }
+            FunctionLiteral literal = ((MonkeyFunction)fn).literal;
+            if (literal == null || !literal.pure) {
+                return null;
+            }
+            // An earlier REPL line may have bound a builtin's name to a function of its own.
+            for (String name : Resolver.LEAF_BUILTINS) {
+                if (((MonkeyFunction)fn).env.Get(name) != null) {
+                    return null;
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public Invoker task() {
+            return context == null ? INVOKER : new CallbackInvoker(context.forTask());
+        }
+
+        @Override
+        public EvaluationContext context() {
+            return context;
+        }
+    }
+
+    public static Invoker invoker(EvaluationContext context) {
+        return context == null ? INVOKER : new CallbackInvoker(context);
+    }
+
+    private static boolean isCallable(MonkeyObject obj) {
+        ObjectType type = obj.objectType();
+        return type == ObjectType.FUNCTION || type == ObjectType.BUILTIN;
+    }
+
+    private static MonkeyObject mapArray(String name, MonkeyObject[] args,
+        Invoker invoker, boolean parallel) {
+        if (args.length != 2) {
+            return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 2);
+        } else if (args[0].objectType() != ObjectType.ARRAY
+                   && args[0].objectType() != ObjectType.SEQUENCE) {
+            return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                  name, args[0].Type());
+        } else if (!isCallable(args[1])) {
+            return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                  name, args[1].Type());
+        } else if (args[0] instanceof MonkeySequence && !parallel) {
+            return Sequences.map((MonkeySequence)args[0], args[1]);
+        }
+        MonkeyObject all = elementsOf(args[0], invoker);
+        if (isError(all)) {
+            return all;
+        }
+        MonkeyObject[] elements = ((MonkeyArray)all).toArray();
+        MonkeyObject[] results = new MonkeyObject[elements.length];
+        MonkeyObject err = ParallelArrays.callEach(elements, args[1], invoker,
+                                                   results, parallel);
+        return err != null ? err : new MonkeyArray(results);
+    }
+
+    private static MonkeyObject filterArray(String name, MonkeyObject[] args,
+        Invoker invoker, boolean parallel) {
+        if (args.length != 2) {
+            return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length, 2);
+        } else if (args[0].objectType() != ObjectType.ARRAY
+                   && args[0].objectType() != ObjectType.SEQUENCE) {
+            return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                  name, args[0].Type());
+        } else if (!isCallable(args[1])) {
+            return createNewError(ARGUMENT_TO_FUNC_NOT_SUPPORTED_ERR_FMT,
+                                  name, args[1].Type());
+        } else if (args[0] instanceof MonkeySequence && !parallel) {
+            return Sequences.filter((MonkeySequence)args[0], args[1]);
+        }
+        MonkeyObject all = elementsOf(args[0], invoker);
+        if (isError(all)) {
+            return all;
+        }
+        MonkeyObject[] elements = ((MonkeyArray)all).toArray();
+        MonkeyObject[] keep = new MonkeyObject[elements.length];
+        MonkeyObject err = ParallelArrays.callEach(elements, args[1], invoker,
+                                                   keep, parallel);
+        if (err != null) {
+            return err;
+        }
+
+        int kept = 0;
+        for (int i = 0; i < elements.length; i++) {
+            if (isTruthy(keep[i])) {
+                keep[kept++] = elements[i];
+            }
+        }
+        return new MonkeyArray(Arrays.copyOf(keep, kept));
+    }
+
+    /* The array itself, or the elements of a sequence, for pmap and pfilter. */
+    private static MonkeyObject elementsOf(MonkeyObject arrayOrSequence,
+        Invoker invoker) {
+        if (arrayOrSequence instanceof MonkeySequence) {
+            return Sequences.toArray((MonkeySequence)arrayOrSequence, invoker);
+        }
+        return arrayOrSequence;
+    }
+
+    private static MonkeySequence.Cursor cursor(MonkeyObject arrayOrSequence,
+        Invoker invoker) {
+        if (arrayOrSequence instanceof MonkeySequence) {
+            return ((MonkeySequence)arrayOrSequence).cursor(invoker);
+        }
+        MonkeyArray arr = (MonkeyArray)arrayOrSequence;
+        return new MonkeySequence.Cursor() {
+            private int next = 0;
+
+            public MonkeyObject next() {
+                return next < arr.size() ? arr.get(next++) : null;
+            }
+        };
+    }
+
+    /*
+     * Builtins in a stable order, so the compiler can refer to them by index.
+     */
+    public static String[] builtinNames() {
+        return BUILTIN_FUNCTIONS.keySet().toArray(new String[0]);
+    }
+
+    public static BuiltinFunction getBuiltin(String name) {
+        return BUILTIN_FUNCTIONS.get(name);
+    }
+
     private static MonkeyObject evalProgram(Statement[] statements,
         Environment env) {
         MonkeyObject result = null;
@@ -179,7 +544,7 @@ public final class Evaluator {
         return result;
     }
 
-    private static MonkeyBool nativeBooleanToBoolObject(boolean input) {
+    public static MonkeyBool nativeBooleanToBoolObject(boolean input) {
         if (input)
             return TRUE;
         return FALSE;
@@ -198,14 +563,14 @@ public final class Evaluator {
     }
 
     private static MonkeyObject evalMinusOperatorExpression(MonkeyObject right){
-        if (right.Type() != MonkeyInt.INTEGER_OBJ) {
+        if (right.objectType() != ObjectType.INTEGER) {
             return createNewError(UNKNOWN_OPERATOR_MINUS_ERR_FMT, right.Type());
         }
         
-        return new MonkeyInt(-((MonkeyInt)right).value);
+        return MonkeyInt.valueOf(-((MonkeyInt)right).value);
     }
 
-    private static MonkeyObject evalPrefixExpression(String operator,
+    public static MonkeyObject evalPrefixExpression(String operator,
         MonkeyObject right) {
         switch (operator) {
             case "!": 
@@ -220,18 +585,21 @@ public final class Evaluator {
 
     private static MonkeyObject evalIntegerInfixExpression(String operator,
         MonkeyObject left, MonkeyObject right){
-        long leftVal = ((MonkeyInt)left).value;
-        long rightVal = ((MonkeyInt)right).value;
+        return evalIntegerInfixExpression(operator, ((MonkeyInt)left).value,
+                                          ((MonkeyInt)right).value);
+    }
 
+    private static MonkeyObject evalIntegerInfixExpression(String operator,
+        long leftVal, long rightVal){
         switch (operator) {
             case "+":
-                return new MonkeyInt(leftVal + rightVal);
+                return MonkeyInt.valueOf(leftVal + rightVal);
             case "-":
-                return new MonkeyInt(leftVal - rightVal);
+                return MonkeyInt.valueOf(leftVal - rightVal);
             case "*":
-                return new MonkeyInt(leftVal * rightVal);
+                return MonkeyInt.valueOf(leftVal * rightVal);
             case "/":
-                return new MonkeyInt(leftVal / rightVal);
+                return MonkeyInt.valueOf(leftVal / rightVal);
             case "<":
                 return nativeBooleanToBoolObject(leftVal < rightVal);
             case ">":
@@ -242,44 +610,151 @@ public final class Evaluator {
                 return nativeBooleanToBoolObject(leftVal != rightVal);
             default:
                 return createNewError(UNKNOWN_OPERATOR_INFIX_ERR_FMT,
-                    left.Type(), operator, right.Type());
+                    ObjectType.INTEGER, operator, ObjectType.INTEGER);
         }
     }
 
+    public static void setUnboxedArithmetic(boolean enabled) {
+        unboxedArithmetic = enabled;
+    }
+
+    public static boolean isUnboxedArithmetic() {
+        return unboxedArithmetic;
+    }
+
+    /* Pass null to stop profiling. Every thread shares it, so profile one at a time. */
+    public static void setProfiler(Profiler p) {
+        profiler = p;
+    }
+
+    public static Profiler getProfiler() {
+        return profiler;
+    }
+
+    private static boolean isArithmetic(Expression expr) {
+        if (!(expr instanceof InfixExpression)) {
+            return false;
+        }
+
+        switch (((InfixExpression)expr).operator) {
+            case "+":
+            case "-":
+            case "*":
+            case "/":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static MonkeyObject evalUnboxedInfixExpression(InfixExpression node,
+        Environment env) {
+        MonkeyObject[] boxed = new MonkeyObject[1];
+
+        long left = evalLong(node.left, env, boxed);
+        if (boxed[0] != null) {
+            return finishBoxed(node.operator, boxed[0], node.right, env);
+        }
+        long right = evalLong(node.right, env, boxed);
+        if (boxed[0] != null) {
+            return finishBoxed(node.operator, left, boxed[0]);
+        }
+
+        return evalIntegerInfixExpression(node.operator, left, right);
+    }
+
+    /*
+     * Evaluates node to a long without boxing intermediate results. If an
+     * operand turns out not to be an integer, the rest of the node is
+     * evaluated the ordinary way and its value, possibly an error, is left
+     * in boxed[0]; the return value is then meaningless.
+     */
+    private static long evalLong(Expression node, Environment env,
+        MonkeyObject[] boxed) {
+        if (node instanceof IntegerLiteral) {
+            return ((IntegerLiteral)node).value;
+        } else if (!isArithmetic(node)) {
+            MonkeyObject value = eval(node, env);
+            if (value instanceof MonkeyInt) {
+                return ((MonkeyInt)value).value;
+            }
+            boxed[0] = value != null ? value : NULL;
+            return 0;
+        }
+
+        InfixExpression infix = (InfixExpression)node;
+        long left = evalLong(infix.left, env, boxed);
+        if (boxed[0] != null) {
+            boxed[0] = finishBoxed(infix.operator, boxed[0], infix.right, env);
+            return 0;
+        }
+        long right = evalLong(infix.right, env, boxed);
+        if (boxed[0] != null) {
+            boxed[0] = finishBoxed(infix.operator, left, boxed[0]);
+            return 0;
+        }
+
+        switch (infix.operator) {
+            case "+":
+                return left + right;
+            case "-":
+                return left - right;
+            case "*":
+                return left * right;
+            default:
+                return left / right;
+        }
+    }
+
+    private static MonkeyObject finishBoxed(String operator, MonkeyObject left,
+        Expression rightNode, Environment env) {
+        if (isError(left)) {
+            return left;
+        }
+        MonkeyObject right = eval(rightNode, env);
+        if (isError(right)) {
+            return right;
+        }
+        return evalInfixExpression(operator, left, right);
+    }
+
+    private static MonkeyObject finishBoxed(String operator, long left,
+        MonkeyObject right) {
+        if (isError(right)) {
+            return right;
+        }
+        return evalInfixExpression(operator, MonkeyInt.valueOf(left), right);
+    }
+
     private static MonkeyObject evalStringInfixExpression(String operator, MonkeyObject left, MonkeyObject right) {
         if (!operator.equals("+")) {
             return createNewError(UNKNOWN_OPERATOR_INFIX_ERR_FMT, left.Type(), operator, right.Type());
         }
-        String leftVal = ((MonkeyString)left).value;
-        String rightVal = ((MonkeyString)right).value;
-        return new MonkeyString(leftVal + rightVal);
+        return ((MonkeyString)left).concat((MonkeyString)right);
     }
 
-    private static MonkeyObject evalInfixExpression(String operator,
+    public static MonkeyObject evalInfixExpression(String operator,
         MonkeyObject left, MonkeyObject right){
-        if (
-            left.Type() == MonkeyInt.INTEGER_OBJ
-            && right.Type() == MonkeyInt.INTEGER_OBJ
-        ) {
+        ObjectType leftType = left.objectType();
+        ObjectType rightType = right.objectType();
+
+        if (leftType == ObjectType.INTEGER && rightType == ObjectType.INTEGER) {
             return evalIntegerInfixExpression(operator, left, right);
         } else if (operator.equals("==")) {
             return nativeBooleanToBoolObject(left.equals(right));
         } else if (operator.equals("!=")) {
             return nativeBooleanToBoolObject(!left.equals(right));
-        } else if (left.Type() != right.Type()) {
+        } else if (leftType != rightType) {
             return createNewError(TYPE_MISMATCH_ERR_FMT, left.Type(),
                 operator, right.Type());
-        } else if (
-            left.Type() == MonkeyString.STRING_OBJ
-            && right.Type() == MonkeyString.STRING_OBJ
-        ) {
+        } else if (leftType == ObjectType.STRING) {
             return evalStringInfixExpression(operator, left, right);
         }
         return createNewError(UNKNOWN_OPERATOR_INFIX_ERR_FMT, left.Type(),
             operator, right.Type());
     }
 
-    private static boolean isTruthy(MonkeyObject obj) {
+    public static boolean isTruthy(MonkeyObject obj) {
         if (obj == NULL || obj == FALSE) {
             return false;
         }
@@ -309,9 +784,8 @@ public final class Evaluator {
             result = eval(stmt, env);
 
             if (result != null) {
-                String rt = result.Type();
-                if (rt.equals(MonkeyReturnValue.RETURN_VALUE_OBJ) ||
-                    rt.equals(MonkeyError.ERROR_OBJ)) {
+                ObjectType rt = result.objectType();
+                if (rt == ObjectType.RETURN_VALUE || rt == ObjectType.ERROR) {
                     return result;
                 }
             }
@@ -320,18 +794,28 @@ public final class Evaluator {
         return result;
     }
 
-    private static MonkeyError createNewError(String format, Object... a) {
+    public static MonkeyError createNewError(String format, Object... a) {
         return new MonkeyError(String.format(format, a));
     }
 
     private static boolean isError(MonkeyObject obj) {
         if (obj != null)
-            return obj.Type().equals(MonkeyError.ERROR_OBJ);
+            return obj.objectType() == ObjectType.ERROR;
         return false;
     }
 
     private static MonkeyObject evalIdentifier(Identifier node, Environment env) {
-        MonkeyObject val = env.Get(node.value);
+        MonkeyObject val;
+        if (node.slot >= 0) {
+            val = env.GetAt(node.depth, node.slot);
+            if (val != null)
+                return val;
+            // Calls bind every parameter, so this is a let that has not
+            // run yet; see what the name means further out.
+            val = env.Get(node.value);
+        } else {
+            val = env.ancestor(node.depth).Get(node.value);
+        }
         if (val != null)
             return val;
         
@@ -360,53 +844,119 @@ public final class Evaluator {
     }
 
     private static Environment extendFunctionEnv(MonkeyFunction fn,
-        MonkeyObject[] args) {
-        Environment env = new Environment(fn.env);
+        MonkeyObject[] args, EvaluationContext context) {
+        int frameSize = fn.frameSize();
+        if (frameSize < 0) {
+            Environment env = new Environment(fn.env);
+            env.context = context;
+            for (int i = 0; i < fn.parameters.size(); i++) {
+                env.Set(fn.parameters.get(i).value, args[i]);
+            }
+            return env;
+        }
 
-        for (int i = 0; i < fn.parameters.size(); i++) {
-            env.Set(fn.parameters.get(i).value, args[i]);
+        // Parameters occupy the first slots of a resolved frame.
+        Environment env = new Environment(fn.env, frameSize);
+        env.context = context;
+        for (int i = 0; i < args.length; i++) {
+            env.SetAt(i, args[i]);
         }
 
         return env;
     }
 
     private static MonkeyObject unwrapReturnValue(MonkeyObject obj) {
-        MonkeyReturnValue returnValue; 
-        try {
-            returnValue = (MonkeyReturnValue)obj;
-        } catch (ClassCastException e) {
-            // Should we print the exception w/ System.err.print() here?
-            //System.err.println(e);
-            return obj; 
+        if (obj instanceof MonkeyReturnValue) {
+            return ((MonkeyReturnValue)obj).value;
         }
-
-        return returnValue;
+        return obj;
     }
 
+    /*
+     * Calls in tail position come back as TailCalls, which are made here in
+     * a loop, so tail recursion runs in constant Java stack. Compiled code
+     * can't be stopped midway, so the JIT is only used without limits.
+     */
     private static MonkeyObject applyFunction(MonkeyObject fn,
-        MonkeyObject[] args) {
-        if (fn instanceof MonkeyFunction) {
+        MonkeyObject[] args, CallExpression site, EvaluationContext context) {
+        Profiler p = profiler;
+        if (p != null && p.thread != Thread.currentThread()) {
+            p = null;
+        }
+        while (fn instanceof MonkeyFunction) {
             MonkeyFunction function = (MonkeyFunction)fn;
-            Environment extendedEnv = extendFunctionEnv(function, args);
-            MonkeyObject evaluated = eval(function.body, extendedEnv);
-            return unwrapReturnValue(evaluated);
-        } else if (fn instanceof BuiltinFunction) {
-            return (MonkeyObject)((BuiltinFunction)fn).function.apply(args);
+            if (p != null) {
+                p.enter(site, function.literal);
+            }
+
+            MonkeyObject evaluated = context == null ? Jit.tryInvoke(function, args) : null;
+            if (evaluated == null) {
+                evaluated = callFunction(function, args, context);
+            }
+
+            if (p != null) {
+                p.exit();
+            }
+            if (!(evaluated instanceof TailCall)) {
+                return evaluated;
+            }
+
+            fn = ((TailCall)evaluated).function;
+            args = ((TailCall)evaluated).args;
+            site = ((TailCall)evaluated).site;
+        }
+
+        if (fn instanceof BuiltinFunction) {
+            BuiltinFunction builtin = (BuiltinFunction)fn;
+            MonkeyObject result = builtin.apply(args, invoker(context));
+            if (context != null
+                && context.allocate(EvaluationContext.resultBytes(builtin, args, result))) {
+                return context.error();
+            }
+            return result;
         }
 
         return createNewError(NOT_A_FUNCTION_ERR_FMT, fn.Type());
     }
+
+    /*
+     * The frame is charged to the context while the body runs. Like the
+     * VM, a call must pass exactly as many arguments as there are
+     * parameters.
+     */
+    private static MonkeyObject callFunction(MonkeyFunction fn,
+        MonkeyObject[] args, EvaluationContext context) {
+        if (args.length != fn.parameters.size()) {
+            return createNewError(WRONG_NUM_ARGUMENTS_ERR_FMT, args.length,
+                                  fn.parameters.size());
+        }
+        long frame = 0;
+        if (context != null) {
+            int slots = fn.frameSize() < 0 ? fn.parameters.size() : fn.frameSize();
+            frame = EvaluationContext.frameBytes(slots);
+            if (context.allocate(frame)) {
+                return context.error();
+            }
+        }
+
+        Environment extendedEnv = extendFunctionEnv(fn, args, context);
+        MonkeyObject evaluated = unwrapReturnValue(eval(fn.body, extendedEnv));
+        if (context != null) {
+            context.release(frame);
+        }
+        return evaluated;
+    }
     
     private static MonkeyObject evalArrayIndexExpression(MonkeyObject left,
                                                         MonkeyObject index) {
         MonkeyArray arrObj = (MonkeyArray)left;
         long idx = ((MonkeyInt)index).value;
-        long max = arrObj.elements.length - 1;
+        long max = arrObj.size() - 1;
 
         if (idx < 0 || idx > max) {
             return NULL;
         }
-        return arrObj.elements[(int) idx];
+        return arrObj.get((int) idx);
     }
 
     private static MonkeyObject evalHashIndexExpression(MonkeyObject hash,
@@ -418,7 +968,7 @@ public final class Evaluator {
         }
         Hashable key = (Hashable)index;
 
-        HashPair pair = hashObject.pairs.get(key.getHashKey());
+        HashPair pair = hashObject.get(key.getHashKey());
         if (pair == null) {
             return NULL;
         }
@@ -426,18 +976,30 @@ public final class Evaluator {
         return pair.value;
     }
     
-    private static MonkeyObject evalIndexExpression(MonkeyObject left,
+    public static MonkeyObject evalIndexExpression(MonkeyObject left,
                                                     MonkeyObject index) {
-        if (left.Type() == MonkeyArray.ARRAY_OBJ && index.Type() == MonkeyInt.INTEGER_OBJ) {
+        return evalIndexExpression(left, index, INVOKER);
+    }
+
+    /* invoker calls back the functions a lazy sequence needs to reach the element. */
+    public static MonkeyObject evalIndexExpression(MonkeyObject left,
+                                                    MonkeyObject index,
+                                                    Invoker invoker) {
+        ObjectType leftType = left.objectType();
+        if (leftType == ObjectType.ARRAY && index.objectType() == ObjectType.INTEGER) {
             return evalArrayIndexExpression(left, index);
-        } else if (left.Type() == MonkeyHash.HASH_OBJ) {
+        } else if (leftType == ObjectType.HASH) {
             return evalHashIndexExpression(left, index);
+        } else if (leftType == ObjectType.SEQUENCE
+                   && index.objectType() == ObjectType.INTEGER) {
+            long idx = ((MonkeyInt)index).value;
+            return idx < 0 ? NULL : ((MonkeySequence)left).get(idx, invoker);
         }
         return createNewError(INDEX_OPERATOR_NOT_SUPPORTED_ERR_FMT, left.Type());
     }
 
     private static MonkeyObject evalHashLiteral(HashLiteral node, Environment env) {
-        HashMap<HashKey, HashPair> pairs = new HashMap<>();
+        MonkeyHash hash = new MonkeyHash();
 
         for (var keyNode: node.pairs.keySet().toArray()) {
             MonkeyObject key = eval((Expression)keyNode, env);
@@ -456,16 +1018,47 @@ public final class Evaluator {
             }
 
             HashKey hashed = hashKey.getHashKey();
-            pairs.put(hashed, new HashPair(key, value));
+            hash = hash.put(hashed, new HashPair(key, value));
+        }
+
+        EvaluationContext context = env.context;
+        if (context != null
+            && context.allocate(EvaluationContext.hashBytes(hash.size()))) {
+            return context.error();
         }
 
-        return new MonkeyHash(pairs);
+        return hash;
+    }
+
+    /*
+     * Evaluates the program under the context's limits. Whatever stopped
+     * it is returned even if the error got lost on the way up.
+     */
+    public static MonkeyObject eval(Program program, Environment env,
+                                    EvaluationContext context) {
+        env.context = context;
+        MonkeyObject result = eval(program, env);
+        return context.error() != null ? context.error() : result;
     }
 
     public static MonkeyObject eval(Node node, Environment env) {
+        EvaluationContext context = env.context;
+        if (context != null && context.tick()) {
+            return context.error();
+        }
+
         /* Program */
         if (node instanceof Program) {
-            return evalProgram(((Program)node).statements, env);
+            try {
+                return evalProgram(((Program)node).statements, env);
+            } catch (StackOverflowError e) {
+                // Only non-tail recursion gets here; the VM can go deeper.
+                Profiler p = profiler;
+                if (p != null) {
+                    p.unwind();
+                }
+                return createNewError(STACK_OVERFLOW_ERR_FMT);
+            }
         }
         /* Statements */
         else if (node instanceof BlockStatement) {
@@ -477,7 +1070,12 @@ public final class Evaluator {
             if (isError(val))
                 return val;
 
-            env.Set(((LetStatement)node).name.value, val);
+            Identifier name = ((LetStatement)node).name;
+            if (name.slot >= 0) {
+                env.SetAt(name.slot, val);
+            } else {
+                env.Set(name.value, val);
+            }
         } else if (node instanceof ReturnStatement) {
             MonkeyObject val = eval(((ReturnStatement)node).returnValue, env);
             if (isError(val)) {
@@ -488,20 +1086,30 @@ public final class Evaluator {
         }
         /* Expressions */
         else if (node instanceof CallExpression) {
-            MonkeyObject function = eval(((CallExpression)node).function, env);
+            CallExpression call = (CallExpression)node;
+            MonkeyObject function = eval(call.function, env);
             if (isError(function)) {
                 return function;
             }
             
-            MonkeyObject[] args = evalExpressions(((CallExpression)node).arguments, env);
+            MonkeyObject[] args = evalExpressions(call.arguments, env);
             if (args.length == 1 && isError(args[0])) {
                 return args[0];
             }
 
-            return applyFunction(function, args);
+            if (call.tail && function instanceof MonkeyFunction) {
+                return new TailCall((MonkeyFunction)function, args, call);
+            }
+            return applyFunction(function, args, call, env.context);
         } else if (node instanceof IfExpression) {
             return evalIfExpression((IfExpression)node, env);
         } else if (node instanceof InfixExpression) {
+            InfixExpression infix = (InfixExpression)node;
+            if (unboxedArithmetic
+                && (isArithmetic(infix.left) || isArithmetic(infix.right))) {
+                return evalUnboxedInfixExpression(infix, env);
+            }
+
             MonkeyObject left = eval(((InfixExpression)node).left, env);
             if (isError(left)) {
                 return left;
@@ -512,8 +1120,14 @@ public final class Evaluator {
                 return right;
             }
 
-            return evalInfixExpression(((InfixExpression)node).operator, left,
-                                        right);
+            MonkeyObject result = evalInfixExpression(((InfixExpression)node).operator,
+                                                      left, right);
+            if (context != null && result instanceof MonkeyString
+                && context.allocate(EvaluationContext.stringBytes(
+                       ((MonkeyString)right).length()))) {
+                return context.error();
+            }
+            return result;
         } else if (node instanceof IndexExpression) {
             MonkeyObject left = eval(((IndexExpression)node).left, env);
             if (isError(left)) {
@@ -525,7 +1139,7 @@ public final class Evaluator {
                 return index;
             }
 
-            return evalIndexExpression(left, index);
+            return evalIndexExpression(left, index, invoker(env.context));
         } else if (node instanceof PrefixExpression) {
             MonkeyObject right = eval(((PrefixExpression)node).right, env);
             if (isError(right)) {
@@ -541,17 +1155,19 @@ public final class Evaluator {
             if (elements.length == 1 && isError(elements[0])) {
                 return elements[0];
             }
+            if (context != null
+                && context.allocate(EvaluationContext.arrayBytes(elements.length))) {
+                return context.error();
+            }
             return new MonkeyArray(elements);
         } else if (node instanceof Bool) {
             return nativeBooleanToBoolObject(((Bool)node).value);
         } else if (node instanceof FunctionLiteral) {
-            ArrayList<Identifier> params = ((FunctionLiteral)node).parameters;
-            BlockStatement body = ((FunctionLiteral)node).body;
-            return new MonkeyFunction(params, body, env);
+            return new MonkeyFunction((FunctionLiteral)node, env);
         } else if (node instanceof Identifier) {
             return evalIdentifier((Identifier)node, env);
         } else if (node instanceof IntegerLiteral) {
-            return new MonkeyInt(((IntegerLiteral)(node)).value);
+            return ((IntegerLiteral)node).constant;
         } else if (node instanceof HashLiteral) {
             return evalHashLiteral((HashLiteral)node, env);
         } else if (node instanceof StringLiteral) {
@@ -0,0 +1,140 @@
+package evaluator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import monkeyobject.Invoker;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyNull;
+import monkeyobject.MonkeyObject;
+import monkeyobject.MonkeySequence;
+
+/*
+ * Calls a function on every element of an array, for map, filter, pmap
+ * and pfilter. The parallel variants split the array across a
+ * ForkJoinPool, but only once it reaches the threshold and only if the
+ * engine can fork the function (see Invoker.fork); otherwise they run in
+ * order on the calling thread. Either way the results, and which error
+ * comes back when several elements fail, are the same.
+ */
+public final class ParallelArrays {
+    public final static int DEFAULT_THRESHOLD =
+        Integer.getInteger("monkey.parallel.threshold", 1024);
+    /* Slices per pool thread, so uneven elements still balance out. */
+    private final static int SLICES_PER_THREAD = 4;
+
+    private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+    private static volatile int threshold = DEFAULT_THRESHOLD;
+
+    private ParallelArrays() {}
+
+    public static void setPool(ForkJoinPool pool) {
+        ParallelArrays.pool = pool;
+    }
+
+    public static ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /* Smallest array pmap and pfilter split up. */
+    public static void setThreshold(int elements) {
+        threshold = elements;
+    }
+
+    /*
+     * Fills results with fn(element). Returns the error of the first
+     * element, by index, that failed, or null if none did.
+     */
+    static MonkeyObject callEach(MonkeyObject[] elements, MonkeyObject fn,
+        Invoker invoker, MonkeyObject[] results, boolean parallel) {
+        ForkJoinPool pool = ParallelArrays.pool;
+        if (parallel && elements.length >= threshold && elements.length > 1
+            && pool.getParallelism() > 1 && invoker.fork(fn) != null) {
+            AtomicInteger firstError = new AtomicInteger(Integer.MAX_VALUE);
+            int grain = Math.max(1, elements.length
+                                    / (pool.getParallelism() * SLICES_PER_THREAD));
+            Slice all = new Slice(elements, fn, invoker, results, firstError,
+                                  0, elements.length, grain);
+            if (ForkJoinTask.getPool() == pool) {
+                all.invoke();
+            } else {
+                pool.invoke(all);
+            }
+
+            int failed = firstError.get();
+            return failed == Integer.MAX_VALUE ? null : results[failed];
+        }
+
+        for (int i = 0; i < elements.length; i++) {
+            MonkeyError stop = MonkeySequence.step(invoker);
+            if (stop != null) {
+                return stop;
+            }
+            results[i] = call(invoker, fn, elements[i]);
+            if (results[i] instanceof MonkeyError) {
+                return results[i];
+            }
+        }
+        return null;
+    }
+
+    private static MonkeyObject call(Invoker invoker, MonkeyObject fn,
+        MonkeyObject element) {
+        MonkeyObject result = invoker.call(fn, new MonkeyObject[] {element});
+        return result != null ? result : MonkeyNull.NULL;
+    }
+
+    /*
+     * A run of elements. Once an element fails, the ones after it are
+     * skipped, but the ones before it still run in case one of them fails
+     * too and so gets to be the error reported.
+     */
+    private static class Slice extends RecursiveAction {
+        private final static long serialVersionUID = 1L;
+
+        private final MonkeyObject[] elements;
+        private final MonkeyObject fn;
+        private final Invoker invoker;
+        private final MonkeyObject[] results;
+        private final AtomicInteger firstError;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        Slice(MonkeyObject[] elements, MonkeyObject fn, Invoker invoker,
+              MonkeyObject[] results, AtomicInteger firstError, int from, int to,
+              int grain) {
+            this.elements = elements;
+            this.fn = fn;
+            this.invoker = invoker;
+            this.results = results;
+            this.firstError = firstError;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Slice(elements, fn, invoker, results, firstError,
+                                    from, mid, grain),
+                          new Slice(elements, fn, invoker, results, firstError,
+                                    mid, to, grain));
+                return;
+            }
+
+            Invoker own = invoker.fork(fn);
+            for (int i = from; i < to && i < firstError.get(); i++) {
+                results[i] = call(own, fn, elements[i]);
+                if (results[i] instanceof MonkeyError) {
+                    firstError.accumulateAndGet(i, Math::min);
+                    return;
+                }
+            }
+        }
+    }
+}
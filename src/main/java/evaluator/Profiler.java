@@ -0,0 +1,202 @@
+package evaluator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import ast.CallExpression;
+import ast.FunctionLiteral;
+import ast.Identifier;
+
+/*
+ * Counts calls and time per function literal and per call site while the
+ * evaluator runs with Evaluator.setProfiler. Inclusive time covers the
+ * callees too, exclusive time only the function's own body; a recursive
+ * function's inclusive time is only counted at its outermost call so it
+ * is not added up once per level.
+ *
+ * Calls are also kept as a tree of stacks, which writeCollapsed dumps in
+ * the "a;b;c nanos" format that flamegraph.pl and speedscope read. Frames
+ * are named name@line:column after the literal, or fn@line:column when no
+ * let binds it; call sites after the name they call and the position of
+ * their opening parenthesis. Functions the JIT compiled show up as one frame each: the
+ * calls they make among themselves never go through the evaluator.
+ *
+ * Not thread safe; profile one script at a time. Only calls made on the
+ * thread that created the profiler are counted, so tasks started with
+ * spawn run unprofiled.
+ */
+public class Profiler {
+    public static class Stats {
+        public final String name;
+        public long calls;
+        public long inclusiveNanos;
+        public long exclusiveNanos;
+        int active;
+
+        Stats(String name) {
+            this.name = name;
+        }
+    }
+
+    /* A node of the call tree; a path is only ever on the stack once. */
+    private static class Frame {
+        final Frame parent;
+        final Stats function;
+        final String name;
+        final LinkedHashMap<FunctionLiteral, Frame> children = new LinkedHashMap<>();
+        long selfNanos;
+        /* The current activation */
+        Stats site;
+        long start;
+        long childNanos;
+
+        Frame(Frame parent, Stats function) {
+            this.parent = parent;
+            this.function = function;
+            this.name = function != null ? function.name : null;
+        }
+    }
+
+    private final IdentityHashMap<FunctionLiteral, Stats> functions = new IdentityHashMap<>();
+    private final IdentityHashMap<CallExpression, Stats> callSites = new IdentityHashMap<>();
+    final Thread thread = Thread.currentThread();
+    private final Frame root = new Frame(null, null);
+    private Frame current = root;
+
+    void enter(CallExpression site, FunctionLiteral literal) {
+        Frame frame = current.children.get(literal);
+        if (frame == null) {
+            frame = new Frame(current, functionStats(literal));
+            current.children.put(literal, frame);
+        }
+        frame.site = siteStats(site);
+        frame.function.calls++;
+        frame.function.active++;
+        frame.site.calls++;
+        frame.site.active++;
+        current = frame;
+        frame.childNanos = 0;
+        frame.start = System.nanoTime();
+    }
+
+    void exit() {
+        long elapsed = System.nanoTime() - current.start;
+        long self = elapsed - current.childNanos;
+        current.selfNanos += self;
+        record(current.function, elapsed, self);
+        record(current.site, elapsed, self);
+        current = current.parent;
+        current.childNanos += elapsed;
+    }
+
+    /* Drops the calls still open, after a stack overflow unwound them. */
+    void unwind() {
+        while (current != root) {
+            current.function.active = 0;
+            current.site.active = 0;
+            current = current.parent;
+        }
+    }
+
+    private static void record(Stats stats, long elapsed, long self) {
+        stats.exclusiveNanos += self;
+        if (--stats.active == 0) {
+            stats.inclusiveNanos += elapsed;
+        }
+    }
+
+    private Stats functionStats(FunctionLiteral literal) {
+        Stats stats = functions.get(literal);
+        if (stats == null) {
+            stats = new Stats(literal == null ? "fn"
+                : String.format("%s@%d:%d", literal.name != null ? literal.name : "fn",
+                                literal.line(), literal.column()));
+            functions.put(literal, stats);
+        }
+        return stats;
+    }
+
+    private Stats siteStats(CallExpression site) {
+        Stats stats = callSites.get(site);
+        if (stats == null) {
+            String callee = site != null && site.function instanceof Identifier
+                ? ((Identifier)site.function).value : "call";
+            stats = new Stats(site == null ? callee
+                : String.format("%s@%d:%d", callee, site.line(), site.column()));
+            callSites.put(site, stats);
+        }
+        return stats;
+    }
+
+    /* Per function literal, most exclusive time first. */
+    public List<Stats> functions() {
+        return sorted(functions.values());
+    }
+
+    /* Per call site, most exclusive time first. */
+    public List<Stats> callSites() {
+        return sorted(callSites.values());
+    }
+
+    private static List<Stats> sorted(Iterable<Stats> stats) {
+        ArrayList<Stats> list = new ArrayList<>();
+        stats.forEach(list::add);
+        list.sort((a, b) -> Long.compare(b.exclusiveNanos, a.exclusiveNanos));
+        return list;
+    }
+
+    /* One line per distinct stack: frames joined by ';', then its own nanoseconds. */
+    public void writeCollapsed(Appendable out) throws IOException {
+        StringBuilder path = new StringBuilder();
+        for (Frame child : root.children.values()) {
+            writeCollapsed(child, path, out);
+        }
+    }
+
+    private static void writeCollapsed(Frame frame, StringBuilder path, Appendable out)
+        throws IOException {
+        int mark = path.length();
+        if (mark > 0) {
+            path.append(';');
+        }
+        path.append(frame.name);
+        if (frame.selfNanos > 0) {
+            out.append(path).append(' ').append(Long.toString(frame.selfNanos)).append('\n');
+        }
+        for (Frame child : frame.children.values()) {
+            writeCollapsed(child, path, out);
+        }
+        path.setLength(mark);
+    }
+
+    public String collapsed() {
+        StringBuilder out = new StringBuilder();
+        try {
+            writeCollapsed(out);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return out.toString();
+    }
+
+    /* A table of both views for people rather than tools. */
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        table(out, "function", functions());
+        out.append('\n');
+        table(out, "call site", callSites());
+        return out.toString();
+    }
+
+    private static void table(StringBuilder out, String heading, List<Stats> rows) {
+        out.append(String.format("%-40s %10s %14s %14s\n", heading, "calls",
+                                 "inclusive ms", "exclusive ms"));
+        for (Stats row : rows) {
+            out.append(String.format("%-40s %10d %14.3f %14.3f\n", row.name, row.calls,
+                                     row.inclusiveNanos / 1e6, row.exclusiveNanos / 1e6));
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package evaluator;
+
+import java.util.ArrayList;
+
+import monkeyobject.Invoker;
+import monkeyobject.MonkeyArray;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyNull;
+import monkeyobject.MonkeyObject;
+import monkeyobject.MonkeySequence;
+
+/*
+ * The lazy stages behind map, filter, take and rest on a sequence, and
+ * the walks behind len, last, reduce and pmap on one. A stage only holds
+ * its source and its function, so stacking them allocates no arrays;
+ * the elements flow through one at a time when something walks the
+ * result. Stages that keep the length and order of their source (map,
+ * take, rest) still reach an element directly if the source can.
+ * Every loop here charges the walker's run a step per element (see
+ * MonkeySequence.step), so a walk over a huge range still stops at the
+ * step, time or cancel limits even when no script function runs.
+ */
+final class Sequences {
+    private final static long ELEMENT_BYTES =
+        EvaluationContext.arrayBytes(1) - EvaluationContext.arrayBytes(0);
+
+    private Sequences() {}
+
+    static MonkeySequence map(MonkeySequence source, MonkeyObject fn) {
+        return new Mapped(source, fn);
+    }
+
+    static MonkeySequence filter(MonkeySequence source, MonkeyObject fn) {
+        return new Filtered(source, fn);
+    }
+
+    static MonkeySequence take(MonkeySequence source, long count) {
+        return new Taken(source, count);
+    }
+
+    /* The number of elements as an INTEGER, or the error that stopped the count. */
+    static MonkeyObject length(MonkeySequence seq, Invoker invoker) {
+        long known = seq.knownLength();
+        if (known >= 0) {
+            return MonkeyInt.valueOf(known);
+        }
+
+        MonkeySequence.Cursor cursor = seq.cursor(invoker);
+        long count = 0;
+        for (MonkeyObject e = cursor.next(); e != null; e = cursor.next()) {
+            MonkeyError stop = MonkeySequence.step(invoker);
+            if (stop != null) {
+                return stop;
+            } else if (e instanceof MonkeyError) {
+                return e;
+            }
+            count++;
+        }
+        return MonkeyInt.valueOf(count);
+    }
+
+    static MonkeyObject last(MonkeySequence seq, Invoker invoker) {
+        long known = seq.knownLength();
+        if (known >= 0) {
+            return known == 0 ? MonkeyNull.NULL : seq.get(known - 1, invoker);
+        }
+
+        MonkeySequence.Cursor cursor = seq.cursor(invoker);
+        MonkeyObject last = MonkeyNull.NULL;
+        for (MonkeyObject e = cursor.next(); e != null; e = cursor.next()) {
+            MonkeyError stop = MonkeySequence.step(invoker);
+            if (stop != null) {
+                return stop;
+            } else if (e instanceof MonkeyError) {
+                return e;
+            }
+            last = e;
+        }
+        return last;
+    }
+
+    /*
+     * Every element, for the builtins that need them all at once. The
+     * array is charged to the run as it grows, so a sequence too long to
+     * hold stops at the memory limit rather than filling the heap.
+     */
+    static MonkeyObject toArray(MonkeySequence seq, Invoker invoker) {
+        EvaluationContext context = invoker.context();
+        if (context != null && context.allocate(EvaluationContext.arrayBytes(0))) {
+            return context.error();
+        }
+
+        ArrayList<MonkeyObject> elements = new ArrayList<>();
+        MonkeySequence.Cursor cursor = seq.cursor(invoker);
+        for (MonkeyObject e = cursor.next(); e != null; e = cursor.next()) {
+            MonkeyError stop = MonkeySequence.step(invoker);
+            if (stop != null) {
+                return stop;
+            } else if (e instanceof MonkeyError) {
+                return e;
+            } else if (context != null && context.allocate(ELEMENT_BYTES)) {
+                return context.error();
+            }
+            elements.add(e);
+        }
+        return new MonkeyArray(elements.toArray(new MonkeyObject[0]));
+    }
+
+    private static MonkeyObject call(Invoker invoker, MonkeyObject fn,
+        MonkeyObject element) {
+        MonkeyObject result = invoker.call(fn, new MonkeyObject[] {element});
+        return result != null ? result : MonkeyNull.NULL;
+    }
+
+    private static class Mapped extends MonkeySequence {
+        private final MonkeySequence source;
+        private final MonkeyObject fn;
+
+        Mapped(MonkeySequence source, MonkeyObject fn) {
+            this.source = source;
+            this.fn = fn;
+        }
+
+        @Override
+        public long knownLength() {
+            return source.knownLength();
+        }
+
+        @Override
+        public MonkeyObject get(long index, Invoker invoker) {
+            long known = source.knownLength();
+            if (known < 0) {
+                return super.get(index, invoker);
+            } else if (index >= known) {
+                return MonkeyNull.NULL;
+            }
+
+            MonkeyObject element = source.get(index, invoker);
+            if (element instanceof MonkeyError) {
+                return element;
+            }
+            return call(invoker, fn, element);
+        }
+
+        @Override
+        public MonkeySequence rest() {
+            return new Mapped(source.rest(), fn);
+        }
+
+        @Override
+        public Cursor cursor(Invoker invoker) {
+            Cursor elements = source.cursor(invoker);
+            return () -> {
+                MonkeyObject element = elements.next();
+                if (element == null || element instanceof MonkeyError) {
+                    return element;
+                }
+                return call(invoker, fn, element);
+            };
+        }
+
+        public String Inspect() {
+            return "map(" + source.Inspect() + ")";
+        }
+    }
+
+    private static class Filtered extends MonkeySequence {
+        private final MonkeySequence source;
+        private final MonkeyObject fn;
+
+        Filtered(MonkeySequence source, MonkeyObject fn) {
+            this.source = source;
+            this.fn = fn;
+        }
+
+        @Override
+        public MonkeySequence rest() {
+            return new Dropped(this, 1);
+        }
+
+        @Override
+        public Cursor cursor(Invoker invoker) {
+            Cursor elements = source.cursor(invoker);
+            return () -> {
+                for (MonkeyObject e = elements.next(); e != null; e = elements.next()) {
+                    MonkeyError stop = MonkeySequence.step(invoker);
+                    if (stop != null) {
+                        return stop;
+                    } else if (e instanceof MonkeyError) {
+                        return e;
+                    }
+                    MonkeyObject keep = call(invoker, fn, e);
+                    if (keep instanceof MonkeyError) {
+                        return keep;
+                    } else if (Evaluator.isTruthy(keep)) {
+                        return e;
+                    }
+                }
+                return null;
+            };
+        }
+
+        public String Inspect() {
+            return "filter(" + source.Inspect() + ")";
+        }
+    }
+
+    private static class Taken extends MonkeySequence {
+        private final MonkeySequence source;
+        private final long count;
+
+        Taken(MonkeySequence source, long count) {
+            this.source = source;
+            this.count = count;
+        }
+
+        @Override
+        public long knownLength() {
+            long known = source.knownLength();
+            return known < 0 ? -1 : Math.min(known, count);
+        }
+
+        @Override
+        public MonkeyObject get(long index, Invoker invoker) {
+            return index < count ? source.get(index, invoker) : MonkeyNull.NULL;
+        }
+
+        @Override
+        public MonkeySequence rest() {
+            return new Taken(source.rest(), Math.max(0, count - 1));
+        }
+
+        @Override
+        public Cursor cursor(Invoker invoker) {
+            Cursor elements = source.cursor(invoker);
+            return new Cursor() {
+                private long taken = 0;
+
+                public MonkeyObject next() {
+                    // Stops without pulling one more, so take(filter(...), n)
+                    // calls the filter no more often than it has to.
+                    return taken++ < count ? elements.next() : null;
+                }
+            };
+        }
+
+        public String Inspect() {
+            return "take(" + source.Inspect() + ", " + count + ")";
+        }
+    }
+
+    /* What rest gives for a sequence that can't drop its head any cheaper. */
+    private static class Dropped extends MonkeySequence {
+        private final MonkeySequence source;
+        private final long count;
+
+        Dropped(MonkeySequence source, long count) {
+            this.source = source;
+            this.count = count;
+        }
+
+        @Override
+        public long knownLength() {
+            long known = source.knownLength();
+            return known < 0 ? -1 : Math.max(0, known - count);
+        }
+
+        @Override
+        public MonkeyObject get(long index, Invoker invoker) {
+            if (index > Long.MAX_VALUE - count) {
+                return MonkeyNull.NULL;
+            }
+            return source.get(index + count, invoker);
+        }
+
+        @Override
+        public MonkeySequence rest() {
+            return new Dropped(source, count + 1);
+        }
+
+        @Override
+        public Cursor cursor(Invoker invoker) {
+            Cursor elements = source.cursor(invoker);
+            return new Cursor() {
+                private boolean skipped = false;
+
+                public MonkeyObject next() {
+                    if (!skipped) {
+                        skipped = true;
+                        for (long i = 0; i < count; i++) {
+                            MonkeyObject e = elements.next();
+                            MonkeyError stop = MonkeySequence.step(invoker);
+                            if (stop != null) {
+                                return stop;
+                            } else if (e == null || e instanceof MonkeyError) {
+                                return e;
+                            }
+                        }
+                    }
+                    return elements.next();
+                }
+            };
+        }
+
+        public String Inspect() {
+            return "rest(" + source.Inspect() + ", " + count + ")";
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package evaluator;
+
+import ast.CallExpression;
+import monkeyobject.MonkeyFunction;
+import monkeyobject.MonkeyObject;
+import monkeyobject.ObjectType;
+
+/*
+ * A call in tail position that has not been made yet. It travels up as
+ * the value of the caller's body, and applyFunction makes the call in its
+ * loop instead of nesting another eval on the Java stack. Never escapes
+ * the evaluator.
+ */
+class TailCall implements MonkeyObject {
+    final MonkeyFunction function;
+    final MonkeyObject[] args;
+    final CallExpression site;
+
+    TailCall(MonkeyFunction function, MonkeyObject[] args, CallExpression site) {
+        this.function = function;
+        this.args = args;
+        this.site = site;
+    }
+
+    public ObjectType objectType() { return ObjectType.TAIL_CALL; }
+
+    public String Inspect() { return "tail call of " + function.Inspect(); }
+}
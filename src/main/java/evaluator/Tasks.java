@@ -0,0 +1,154 @@
+package evaluator;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import monkeyobject.Invoker;
+import monkeyobject.MonkeyChannel;
+import monkeyobject.MonkeyNull;
+import monkeyobject.MonkeyObject;
+import monkeyobject.MonkeyTask;
+
+/*
+ * The work behind spawn, await, send and recv. Every task gets a thread
+ * of its own: a virtual one when the JVM has them (Java 21 and up), one
+ * from a pool of at most MAX_PLATFORM_THREADS daemon threads otherwise.
+ * Neither keeps the JVM alive, so tasks nobody awaits stop when the
+ * program exits. Tasks may wait on each other, so past that many a spawn
+ * fails with an error instead of queueing behind tasks that may never
+ * finish.
+ *
+ * Builtins that block wake up every CHECK_MILLIS to look at the limits of
+ * the run they block, so a timeout or cancel ends a wait for a task or a
+ * channel that never comes; without limits they just wait.
+ *
+ * A value waiting in a buffered channel is charged to the run's memory
+ * until a recv takes it out, so filling a channel counts against the
+ * limit like filling an array does.
+ */
+public final class Tasks {
+    public final static int MAX_PLATFORM_THREADS = 256;
+    public final static String TOO_MANY_TASKS_ERR_FMT = "too many tasks running: %d";
+
+    private final static long CHECK_MILLIS = 10;
+    private final static long BUFFERED_BYTES =
+        EvaluationContext.channelBytes(1) - EvaluationContext.channelBytes(0);
+    private final static ExecutorService executor = newExecutor("monkey-task");
+
+    private Tasks() {}
+
+    /*
+     * A thread per task: virtual if the JVM has them, daemon otherwise.
+     * Daemon threads are reused, but there are never more than
+     * MAX_PLATFORM_THREADS of them; execute throws a
+     * RejectedExecutionException while they're all busy.
+     */
+    public static ExecutorService newExecutor(String threadName) {
+        try {
+            // Looked up by name, since the build targets Java 17.
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService)factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return new ThreadPoolExecutor(0, MAX_PLATFORM_THREADS, 60, TimeUnit.SECONDS,
+                                          new SynchronousQueue<>(), r -> {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public static boolean hasVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    static MonkeyObject spawn(MonkeyObject fn, MonkeyObject[] args, Invoker task) {
+        try {
+            return new MonkeyTask(executor.submit(() -> {
+                try {
+                    MonkeyObject result = task.call(fn, args);
+                    return result != null ? result : MonkeyNull.NULL;
+                } catch (StackOverflowError e) {
+                    return Evaluator.createNewError(Evaluator.STACK_OVERFLOW_ERR_FMT);
+                } catch (RuntimeException e) {
+                    return Evaluator.createNewError("%s", e.getMessage());
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            return Evaluator.createNewError(TOO_MANY_TASKS_ERR_FMT, MAX_PLATFORM_THREADS);
+        }
+    }
+
+    static MonkeyObject await(MonkeyTask task, EvaluationContext context) {
+        return block(millis -> {
+            try {
+                return task.result.get(millis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                return null;
+            } catch (ExecutionException e) {
+                return Evaluator.createNewError("%s", e.getCause());
+            }
+        }, context);
+    }
+
+    static MonkeyObject send(MonkeyChannel channel, MonkeyObject value,
+        EvaluationContext context) {
+        boolean charged = context != null && channel.capacity > 0;
+        if (charged && context.allocate(BUFFERED_BYTES)) {
+            return context.error();
+        }
+
+        MonkeyObject result = block(millis -> channel.queue.offer(value, millis,
+                                                                  TimeUnit.MILLISECONDS)
+                                              ? MonkeyNull.NULL : null, context);
+        if (charged && result != MonkeyNull.NULL) {
+            context.release(BUFFERED_BYTES);
+        }
+        return result;
+    }
+
+    static MonkeyObject recv(MonkeyChannel channel, EvaluationContext context) {
+        boolean charged = context != null && channel.capacity > 0;
+        return block(millis -> {
+            MonkeyObject value = channel.queue.poll(millis, TimeUnit.MILLISECONDS);
+            if (charged && value != null) {
+                context.release(BUFFERED_BYTES);
+            }
+            return value;
+        }, context);
+    }
+
+    private interface Attempt {
+        /* The outcome, or null if there was none within millis. */
+        MonkeyObject within(long millis) throws InterruptedException;
+    }
+
+    private static MonkeyObject block(Attempt attempt, EvaluationContext context) {
+        long millis = context == null ? Long.MAX_VALUE : CHECK_MILLIS;
+        try {
+            while (true) {
+                MonkeyObject result = attempt.within(millis);
+                if (result != null) {
+                    return result;
+                } else if (context != null && context.check()) {
+                    return context.error();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Evaluator.createNewError(Evaluator.CANCELLED_ERR_FMT);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package isolate;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import ast.Program;
+import cache.CachedProgram;
+import cache.ProgramCache;
+import compiler.Bytecode;
+import compiler.CompileException;
+import compiler.Compiler;
+import compiler.SymbolTable;
+import evaluator.EvaluationContext;
+import evaluator.Evaluator;
+import lexer.Lexer;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyObject;
+import parser.Parser;
+import repl.Engine;
+import specializer.SpecializingInterpreter;
+import vm.VM;
+
+/*
+ * One tenant's interpreter: its own globals, which persist from one eval
+ * to the next like lines in the REPL, and the limits every eval runs
+ * under. Isolates share nothing mutable, so any number of them can run
+ * on different threads at once. The things they do share are read-only:
+ * parsed Programs, which nothing writes to after parsing, the builtins,
+ * which are stateless, and the JIT's code cache, which is synchronized.
+ *
+ * An isolate runs one eval at a time; concurrent calls queue up. Every
+ * eval gets a fresh EvaluationContext, even without limits, so cancel()
+ * always works. That also keeps isolates off the JIT.
+ *
+ * On the VM, each Program is compiled once per isolate and its
+ * instructions kept, and sources are parsed once, so evaluating the same
+ * script over and over doesn't keep adding to the constant pool. The
+ * pool itself is shared by every eval, since closures left in globals by
+ * an earlier one still refer to its constants by index.
+ */
+public final class Isolate {
+    public final static String PARSE_ERR_FMT = "parse error: %s";
+    private final static int SOURCES_CACHED = 64;
+
+    private final Engine engine;
+    private final Environment env = new Environment();
+
+    /* VM state, only allocated for the VM engine */
+    private SymbolTable symbolTable;
+    private ArrayList<MonkeyObject> constants;
+    private MonkeyObject[] globals;
+    private Map<Program, byte[]> compiled;
+    private ProgramCache sources;
+    private int maxFrames = VM.MAX_FRAMES;
+
+    private long fuel = -1;
+    private long timeoutMillis = -1;
+    private long memoryLimit = -1;
+
+    private volatile EvaluationContext running;
+    private volatile EvaluationContext last;
+
+    public Isolate() {
+        this(Engine.EVALUATOR);
+    }
+
+    public Isolate(Engine engine) {
+        this.engine = engine;
+        if (engine == Engine.VM) {
+            symbolTable = Compiler.newGlobalSymbolTable();
+            constants = new ArrayList<>();
+            globals = new MonkeyObject[VM.GLOBALS_SIZE];
+            compiled = new WeakHashMap<>();
+            sources = new ProgramCache(SOURCES_CACHED, ProgramCache.DEFAULT_MAX_SOURCE_CHARS);
+        }
+    }
+
+    /* Limits for each eval from now on; negative means none. */
+    public synchronized void setFuel(long steps) {
+        fuel = steps;
+    }
+
+    public synchronized void setTimeout(long millis) {
+        timeoutMillis = millis;
+    }
+
+    public synchronized void setMemoryLimit(long bytes) {
+        memoryLimit = bytes;
+    }
+
+    public synchronized void setMaxFrames(int maxFrames) {
+        this.maxFrames = maxFrames;
+    }
+
+    /* Binds a global for scripts to use, e.g. a value from the host. */
+    public synchronized void define(String name, MonkeyObject value) {
+        if (engine == Engine.VM) {
+            globals[symbolTable.define(name).index] = value;
+        } else {
+            env.Set(name, value);
+        }
+    }
+
+    /* Parses and runs the source; parse errors come back as an error value. */
+    public MonkeyObject eval(String source) {
+        if (sources != null) {
+            CachedProgram cached = sources.get(source);
+            if (cached.hasErrors()) {
+                return Evaluator.createNewError(PARSE_ERR_FMT, cached.errors.get(0));
+            }
+            return eval(cached.program);
+        }
+
+        Parser p = new Parser(new Lexer(source));
+        Program prog = p.parseProgram();
+        if (p.errors.size() > 0) {
+            return Evaluator.createNewError(PARSE_ERR_FMT, p.errors.get(0));
+        }
+        return eval(prog);
+    }
+
+    /* The program may be shared with other isolates running it concurrently. */
+    public synchronized MonkeyObject eval(Program program) {
+        EvaluationContext context = new EvaluationContext();
+        if (fuel >= 0) {
+            context.setFuel(fuel);
+        }
+        if (timeoutMillis >= 0) {
+            context.setTimeout(timeoutMillis);
+        }
+        if (memoryLimit >= 0) {
+            context.setMemoryLimit(memoryLimit);
+        }
+
+        running = context;
+        try {
+            switch (engine) {
+                case VM:
+                    Bytecode bytecode;
+                    try {
+                        bytecode = compile(program);
+                    } catch (CompileException e) {
+                        return Evaluator.createNewError("%s", e.getMessage());
+                    }
+                    VM machine = new VM(bytecode, globals);
+                    machine.setMaxFrames(maxFrames);
+                    machine.setContext(context);
+                    return machine.run();
+                case SPECIALIZING:
+                    return SpecializingInterpreter.eval(program, env, context);
+                default:
+                    return Evaluator.eval(program, env, context);
+            }
+        } finally {
+            running = null;
+            last = context;
+        }
+    }
+
+    /*
+     * The program's bytecode against the whole constant pool, which only
+     * ever grows, so instructions compiled by an earlier eval stay valid.
+     * Caller holds the lock.
+     */
+    private Bytecode compile(Program program) {
+        byte[] instructions = compiled.get(program);
+        if (instructions == null) {
+            Compiler compiler = new Compiler(symbolTable, constants);
+            compiler.compile(program);
+            instructions = compiler.bytecode().instructions;
+            compiled.put(program, instructions);
+        }
+        return new Bytecode(instructions, constants.toArray(new MonkeyObject[0]),
+                            symbolTable.names());
+    }
+
+    /* Stops the eval in progress, if any, from any thread. */
+    public void cancel() {
+        EvaluationContext context = running;
+        if (context != null) {
+            context.cancel();
+        }
+    }
+
+    /* The context of the last finished eval, for its steps and bytes; null before any. */
+    public EvaluationContext lastContext() {
+        return last;
+    }
+}
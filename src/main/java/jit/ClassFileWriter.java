@@ -0,0 +1,180 @@
+package jit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/*
+ * Just enough of the JVM class-file format to emit the classes the JIT
+ * needs: a constant pool, methods and their Code attributes. Classes are
+ * written as version 49 (Java 5) so the JVM verifies them by type
+ * inference and we can get away without emitting StackMapTable frames.
+ */
+class ClassFileWriter {
+    final static int ACC_PUBLIC = 0x0001;
+    final static int ACC_STATIC = 0x0008;
+    final static int ACC_FINAL = 0x0010;
+    final static int ACC_SUPER = 0x0020;
+
+    private final static int MAGIC = 0xCAFEBABE;
+    private final static int MAJOR_VERSION = 49;
+
+    private final static byte CONSTANT_UTF8 = 1;
+    private final static byte CONSTANT_LONG = 5;
+    private final static byte CONSTANT_CLASS = 7;
+    private final static byte CONSTANT_METHODREF = 10;
+    private final static byte CONSTANT_INTERFACE_METHODREF = 11;
+    private final static byte CONSTANT_NAME_AND_TYPE = 12;
+
+    private ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private DataOutputStream pool = new DataOutputStream(poolBytes);
+    private HashMap<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    private final int thisClass;
+    private final int superClass;
+    private ArrayList<Integer> interfaces = new ArrayList<>();
+    private ArrayList<byte[]> methods = new ArrayList<>();
+
+    ClassFileWriter(String name, String superName) {
+        thisClass = classConstant(name);
+        superClass = classConstant(superName);
+    }
+
+    void addInterface(String name) {
+        interfaces.add(classConstant(name));
+    }
+
+    /* Constant Pool */
+    int utf8Constant(String value) {
+        return constant("U" + value, () -> {
+            pool.writeByte(CONSTANT_UTF8);
+            pool.writeUTF(value);
+        }, 1);
+    }
+
+    int classConstant(String name) {
+        int nameIndex = utf8Constant(name);
+        return constant("C" + name, () -> {
+            pool.writeByte(CONSTANT_CLASS);
+            pool.writeShort(nameIndex);
+        }, 1);
+    }
+
+    int longConstant(long value) {
+        // Longs take up two pool entries.
+        return constant("J" + value, () -> {
+            pool.writeByte(CONSTANT_LONG);
+            pool.writeLong(value);
+        }, 2);
+    }
+
+    int methodConstant(String owner, String name, String descriptor) {
+        return memberConstant(CONSTANT_METHODREF, owner, name, descriptor);
+    }
+
+    int interfaceMethodConstant(String owner, String name, String descriptor) {
+        return memberConstant(CONSTANT_INTERFACE_METHODREF, owner, name,
+                              descriptor);
+    }
+
+    private int memberConstant(byte tag, String owner, String name,
+        String descriptor) {
+        int classIndex = classConstant(owner);
+        int nameIndex = utf8Constant(name);
+        int descriptorIndex = utf8Constant(descriptor);
+        int nameAndType = constant("N" + name + descriptor, () -> {
+            pool.writeByte(CONSTANT_NAME_AND_TYPE);
+            pool.writeShort(nameIndex);
+            pool.writeShort(descriptorIndex);
+        }, 1);
+
+        return constant("M" + tag + owner + "." + name + descriptor, () -> {
+            pool.writeByte(tag);
+            pool.writeShort(classIndex);
+            pool.writeShort(nameAndType);
+        }, 1);
+    }
+
+    private interface PoolEntry {
+        void write() throws IOException;
+    }
+
+    private int constant(String key, PoolEntry entry, int size) {
+        Integer index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+
+        try {
+            entry.write();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        index = poolCount;
+        poolCount += size;
+        poolIndex.put(key, index);
+        return index;
+    }
+
+    /* Methods */
+    void addMethod(int access, String name, String descriptor, CodeBuilder code) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        byte[] ins = code.toByteArray();
+
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8Constant(name));
+            out.writeShort(utf8Constant(descriptor));
+            out.writeShort(1); // attributes: Code
+
+            out.writeShort(utf8Constant("Code"));
+            out.writeInt(12 + ins.length);
+            out.writeShort(code.maxStack());
+            out.writeShort(code.maxLocals());
+            out.writeInt(ins.length);
+            out.write(ins);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        methods.add(bytes.toByteArray());
+    }
+
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(poolCount);
+            out.write(poolBytes.toByteArray());
+
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.size());
+            for (int iface : interfaces) {
+                out.writeShort(iface);
+            }
+
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,138 @@
+package jit;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+
+/*
+ * Bytecode for a single method body. Tracks the operand stack depth of
+ * straight-line code to size max_stack; at branch targets the caller
+ * restores the depth the branch was taken with.
+ */
+class CodeBuilder {
+    /* Opcodes */
+    final static int ICONST_0 = 0x03;
+    final static int ICONST_1 = 0x04;
+    final static int LCONST_0 = 0x09;
+    final static int LCONST_1 = 0x0a;
+    final static int LDC2_W = 0x14;
+    final static int LLOAD = 0x16;
+    final static int ALOAD = 0x19;
+    final static int LALOAD = 0x2f;
+    final static int LSTORE = 0x37;
+    final static int POP = 0x57;
+    final static int POP2 = 0x58;
+    final static int LADD = 0x61;
+    final static int LSUB = 0x65;
+    final static int LMUL = 0x69;
+    final static int LDIV = 0x6d;
+    final static int LNEG = 0x75;
+    final static int IXOR = 0x82;
+    final static int LCMP = 0x94;
+    final static int IFEQ = 0x99;
+    final static int IFNE = 0x9a;
+    final static int IFLT = 0x9b;
+    final static int IFGE = 0x9c;
+    final static int IFGT = 0x9d;
+    final static int IFLE = 0x9e;
+    final static int IF_ICMPEQ = 0x9f;
+    final static int IF_ICMPNE = 0xa0;
+    final static int GOTO = 0xa7;
+    final static int IRETURN = 0xac;
+    final static int LRETURN = 0xad;
+    final static int RETURN = 0xb1;
+    final static int INVOKESPECIAL = 0xb7;
+    final static int INVOKESTATIC = 0xb8;
+
+    static class Label {
+        int position = -1;
+        ArrayList<Integer> fixups = new ArrayList<>();
+    }
+
+    private ByteArrayOutputStream code = new ByteArrayOutputStream();
+    private byte[] patched;
+    private ArrayList<Label> labels = new ArrayList<>();
+    private int stack;
+    private int maxStack;
+    private int maxLocals;
+
+    CodeBuilder(int maxLocals) {
+        this.maxLocals = maxLocals;
+    }
+
+    int maxStack() { return maxStack; }
+
+    int maxLocals() { return maxLocals; }
+
+    int stackDepth() { return stack; }
+
+    int size() { return code.size(); }
+
+    void setStackDepth(int depth) { stack = depth; }
+
+    void adjustStack(int delta) {
+        stack += delta;
+        maxStack = Math.max(maxStack, stack);
+    }
+
+    void op(int opcode, int stackDelta) {
+        code.write(opcode);
+        adjustStack(stackDelta);
+    }
+
+    void opU1(int opcode, int operand, int stackDelta) {
+        code.write(opcode);
+        code.write(operand);
+        adjustStack(stackDelta);
+    }
+
+    void opU2(int opcode, int operand, int stackDelta) {
+        code.write(opcode);
+        code.write(operand >> 8);
+        code.write(operand);
+        adjustStack(stackDelta);
+    }
+
+    void loadLong(int local) {
+        opU1(LLOAD, local, 2);
+    }
+
+    void storeLong(int local) {
+        opU1(LSTORE, local, -2);
+    }
+
+    Label newLabel() {
+        Label label = new Label();
+        labels.add(label);
+        return label;
+    }
+
+    void jump(int opcode, Label target, int stackDelta) {
+        int position = code.size();
+        target.fixups.add(position);
+        code.write(opcode);
+        code.write(0);
+        code.write(0);
+        adjustStack(stackDelta);
+    }
+
+    void mark(Label label) {
+        label.position = code.size();
+    }
+
+    byte[] toByteArray() {
+        if (patched != null) {
+            return patched;
+        }
+
+        byte[] bytes = code.toByteArray();
+        for (Label label : labels) {
+            for (int at : label.fixups) {
+                int offset = label.position - at;
+                bytes[at + 1] = (byte)(offset >> 8);
+                bytes[at + 2] = (byte)offset;
+            }
+        }
+        patched = bytes;
+        return bytes;
+    }
+}
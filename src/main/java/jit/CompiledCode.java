@@ -0,0 +1,26 @@
+package jit;
+
+/*
+ * What the JIT made of one function literal. Shared by every closure
+ * created from that literal; 'function' is null if the body uses
+ * something the JIT cannot compile yet.
+ */
+public class CompiledCode {
+    public boolean isCompiled() { return function != null; }
+
+    final static CompiledCode NOT_COMPILABLE = new CompiledCode(null, null, 0, 0);
+
+    final JitFunction function;
+    /* Global name the body calls itself by, or null if it never does. */
+    final String selfName;
+    final int selfDepth;
+    final int numParameters;
+
+    CompiledCode(JitFunction function, String selfName, int selfDepth,
+        int numParameters) {
+        this.function = function;
+        this.selfName = selfName;
+        this.selfDepth = selfDepth;
+        this.numParameters = numParameters;
+    }
+}
@@ -0,0 +1,486 @@
+package jit;
+
+import java.util.HashSet;
+
+import ast.BlockStatement;
+import ast.Bool;
+import ast.CallExpression;
+import ast.Expression;
+import ast.ExpressionStatement;
+import ast.FunctionLiteral;
+import ast.Identifier;
+import ast.IfExpression;
+import ast.InfixExpression;
+import ast.IntegerLiteral;
+import ast.LetStatement;
+import ast.PrefixExpression;
+import ast.ReturnStatement;
+import ast.Statement;
+import evaluator.Evaluator;
+
+/*
+ * Compiles one function literal into a class with a static method taking
+ * and returning longs. Only the integer subset of Monkey is supported:
+ * integer parameters, literals and lets, arithmetic, comparisons, if/else,
+ * return and calls of the function to itself. Anything else, and anything
+ * where the tree-walker would produce an error or a non-integer, makes the
+ * whole function fall back to the interpreter.
+ */
+class FunctionCompiler {
+    private enum Kind { INT, BOOL }
+
+    /* Thrown to abandon compilation; no stack trace, it is not an error. */
+    static class NotCompilable extends Exception {
+        private final static long serialVersionUID = 1L;
+
+        NotCompilable(String reason) {
+            super(reason, null, false, false);
+        }
+    }
+
+    private final static String CALL_METHOD = "call";
+    private final static String INVOKE_DESCRIPTOR = "([J)J";
+
+    private final FunctionLiteral fn;
+    private final String className;
+    private final String callDescriptor;
+    private final int numParameters;
+    private String selfName;
+    private int selfDepth;
+    private ClassFileWriter cw;
+    private CodeBuilder code;
+    /* Loop head for self-calls in tail position. */
+    private CodeBuilder.Label start;
+
+    FunctionCompiler(FunctionLiteral fn, String className) {
+        this.fn = fn;
+        this.className = className;
+        this.numParameters = fn.parameters.size();
+        this.callDescriptor = "(" + "J".repeat(numParameters) + ")J";
+    }
+
+    String selfName() { return selfName; }
+
+    int selfDepth() { return selfDepth; }
+
+    byte[] compile() throws NotCompilable {
+        if (fn.frameSize < 0 || fn.body == null) {
+            throw new NotCompilable("function was never resolved");
+        }
+        if (numParameters > 127 || fn.frameSize > 127) {
+            throw new NotCompilable("too many locals");
+        }
+
+        cw = new ClassFileWriter(className, "java/lang/Object");
+        cw.addInterface("jit/JitFunction");
+
+        code = new CodeBuilder(Math.max(1, fn.frameSize * 2));
+        start = code.newLabel();
+        code.mark(start);
+        compileTail(fn.body, new HashSet<>());
+        if (code.size() > Short.MAX_VALUE) {
+            throw new NotCompilable("method too large for 16-bit jumps");
+        }
+        cw.addMethod(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_STATIC,
+                     CALL_METHOD, callDescriptor, code);
+
+        cw.addMethod(ClassFileWriter.ACC_PUBLIC, "<init>", "()V",
+                     constructor());
+        cw.addMethod(ClassFileWriter.ACC_PUBLIC, "invoke", INVOKE_DESCRIPTOR,
+                     invokeBridge());
+
+        return cw.toByteArray();
+    }
+
+    private CodeBuilder constructor() {
+        CodeBuilder init = new CodeBuilder(1);
+        init.opU1(CodeBuilder.ALOAD, 0, 1);
+        init.opU2(CodeBuilder.INVOKESPECIAL,
+                  cw.methodConstant("java/lang/Object", "<init>", "()V"), -1);
+        init.op(CodeBuilder.RETURN, 0);
+        return init;
+    }
+
+    /*
+     * invoke(long[]) unpacks the arguments for the static, fully typed
+     * call method that self-recursive calls use directly.
+     */
+    private CodeBuilder invokeBridge() {
+        CodeBuilder bridge = new CodeBuilder(2);
+        for (int i = 0; i < numParameters; i++) {
+            bridge.opU1(CodeBuilder.ALOAD, 1, 1);
+            bridge.opU1(0x10 /* bipush */, i, 1);
+            bridge.op(CodeBuilder.LALOAD, 0);
+        }
+        bridge.opU2(CodeBuilder.INVOKESTATIC,
+                    cw.methodConstant(className, CALL_METHOD, callDescriptor),
+                    -2 * numParameters + 2);
+        bridge.op(CodeBuilder.LRETURN, -2);
+        return bridge;
+    }
+
+    /* Statements */
+
+    /*
+     * A block whose value is the function's result: every path through it
+     * ends in an lreturn.
+     */
+    private void compileTail(BlockStatement block, HashSet<Integer> assigned)
+        throws NotCompilable {
+        Statement[] statements = block.statements;
+        if (statements.length == 0) {
+            throw new NotCompilable("empty block has no integer value");
+        }
+
+        for (int i = 0; i < statements.length - 1; i++) {
+            if (compileStatement(statements[i], assigned)) {
+                return;
+            }
+        }
+
+        Statement last = statements[statements.length - 1];
+        if (last instanceof ReturnStatement) {
+            compileStatement(last, assigned);
+        } else if (last instanceof ExpressionStatement
+                   && ((ExpressionStatement)last).expression instanceof IfExpression) {
+            IfExpression expr = (IfExpression)((ExpressionStatement)last).expression;
+            if (expr.alternative == null) {
+                throw new NotCompilable("if without else can produce null");
+            }
+
+            expectKind(compileExpression(expr.condition, assigned), Kind.BOOL);
+            CodeBuilder.Label otherwise = code.newLabel();
+            code.jump(CodeBuilder.IFEQ, otherwise, -1);
+            int depth = code.stackDepth();
+
+            compileTail(expr.consequence, new HashSet<>(assigned));
+            code.mark(otherwise);
+            code.setStackDepth(depth);
+            compileTail(expr.alternative, new HashSet<>(assigned));
+        } else if (last instanceof ExpressionStatement) {
+            compileReturn(((ExpressionStatement)last).expression, assigned);
+        } else {
+            throw new NotCompilable("block ending in a let has no value");
+        }
+    }
+
+    /*
+     * Returns the value of expr. A call of the function to itself becomes a
+     * jump back to the start with the parameters overwritten, so tail
+     * recursion does not grow the JVM stack either.
+     */
+    private void compileReturn(Expression expr, HashSet<Integer> assigned)
+        throws NotCompilable {
+        if (!(expr instanceof CallExpression)) {
+            expectKind(compileExpression(expr, assigned), Kind.INT);
+            code.op(CodeBuilder.LRETURN, -2);
+            return;
+        }
+
+        pushSelfCallArguments((CallExpression)expr, assigned);
+        for (int i = numParameters - 1; i >= 0; i--) {
+            code.storeLong(i * 2);
+        }
+        code.jump(CodeBuilder.GOTO, start, 0);
+    }
+
+    /*
+     * Returns true if the statement always returns, so the rest of the
+     * block is unreachable.
+     */
+    private boolean compileStatement(Statement stmt, HashSet<Integer> assigned)
+        throws NotCompilable {
+        if (stmt instanceof LetStatement) {
+            LetStatement let = (LetStatement)stmt;
+            if (let.name.slot < 0) {
+                throw new NotCompilable("let outside a resolved frame");
+            }
+            expectKind(compileExpression(let.value, assigned), Kind.INT);
+            code.storeLong(let.name.slot * 2);
+            assigned.add(let.name.slot);
+            return false;
+        } else if (stmt instanceof ReturnStatement) {
+            compileReturn(((ReturnStatement)stmt).returnValue, assigned);
+            return true;
+        } else if (stmt instanceof ExpressionStatement) {
+            Expression expr = ((ExpressionStatement)stmt).expression;
+            if (expr instanceof IfExpression) {
+                return compileIfStatement((IfExpression)expr, assigned);
+            }
+
+            Kind kind = compileExpression(expr, assigned);
+            code.op(kind == Kind.INT ? CodeBuilder.POP2 : CodeBuilder.POP,
+                    kind == Kind.INT ? -2 : -1);
+            return false;
+        }
+
+        throw new NotCompilable("unsupported statement");
+    }
+
+    private boolean compileIfStatement(IfExpression expr,
+        HashSet<Integer> assigned) throws NotCompilable {
+        expectKind(compileExpression(expr.condition, assigned), Kind.BOOL);
+        CodeBuilder.Label otherwise = code.newLabel();
+        CodeBuilder.Label end = code.newLabel();
+        code.jump(CodeBuilder.IFEQ, otherwise, -1);
+
+        boolean consequenceReturns = compileStatements(expr.consequence,
+                                                       new HashSet<>(assigned));
+        if (!consequenceReturns) {
+            code.jump(CodeBuilder.GOTO, end, 0);
+        }
+
+        code.mark(otherwise);
+        boolean alternativeReturns = false;
+        if (expr.alternative != null) {
+            alternativeReturns = compileStatements(expr.alternative,
+                                                   new HashSet<>(assigned));
+        }
+        code.mark(end);
+
+        return consequenceReturns && alternativeReturns;
+    }
+
+    private boolean compileStatements(BlockStatement block,
+        HashSet<Integer> assigned) throws NotCompilable {
+        for (Statement stmt : block.statements) {
+            if (compileStatement(stmt, assigned)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* Expressions */
+    private Kind compileExpression(Expression expr, HashSet<Integer> assigned)
+        throws NotCompilable {
+        if (expr instanceof IntegerLiteral) {
+            long value = ((IntegerLiteral)expr).value;
+            if (value == 0 || value == 1) {
+                code.op(value == 0 ? CodeBuilder.LCONST_0 : CodeBuilder.LCONST_1, 2);
+            } else {
+                code.opU2(CodeBuilder.LDC2_W, cw.longConstant(value), 2);
+            }
+            return Kind.INT;
+        } else if (expr instanceof Bool) {
+            code.op(((Bool)expr).value ? CodeBuilder.ICONST_1 : CodeBuilder.ICONST_0, 1);
+            return Kind.BOOL;
+        } else if (expr instanceof Identifier) {
+            Identifier ident = (Identifier)expr;
+            boolean isLocal = ident.slot >= 0 && ident.depth == 0;
+            if (!isLocal || (ident.slot >= numParameters
+                             && !assigned.contains(ident.slot))) {
+                throw new NotCompilable("read of " + ident.value);
+            }
+            code.loadLong(ident.slot * 2);
+            return Kind.INT;
+        } else if (expr instanceof PrefixExpression) {
+            return compilePrefixExpression((PrefixExpression)expr, assigned);
+        } else if (expr instanceof InfixExpression) {
+            return compileInfixExpression((InfixExpression)expr, assigned);
+        } else if (expr instanceof CallExpression) {
+            return compileSelfCall((CallExpression)expr, assigned);
+        } else if (expr instanceof IfExpression) {
+            return compileIfExpression((IfExpression)expr, assigned);
+        }
+
+        throw new NotCompilable("unsupported expression");
+    }
+
+    private Kind compilePrefixExpression(PrefixExpression expr,
+        HashSet<Integer> assigned) throws NotCompilable {
+        Kind kind = compileExpression(expr.right, assigned);
+
+        if (expr.operator.equals("-") && kind == Kind.INT) {
+            code.op(CodeBuilder.LNEG, 0);
+            return Kind.INT;
+        } else if (expr.operator.equals("!") && kind == Kind.BOOL) {
+            code.op(CodeBuilder.ICONST_1, 1);
+            code.op(CodeBuilder.IXOR, -1);
+            return Kind.BOOL;
+        }
+        throw new NotCompilable("unsupported prefix operand");
+    }
+
+    private Kind compileInfixExpression(InfixExpression expr,
+        HashSet<Integer> assigned) throws NotCompilable {
+        Kind left = compileExpression(expr.left, assigned);
+        Kind right = compileExpression(expr.right, assigned);
+        if (left != right) {
+            throw new NotCompilable("mixed operand types");
+        }
+
+        if (left == Kind.BOOL) {
+            switch (expr.operator) {
+                case "==":
+                    return pushComparison(CodeBuilder.IF_ICMPEQ, -2);
+                case "!=":
+                    return pushComparison(CodeBuilder.IF_ICMPNE, -2);
+                default:
+                    throw new NotCompilable("unsupported boolean operator");
+            }
+        }
+
+        switch (expr.operator) {
+            case "+":
+                code.op(CodeBuilder.LADD, -2);
+                return Kind.INT;
+            case "-":
+                code.op(CodeBuilder.LSUB, -2);
+                return Kind.INT;
+            case "*":
+                code.op(CodeBuilder.LMUL, -2);
+                return Kind.INT;
+            case "/":
+                code.op(CodeBuilder.LDIV, -2);
+                return Kind.INT;
+        }
+
+        code.op(CodeBuilder.LCMP, -3);
+        switch (expr.operator) {
+            case "<":
+                return pushComparison(CodeBuilder.IFLT, -1);
+            case ">":
+                return pushComparison(CodeBuilder.IFGT, -1);
+            case "==":
+                return pushComparison(CodeBuilder.IFEQ, -1);
+            case "!=":
+                return pushComparison(CodeBuilder.IFNE, -1);
+            default:
+                throw new NotCompilable("unsupported integer operator");
+        }
+    }
+
+    /*
+     * Turns the outcome of a conditional jump into a 0/1 boolean.
+     */
+    private Kind pushComparison(int jumpOpcode, int stackDelta) {
+        CodeBuilder.Label isTrue = code.newLabel();
+        CodeBuilder.Label end = code.newLabel();
+
+        code.jump(jumpOpcode, isTrue, stackDelta);
+        int depth = code.stackDepth();
+        code.op(CodeBuilder.ICONST_0, 1);
+        code.jump(CodeBuilder.GOTO, end, 0);
+        code.mark(isTrue);
+        code.setStackDepth(depth);
+        code.op(CodeBuilder.ICONST_1, 1);
+        code.mark(end);
+        return Kind.BOOL;
+    }
+
+    private Kind compileSelfCall(CallExpression call, HashSet<Integer> assigned)
+        throws NotCompilable {
+        pushSelfCallArguments(call, assigned);
+        code.opU2(CodeBuilder.INVOKESTATIC,
+                  cw.methodConstant(className, CALL_METHOD, callDescriptor),
+                  -2 * numParameters + 2);
+        return Kind.INT;
+    }
+
+    private void pushSelfCallArguments(CallExpression call,
+        HashSet<Integer> assigned) throws NotCompilable {
+        if (!(call.function instanceof Identifier)) {
+            throw new NotCompilable("call of a computed function");
+        }
+        Identifier callee = (Identifier)call.function;
+        if (callee.slot >= 0) {
+            throw new NotCompilable("call of a local function");
+        }
+        if (Evaluator.getBuiltin(callee.value) != null) {
+            throw new NotCompilable("call of a builtin");
+        }
+        if (selfName == null) {
+            selfName = callee.value;
+            selfDepth = callee.depth;
+        } else if (!selfName.equals(callee.value) || selfDepth != callee.depth) {
+            throw new NotCompilable("calls more than one function");
+        }
+        if (call.arguments.length != numParameters) {
+            throw new NotCompilable("wrong number of arguments");
+        }
+
+        for (Expression arg : call.arguments) {
+            expectKind(compileExpression(arg, assigned), Kind.INT);
+        }
+    }
+
+    /*
+     * If expressions used as values. Returns inside them would hand a
+     * wrapped return value to the surrounding expression in the
+     * tree-walker, so only plain values are supported.
+     */
+    private Kind compileIfExpression(IfExpression expr,
+        HashSet<Integer> assigned) throws NotCompilable {
+        if (expr.alternative == null) {
+            throw new NotCompilable("if without else can produce null");
+        }
+
+        expectKind(compileExpression(expr.condition, assigned), Kind.BOOL);
+        CodeBuilder.Label otherwise = code.newLabel();
+        CodeBuilder.Label end = code.newLabel();
+        code.jump(CodeBuilder.IFEQ, otherwise, -1);
+        int depth = code.stackDepth();
+
+        Kind consequence = compileBlockValue(expr.consequence,
+                                             new HashSet<>(assigned));
+        code.jump(CodeBuilder.GOTO, end, 0);
+        code.mark(otherwise);
+        code.setStackDepth(depth);
+        Kind alternative = compileBlockValue(expr.alternative,
+                                             new HashSet<>(assigned));
+        code.mark(end);
+
+        if (consequence != alternative) {
+            throw new NotCompilable("branches produce different types");
+        }
+        return consequence;
+    }
+
+    private Kind compileBlockValue(BlockStatement block,
+        HashSet<Integer> assigned) throws NotCompilable {
+        Statement[] statements = block.statements;
+        if (statements.length == 0
+            || !(statements[statements.length - 1] instanceof ExpressionStatement)) {
+            throw new NotCompilable("block without a value");
+        }
+
+        for (int i = 0; i < statements.length - 1; i++) {
+            if (containsReturn(statements[i])) {
+                throw new NotCompilable("return inside an expression");
+            }
+            compileStatement(statements[i], assigned);
+        }
+
+        Expression last = ((ExpressionStatement)statements[statements.length - 1]).expression;
+        return compileExpression(last, assigned);
+    }
+
+    private static boolean containsReturn(Statement stmt) {
+        if (stmt instanceof ReturnStatement) {
+            return true;
+        } else if (stmt instanceof ExpressionStatement
+                   && ((ExpressionStatement)stmt).expression instanceof IfExpression) {
+            IfExpression expr = (IfExpression)((ExpressionStatement)stmt).expression;
+            return containsReturn(expr.consequence)
+                || (expr.alternative != null && containsReturn(expr.alternative));
+        }
+        return false;
+    }
+
+    private static boolean containsReturn(BlockStatement block) {
+        for (Statement stmt : block.statements) {
+            if (containsReturn(stmt)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void expectKind(Kind actual, Kind expected)
+        throws NotCompilable {
+        if (actual != expected) {
+            throw new NotCompilable("expected " + expected + ", got " + actual);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package jit;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ast.FunctionLiteral;
+import monkeyobject.MonkeyFunction;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyObject;
+
+/*
+ * Compiles hot Monkey functions to JVM bytecode. The evaluator counts calls
+ * per function; once a function passes the threshold its literal is
+ * compiled (or marked as not compilable) and later calls with integer
+ * arguments go straight to the generated code.
+ */
+public class Jit {
+    public final static int DEFAULT_THRESHOLD = 1000;
+
+    private static volatile boolean enabled = true;
+    private static volatile int threshold = DEFAULT_THRESHOLD;
+
+    /* Keyed by literal so every closure of a function shares its code. */
+    private final static Map<FunctionLiteral, CompiledCode> cache =
+        Collections.synchronizedMap(new WeakHashMap<>());
+    private final static AtomicInteger classCounter = new AtomicInteger();
+
+    public static void setEnabled(boolean value) { enabled = value; }
+
+    public static boolean isEnabled() { return enabled; }
+
+    public static void setThreshold(int calls) { threshold = calls; }
+
+    public static int getThreshold() { return threshold; }
+
+    /*
+     * Runs the function through compiled code if it is hot, compilable and
+     * called with integers. Returns null if the caller should interpret it.
+     */
+    public static MonkeyObject tryInvoke(MonkeyFunction fn, MonkeyObject[] args) {
+        if (!enabled || fn.literal == null) {
+            return null;
+        }
+
+        CompiledCode code = fn.compiled;
+        if (code == null) {
+            if (++fn.callCount < threshold) {
+                return null;
+            }
+            code = compiledCodeFor(fn.literal);
+            fn.compiled = code;
+        }
+        if (code.function == null || args.length != code.numParameters) {
+            return null;
+        }
+
+        long[] values = new long[args.length];
+        for (int i = 0; i < args.length; i++) {
+            if (!(args[i] instanceof MonkeyInt)) {
+                return null;
+            }
+            values[i] = ((MonkeyInt)args[i]).value;
+        }
+        if (code.selfName != null && !callsItself(fn, code)) {
+            return null;
+        }
+
+        return MonkeyInt.valueOf(code.function.invoke(values));
+    }
+
+    /*
+     * Compiled self-calls skip the name lookup, so make sure the name
+     * really does still refer to a closure of this literal.
+     */
+    private static boolean callsItself(MonkeyFunction fn, CompiledCode code) {
+        MonkeyObject callee = fn.env.ancestor(code.selfDepth - 1)
+                                    .Get(code.selfName);
+        return callee instanceof MonkeyFunction
+            && ((MonkeyFunction)callee).literal == fn.literal;
+    }
+
+    public static CompiledCode compiledCodeFor(FunctionLiteral literal) {
+        CompiledCode code = cache.get(literal);
+        if (code == null) {
+            code = compile(literal);
+            cache.put(literal, code);
+        }
+        return code;
+    }
+
+    private static CompiledCode compile(FunctionLiteral literal) {
+        String className = "monkeyjit/Fn" + classCounter.incrementAndGet();
+        FunctionCompiler compiler = new FunctionCompiler(literal, className);
+
+        try {
+            byte[] classFile = compiler.compile();
+            Class<?> cls = new JitClassLoader()
+                .define(className.replace('/', '.'), classFile);
+            JitFunction function = (JitFunction)cls.getDeclaredConstructor()
+                                                   .newInstance();
+            return new CompiledCode(function, compiler.selfName(),
+                                    compiler.selfDepth(),
+                                    literal.parameters.size());
+        } catch (FunctionCompiler.NotCompilable e) {
+            return CompiledCode.NOT_COMPILABLE;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // A bug in the code generator; keep interpreting.
+            return CompiledCode.NOT_COMPILABLE;
+        }
+    }
+}
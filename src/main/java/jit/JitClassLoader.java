@@ -0,0 +1,15 @@
+package jit;
+
+/*
+ * Loads generated classes. Its parent is the loader that loaded the JIT,
+ * so generated code can see JitFunction.
+ */
+class JitClassLoader extends ClassLoader {
+    JitClassLoader() {
+        super(JitClassLoader.class.getClassLoader());
+    }
+
+    Class<?> define(String binaryName, byte[] classFile) {
+        return defineClass(binaryName, classFile, 0, classFile.length);
+    }
+}
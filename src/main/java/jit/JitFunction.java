@@ -0,0 +1,10 @@
+package jit;
+
+/*
+ * Implemented by every class the JIT generates. Arguments and the result
+ * are unboxed integers; the caller has already checked that the values it
+ * is passing in really are MonkeyInts.
+ */
+public interface JitFunction {
+    long invoke(long[] args);
+}
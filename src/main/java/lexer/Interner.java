@@ -0,0 +1,96 @@
+package lexer;
+
+import token.Token;
+import token.TokenType;
+
+/*
+ * Open-addressing table of identifier spellings, looked up straight from
+ * the source characters. A name is only turned into a String the first
+ * time it is seen; after that every occurrence shares that instance, and
+ * the table remembers whether the spelling is a keyword.
+ */
+final class Interner {
+    private String[] symbols = new String[64];
+    private TokenType[] types = new TokenType[64];
+    private int count;
+
+    Interner() {
+        for (var keyword : Token.keywords.entrySet()) {
+            String name = keyword.getKey();
+            insert(name, keyword.getValue(), hash(name.toCharArray(), 0, name.length()));
+        }
+    }
+
+    private static int hash(char[] source, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + source[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String symbol, char[] source, int start, int end) {
+        if (symbol.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (symbol.charAt(i - start) != source[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* Returns the table slot for the spelling, adding it if it's new. */
+    private int slot(char[] source, int start, int end) {
+        int h = hash(source, start, end);
+        int mask = symbols.length - 1;
+        for (int i = h & mask; ; i = (i + 1) & mask) {
+            if (symbols[i] == null) {
+                return insert(new String(source, start, end - start), Token.IDENT, h);
+            } else if (matches(symbols[i], source, start, end)) {
+                return i;
+            }
+        }
+    }
+
+    private int insert(String symbol, TokenType type, int h) {
+        if (2 * (count + 1) > symbols.length) {
+            grow();
+        }
+        int mask = symbols.length - 1;
+        int i = h & mask;
+        while (symbols[i] != null) {
+            i = (i + 1) & mask;
+        }
+        symbols[i] = symbol;
+        types[i] = type;
+        count++;
+        return i;
+    }
+
+    private void grow() {
+        String[] oldSymbols = symbols;
+        TokenType[] oldTypes = types;
+        symbols = new String[oldSymbols.length * 2];
+        types = new TokenType[oldTypes.length * 2];
+        count = 0;
+        for (int i = 0; i < oldSymbols.length; i++) {
+            if (oldSymbols[i] != null) {
+                String symbol = oldSymbols[i];
+                insert(symbol, oldTypes[i], hash(symbol.toCharArray(), 0, symbol.length()));
+            }
+        }
+    }
+
+    /* slot() may grow the table, so it has to run before the array is read. */
+    String intern(char[] source, int start, int end) {
+        int i = slot(source, start, end);
+        return symbols[i];
+    }
+
+    TokenType lookupIdent(char[] source, int start, int end) {
+        int i = slot(source, start, end);
+        return types[i];
+    }
+}
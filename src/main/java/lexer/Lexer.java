@@ -1,141 +1,302 @@
 package lexer;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
 import token.Token;
+import token.TokenType;
+
+/*
+ * Scans the source as a char[]. scan() only records the type and bounds
+ * of the next token; nextToken wraps them in a Token for the parser,
+ * while tokenize writes them into a TokenBuffer without allocating.
+ * Operators reuse their type's spelling as literal and identifiers are
+ * interned, so only numbers and strings get fresh Strings.
+ *
+ * When reading from a Reader or a (memory-mapped) ByteBuffer, input is
+ * only a window over the source: once the lexer runs off its end, the
+ * characters before the current token are dropped and more are read in.
+ * The window only grows past WINDOW_SIZE for a single token that big.
+ */
+public class Lexer implements TokenSource {
+    private final static String EOF_LITERAL = "\0";
+    private final static String ILLEGAL_LITERAL = "ILLEGAL";
+    private final static int WINDOW_SIZE = 1 << 16;
 
-public class Lexer {
-    String input;
+    char[] input;
+    int limit;          // chars of input that hold source
     int position;       // points to current char
     int readPosition;   // after current char
     char ch;
+    int line = 1;
+    int lineStart;      // index in input of the current line's first char
+    private Reader reader;  // null once everything is in input
+    private final Interner interner = new Interner();
+
+    /* Result of the last scan() */
+    TokenType type;
+    int start;
+    int end;
+    int tokenLine;
+    int tokenColumn;
 
     public Lexer (String input){
+        this(input.toCharArray());
+    }
+
+    public Lexer (char[] input){
         this.input = input;
+        this.limit = input.length;
         readChar();
     }
 
+    public Lexer (Reader reader){
+        this.input = new char[WINDOW_SIZE];
+        this.reader = reader;
+        readChar();
+    }
+
+    /* Decodes the buffer as UTF-8 a window at a time. */
+    public Lexer (ByteBuffer source){
+        this(new ByteBufferReader(source));
+    }
+
+    /*
+     * Maps the file instead of reading it, so the OS pages the source in
+     * as the lexer gets to it and only the window lives on the heap.
+     */
+    public static Lexer mapFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new Lexer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
     void readChar () {
-        if (readPosition >= input.length())
+        if (readPosition >= limit && !fill())
             ch = '\0';
         else
-            ch = input.charAt(readPosition);
+            ch = input[readPosition];
         position = readPosition;
         readPosition++;
+        if (ch == '\n') {
+            line++;
+            lineStart = readPosition;
+        }
     }
 
     char peekChar() {
-        if (readPosition >= input.length()) {
+        if (readPosition >= limit && !fill()) {
             return '\0';
         }
-        return input.charAt(readPosition);
+        return input[readPosition];
+    }
+
+    /*
+     * Slides the window forward, keeping the token being scanned, and
+     * reads more source into it. False once the source is exhausted.
+     */
+    private boolean fill() {
+        if (reader == null) {
+            return false;
+        }
+
+        int keep = Math.max(0, Math.min(start, position));
+        System.arraycopy(input, keep, input, 0, limit - keep);
+        limit -= keep;
+        position -= keep;
+        readPosition -= keep;
+        start -= keep;
+        end -= keep;
+        lineStart -= keep;
+        // A code point past the BMP takes two chars, and a decoder can't
+        // hand over half of one.
+        if (input.length - limit < 2) {
+            char[] grown = new char[input.length * 2];
+            System.arraycopy(input, 0, grown, 0, limit);
+            input = grown;
+        }
+
+        try {
+            int read;
+            do {
+                read = reader.read(input, limit, input.length - limit);
+            } while (read == 0);
+            if (read < 0) {
+                reader.close();
+                reader = null;
+                return false;
+            }
+            limit += read;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return readPosition < limit;
     }
 
     public Token nextToken () {
-        Token token = null;
+        scan();
+        return new Token(type, literal(type, input, start, end, interner),
+                         tokenLine, tokenColumn);
+    }
+
+    /*
+     * Lexes the rest of the input into the given buffer, ending with EOF.
+     * The buffer is cleared first, so one can be reused across scripts.
+     */
+    public TokenBuffer tokenize(TokenBuffer into) {
+        if (reader != null) {
+            throw new IllegalStateException(
+                "tokenize needs the whole source in memory; use nextToken when streaming");
+        }
+        into.reset(input, interner);
+        do {
+            scan();
+            into.add(type, start, end);
+        } while (type != Token.EOF);
+        return into;
+    }
 
+    static String literal(TokenType type, char[] source, int start, int end,
+                          Interner interner) {
+        switch (type) {
+            case EOF:
+                return EOF_LITERAL;
+            case ILLEGAL:
+                return ILLEGAL_LITERAL;
+            case INT:
+            case STRING:
+                return new String(source, start, end - start);
+            case IDENT:
+            case FUNCTION:
+            case LET:
+            case TRUE:
+            case FALSE:
+            case IF:
+            case ELSE:
+            case RETURN:
+                return interner.intern(source, start, end);
+            default:
+                return type.toString();
+        }
+    }
+
+    void scan() {
         skipWhitespace();
+        start = position;
+        tokenLine = line;
+        tokenColumn = position - lineStart + 1;
 
         switch (ch) {
             case '\0':
-                token = new Token(Token.EOF, Character.toString(ch));
+                type = Token.EOF;
                 break;
             case '=':
                 if (peekChar() == '=') {
-                    char firstCh = ch;
                     readChar();
-                    token = new Token(Token.EQ, firstCh + "" + ch);
+                    type = Token.EQ;
                     break;
                 }
-                token = new Token(Token.ASSIGN, Character.toString(ch));
+                type = Token.ASSIGN;
                 break;
             case '+':
-                token = new Token(Token.PLUS, Character.toString(ch));
+                type = Token.PLUS;
                 break;
             case '-':
-                token = new Token(Token.MINUS, Character.toString(ch));
+                type = Token.MINUS;
                 break;
             case '!':
                 if (peekChar() == '=') {
-                    char firstCh = ch;
                     readChar();
-                    token = new Token(Token.NOTEQ, firstCh + "" + ch);
+                    type = Token.NOTEQ;
                     break;
                 }
-                token = new Token(Token.BANG, Character.toString(ch));
+                type = Token.BANG;
                 break;
             case '*':
-                token = new Token(Token.ASTERISK, Character.toString(ch));
+                type = Token.ASTERISK;
                 break;
             case '/':
-                token = new Token(Token.SLASH, Character.toString(ch));
+                type = Token.SLASH;
                 break;
             case ',':
-                token = new Token(Token.COMMA, Character.toString(ch));
+                type = Token.COMMA;
                 break;
             case ':':
-                token = new Token(Token.COLON, Character.toString(ch));
+                type = Token.COLON;
                 break;
             case ';':
-                token = new Token(Token.SEMICOLON, Character.toString(ch));
+                type = Token.SEMICOLON;
                 break;
             case '(':
-                token = new Token(Token.LPAREN, Character.toString(ch));
+                type = Token.LPAREN;
                 break;
             case ')':
-                token = new Token(Token.RPAREN, Character.toString(ch));
+                type = Token.RPAREN;
                 break;
             case '{':
-                token = new Token(Token.LBRACE, Character.toString(ch));
-               break;
+                type = Token.LBRACE;
+                break;
             case '}':
-                token = new Token(Token.RBRACE, Character.toString(ch));
+                type = Token.RBRACE;
                 break;
             case '[':
-                token = new Token(Token.LBRACKET, Character.toString(ch));
+                type = Token.LBRACKET;
                 break;
             case ']':
-                token = new Token(Token.RBRACKET, Character.toString(ch));
+                type = Token.RBRACKET;
                 break;
             case '<':
-                token = new Token(Token.LT, Character.toString(ch));
+                type = Token.LT;
                 break;
             case '>':
-                token = new Token(Token.GT, Character.toString(ch));
+                type = Token.GT;
                 break;
             case '\"':
-                token = new Token(Token.STRING);
-                token.literal = readString();
-                break;
+                type = Token.STRING;
+                readString();
+                // skip the closing quote
+                readChar();
+                return;
             default:
                 if (isLetter(ch)) {
-                    String literal = readIdentifier();
+                    readIdentifier();
+                    type = interner.lookupIdent(input, start, end);
                     // must return here as we don't want to readChar below
-                    return new Token(Token.lookupIdent(literal), literal);
+                    return;
                 } else if (Character.isDigit(ch)){
-                    return new Token(Token.INT, readNumber());
+                    type = Token.INT;
+                    readNumber();
+                    return;
                 }else {
-                    token = new Token(Token.ILLEGAL, "ILLEGAL");
+                    type = Token.ILLEGAL;
                 }
         }
 
         readChar();
-        return token;
+        end = position;
     }
 
-    String readIdentifier() {
-        int start_pos = position;
+    void readIdentifier() {
         while (isLetter(ch)){
             readChar();
         }
-
-        return input.substring(start_pos, position);
+        end = position;
     }
 
-    String readNumber() {
-        int start_pos = position;
+    void readNumber() {
         while (Character.isDigit(ch)){
             readChar();
         }
-        return input.substring(start_pos, position);
+        end = position;
     }
 
     boolean isLetter(char ch){
@@ -148,14 +309,44 @@ public class Lexer {
         }
     }
 
-    String readString() {
-        int pos = position + 1;
+    /* Leaves start and end around the contents, without the quotes. */
+    void readString() {
+        start = position + 1;
         while (true) {
             readChar();
             if (ch == '\"' || ch == 0) {
                 break;
             }
         }
-        return input.substring(pos, position);
+        end = position;
+    }
+
+    private static class ByteBufferReader extends Reader {
+        private final ByteBuffer source;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private boolean flushed;
+
+        ByteBufferReader(ByteBuffer source) {
+            this.source = source.duplicate();
+        }
+
+        @Override
+        public int read(char[] into, int offset, int length) {
+            CharBuffer out = CharBuffer.wrap(into, offset, length);
+            if (source.hasRemaining()) {
+                decoder.decode(source, out, true);
+            }
+            if (!source.hasRemaining() && !flushed) {
+                flushed = decoder.flush(out).isUnderflow();
+            }
+
+            int read = out.position() - offset;
+            return read == 0 && flushed ? -1 : read;
+        }
+
+        @Override
+        public void close() {}
     }
 }
@@ -0,0 +1,125 @@
+package lexer;
+
+import token.Token;
+import token.TokenType;
+
+/*
+ * Tokens stored as (type, start, end) int triples over the source
+ * characters, so lexing a whole script allocates nothing per token. The
+ * buffer is meant to be reused: Lexer.tokenize clears it before filling
+ * it again. Literals are only built when someone asks for them, and
+ * nextToken replays the buffer for the parser. Lines and columns are
+ * worked out from the source the first time one is asked for.
+ */
+public final class TokenBuffer implements TokenSource {
+    private final static TokenType[] TYPES = TokenType.values();
+
+    private int[] data = new int[3 * 256];
+    private int count;
+    private int cursor;
+    private char[] source;
+    private Interner interner;
+    private int[] lineStarts;   // null until line() or column() needs it
+    private int lines;
+
+    void reset(char[] source, Interner interner) {
+        this.source = source;
+        this.interner = interner;
+        lineStarts = null;
+        count = 0;
+        cursor = 0;
+    }
+
+    void add(TokenType type, int start, int end) {
+        if (3 * count + 3 > data.length) {
+            int[] grown = new int[data.length * 2];
+            System.arraycopy(data, 0, grown, 0, 3 * count);
+            data = grown;
+        }
+        data[3 * count] = type.ordinal();
+        data[3 * count + 1] = start;
+        data[3 * count + 2] = end;
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public TokenType type(int i) {
+        return TYPES[data[3 * i]];
+    }
+
+    public int start(int i) {
+        return data[3 * i + 1];
+    }
+
+    public int end(int i) {
+        return data[3 * i + 2];
+    }
+
+    /* Line of token i's first char, counted from 1. */
+    public int line(int i) {
+        return lineOf(offset(i)) + 1;
+    }
+
+    /* Column of token i's first char, counted from 1. */
+    public int column(int i) {
+        return offset(i) - lineStarts[lineOf(offset(i))] + 1;
+    }
+
+    /* Strings are stored without their quotes, but start at the opening one. */
+    private int offset(int i) {
+        return type(i) == Token.STRING ? start(i) - 1 : start(i);
+    }
+
+    private int lineOf(int offset) {
+        if (lineStarts == null) {
+            indexLines();
+        }
+
+        int lo = 0;
+        int hi = lines - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (lineStarts[mid] <= offset) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private void indexLines() {
+        lineStarts = new int[64];
+        lines = 1;
+        for (int i = 0; i < source.length; i++) {
+            if (source[i] != '\n') {
+                continue;
+            }
+            if (lines == lineStarts.length) {
+                int[] grown = new int[lineStarts.length * 2];
+                System.arraycopy(lineStarts, 0, grown, 0, lines);
+                lineStarts = grown;
+            }
+            lineStarts[lines++] = i + 1;
+        }
+    }
+
+    public String literal(int i) {
+        return Lexer.literal(type(i), source, start(i), end(i), interner);
+    }
+
+    public Token token(int i) {
+        return new Token(type(i), literal(i), line(i), column(i));
+    }
+
+    /* Hands out the buffered tokens in order, then EOF forever. */
+    public Token nextToken() {
+        if (cursor < count - 1) {
+            return token(cursor++);
+        }
+        return token(count - 1);
+    }
+}
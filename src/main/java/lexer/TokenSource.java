@@ -0,0 +1,11 @@
+package lexer;
+
+import token.Token;
+
+/*
+ * Anything the parser can pull tokens from: the lexer itself, or a
+ * TokenBuffer that was filled ahead of time.
+ */
+public interface TokenSource {
+    Token nextToken();
+}
@@ -1,17 +1,46 @@
 package monkeyobject;
 
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 public class BuiltinFunction implements MonkeyObject{
-    public static final String BUILTIN_OBJ = "BUILTIN";
 
     public Function<MonkeyObject[], MonkeyObject> function;
+    /* Set instead of function by builtins that call functions back. */
+    public BiFunction<MonkeyObject[], Invoker, MonkeyObject> higherOrder;
+    /*
+     * Set by builtins such as push whose results share all but one entry
+     * with their first argument, so only that entry costs anything new.
+     */
+    public boolean sharesArgument;
 
     public BuiltinFunction(Function<MonkeyObject[], MonkeyObject> fn) {
         this.function= fn;
     }
 
-    public String Type() { return BUILTIN_OBJ; }
+    public BuiltinFunction(Function<MonkeyObject[], MonkeyObject> fn, boolean sharesArgument) {
+        this.function= fn;
+        this.sharesArgument = sharesArgument;
+    }
+
+    public BuiltinFunction(BiFunction<MonkeyObject[], Invoker, MonkeyObject> fn) {
+        this.higherOrder = fn;
+    }
+
+    public BuiltinFunction(BiFunction<MonkeyObject[], Invoker, MonkeyObject> fn,
+                           boolean sharesArgument) {
+        this.higherOrder = fn;
+        this.sharesArgument = sharesArgument;
+    }
+
+    public MonkeyObject apply(MonkeyObject[] args, Invoker invoker) {
+        if (higherOrder != null) {
+            return higherOrder.apply(args, invoker);
+        }
+        return function.apply(args);
+    }
+
+    public ObjectType objectType() { return ObjectType.BUILTIN; }
 
     public String Inspect() { return "builtin function"; }
 }
@@ -1,20 +1,47 @@
 package monkeyobject;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
+import evaluator.EvaluationContext;
+
+/*
+ * Tasks started with spawn share scopes with the code that started them,
+ * just as a closure called later would: a task sees a binding once the
+ * let making it has run, wherever that let ran. Values themselves never
+ * change, so bindings are all there is to share, and name stores are
+ * concurrent maps so a let can't corrupt them for a task reading along.
+ * Nothing orders a let in one task before a read in another, though;
+ * hand values over with a channel when that matters.
+ */
 public class Environment {
-    HashMap<String, MonkeyObject> store = new HashMap<>();
+    /* Bindings by name; only allocated once something is bound by name. */
+    volatile ConcurrentHashMap<String, MonkeyObject> store;
+    /* Bindings by slot, for call frames of resolved functions. */
+    MonkeyObject[] slots;
     Environment outer;
+    /*
+     * Limits of the evaluation running in this scope, or null for none.
+     * New scopes inherit their outer one's; call frames get their caller's
+     * instead, since a closure can outlive the evaluation that made it.
+     */
+    public EvaluationContext context;
 
     public Environment() { }
     
     public Environment(Environment outer) {
         this.outer = outer;
+        this.context = outer != null ? outer.context : null;
     }
 
+    public Environment(Environment outer, int size) {
+        this.outer = outer;
+        this.context = outer != null ? outer.context : null;
+        this.slots = new MonkeyObject[size];
+    }
 
     public MonkeyObject Get(String name) {
-        MonkeyObject obj = store.get(name);
+        ConcurrentHashMap<String, MonkeyObject> store = this.store;
+        MonkeyObject obj = store != null ? store.get(name) : null;
         if (obj == null && outer != null) {
             obj = outer.Get(name);
         }
@@ -23,7 +50,36 @@ public class Environment {
     }
 
     public MonkeyObject Set(String name, MonkeyObject val) {
-        store.put(name, val);
+        if (store == null) {
+            store = new ConcurrentHashMap<>();
+        }
+        // An unbound name reads as null anyway, and the map can't hold one.
+        if (val == null) {
+            store.remove(name);
+        } else {
+            store.put(name, val);
+        }
         return val;
     }
+
+    /*
+     * Null if the slot has not been bound yet, in which case callers fall
+     * back to Get(name).
+     */
+    public MonkeyObject GetAt(int depth, int slot) {
+        return ancestor(depth).slots[slot];
+    }
+
+    public MonkeyObject SetAt(int slot, MonkeyObject val) {
+        slots[slot] = val;
+        return val;
+    }
+
+    public Environment ancestor(int depth) {
+        Environment env = this;
+        for (int i = 0; i < depth; i++) {
+            env = env.outer;
+        }
+        return env;
+    }
 }
@@ -1,18 +1,70 @@
 package monkeyobject;
 
+import java.security.SecureRandom;
+
 /*
-    Manually creating a hashkey is likely
-    unneccesary in Java, but I'm doing
-    this just to follow along with what was
-    done in the book
+    A 64-bit hash of a hashable object together with
+    the object itself. Two keys are only equal when their
+    hashes match and the objects they came from are equal,
+    so distinct keys that happen to collide stay apart.
+
+    The mixing functions follow xxHash64 and are keyed by a
+    per-process seed, so inputs crafted to collide in one run
+    won't collide in the next. Set -Dmonkey.hash.seed=... for
+    reproducible hashes.
 */
 public class HashKey {
-    String type;
-    long value;
+    private final static long PRIME1 = 0x9E3779B185EBCA87L;
+    private final static long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private final static long PRIME3 = 0x165667B19E3779F9L;
+    private final static long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private final static long PRIME5 = 0x27D4EB2F165667C5L;
+
+    public final static long SEED =
+        Long.getLong("monkey.hash.seed", new SecureRandom().nextLong());
 
-    public HashKey(String type, long value) {
+    final ObjectType type;
+    final long value;
+    final MonkeyObject key;
+
+    public HashKey(ObjectType type, long value, MonkeyObject key) {
         this.type = type;
         this.value = value;
+        this.key = key;
+    }
+
+    public static long hashLong(long input) {
+        long h = SEED + PRIME5 + 8;
+        h ^= Long.rotateLeft(input * PRIME2, 31) * PRIME1;
+        h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+        return avalanche(h);
+    }
+
+    public static long hashString(String input) {
+        int length = input.length();
+        long h = SEED + PRIME5 + 2L * length;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long lane = (long)input.charAt(i)
+                      | (long)input.charAt(i + 1) << 16
+                      | (long)input.charAt(i + 2) << 32
+                      | (long)input.charAt(i + 3) << 48;
+            h ^= Long.rotateLeft(lane * PRIME2, 31) * PRIME1;
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+        }
+        for (; i < length; i++) {
+            h ^= input.charAt(i) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+        }
+        return avalanche(h);
+    }
+
+    private static long avalanche(long h) {
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        return h ^ (h >>> 32);
     }
 
     @Override
@@ -23,12 +75,14 @@ public class HashKey {
             return false;
         }
 
-        return type == ((HashKey)o).type 
-            && value == ((HashKey)o).value;
+        HashKey other = (HashKey)o;
+        return type == other.type
+            && value == other.value
+            && (key == other.key || key.equals(other.key));
     }
 
     @Override
     public int hashCode() {
-        return (int)value;
+        return (int)(value ^ (value >>> 32));
     }
 }
@@ -1,8 +1,8 @@
 package monkeyobject;
 
 public class HashPair {
-    MonkeyObject key;
-    public MonkeyObject value;
+    final MonkeyObject key;
+    public final MonkeyObject value;
 
     public HashPair(MonkeyObject key, MonkeyObject value) {
         this.key = key;
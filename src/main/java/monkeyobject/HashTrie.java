@@ -0,0 +1,282 @@
+package monkeyobject;
+
+import java.util.function.Consumer;
+
+/*
+ * Persistent hash array mapped trie from HashKeys to HashPairs. Each level
+ * consumes five bits of the key's hash; a node only allocates slots for
+ * the children it has, found by popcount on its bitmap. Updates copy the
+ * path from the root to the changed slot and share everything else, so
+ * put and remove are O(log32 n) and old versions stay valid.
+ *
+ * Node arrays hold (key, value) slot pairs: a null key means the value is
+ * a child node, otherwise the slot is an entry.
+ */
+final class HashTrie {
+    private final static int BITS = 5;
+    private final static int MASK = (1 << BITS) - 1;
+
+    final static HashTrie EMPTY = new HashTrie(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private HashTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    HashPair get(HashKey key) {
+        return root == null ? null : root.find(0, key.hashCode(), key);
+    }
+
+    HashTrie put(HashKey key, HashPair pair) {
+        boolean[] added = new boolean[1];
+        Node start = root != null ? root : BitmapNode.EMPTY;
+        Node newRoot = start.put(0, key.hashCode(), key, pair, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new HashTrie(newRoot, added[0] ? size + 1 : size);
+    }
+
+    HashTrie remove(HashKey key) {
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.remove(0, key.hashCode(), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return new HashTrie(newRoot, size - 1);
+    }
+
+    void forEach(Consumer<HashPair> action) {
+        if (root != null) {
+            root.forEach(action);
+        }
+    }
+
+    private static abstract class Node {
+        abstract HashPair find(int shift, int hash, HashKey key);
+
+        /* Returns this if nothing changed; sets added[0] for new keys. */
+        abstract Node put(int shift, int hash, HashKey key, HashPair pair,
+                          boolean[] added);
+
+        /* Returns this if the key was absent, null if the node is now empty. */
+        abstract Node remove(int shift, int hash, HashKey key);
+
+        abstract void forEach(Consumer<HashPair> action);
+    }
+
+    private static class BitmapNode extends Node {
+        final static BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & MASK);
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        HashPair find(int shift, int hash, HashKey key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+
+            int i = index(bit);
+            Object slotKey = array[2 * i];
+            Object slotValue = array[2 * i + 1];
+            if (slotKey == null) {
+                return ((Node)slotValue).find(shift + BITS, hash, key);
+            }
+            return key.equals(slotKey) ? (HashPair)slotValue : null;
+        }
+
+        Node put(int shift, int hash, HashKey key, HashPair pair,
+                 boolean[] added) {
+            int bit = bit(hash, shift);
+            int i = index(bit);
+
+            if ((bitmap & bit) == 0) {
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, 2 * i);
+                newArray[2 * i] = key;
+                newArray[2 * i + 1] = pair;
+                System.arraycopy(array, 2 * i, newArray, 2 * i + 2,
+                                 array.length - 2 * i);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+
+            Object slotKey = array[2 * i];
+            Object slotValue = array[2 * i + 1];
+            Object[] newArray = array.clone();
+
+            if (slotKey == null) {
+                Node child = (Node)slotValue;
+                Node newChild = child.put(shift + BITS, hash, key, pair, added);
+                if (newChild == child) {
+                    return this;
+                }
+                newArray[2 * i + 1] = newChild;
+            } else if (key.equals(slotKey)) {
+                if (slotValue == pair) {
+                    return this;
+                }
+                newArray[2 * i + 1] = pair;
+            } else {
+                // Two keys share this slot; push both one level down.
+                newArray[2 * i] = null;
+                newArray[2 * i + 1] = split(shift + BITS, (HashKey)slotKey,
+                                            (HashPair)slotValue, hash, key, pair);
+                added[0] = true;
+            }
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        private static Node split(int shift, HashKey key1, HashPair pair1,
+                                  int hash2, HashKey key2, HashPair pair2) {
+            int hash1 = key1.hashCode();
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1,
+                                         new Object[] { key1, pair1, key2, pair2 });
+            }
+
+            boolean[] ignored = new boolean[1];
+            return EMPTY.put(shift, hash1, key1, pair1, ignored)
+                        .put(shift, hash2, key2, pair2, ignored);
+        }
+
+        Node remove(int shift, int hash, HashKey key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            int i = index(bit);
+            Object slotKey = array[2 * i];
+            Object slotValue = array[2 * i + 1];
+
+            if (slotKey == null) {
+                Node child = (Node)slotValue;
+                Node newChild = child.remove(shift + BITS, hash, key);
+                if (newChild == child) {
+                    return this;
+                } else if (newChild != null) {
+                    Object[] newArray = array.clone();
+                    newArray[2 * i + 1] = newChild;
+                    return new BitmapNode(bitmap, newArray);
+                }
+            } else if (!key.equals(slotKey)) {
+                return this;
+            }
+
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, 2 * i);
+            System.arraycopy(array, 2 * i + 2, newArray, 2 * i,
+                             array.length - 2 * i - 2);
+            return new BitmapNode(bitmap ^ bit, newArray);
+        }
+
+        void forEach(Consumer<HashPair> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node)array[i + 1]).forEach(action);
+                } else {
+                    action.accept((HashPair)array[i + 1]);
+                }
+            }
+        }
+    }
+
+    /* Keys whose hashes are equal in all 32 bits. */
+    private static class CollisionNode extends Node {
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(HashKey key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        HashPair find(int shift, int hash, HashKey key) {
+            int i = indexOf(key);
+            return i < 0 ? null : (HashPair)array[i + 1];
+        }
+
+        Node put(int shift, int hash, HashKey key, HashPair pair,
+                 boolean[] added) {
+            if (hash != this.hash) {
+                // Nest this node under a bitmap node and insert next to it.
+                BitmapNode parent = new BitmapNode(1 << ((this.hash >>> shift) & MASK),
+                                                   new Object[] { null, this });
+                return parent.put(shift, hash, key, pair, added);
+            }
+
+            int i = indexOf(key);
+            if (i >= 0) {
+                if (array[i + 1] == pair) {
+                    return this;
+                }
+                Object[] newArray = array.clone();
+                newArray[i + 1] = pair;
+                return new CollisionNode(hash, newArray);
+            }
+
+            Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, array.length);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = pair;
+            added[0] = true;
+            return new CollisionNode(hash, newArray);
+        }
+
+        Node remove(int shift, int hash, HashKey key) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            } else if (array.length == 2) {
+                return null;
+            }
+
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, i);
+            System.arraycopy(array, i + 2, newArray, i, array.length - i - 2);
+            return new CollisionNode(hash, newArray);
+        }
+
+        void forEach(Consumer<HashPair> action) {
+            for (int i = 1; i < array.length; i += 2) {
+                action.accept((HashPair)array[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package monkeyobject;
+
+import evaluator.EvaluationContext;
+
+/*
+ * How a builtin such as map calls a function value back. Each engine
+ * hands its own to the builtins it calls, so the function runs in the
+ * engine that made it, under the same limits as the caller.
+ */
+public interface Invoker {
+    MonkeyObject call(MonkeyObject fn, MonkeyObject[] args);
+
+    /*
+     * An invoker that calls fn from another thread while this one keeps
+     * running, or null if fn may have side effects or the engine can't
+     * run it off this thread. Safe to ask from any thread; each invoker
+     * it returns is for one thread at a time.
+     */
+    default Invoker fork(MonkeyObject fn) {
+        return null;
+    }
+
+    /*
+     * An invoker for a task started with spawn, which runs on a thread of
+     * its own for as long as it likes, under limits drawn from this run's
+     * (see EvaluationContext.forTask). Null if the engine can't start one.
+     */
+    default Invoker task() {
+        return null;
+    }
+
+    /* Limits of the run making the call, for builtins that block. */
+    default EvaluationContext context() {
+        return null;
+    }
+}
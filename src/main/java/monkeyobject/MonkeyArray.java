@@ -1,19 +1,64 @@
 package monkeyobject;
 
+/*
+ * Arrays are immutable values backed by a PersistentVector, so push and
+ * indexing are effectively constant time and share structure with the
+ * array they came from. rest is an O(1) view that skips the first
+ * element(s) of the same vector.
+ */
 public class MonkeyArray implements MonkeyObject{
-    public static String ARRAY_OBJ = "ARRAY";
-    public MonkeyObject[] elements;
+    private final PersistentVector vector;
+    private final int offset;
 
     public MonkeyArray(MonkeyObject[] elements) {
-        this.elements = elements;
+        this(PersistentVector.of(elements), 0);
     }
 
-    public String Type() { return ARRAY_OBJ; }
+    private MonkeyArray(PersistentVector vector, int offset) {
+        this.vector = vector;
+        this.offset = offset;
+    }
+
+    public int size() {
+        return vector.size() - offset;
+    }
+
+    public MonkeyObject get(int index) {
+        return vector.get(offset + index);
+    }
+
+    public MonkeyObject first() {
+        return get(0);
+    }
+
+    public MonkeyObject last() {
+        return get(size() - 1);
+    }
+
+    /* All but the first element; the array must not be empty. */
+    public MonkeyArray rest() {
+        return new MonkeyArray(vector, offset + 1);
+    }
+
+    public MonkeyArray push(MonkeyObject value) {
+        // A view that has skipped more than it keeps is copied first, so
+        // long rest/push loops do not hold on to everything they dropped.
+        if (offset > 32 && offset > size()) {
+            return new MonkeyArray(toArray()).push(value);
+        }
+        return new MonkeyArray(vector.push(value), offset);
+    }
+
+    public MonkeyObject[] toArray() {
+        return vector.toArray(offset);
+    }
+
+    public ObjectType objectType() { return ObjectType.ARRAY; }
 
     public String Inspect() {
-        String[] strEl = new String[elements.length];
-        for (int i = 0; i < elements.length; i++) {
-            strEl[i] = elements[i].Inspect();
+        String[] strEl = new String[size()];
+        for (int i = 0; i < strEl.length; i++) {
+            strEl[i] = get(i).Inspect();
         }
 
         return "[" + String.join(", ", strEl) + "]";
@@ -30,12 +75,12 @@ public class MonkeyArray implements MonkeyObject{
         } 
         MonkeyArray arr = (MonkeyArray)o;
 
-        if (elements.length != arr.elements.length) {
+        if (size() != arr.size()) {
             return false;
         }
 
-        for (int i = 0; i < elements.length; i++) {
-            if (!elements[i].equals(arr.elements[i])) {
+        for (int i = 0; i < size(); i++) {
+            if (!get(i).equals(arr.get(i))) {
                 return false;
             }
         }
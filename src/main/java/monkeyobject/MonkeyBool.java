@@ -1,18 +1,34 @@
 package monkeyobject;
 
 public class MonkeyBool implements MonkeyObject, Hashable {
-    public boolean value;
-    final static String BOOLEAN_OBJ = "BOOLEAN";
+    public final boolean value;
+    public final static MonkeyBool TRUE = new MonkeyBool(true);
+    public final static MonkeyBool FALSE = new MonkeyBool(false);
 
     public MonkeyBool (boolean value) {
         this.value = value;
     }
 
-    public String Type() { return BOOLEAN_OBJ; }
+    public ObjectType objectType() { return ObjectType.BOOLEAN; }
 
     public String Inspect() { return Boolean.toString(value); }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (!(o instanceof MonkeyBool)) {
+            return false;
+        }
+        return value == ((MonkeyBool)o).value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Boolean.hashCode(value);
+    }
+
     public HashKey getHashKey() {
-        return new HashKey(Type(), value ? 1l : 0l);
+        return new HashKey(objectType(), HashKey.hashLong(value ? 1l : 0l), this);
     }
 }
@@ -0,0 +1,28 @@
+package monkeyobject;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+
+/*
+ * A queue between tasks, from chan(capacity). send waits while it holds
+ * capacity values; with a capacity of 0 every send waits for a recv.
+ * The queue only allocates for the values it holds, so a script can ask
+ * for a huge capacity without the JVM setting aside room for it.
+ */
+public class MonkeyChannel implements MonkeyObject {
+    public final int capacity;
+    public final BlockingQueue<MonkeyObject> queue;
+
+    public MonkeyChannel(int capacity) {
+        this.capacity = capacity;
+        this.queue = capacity == 0 ? new SynchronousQueue<>()
+                                   : new LinkedBlockingQueue<>(capacity);
+    }
+
+    public ObjectType objectType() { return ObjectType.CHANNEL; }
+
+    public String Inspect() {
+        return String.format("Channel[%d]", capacity);
+    }
+}
@@ -0,0 +1,21 @@
+package monkeyobject;
+
+public class MonkeyClosure implements MonkeyObject {
+    public final MonkeyCompiledFunction fn;
+    public final MonkeyObject[] free;
+
+    public MonkeyClosure(MonkeyCompiledFunction fn, MonkeyObject[] free) {
+        this.fn = fn;
+        this.free = free;
+    }
+
+    /*
+     * Closures are what the VM hands around as function values, so they
+     * report the same type name as the tree-walker's MonkeyFunction.
+     */
+    public ObjectType objectType() { return ObjectType.FUNCTION; }
+
+    public String Inspect() {
+        return String.format("Closure[%d]", System.identityHashCode(this));
+    }
+}
@@ -0,0 +1,25 @@
+package monkeyobject;
+
+public class MonkeyCompiledFunction implements MonkeyObject {
+    public byte[] instructions;
+    public int numLocals;
+    public int numParameters;
+    /* Indexed by local slot, used for "identifier not found" errors. */
+    public String[] localNames;
+    /* Set by the compiler when it only calls leaf builtins; see FunctionLiteral.pure. */
+    public boolean pure;
+
+    public MonkeyCompiledFunction(byte[] instructions, int numLocals,
+        int numParameters, String[] localNames) {
+        this.instructions = instructions;
+        this.numLocals = numLocals;
+        this.numParameters = numParameters;
+        this.localNames = localNames;
+    }
+
+    public ObjectType objectType() { return ObjectType.COMPILED_FUNCTION; }
+
+    public String Inspect() {
+        return String.format("CompiledFunction[%d]", System.identityHashCode(this));
+    }
+}
@@ -1,14 +1,13 @@
 package monkeyobject;
 
 public class MonkeyError implements MonkeyObject{
-    public String message;
-    public final static String ERROR_OBJ = "ERROR";
+    public final String message;
 
     public MonkeyError(String message) {
         this.message = message;
     }
 
-    public String Type() { return ERROR_OBJ; }
+    public ObjectType objectType() { return ObjectType.ERROR; }
     public String Inspect() { return "ERROR: " + message; }
 
     @Override
@@ -3,22 +3,52 @@ package monkeyobject;
 import java.util.ArrayList;
 
 import ast.BlockStatement;
+import ast.FunctionLiteral;
 import ast.Identifier;
+import jit.CompiledCode;
 
+/*
+ * Final fields, so a task on another thread that finds a function in a
+ * shared scope always sees it whole.
+ */
 public class MonkeyFunction implements MonkeyObject{
-    public final static String FUNCTION_OBJ = "FUNCTION";
-    public ArrayList<Identifier> parameters;
-    public BlockStatement body;
-    public Environment env;
+    public final ArrayList<Identifier> parameters;
+    public final BlockStatement body;
+    public final Environment env;
+    /* Null for functions built by hand rather than from a literal. */
+    public final FunctionLiteral literal;
+    /*
+     * JIT bookkeeping: calls so far, then the code once it got hot. pmap
+     * and tasks call functions from several threads; a lost count only
+     * delays compiling, and compiled is volatile so no thread sees the
+     * code before it is whole.
+     */
+    public int callCount;
+    public volatile CompiledCode compiled;
 
     public MonkeyFunction(ArrayList<Identifier> parameters, BlockStatement body,
         Environment env) {
+        this(parameters, body, env, null);
+    }
+
+    public MonkeyFunction(FunctionLiteral literal, Environment env) {
+        this(literal.parameters, literal.body, env, literal);
+    }
+
+    private MonkeyFunction(ArrayList<Identifier> parameters, BlockStatement body,
+        Environment env, FunctionLiteral literal) {
         this.parameters = parameters;
         this.body = body;
         this.env = env;
+        this.literal = literal;
+    }
+
+    /* Slots a call frame needs, or -1 to bind parameters by name. */
+    public int frameSize() {
+        return literal != null ? literal.frameSize : -1;
     }
 
-    public String Type() { return FUNCTION_OBJ; }
+    public ObjectType objectType() { return ObjectType.FUNCTION; }
 
     public String Inspect() {
         String[] params = new String[parameters.size()];
@@ -1,27 +1,74 @@
 package monkeyobject;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 
+/*
+    Hashes are immutable: put and delete return a new
+    MonkeyHash that shares all untouched trie nodes
+    with the old one, so keeping a snapshot is free.
+*/
 public class MonkeyHash implements MonkeyObject {
-    public static String HASH_OBJ = "HASH";
-    public HashMap<HashKey, HashPair> pairs;
+    private final HashTrie pairs;
 
-    public MonkeyHash (HashMap<HashKey, HashPair> pairs) {
+    public MonkeyHash() {
+        this(HashTrie.EMPTY);
+    }
+
+    private MonkeyHash(HashTrie pairs) {
         this.pairs = pairs;
     }
 
-    public String Type() { return HASH_OBJ; }
+    public int size() {
+        return pairs.size();
+    }
+
+    public HashPair get(HashKey key) {
+        return pairs.get(key);
+    }
+
+    public MonkeyHash put(HashKey key, HashPair pair) {
+        HashTrie updated = pairs.put(key, pair);
+        return updated == pairs ? this : new MonkeyHash(updated);
+    }
 
+    public MonkeyHash delete(HashKey key) {
+        HashTrie updated = pairs.remove(key);
+        return updated == pairs ? this : new MonkeyHash(updated);
+    }
+
+    public ArrayList<HashPair> pairs() {
+        ArrayList<HashPair> result = new ArrayList<>(pairs.size());
+        pairs.forEach(result::add);
+        return result;
+    }
+
+    public ObjectType objectType() { return ObjectType.HASH; }
+
+    /*
+     * Pairs are printed sorted by key: trie order follows the hash seed,
+     * which changes from run to run.
+     */
     public String Inspect() {
-        String[] pairStrs = new String[pairs.size()];
-        int i = 0;
-        for (HashKey key : pairs.keySet()) {
-            pairStrs[i] = String.format("%s: %s", pairs.get(key).key.Inspect(),
-                pairs.get(key).value.Inspect());
-            i++;
+        ArrayList<HashPair> sorted = pairs();
+        sorted.sort((a, b) -> compareKeys(a.key, b.key));
+        ArrayList<String> pairStrs = new ArrayList<>(sorted.size());
+        for (HashPair pair : sorted) {
+            pairStrs.add(String.format("%s: %s", pair.key.Inspect(), pair.value.Inspect()));
         }
         String output = "{";
         output += String.join(", ", pairStrs);
         return output + "}";
     }
+
+    /* Integers, then booleans, then strings, each in their natural order. */
+    private static int compareKeys(MonkeyObject a, MonkeyObject b) {
+        if (a.objectType() != b.objectType()) {
+            return a.objectType().compareTo(b.objectType());
+        } else if (a instanceof MonkeyInt) {
+            return Long.compare(((MonkeyInt)a).value, ((MonkeyInt)b).value);
+        } else if (a instanceof MonkeyBool) {
+            return Boolean.compare(((MonkeyBool)a).value, ((MonkeyBool)b).value);
+        }
+        return a.Inspect().compareTo(b.Inspect());
+    }
 }
@@ -1,14 +1,36 @@
 package monkeyobject;
 
 public class MonkeyInt implements MonkeyObject, Hashable {
-    public long value;
-    public final static String INTEGER_OBJ = "INTEGER";
+    /*
+     * Range of values valueOf hands out shared instances for. Adjustable
+     * with -Dmonkey.intcache.low=... and -Dmonkey.intcache.high=...
+     */
+    public final static long CACHE_LOW = Long.getLong("monkey.intcache.low", -128);
+    public final static long CACHE_HIGH = Long.getLong("monkey.intcache.high", 1024);
+    private final static MonkeyInt[] cache = new MonkeyInt[(int)(CACHE_HIGH - CACHE_LOW + 1)];
+
+    static {
+        for (int i = 0; i < cache.length; i++) {
+            cache[i] = new MonkeyInt(CACHE_LOW + i);
+        }
+    }
+
+    /* Final: instances from the cache are shared. */
+    public final long value;
+    private HashKey hashKey;
 
     public MonkeyInt(long value) {
         this.value = value;
     }
 
-    public String Type() { return INTEGER_OBJ; }
+    public static MonkeyInt valueOf(long value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return cache[(int)(value - CACHE_LOW)];
+        }
+        return new MonkeyInt(value);
+    }
+
+    public ObjectType objectType() { return ObjectType.INTEGER; }
 
     public String Inspect() { 
         return Long.toString(value);
@@ -25,7 +47,15 @@ public class MonkeyInt implements MonkeyObject, Hashable {
         return this.value == ((MonkeyInt)o).value;
     }
 
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value);
+    }
+
     public HashKey getHashKey() {
-        return new HashKey(Type(), value);
+        if (hashKey == null) {
+            hashKey = new HashKey(objectType(), HashKey.hashLong(value), this);
+        }
+        return hashKey;
     }
 }
@@ -1,9 +1,9 @@
 package monkeyobject;
 
 public class MonkeyNull implements MonkeyObject {
-    final static String NULL_OBJ = "NULL";
+    public final static MonkeyNull NULL = new MonkeyNull();
 
-    public String Type() { return NULL_OBJ; }
+    public ObjectType objectType() { return ObjectType.NULL; }
 
     public String Inspect() { return "null"; }
 }
@@ -1,6 +1,10 @@
 package monkeyobject;
 
 public interface MonkeyObject {
-    String Type();
+    ObjectType objectType();
+
+    /* The type's name, as it appears in error messages. */
+    default String Type() { return objectType().name(); }
+
     String Inspect();
-}
\ No newline at end of file
+}
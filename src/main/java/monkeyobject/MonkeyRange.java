@@ -0,0 +1,70 @@
+package monkeyobject;
+
+/*
+ * The integers from start up to, but not including, end, counting by
+ * step (which is never 0, and counts down when negative). Its length,
+ * elements and rest are all worked out in constant time.
+ */
+public class MonkeyRange extends MonkeySequence {
+    public final long start;
+    public final long end;
+    public final long step;
+    private final long length;
+
+    public MonkeyRange(long start, long end, long step) {
+        this.start = start;
+        this.end = end;
+        this.step = step;
+        this.length = length(start, end, step);
+    }
+
+    private static long length(long start, long end, long step) {
+        // The distance is taken unsigned, so ranges spanning more than
+        // Long.MAX_VALUE don't overflow; their length is capped instead.
+        long count;
+        if (step > 0 && start < end) {
+            count = Long.divideUnsigned(end - start - 1, step) + 1;
+        } else if (step < 0 && start > end) {
+            count = Long.divideUnsigned(start - end - 1, -step) + 1;
+        } else {
+            return 0;
+        }
+        return count < 0 ? Long.MAX_VALUE : count;
+    }
+
+    @Override
+    public long knownLength() {
+        return length;
+    }
+
+    @Override
+    public MonkeyObject get(long index, Invoker invoker) {
+        if (index >= length) {
+            return MonkeyNull.NULL;
+        }
+        return MonkeyInt.valueOf(start + index * step);
+    }
+
+    @Override
+    public MonkeyRange rest() {
+        if (length <= 1) {
+            return new MonkeyRange(end, end, step);
+        }
+        return new MonkeyRange(start + step, end, step);
+    }
+
+    @Override
+    public Cursor cursor(Invoker invoker) {
+        return new Cursor() {
+            private long next = 0;
+
+            public MonkeyObject next() {
+                return next < length ? MonkeyInt.valueOf(start + next++ * step) : null;
+            }
+        };
+    }
+
+    public String Inspect() {
+        return String.format("range(%d, %d, %d)", start, end, step);
+    }
+}
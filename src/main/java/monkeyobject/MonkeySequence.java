@@ -0,0 +1,61 @@
+package monkeyobject;
+
+import evaluator.EvaluationContext;
+
+/*
+ * A lazy sequence, such as a range or a map over one: a recipe for its
+ * elements rather than the elements themselves, so a pipeline over a
+ * million of them holds one at a time. Like any value it never changes;
+ * every walk starts over from the beginning and calls back the functions
+ * it was built with through the walker's Invoker, so they run in the
+ * walker's engine and under its limits.
+ */
+public abstract class MonkeySequence implements MonkeyObject {
+    /* One walk over a sequence. */
+    public interface Cursor {
+        /* The next element, null past the end, or an error to stop at. */
+        MonkeyObject next();
+    }
+
+    public abstract Cursor cursor(Invoker invoker);
+
+    /* The number of elements, or -1 if only a walk can tell. */
+    public long knownLength() {
+        return -1;
+    }
+
+    /*
+     * Element index (which must not be negative), NULL past the end, or
+     * the error that stopped the walk to it. Sequences that can reach an
+     * element directly override this.
+     */
+    public MonkeyObject get(long index, Invoker invoker) {
+        Cursor cursor = cursor(invoker);
+        for (long i = 0; ; i++) {
+            MonkeyObject element = cursor.next();
+            MonkeyError stop = step(invoker);
+            if (stop != null) {
+                return stop;
+            } else if (element == null) {
+                return MonkeyNull.NULL;
+            } else if (i == index || element instanceof MonkeyError) {
+                return element;
+            }
+        }
+    }
+
+    /*
+     * Charges the walker's run a step for one element pulled, since a
+     * walk can go on for longer than any script could count to. The
+     * error that stops the walk, or null if it may go on.
+     */
+    public static MonkeyError step(Invoker invoker) {
+        EvaluationContext context = invoker != null ? invoker.context() : null;
+        return context != null && context.tick() ? context.error() : null;
+    }
+
+    /* All but the first element; empty once there are none. */
+    public abstract MonkeySequence rest();
+
+    public ObjectType objectType() { return ObjectType.SEQUENCE; }
+}
@@ -1,16 +1,90 @@
 package monkeyobject;
 
+import java.util.ArrayDeque;
+
+/*
+    Strings built with + are kept as a rope: concat just
+    records its two halves, and the characters are only
+    copied into one String the first time value() is
+    needed (printing, hashing, comparing). A loop that
+    appends n fragments is then linear instead of
+    quadratic.
+
+    The halves are kept after flattening, which keeps
+    every node immutable once published and safe to read
+    from any thread.
+*/
 public class MonkeyString implements MonkeyObject, Hashable{
-    public static final String STRING_OBJ = "STRING";
-    public String value;
+    /* Concatenations shorter than this are copied eagerly. */
+    private final static int FLAT_CONCAT_LIMIT = 64;
+
+    private volatile String value;
+    private final MonkeyString left;
+    private final MonkeyString right;
+    private final int length;
+    private HashKey hashKey;
 
     public MonkeyString(String value) {
         this.value = value;
+        this.left = null;
+        this.right = null;
+        this.length = value.length();
+    }
+
+    private MonkeyString(MonkeyString left, MonkeyString right) {
+        this.left = left;
+        this.right = right;
+        this.length = left.length + right.length;
+    }
+
+    public MonkeyString concat(MonkeyString other) {
+        if (other.length == 0) {
+            return this;
+        } else if (length == 0) {
+            return other;
+        } else if (length + other.length < FLAT_CONCAT_LIMIT) {
+            return new MonkeyString(value() + other.value());
+        }
+        return new MonkeyString(this, other);
+    }
+
+    public int length() {
+        return length;
     }
 
-    public String Type() { return STRING_OBJ; }
+    public String value() {
+        String flat = value;
+        if (flat == null) {
+            flat = flatten();
+            value = flat;
+        }
+        return flat;
+    }
+
+    /* Iterative, since appending in a loop builds a very deep left spine. */
+    private String flatten() {
+        char[] chars = new char[length];
+        int end = length;
+        ArrayDeque<MonkeyString> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            MonkeyString node = pending.pop();
+            String flat = node.value;
+            if (flat != null) {
+                end -= flat.length();
+                flat.getChars(0, flat.length(), chars, end);
+            } else {
+                // Filled from the end, so visit the right half first.
+                pending.push(node.left);
+                pending.push(node.right);
+            }
+        }
+        return new String(chars);
+    }
 
-    public String Inspect() { return value; }
+    public ObjectType objectType() { return ObjectType.STRING; }
+
+    public String Inspect() { return value(); }
 
     @Override
     public boolean equals(Object o) {
@@ -19,10 +93,20 @@ public class MonkeyString implements MonkeyObject, Hashable{
         } else if (!(o instanceof MonkeyString)) {
             return false;
         }
-        return value.equals(((MonkeyString)o).value);
+        MonkeyString other = (MonkeyString)o;
+        return length == other.length && value().equals(other.value());
     }
 
+    @Override
+    public int hashCode() {
+        return value().hashCode();
+    }
+
+    /* Cached: strings are immutable and often used as keys repeatedly. */
     public HashKey getHashKey() {
-        return new HashKey(Type(), value.hashCode());
+        if (hashKey == null) {
+            hashKey = new HashKey(objectType(), HashKey.hashString(value()), this);
+        }
+        return hashKey;
     }
 }
@@ -0,0 +1,18 @@
+package monkeyobject;
+
+import java.util.concurrent.Future;
+
+/* A function running on a thread of its own, from spawn; await gets its value. */
+public class MonkeyTask implements MonkeyObject {
+    public final Future<MonkeyObject> result;
+
+    public MonkeyTask(Future<MonkeyObject> result) {
+        this.result = result;
+    }
+
+    public ObjectType objectType() { return ObjectType.TASK; }
+
+    public String Inspect() {
+        return String.format("Task[%d]", System.identityHashCode(this));
+    }
+}
@@ -0,0 +1,25 @@
+package monkeyobject;
+
+/*
+ * Type tag of every MonkeyObject. The evaluator compares these by identity
+ * and switches on them; Type() turns them back into the names used in
+ * error messages.
+ */
+public enum ObjectType {
+    INTEGER,
+    BOOLEAN,
+    NULL,
+    STRING,
+    ARRAY,
+    HASH,
+    FUNCTION,
+    BUILTIN,
+    COMPILED_FUNCTION,
+    RETURN_VALUE,
+    ERROR,
+    TASK,
+    CHANNEL,
+    SEQUENCE,
+    /* Internal to the evaluator's tail-call loop; never seen by programs. */
+    TAIL_CALL
+}
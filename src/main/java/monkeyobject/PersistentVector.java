@@ -0,0 +1,135 @@
+package monkeyobject;
+
+import java.util.Arrays;
+
+/*
+ * Immutable vector as a 32-way bit-partitioned trie with a tail buffer,
+ * the layout Clojure popularized. Lookups walk at most log32(n) levels,
+ * appends copy one path plus the tail, and every version shares all
+ * untouched nodes with the one it came from.
+ *
+ * Internal nodes and leaves are plain Object[32]; the last, possibly
+ * partial, leaf is kept outside the trie as the tail so most appends only
+ * copy that.
+ */
+final class PersistentVector {
+    private final static int BITS = 5;
+    private final static int WIDTH = 1 << BITS;
+    private final static int MASK = WIDTH - 1;
+    private final static Object[] EMPTY_NODE = new Object[WIDTH];
+
+    final static PersistentVector EMPTY =
+        new PersistentVector(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int count;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    private PersistentVector(int count, int shift, Object[] root, Object[] tail) {
+        this.count = count;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /*
+     * Builds a vector a leaf at a time rather than element by element.
+     */
+    static PersistentVector of(MonkeyObject[] items) {
+        if (items.length <= WIDTH) {
+            return items.length == 0
+                ? EMPTY
+                : new PersistentVector(items.length, BITS, EMPTY_NODE,
+                                       Arrays.copyOf(items, items.length, Object[].class));
+        }
+
+        PersistentVector vec = new PersistentVector(
+            WIDTH, BITS, EMPTY_NODE, Arrays.copyOfRange(items, 0, WIDTH, Object[].class));
+        for (int i = WIDTH; i < items.length; i += WIDTH) {
+            int end = Math.min(i + WIDTH, items.length);
+            vec = vec.pushLeaf(Arrays.copyOfRange(items, i, end, Object[].class));
+        }
+        return vec;
+    }
+
+    int size() {
+        return count;
+    }
+
+    MonkeyObject get(int index) {
+        if (index >= tailOffset()) {
+            return (MonkeyObject)tail[index & MASK];
+        }
+
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[])node[(index >>> level) & MASK];
+        }
+        return (MonkeyObject)node[index & MASK];
+    }
+
+    PersistentVector push(MonkeyObject value) {
+        if (count - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = value;
+            return new PersistentVector(count + 1, shift, root, newTail);
+        }
+        return pushLeaf(new Object[] { value });
+    }
+
+    /* Moves the full tail into the trie and starts a new one with leaf. */
+    private PersistentVector pushLeaf(Object[] leaf) {
+        Object[] newRoot;
+        int newShift = shift;
+
+        if ((count >>> BITS) > (1 << shift)) {
+            // The trie is full at this height; grow a new level on top.
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+
+        return new PersistentVector(count + leaf.length, newShift, newRoot, leaf);
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        int index = ((count - 1) >>> level) & MASK;
+        Object[] node = parent.clone();
+
+        if (level == BITS) {
+            node[index] = tailNode;
+        } else {
+            Object[] child = (Object[])parent[index];
+            node[index] = child != null
+                ? pushTail(level - BITS, child, tailNode)
+                : newPath(level - BITS, tailNode);
+        }
+        return node;
+    }
+
+    private static Object[] newPath(int level, Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[WIDTH];
+        path[0] = newPath(level - BITS, node);
+        return path;
+    }
+
+    private int tailOffset() {
+        return count < WIDTH ? 0 : ((count - 1) >>> BITS) << BITS;
+    }
+
+    /* Copies elements [from, count) into a fresh array. */
+    MonkeyObject[] toArray(int from) {
+        MonkeyObject[] out = new MonkeyObject[count - from];
+        for (int i = from; i < count; i++) {
+            out[i - from] = get(i);
+        }
+        return out;
+    }
+}
@@ -3,5 +3,5 @@ package parser;
 import ast.Expression;
 
 interface InfixParseFn {
-    Expression call(Expression left);
+    Expression call(Parser parser, Expression left);
 }
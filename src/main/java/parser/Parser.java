@@ -19,20 +19,31 @@ import ast.Program;
 import ast.ReturnStatement;
 import ast.Statement;
 import ast.StringLiteral;
-import lexer.Lexer;
+import lexer.TokenSource;
+import resolver.Resolver;
 import token.Token;
+import token.TokenType;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 
 public class Parser {
-    private Lexer l;
+    private TokenSource l;
     private Token curToken;
     private Token peekToken;
     public ArrayList<String> errors;
-    private HashMap<String, PrefixParseFn> prefixParseFns;
-    private HashMap<String, InfixParseFn> infixParseFns;
-    private HashMap<String, ExpressionType> precedences;
+
+    /*
+     * Parse tables, indexed by TokenType.ordinal(). They never change, so
+     * every parser shares one copy instead of building its own.
+     */
+    private final static PrefixParseFn[] prefixParseFns =
+        new PrefixParseFn[TokenType.values().length];
+    private final static InfixParseFn[] infixParseFns =
+        new InfixParseFn[TokenType.values().length];
+    private final static ExpressionType[] precedences =
+        new ExpressionType[TokenType.values().length];
 
     private enum ExpressionType {
         LOWEST,
@@ -45,17 +56,15 @@ public class Parser {
         INDEX
     };
 
-    public Parser(Lexer l) {
-        this.l = l;
-        errors = new ArrayList<String>();
-
+    static {
         initializePrecedences();
-
-        prefixParseFns = new HashMap<>();
         registerPrefixFns();
-
-        infixParseFns = new HashMap<>();
         registerInfixFns();
+    }
+
+    public Parser(TokenSource l) {
+        this.l = l;
+        errors = new ArrayList<String>();
 
         nextToken();
         nextToken();
@@ -65,7 +74,7 @@ public class Parser {
         Program program = new Program();
         ArrayList<Statement> statements = new ArrayList<>();
 
-        while (!curTokenIs(new Token(Token.EOF))){
+        while (!curTokenIs(Token.EOF)){
             Statement stmt = parseStatement();
             if (stmt != null){
                 statements.add(stmt);
@@ -74,15 +83,16 @@ public class Parser {
         }
 
         program.statements = statements.toArray(new Statement[0]);
+        Resolver.resolve(program);
 
         return program;
     }
 
     private Statement parseStatement(){
         switch (curToken.type) {
-            case Token.LET:
+            case LET:
                 return parseLetStatement();
-            case Token.RETURN:
+            case RETURN:
                 return parseReturnStatement();
             default:
                 return parseExpressionStatement();
@@ -92,21 +102,24 @@ public class Parser {
     private LetStatement parseLetStatement(){
         LetStatement stmt = new LetStatement(curToken);
 
-        if (!expectPeek(new Token(Token.IDENT))){
+        if (!expectPeek(Token.IDENT)){
             return null;
         }
 
         stmt.name = new Identifier(curToken, curToken.literal);
 
-        if (!expectPeek(new Token(Token.ASSIGN))){
+        if (!expectPeek(Token.ASSIGN)){
             return null;
         }
 
         nextToken();
 
         stmt.value = parseExpression(ExpressionType.LOWEST);
+        if (stmt.value instanceof FunctionLiteral) {
+            ((FunctionLiteral)stmt.value).name = stmt.name.value;
+        }
         
-        if (peekTokenIs(new Token(Token.SEMICOLON))){
+        if (peekTokenIs(Token.SEMICOLON)){
             nextToken();
         }
         
@@ -120,7 +133,7 @@ public class Parser {
 
         stmt.returnValue = parseExpression(ExpressionType.LOWEST);
 
-        if (peekTokenIs(new Token(Token.SEMICOLON))){
+        if (peekTokenIs(Token.SEMICOLON)){
             nextToken();
         }
 
@@ -131,7 +144,7 @@ public class Parser {
         ExpressionStatement stmt = new ExpressionStatement(curToken);
         stmt.expression = parseExpression(ExpressionType.LOWEST);
 
-        if (peekTokenIs(new Token(Token.SEMICOLON))) {
+        if (peekTokenIs(Token.SEMICOLON)) {
             nextToken();
         }
 
@@ -143,29 +156,29 @@ public class Parser {
     }
 
     private Expression parseExpression(ExpressionType precedence) {
-        PrefixParseFn prefix = prefixParseFns.get(curToken.type);
+        PrefixParseFn prefix = prefixParseFns[curToken.type.ordinal()];
         if (prefix == null) {
             noPrefixParseFnError(curToken.type);
             return null;
         }
-        Expression leftExpr = prefix.call();
+        Expression leftExpr = prefix.call(this);
 
-        while (!peekTokenIs(new Token(Token.SEMICOLON)) &&
+        while (!peekTokenIs(Token.SEMICOLON) &&
                precedence.compareTo(peekPrecedence()) < 0) {
-            InfixParseFn infix = infixParseFns.get(peekToken.type);
+            InfixParseFn infix = infixParseFns[peekToken.type.ordinal()];
             if (infix == null) {
                 return leftExpr;
             }
 
             nextToken();
 
-            leftExpr = infix.call(leftExpr);
+            leftExpr = infix.call(this, leftExpr);
         }
 
         return leftExpr;
     }
 
-    private void noPrefixParseFnError(String tokenType) {
+    private void noPrefixParseFnError(TokenType tokenType) {
         errors.add(String.format(
                     "No prefix parse function for %s found.", 
                     tokenType)
@@ -177,8 +190,6 @@ public class Parser {
     }
 
     private Expression parseIntegerLiteral() {
-        var lit = new IntegerLiteral(curToken);
-
         long value;
         try {
             value = Long.parseLong(curToken.literal);
@@ -191,8 +202,7 @@ public class Parser {
             return null;
         }
 
-        lit.value = value;
-        return lit;
+        return new IntegerLiteral(curToken, value);
     }
 
     private Expression parsePrefixExpression() {
@@ -215,7 +225,7 @@ public class Parser {
     }
 
     private Expression parseBool() {
-        return new Bool(curToken, curTokenIs(new Token(Token.TRUE)));
+        return new Bool(curToken, curTokenIs(Token.TRUE));
     }
 
     private Expression parseGroupedExpression() {
@@ -223,7 +233,7 @@ public class Parser {
 
         Expression expr = parseExpression(ExpressionType.LOWEST);
 
-        if (!expectPeek(new Token(Token.RPAREN))) {
+        if (!expectPeek(Token.RPAREN)) {
             return null;
         }
 
@@ -233,27 +243,27 @@ public class Parser {
     private Expression parseIfExpression() {
         IfExpression expr = new IfExpression(curToken);
 
-        if (!expectPeek(new Token(Token.LPAREN))) {
+        if (!expectPeek(Token.LPAREN)) {
             return null;
         }
 
         nextToken();
         expr.condition = parseExpression(ExpressionType.LOWEST);
 
-        if (!expectPeek(new Token(Token.RPAREN))) {
+        if (!expectPeek(Token.RPAREN)) {
             return null;
         }
 
-        if (!expectPeek(new Token(Token.LBRACE))) {
+        if (!expectPeek(Token.LBRACE)) {
             return null;
         }
 
         expr.consequence = parseBlockStatement();
 
-        if (peekTokenIs(new Token(Token.ELSE))) {
+        if (peekTokenIs(Token.ELSE)) {
             nextToken();
 
-            if (!expectPeek(new Token(Token.LBRACE))) {
+            if (!expectPeek(Token.LBRACE)) {
                 return null;
             }
 
@@ -269,7 +279,7 @@ public class Parser {
 
         nextToken();
 
-        while (!curTokenIs(new Token(Token.RBRACE)) && !curTokenIs(new Token(Token.EOF))) {
+        while (!curTokenIs(Token.RBRACE) && !curTokenIs(Token.EOF)) {
             Statement stmt = parseStatement();
             if (stmt != null) {
                 statements.add(stmt);
@@ -285,13 +295,13 @@ public class Parser {
     private Expression parseFunctionLiteral() {
         FunctionLiteral lit = new FunctionLiteral(curToken);
 
-        if (!expectPeek(new Token(Token.LPAREN))) {
+        if (!expectPeek(Token.LPAREN)) {
             return null;
         }
 
         lit.parameters = parseFunctionParameters();
 
-        if (!expectPeek(new Token(Token.LBRACE))) {
+        if (!expectPeek(Token.LBRACE)) {
             return null;
         }
 
@@ -303,7 +313,7 @@ public class Parser {
     private ArrayList<Identifier> parseFunctionParameters() {
         ArrayList<Identifier> identifiers = new ArrayList<>();
 
-        if (peekTokenIs(new Token(Token.RPAREN))) {
+        if (peekTokenIs(Token.RPAREN)) {
             nextToken();
             return identifiers;
         }
@@ -313,14 +323,14 @@ public class Parser {
         Identifier ident = new Identifier(curToken, curToken.literal);
         identifiers.add(ident);
 
-        while (peekTokenIs(new Token(Token.COMMA))) {
+        while (peekTokenIs(Token.COMMA)) {
             nextToken();
             nextToken();
             ident = new Identifier(curToken, curToken.literal);
             identifiers.add(ident);
         }
 
-        if (!expectPeek(new Token(Token.RPAREN))) {
+        if (!expectPeek(Token.RPAREN)) {
             return null;
         }
 
@@ -329,17 +339,17 @@ public class Parser {
 
     private Expression parseCallExpression(Expression function) {
         CallExpression expr = new CallExpression(curToken, function);
-        expr.arguments = parseExpressionList(new Token(Token.RPAREN, ")"));
+        expr.arguments = parseExpressionList(Token.RPAREN);
         return expr;
     }
 
     private Expression parseArrayLiteral() {
         ArrayLiteral arr = new ArrayLiteral(curToken);
-        arr.elements = parseExpressionList(new Token(Token.RBRACKET, "]"));
+        arr.elements = parseExpressionList(Token.RBRACKET);
         return arr;
     }
 
-    private Expression[] parseExpressionList(Token end) {
+    private Expression[] parseExpressionList(TokenType end) {
         ArrayList<Expression> list = new ArrayList<>();
 
         if (peekTokenIs(end)) {
@@ -350,7 +360,7 @@ public class Parser {
         nextToken();
         list.add(parseExpression(ExpressionType.LOWEST));
 
-        while (peekTokenIs(new Token(Token.COMMA, ","))) {
+        while (peekTokenIs(Token.COMMA)) {
             nextToken();
             nextToken();
             list.add(parseExpression(ExpressionType.LOWEST));
@@ -369,7 +379,7 @@ public class Parser {
         nextToken();
         expr.index = parseExpression(ExpressionType.LOWEST);
 
-        if (!expectPeek(new Token(Token.RBRACKET))) {
+        if (!expectPeek(Token.RBRACKET)) {
             return null;
         }
 
@@ -380,11 +390,11 @@ public class Parser {
         HashLiteral hash = new HashLiteral(curToken);
         hash.pairs = new HashMap<>();
 
-        while (!peekTokenIs(new Token(Token.RBRACE))) {
+        while (!peekTokenIs(Token.RBRACE)) {
             nextToken();
             Expression key = parseExpression(ExpressionType.LOWEST);
 
-            if (!expectPeek(new Token(Token.COLON))) {
+            if (!expectPeek(Token.COLON)) {
                 return null;
             }
 
@@ -392,13 +402,13 @@ public class Parser {
             Expression value = parseExpression(ExpressionType.LOWEST);
             hash.pairs.put(key, value);
 
-            if (!peekTokenIs(new Token(Token.RBRACE))
-                && !expectPeek(new Token(Token.COMMA))) {
+            if (!peekTokenIs(Token.RBRACE)
+                && !expectPeek(Token.COMMA)) {
                 return null;
             }
         }
 
-        if (!expectPeek(new Token(Token.RBRACE))) {
+        if (!expectPeek(Token.RBRACE)) {
             return null;
         }
 
@@ -406,57 +416,58 @@ public class Parser {
     }
 
     /* Parser Setup Functions */
-    private void initializePrecedences() {
-        /*
-         * In order from highest to lowest precedence.
-         */
-        precedences = new HashMap<>();
-        precedences.put(Token.LBRACKET, ExpressionType.INDEX);
-        precedences.put(Token.EQ, ExpressionType.EQUALS);
-        precedences.put(Token.NOTEQ, ExpressionType.EQUALS);
-        precedences.put(Token.LT, ExpressionType.LESSGREATER);
-        precedences.put(Token.GT, ExpressionType.LESSGREATER);
-        precedences.put(Token.PLUS, ExpressionType.SUM);
-        precedences.put(Token.MINUS, ExpressionType.SUM);
-        precedences.put(Token.SLASH, ExpressionType.PRODUCT);
-        precedences.put(Token.ASTERISK, ExpressionType.PRODUCT);
-        precedences.put(Token.LPAREN, ExpressionType.CALL);
-    }
-
-    private void registerPrefixFns() {
-        registerPrefix(Token.IDENT, this::parseIdentifier);
-        registerPrefix(Token.INT, this::parseIntegerLiteral);
-        registerPrefix(Token.BANG, this::parsePrefixExpression);
-        registerPrefix(Token.MINUS, this::parsePrefixExpression);
-        registerPrefix(Token.TRUE, this::parseBool);
-        registerPrefix(Token.FALSE, this::parseBool);
-        registerPrefix(Token.LPAREN, this::parseGroupedExpression);
-        registerPrefix(Token.IF, this::parseIfExpression);
-        registerPrefix(Token.FUNCTION, this::parseFunctionLiteral);
-        registerPrefix(Token.STRING, this::parseStringLiteral);
-        registerPrefix(Token.LBRACKET, this::parseArrayLiteral);
-        registerPrefix(Token.LBRACE, this::parseHashLiteral);
-    }
-
-    private void registerPrefix(String tokenType, PrefixParseFn fn) {
-        this.prefixParseFns.put(tokenType, fn);
-    }
-
-    private void registerInfixFns() {
-        registerInfix(Token.PLUS, this::parseInfixExpression);
-        registerInfix(Token.MINUS, this::parseInfixExpression);
-        registerInfix(Token.SLASH, this::parseInfixExpression);
-        registerInfix(Token.ASTERISK, this::parseInfixExpression);
-        registerInfix(Token.EQ, this::parseInfixExpression);
-        registerInfix(Token.NOTEQ, this::parseInfixExpression);
-        registerInfix(Token.LT, this::parseInfixExpression);
-        registerInfix(Token.GT, this::parseInfixExpression);
-        registerInfix(Token.LPAREN, this::parseCallExpression);
-        registerInfix(Token.LBRACKET, this::parseIndexExpression);
-    }
-
-    private void registerInfix(String tokenType, InfixParseFn fn) {
-        this.infixParseFns.put(tokenType, fn);
+    private static void initializePrecedences() {
+        Arrays.fill(precedences, ExpressionType.LOWEST);
+        precedence(Token.LBRACKET, ExpressionType.INDEX);
+        precedence(Token.EQ, ExpressionType.EQUALS);
+        precedence(Token.NOTEQ, ExpressionType.EQUALS);
+        precedence(Token.LT, ExpressionType.LESSGREATER);
+        precedence(Token.GT, ExpressionType.LESSGREATER);
+        precedence(Token.PLUS, ExpressionType.SUM);
+        precedence(Token.MINUS, ExpressionType.SUM);
+        precedence(Token.SLASH, ExpressionType.PRODUCT);
+        precedence(Token.ASTERISK, ExpressionType.PRODUCT);
+        precedence(Token.LPAREN, ExpressionType.CALL);
+    }
+
+    private static void precedence(TokenType tokenType, ExpressionType precedence) {
+        precedences[tokenType.ordinal()] = precedence;
+    }
+
+    private static void registerPrefixFns() {
+        registerPrefix(Token.IDENT, Parser::parseIdentifier);
+        registerPrefix(Token.INT, Parser::parseIntegerLiteral);
+        registerPrefix(Token.BANG, Parser::parsePrefixExpression);
+        registerPrefix(Token.MINUS, Parser::parsePrefixExpression);
+        registerPrefix(Token.TRUE, Parser::parseBool);
+        registerPrefix(Token.FALSE, Parser::parseBool);
+        registerPrefix(Token.LPAREN, Parser::parseGroupedExpression);
+        registerPrefix(Token.IF, Parser::parseIfExpression);
+        registerPrefix(Token.FUNCTION, Parser::parseFunctionLiteral);
+        registerPrefix(Token.STRING, Parser::parseStringLiteral);
+        registerPrefix(Token.LBRACKET, Parser::parseArrayLiteral);
+        registerPrefix(Token.LBRACE, Parser::parseHashLiteral);
+    }
+
+    private static void registerPrefix(TokenType tokenType, PrefixParseFn fn) {
+        prefixParseFns[tokenType.ordinal()] = fn;
+    }
+
+    private static void registerInfixFns() {
+        registerInfix(Token.PLUS, Parser::parseInfixExpression);
+        registerInfix(Token.MINUS, Parser::parseInfixExpression);
+        registerInfix(Token.SLASH, Parser::parseInfixExpression);
+        registerInfix(Token.ASTERISK, Parser::parseInfixExpression);
+        registerInfix(Token.EQ, Parser::parseInfixExpression);
+        registerInfix(Token.NOTEQ, Parser::parseInfixExpression);
+        registerInfix(Token.LT, Parser::parseInfixExpression);
+        registerInfix(Token.GT, Parser::parseInfixExpression);
+        registerInfix(Token.LPAREN, Parser::parseCallExpression);
+        registerInfix(Token.LBRACKET, Parser::parseIndexExpression);
+    }
+
+    private static void registerInfix(TokenType tokenType, InfixParseFn fn) {
+        infixParseFns[tokenType.ordinal()] = fn;
     }
 
     /* Helper Functions */
@@ -465,15 +476,15 @@ public class Parser {
         peekToken = l.nextToken();
     }
     
-    private boolean curTokenIs(Token t){
-        return curToken.type == t.type;
+    private boolean curTokenIs(TokenType t){
+        return curToken.type == t;
     }
 
-    private boolean peekTokenIs(Token t){
-        return peekToken.type == t.type;
+    private boolean peekTokenIs(TokenType t){
+        return peekToken.type == t;
     }
 
-    private boolean expectPeek(Token t){
+    private boolean expectPeek(TokenType t){
         if (peekTokenIs(t)){
             nextToken();
             return true;
@@ -482,19 +493,17 @@ public class Parser {
         return false;
     }
 
-    private void peekError(Token t){
+    private void peekError(TokenType t){
         String msg = String.format("Expected next token to be %s, got %s.", t, 
                                     peekToken.type);
         errors.add(msg);
     } 
 
     private ExpressionType peekPrecedence() {
-        ExpressionType p = precedences.get(peekToken.type);
-        return p != null ? p : ExpressionType.LOWEST;
+        return precedences[peekToken.type.ordinal()];
     }
 
     private ExpressionType curPrecedence() {
-        ExpressionType p = precedences.get(curToken.type);
-        return p != null ? p : ExpressionType.LOWEST;
+        return precedences[curToken.type.ordinal()];
     }
 }
\ No newline at end of file
@@ -3,5 +3,5 @@ package parser;
 import ast.Expression;
 
 interface PrefixParseFn {
-    Expression call();
+    Expression call(Parser parser);
 }
@@ -0,0 +1,10 @@
+package repl;
+
+/*
+ * Which backend the REPL hands parsed programs to.
+ */
+public enum Engine {
+    EVALUATOR,
+    SPECIALIZING,
+    VM
+}
@@ -1,14 +1,23 @@
 package repl;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Scanner;
 
 import ast.Program;
+import compiler.CompileException;
+import compiler.Compiler;
+import compiler.SymbolTable;
+import evaluator.EvaluationContext;
 import evaluator.Evaluator;
 import lexer.Lexer;
 import monkeyobject.Environment;
+import monkeyobject.MonkeyError;
 import monkeyobject.MonkeyObject;
 import parser.Parser;
+import specializer.SpecializingInterpreter;
+import vm.VM;
 
 public class REPL {
     final static String PROMPT = ">> ";
@@ -35,9 +44,32 @@ public class REPL {
 
     // Should this just be main?
     public static void start(){
+        start(Engine.EVALUATOR);
+    }
+
+    public static void start(Engine engine){
+        start(engine, VM.MAX_FRAMES);
+    }
+
+    public static void start(Engine engine, int maxFrames){
+        start(engine, maxFrames, -1, -1, -1);
+    }
+
+    /*
+     * maxFrames bounds how deep the VM lets non-tail recursion go. The
+     * step, time and memory limits (negative for none) apply to each line
+     * on its own, as they do to each script the server runs.
+     */
+    public static void start(Engine engine, int maxFrames, long maxSteps,
+                             long timeoutMillis, long maxMemory){
         Scanner scnr = new Scanner(System.in);
         Environment env = new Environment();
 
+        /* VM state that has to survive from one line to the next */
+        SymbolTable symbolTable = Compiler.newGlobalSymbolTable();
+        ArrayList<MonkeyObject> constants = new ArrayList<>();
+        MonkeyObject[] globals = new MonkeyObject[VM.GLOBALS_SIZE];
+
         while (true) {
             System.out.print(PROMPT);
             String line = scnr.nextLine();
@@ -52,7 +84,9 @@ public class REPL {
                 printParserErrors(p.errors);
             }
 
-            MonkeyObject evaluated = Evaluator.eval(prog, env);
+            EvaluationContext context = newContext(maxSteps, timeoutMillis, maxMemory);
+            MonkeyObject evaluated = evaluate(prog, engine, maxFrames, context, env,
+                                              symbolTable, constants, globals);
             if (evaluated != null) {
                 System.out.printf("%s\n", evaluated.Inspect());
             }
@@ -60,4 +94,87 @@ public class REPL {
 
         scnr.close();
     }
+
+    public static void runFile(Path path, Engine engine, int maxFrames) throws IOException {
+        runFile(path, engine, maxFrames, -1, -1, -1);
+    }
+
+    /*
+     * Runs a whole script. The file is memory-mapped and lexed as the
+     * parser asks for tokens, so its text is never copied into one String.
+     * Only errors are printed; scripts report results with puts.
+     */
+    public static void runFile(Path path, Engine engine, int maxFrames, long maxSteps,
+                               long timeoutMillis, long maxMemory) throws IOException {
+        Parser p = new Parser(Lexer.mapFile(path));
+        Program prog = p.parseProgram();
+        if (p.errors.size() > 0) {
+            printParserErrors(p.errors);
+            return;
+        }
+
+        EvaluationContext context = newContext(maxSteps, timeoutMillis, maxMemory);
+        MonkeyObject evaluated = evaluate(prog, engine, maxFrames, context, new Environment(),
+                                          Compiler.newGlobalSymbolTable(), new ArrayList<>(),
+                                          new MonkeyObject[VM.GLOBALS_SIZE]);
+        if (evaluated instanceof MonkeyError) {
+            System.out.printf("%s\n", evaluated.Inspect());
+        }
+    }
+
+    /* A context enforcing the limits that were given, or null if there are none. */
+    public static EvaluationContext newContext(long maxSteps, long timeoutMillis, long maxMemory) {
+        if (maxSteps < 0 && timeoutMillis < 0 && maxMemory < 0) {
+            return null;
+        }
+
+        EvaluationContext context = new EvaluationContext();
+        if (maxSteps >= 0) {
+            context.setFuel(maxSteps);
+        }
+        if (timeoutMillis >= 0) {
+            context.setTimeout(timeoutMillis);
+        }
+        if (maxMemory >= 0) {
+            context.setMemoryLimit(maxMemory);
+        }
+        return context;
+    }
+
+    private static MonkeyObject evaluate(Program prog, Engine engine, int maxFrames,
+                                         EvaluationContext context, Environment env,
+                                         SymbolTable symbolTable,
+                                         ArrayList<MonkeyObject> constants,
+                                         MonkeyObject[] globals) {
+        try {
+            if (engine == Engine.VM) {
+                Compiler compiler = new Compiler(symbolTable, constants);
+                try {
+                    compiler.compile(prog);
+                } catch (CompileException e) {
+                    return Evaluator.createNewError("%s", e.getMessage());
+                }
+                VM machine = new VM(compiler.bytecode(), globals);
+                machine.setMaxFrames(maxFrames);
+                if (context != null) {
+                    machine.setContext(context);
+                }
+                return machine.run();
+            }
+
+            // The environment outlives the line, so it mustn't keep the last one's limits.
+            env.context = null;
+            if (context == null) {
+                return engine == Engine.SPECIALIZING ? SpecializingInterpreter.eval(prog, env)
+                                                     : Evaluator.eval(prog, env);
+            }
+            return engine == Engine.SPECIALIZING ? SpecializingInterpreter.eval(prog, env, context)
+                                                 : Evaluator.eval(prog, env, context);
+        } finally {
+            // Tasks the line left running stop with it.
+            if (context != null) {
+                context.cancel();
+            }
+        }
+    }
 }
@@ -0,0 +1,289 @@
+package resolver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import ast.ArrayLiteral;
+import ast.BlockStatement;
+import ast.CallExpression;
+import ast.Expression;
+import ast.ExpressionStatement;
+import ast.FunctionLiteral;
+import ast.HashLiteral;
+import ast.Identifier;
+import ast.IfExpression;
+import ast.IndexExpression;
+import ast.InfixExpression;
+import ast.LetStatement;
+import ast.Node;
+import ast.PrefixExpression;
+import ast.Program;
+import ast.ReturnStatement;
+import ast.Statement;
+
+/*
+ * Static pass that gives every identifier inside a function a (depth, slot)
+ * coordinate, so the evaluator can read it straight out of the
+ * MonkeyObject[] frame of the right Environment instead of hashing its name
+ * at every level of the chain. Top-level bindings stay name based, since the
+ * REPL keeps adding to the same global environment line after line.
+ *
+ * The coordinates mirror what the environment chain would find:
+ *  - a let binds a slot in the enclosing function's frame, if blocks
+ *    included, exactly like Environment.Set did;
+ *  - a read in the same function only sees a let once it has been passed,
+ *    earlier reads fall through to enclosing scopes;
+ *  - a read from a nested function sees every let of its enclosing
+ *    functions, since by the time it runs they may well have executed.
+ * A slot that turns out to be empty at runtime (its let has not run yet)
+ * makes the evaluator fall back to a by-name lookup, so the results are the
+ * same as before.
+ *
+ * It also works out which functions are pure enough for pmap and pfilter
+ * to run on other threads (see FunctionLiteral.pure).
+ */
+public final class Resolver {
+    /*
+     * Builtins that neither call functions back nor reach anything but
+     * their arguments. puts, the task and channel builtins, and the ones
+     * that take a function are left out.
+     */
+    public final static Set<String> LEAF_BUILTINS =
+        Set.of("len", "first", "last", "rest", "push", "put", "delete", "range", "take");
+
+    private static class Scope {
+        FunctionLiteral function;
+        HashMap<String, Integer> slots = new HashMap<>();
+        HashSet<String> defined = new HashSet<>();
+
+        int declare(String name) {
+            Integer slot = slots.get(name);
+            if (slot == null) {
+                slot = slots.size();
+                slots.put(name, slot);
+            }
+            return slot;
+        }
+    }
+
+    private ArrayList<Scope> scopes = new ArrayList<>();
+    /* Top-level lets, which hide the builtins of the same name. */
+    private HashSet<String> globals = new HashSet<>();
+
+    private Resolver() {}
+
+    public static void resolve(Program program) {
+        Resolver resolver = new Resolver();
+        for (Statement stmt : program.statements) {
+            if (stmt instanceof LetStatement && ((LetStatement)stmt).name != null) {
+                resolver.globals.add(((LetStatement)stmt).name.value);
+            }
+        }
+        for (Statement stmt : program.statements) {
+            resolver.resolveNode(stmt);
+        }
+    }
+
+    private void resolveNode(Node node) {
+        if (node == null) {
+            return;
+        }
+
+        /* Statements */
+        if (node instanceof BlockStatement) {
+            for (Statement stmt : ((BlockStatement)node).statements) {
+                resolveNode(stmt);
+            }
+        } else if (node instanceof ExpressionStatement) {
+            resolveNode(((ExpressionStatement)node).expression);
+        } else if (node instanceof LetStatement) {
+            LetStatement let = (LetStatement)node;
+            resolveNode(let.value);
+            if (!scopes.isEmpty() && let.name != null) {
+                Scope scope = innermost();
+                let.name.depth = 0;
+                let.name.slot = scope.declare(let.name.value);
+                scope.defined.add(let.name.value);
+            }
+        } else if (node instanceof ReturnStatement) {
+            resolveNode(((ReturnStatement)node).returnValue);
+        }
+        /* Expressions */
+        else if (node instanceof CallExpression) {
+            CallExpression call = (CallExpression)node;
+            resolveNode(call.function);
+            resolveExpressions(call.arguments);
+            if (!callsLeafBuiltin(call)) {
+                for (Scope scope : scopes) {
+                    scope.function.pure = false;
+                }
+            }
+        } else if (node instanceof IfExpression) {
+            resolveNode(((IfExpression)node).condition);
+            resolveNode(((IfExpression)node).consequence);
+            resolveNode(((IfExpression)node).alternative);
+        } else if (node instanceof InfixExpression) {
+            resolveNode(((InfixExpression)node).left);
+            resolveNode(((InfixExpression)node).right);
+        } else if (node instanceof IndexExpression) {
+            resolveNode(((IndexExpression)node).left);
+            resolveNode(((IndexExpression)node).index);
+        } else if (node instanceof PrefixExpression) {
+            resolveNode(((PrefixExpression)node).right);
+        }
+        /* Literals/Others */
+        else if (node instanceof ArrayLiteral) {
+            resolveExpressions(((ArrayLiteral)node).elements);
+        } else if (node instanceof HashLiteral) {
+            var pairs = ((HashLiteral)node).pairs;
+            if (pairs != null) {
+                for (var entry : pairs.entrySet()) {
+                    resolveNode(entry.getKey());
+                    resolveNode(entry.getValue());
+                }
+            }
+        } else if (node instanceof FunctionLiteral) {
+            resolveFunctionLiteral((FunctionLiteral)node);
+        } else if (node instanceof Identifier) {
+            resolveIdentifier((Identifier)node);
+        }
+    }
+
+    private void resolveExpressions(Expression[] exprs) {
+        if (exprs == null) {
+            return;
+        }
+        for (Expression e : exprs) {
+            resolveNode(e);
+        }
+    }
+
+    private void resolveFunctionLiteral(FunctionLiteral fn) {
+        if (fn.parameters == null || fn.body == null) {
+            return;
+        }
+
+        Scope scope = new Scope();
+        scope.function = fn;
+        for (Identifier param : fn.parameters) {
+            param.depth = 0;
+            param.slot = scope.declare(param.value);
+            scope.defined.add(param.value);
+        }
+        declareLets(scope, fn.body);
+
+        scopes.add(scope);
+        resolveNode(fn.body);
+        scopes.remove(scopes.size() - 1);
+
+        fn.frameSize = scope.slots.size();
+        markTailCalls(fn.body, true, true);
+    }
+
+    /*
+     * Flags the calls whose value becomes the function's result: returned
+     * ones, and the last expression of a block in tail position. Returns
+     * are only followed through statements and if statements; inside an if
+     * that is itself being returned, a nested return would come back
+     * wrapped twice, so those are left alone.
+     */
+    private void markTailCalls(BlockStatement block, boolean inTailPosition,
+        boolean followReturns) {
+        if (block == null) {
+            return;
+        }
+
+        Statement[] statements = block.statements;
+        for (int i = 0; i < statements.length; i++) {
+            Statement stmt = statements[i];
+            boolean isLast = i == statements.length - 1;
+
+            if (stmt instanceof ReturnStatement && followReturns) {
+                markTailExpression(((ReturnStatement)stmt).returnValue, false);
+            } else if (stmt instanceof ExpressionStatement) {
+                Expression expr = ((ExpressionStatement)stmt).expression;
+                if (isLast && inTailPosition) {
+                    markTailExpression(expr, followReturns);
+                } else if (expr instanceof IfExpression) {
+                    IfExpression ifExpr = (IfExpression)expr;
+                    markTailCalls(ifExpr.consequence, false, followReturns);
+                    markTailCalls(ifExpr.alternative, false, followReturns);
+                }
+            }
+        }
+    }
+
+    private void markTailExpression(Expression expr, boolean followReturns) {
+        if (expr instanceof CallExpression) {
+            ((CallExpression)expr).tail = true;
+        } else if (expr instanceof IfExpression) {
+            IfExpression ifExpr = (IfExpression)expr;
+            markTailCalls(ifExpr.consequence, true, followReturns);
+            markTailCalls(ifExpr.alternative, true, followReturns);
+        }
+    }
+
+    /*
+     * Reserves slots for every let in the function, including the ones
+     * nested in if blocks, but not the ones of nested functions.
+     */
+    private void declareLets(Scope scope, Node node) {
+        if (node instanceof BlockStatement) {
+            for (Statement stmt : ((BlockStatement)node).statements) {
+                declareLets(scope, stmt);
+            }
+        } else if (node instanceof LetStatement) {
+            LetStatement let = (LetStatement)node;
+            if (let.name != null) {
+                scope.declare(let.name.value);
+            }
+            declareLets(scope, let.value);
+        } else if (node instanceof ExpressionStatement) {
+            declareLets(scope, ((ExpressionStatement)node).expression);
+        } else if (node instanceof ReturnStatement) {
+            declareLets(scope, ((ReturnStatement)node).returnValue);
+        } else if (node instanceof IfExpression) {
+            declareLets(scope, ((IfExpression)node).consequence);
+            declareLets(scope, ((IfExpression)node).alternative);
+        }
+    }
+
+    private void resolveIdentifier(Identifier ident) {
+        int innermost = scopes.size() - 1;
+
+        for (int i = innermost; i >= 0; i--) {
+            Scope scope = scopes.get(i);
+            Integer slot = scope.slots.get(ident.value);
+            if (slot == null) {
+                continue;
+            }
+            if (i == innermost && !scope.defined.contains(ident.value)) {
+                continue;
+            }
+
+            ident.depth = innermost - i;
+            ident.slot = slot;
+            return;
+        }
+
+        // Global: look it up by name once we are back at the top level.
+        ident.depth = scopes.size();
+        ident.slot = -1;
+    }
+
+    /* Whether the call can only reach one of the LEAF_BUILTINS. */
+    private boolean callsLeafBuiltin(CallExpression call) {
+        if (!(call.function instanceof Identifier)) {
+            return false;
+        }
+        Identifier callee = (Identifier)call.function;
+        return callee.slot == -1 && LEAF_BUILTINS.contains(callee.value)
+            && !globals.contains(callee.value);
+    }
+
+    private Scope innermost() {
+        return scopes.get(scopes.size() - 1);
+    }
+}
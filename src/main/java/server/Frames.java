@@ -0,0 +1,74 @@
+package server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * The wire format shared by ScriptServer and ScriptClient. Every message
+ * is an ASCII header line of space-separated fields, the last of which is
+ * the length in bytes of the UTF-8 body that follows:
+ *
+ *   request:   <id> <length>\n<script>
+ *   response:  <id> OK <length>\n<result>
+ *              <id> ERR <length>\n<message>
+ *
+ * Ids are picked by the client and echoed back, so a client can have
+ * several scripts in flight on one connection and match up the answers,
+ * which may come back in any order.
+ */
+final class Frames {
+    final static int MAX_HEADER = 64;
+    final static int MAX_BODY = 16 << 20;
+
+    private Frames() {}
+
+    static void write(OutputStream out, String header, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        byte[] head = (header + " " + bytes.length + "\n").getBytes(StandardCharsets.US_ASCII);
+        synchronized (out) {
+            out.write(head);
+            out.write(bytes);
+            out.flush();
+        }
+    }
+
+    /* The header's fields, or null at a clean end of stream. */
+    static String[] readHeader(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                if (line.length() == 0) {
+                    return null;
+                }
+                throw new EOFException("stream ended inside a header");
+            }
+            if (line.length() == MAX_HEADER) {
+                throw new IOException("header too long");
+            }
+            line.append((char)c);
+        }
+        return line.toString().split(" ");
+    }
+
+    static String readBody(InputStream in, String lengthField) throws IOException {
+        int length;
+        try {
+            length = Integer.parseInt(lengthField);
+        } catch (NumberFormatException e) {
+            throw new IOException("bad length: " + lengthField);
+        }
+        if (length < 0 || length > MAX_BODY) {
+            throw new IOException("bad length: " + length);
+        }
+
+        byte[] body = in.readNBytes(length);
+        if (body.length != length) {
+            throw new EOFException("stream ended inside a body");
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,22 @@
+package server;
+
+/*
+ * What the server said about one script: its value as the REPL would
+ * print it, or why it failed.
+ */
+public final class Response {
+    public final long id;
+    public final boolean ok;
+    public final String body;
+
+    public Response(long id, boolean ok, String body) {
+        this.id = id;
+        this.ok = ok;
+        this.body = body;
+    }
+
+    @Override
+    public String toString() {
+        return (ok ? "OK " : "ERR ") + body;
+    }
+}
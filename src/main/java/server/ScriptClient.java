@@ -0,0 +1,47 @@
+package server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/*
+ * A connection to a ScriptServer on this machine that sends one script
+ * at a time and waits for its answer. Open several for concurrency.
+ */
+public class ScriptClient implements Closeable {
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private long nextId;
+
+    public ScriptClient(int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        in = new BufferedInputStream(socket.getInputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    public synchronized Response eval(String source) throws IOException {
+        long id = nextId++;
+        Frames.write(out, Long.toString(id), source);
+
+        String[] header = Frames.readHeader(in);
+        if (header == null) {
+            throw new EOFException("server closed the connection");
+        } else if (header.length != 3 || !header[0].equals(Long.toString(id))) {
+            throw new IOException("unexpected response header");
+        }
+        return new Response(id, header[1].equals("OK"), Frames.readBody(in, header[2]));
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,267 @@
+package server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import cache.CachedProgram;
+import cache.ProgramCache;
+import evaluator.EvaluationContext;
+import evaluator.Evaluator;
+import evaluator.Tasks;
+import isolate.Isolate;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyObject;
+import repl.Engine;
+import specializer.SpecializingInterpreter;
+import vm.VM;
+
+/*
+ * Runs scripts for local clients, over a loopback socket or any pair of
+ * streams (see Frames for the protocol). Every script gets a thread of
+ * its own and a fresh global environment, so one connection can have
+ * many scripts in flight and scripts never see each other's globals.
+ * Parsed programs, and their bytecode on the VM, come from a shared
+ * ProgramCache, so a script sent again only pays for running.
+ *
+ * Threads are virtual when the JVM has them (Java 21 and up) and come
+ * from a pool of Tasks.MAX_PLATFORM_THREADS otherwise; while that is
+ * used up, new connections are closed and new requests answered with
+ * BUSY_ERR_FMT. Limits apply to every script; set them
+ * before serving. A connection has at most MAX_IN_FLIGHT scripts running
+ * at once (see setMaxInFlight); past that the server stops reading its
+ * requests until one is answered, so a client that sends faster than
+ * scripts finish is held back instead of piling up threads.
+ */
+public class ScriptServer implements Closeable {
+    public final static int MAX_IN_FLIGHT = 64;
+    public final static String OUT_OF_HEAP_ERR = "out of memory";
+    public final static String BUSY_ERR_FMT = "server busy: %d threads running";
+
+    private final Engine engine;
+    private final ProgramCache cache;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final LongAdder served = new LongAdder();
+    private ServerSocket socket;
+
+    private long fuel = -1;
+    private long timeoutMillis = -1;
+    private long memoryLimit = -1;
+    private int maxFrames = VM.MAX_FRAMES;
+    private int maxInFlight = MAX_IN_FLIGHT;
+
+    public ScriptServer(Engine engine, ProgramCache cache) {
+        this.engine = engine;
+        this.cache = cache;
+
+        this.executor = Tasks.newExecutor("monkey-script");
+        this.virtualThreads = Tasks.hasVirtualThreads();
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /* Limits for every script; negative means none. */
+    public void setFuel(long steps) {
+        fuel = steps;
+    }
+
+    public void setTimeout(long millis) {
+        timeoutMillis = millis;
+    }
+
+    public void setMemoryLimit(long bytes) {
+        memoryLimit = bytes;
+    }
+
+    public void setMaxFrames(int maxFrames) {
+        this.maxFrames = maxFrames;
+    }
+
+    /* Scripts one connection may have running at once. */
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    /* Scripts answered so far. */
+    public long served() {
+        return served.sum();
+    }
+
+    /*
+     * Accepts connections on the loopback interface only; port 0 picks a
+     * free one. Returns the port actually bound.
+     */
+    public int listen(int port) throws IOException {
+        socket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        executor.execute(this::acceptConnections);
+        return socket.getLocalPort();
+    }
+
+    private void acceptConnections() {
+        while (!socket.isClosed()) {
+            Socket connection;
+            try {
+                connection = socket.accept();
+            } catch (IOException e) {
+                return;
+            }
+
+            try {
+                executor.execute(() -> {
+                    try (connection) {
+                        connection.setTcpNoDelay(true);
+                        serve(connection.getInputStream(), connection.getOutputStream());
+                    } catch (IOException e) {
+                        // The client went away or broke the protocol; drop it.
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                try {
+                    connection.close();
+                } catch (IOException ignored) {
+                    // Closing anyway.
+                }
+            }
+        }
+    }
+
+    /*
+     * Answers requests from in until it ends, each script on its own
+     * thread, reading no further while maxInFlight of them are running.
+     * Returns once every request read has been answered.
+     */
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        InputStream input = new BufferedInputStream(in);
+        OutputStream output = new BufferedOutputStream(out);
+        Phaser inFlight = new Phaser(1);
+        Semaphore slots = new Semaphore(maxInFlight);
+
+        try {
+            String[] header;
+            while ((header = Frames.readHeader(input)) != null) {
+                if (header.length != 2) {
+                    throw new IOException("bad request header");
+                }
+                long id;
+                try {
+                    id = Long.parseLong(header[0]);
+                } catch (NumberFormatException e) {
+                    throw new IOException("bad request id: " + header[0]);
+                }
+                String source = Frames.readBody(input, header[1]);
+
+                try {
+                    slots.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted waiting for a script to finish");
+                }
+                inFlight.register();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            answer(output, evaluate(id, source));
+                        } finally {
+                            slots.release();
+                            inFlight.arriveAndDeregister();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    answer(output, new Response(id, false,
+                                                String.format(BUSY_ERR_FMT,
+                                                              Tasks.MAX_PLATFORM_THREADS)));
+                    slots.release();
+                    inFlight.arriveAndDeregister();
+                }
+            }
+        } finally {
+            inFlight.arriveAndAwaitAdvance();
+        }
+    }
+
+    private static void answer(OutputStream output, Response response) {
+        try {
+            Frames.write(output, response.id + (response.ok ? " OK" : " ERR"), response.body);
+        } catch (IOException e) {
+            // Nobody is left to answer.
+        }
+    }
+
+    /* Runs one script in a fresh environment on the calling thread. */
+    public Response evaluate(long id, String source) {
+        CachedProgram cached = cache.get(source);
+        if (cached.hasErrors()) {
+            return new Response(id, false,
+                                String.format(Isolate.PARSE_ERR_FMT, cached.errors.get(0)));
+        }
+
+        EvaluationContext context = new EvaluationContext();
+        if (fuel >= 0) {
+            context.setFuel(fuel);
+        }
+        if (timeoutMillis >= 0) {
+            context.setTimeout(timeoutMillis);
+        }
+        if (memoryLimit >= 0) {
+            context.setMemoryLimit(memoryLimit);
+        }
+
+        MonkeyObject result;
+        try {
+            switch (engine) {
+                case VM:
+                    VM machine = new VM(cached.bytecode());
+                    machine.setMaxFrames(maxFrames);
+                    machine.setContext(context);
+                    result = machine.run();
+                    break;
+                case SPECIALIZING:
+                    result = SpecializingInterpreter.eval(cached.program, new Environment(),
+                                                          context);
+                    break;
+                default:
+                    result = Evaluator.eval(cached.program, new Environment(), context);
+            }
+        } catch (StackOverflowError e) {
+            result = Evaluator.createNewError(Evaluator.STACK_OVERFLOW_ERR_FMT);
+        } catch (OutOfMemoryError e) {
+            // What the script built is garbage again once we're out of here.
+            result = Evaluator.createNewError(OUT_OF_HEAP_ERR);
+        } catch (RuntimeException e) {
+            // A bug in one script (or the interpreter) mustn't cost the others their answers.
+            result = Evaluator.createNewError("%s", e.getMessage());
+        }
+        // Tasks the script left running stop with it.
+        context.cancel();
+        served.increment();
+
+        if (result instanceof MonkeyError) {
+            return new Response(id, false, ((MonkeyError)result).message);
+        }
+        return new Response(id, true, result == null ? "" : result.Inspect());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (socket != null) {
+            socket.close();
+        }
+        executor.shutdown();
+    }
+}
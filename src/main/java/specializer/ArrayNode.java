@@ -0,0 +1,45 @@
+package specializer;
+
+import evaluator.EvaluationContext;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyArray;
+import monkeyobject.MonkeyObject;
+
+class ArrayNode extends ExecNode {
+    private final ExecNode[] elements;
+
+    ArrayNode(ExecNode[] elements) {
+        this.elements = elements;
+        for (ExecNode el : elements) {
+            adopt(el);
+        }
+    }
+
+    MonkeyObject execute(Environment env) {
+        MonkeyObject[] values = new MonkeyObject[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            MonkeyObject val = elements[i].execute(env);
+            if (isError(val)) {
+                return val;
+            }
+            values[i] = val;
+        }
+
+        EvaluationContext context = env.context;
+        if (context != null
+            && context.allocate(EvaluationContext.arrayBytes(values.length))) {
+            return context.error();
+        }
+        return new MonkeyArray(values);
+    }
+
+    @Override
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        for (int i = 0; i < elements.length; i++) {
+            if (elements[i] == oldChild) {
+                elements[i] = newChild;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package specializer;
+
+import evaluator.EvaluationContext;
+import evaluator.Evaluator;
+import monkeyobject.BuiltinFunction;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyFunction;
+import monkeyobject.MonkeyObject;
+
+/*
+ * Call sites cache the function body they keep calling:
+ *
+ *   Uninitialized -> Cached (monomorphic on one function literal)
+ *                 -> Generic
+ *
+ * Closures created from the same literal share a FunctionRoot, so a call
+ * site stays cached even when the closure is re-created every time.
+ *
+ * Calls in tail position hand a TailCall back to the enclosing
+ * FunctionRoot instead of calling, so deep tail recursion doesn't grow
+ * the Java stack.
+ */
+abstract class CallNode extends ExecNode {
+    ExecNode function;
+    final ExecNode[] arguments;
+    final boolean tail;
+
+    CallNode(ExecNode function, ExecNode[] arguments, boolean tail) {
+        this.function = adopt(function);
+        this.arguments = arguments;
+        this.tail = tail;
+        for (ExecNode arg : arguments) {
+            adopt(arg);
+        }
+    }
+
+    final MonkeyObject execute(Environment env) {
+        MonkeyObject fn = function.execute(env);
+        if (isError(fn)) {
+            return fn;
+        }
+
+        MonkeyObject[] args = new MonkeyObject[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            MonkeyObject val = arguments[i].execute(env);
+            if (isError(val)) {
+                return val;
+            }
+            args[i] = val;
+        }
+
+        return dispatch(fn, args, env.context);
+    }
+
+    abstract MonkeyObject dispatch(MonkeyObject fn, MonkeyObject[] args,
+                                   EvaluationContext context);
+
+    @Override
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        if (function == oldChild) {
+            function = newChild;
+            return;
+        }
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] == oldChild) {
+                arguments[i] = newChild;
+                return;
+            }
+        }
+    }
+
+    static CallNode create(ExecNode function, ExecNode[] arguments, boolean tail) {
+        return new Uninitialized(function, arguments, tail);
+    }
+
+    MonkeyObject call(FunctionRoot root, Environment env, MonkeyObject[] args,
+                      EvaluationContext context) {
+        return tail ? new TailCall(root, env, args) : root.call(env, args, context);
+    }
+
+    static class Uninitialized extends CallNode {
+        Uninitialized(ExecNode function, ExecNode[] arguments, boolean tail) {
+            super(function, arguments, tail);
+        }
+
+        MonkeyObject dispatch(MonkeyObject fn, MonkeyObject[] args,
+                              EvaluationContext context) {
+            CallNode specialized;
+            if (fn instanceof SpecializedFunction) {
+                specialized = new Cached(function, arguments, tail,
+                                         ((SpecializedFunction)fn).root);
+            } else {
+                specialized = new Generic(function, arguments, tail);
+            }
+            return replace(specialized).dispatch(fn, args, context);
+        }
+    }
+
+    static class Cached extends CallNode {
+        private final FunctionRoot root;
+
+        Cached(ExecNode function, ExecNode[] arguments, boolean tail,
+               FunctionRoot root) {
+            super(function, arguments, tail);
+            this.root = root;
+        }
+
+        MonkeyObject dispatch(MonkeyObject fn, MonkeyObject[] args,
+                              EvaluationContext context) {
+            if (fn instanceof SpecializedFunction
+                && ((SpecializedFunction)fn).root == root) {
+                return call(root, ((SpecializedFunction)fn).env, args, context);
+            }
+            return replace(new Generic(function, arguments, tail)).dispatch(fn, args, context);
+        }
+    }
+
+    static class Generic extends CallNode {
+        Generic(ExecNode function, ExecNode[] arguments, boolean tail) {
+            super(function, arguments, tail);
+        }
+
+        MonkeyObject dispatch(MonkeyObject fn, MonkeyObject[] args,
+                              EvaluationContext context) {
+            if (fn instanceof SpecializedFunction) {
+                SpecializedFunction function = (SpecializedFunction)fn;
+                return call(function.root, function.env, args, context);
+            } else if (fn instanceof MonkeyFunction) {
+                // Created by another engine; build its body on the spot.
+                MonkeyFunction function = (MonkeyFunction)fn;
+                return call(NodeBuilder.buildRoot(function.parameters, function.body,
+                                                  function.frameSize()),
+                            function.env, args, context);
+            } else if (fn instanceof BuiltinFunction) {
+                BuiltinFunction builtin = (BuiltinFunction)fn;
+                MonkeyObject result = builtin.apply(args, SpecializingInterpreter.invoker(context));
+                if (context != null
+                    && context.allocate(EvaluationContext.resultBytes(builtin, args, result))) {
+                    return context.error();
+                }
+                return result;
+            }
+
+            return Evaluator.createNewError(Evaluator.NOT_A_FUNCTION_ERR_FMT,
+                                            fn.Type());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package specializer;
+
+import monkeyobject.Environment;
+import monkeyobject.MonkeyObject;
+
+/*
+ * Literals whose value never changes: integers, strings and booleans are
+ * materialized once when the tree is built.
+ */
+class ConstantNode extends ExecNode {
+    private final MonkeyObject value;
+
+    ConstantNode(MonkeyObject value) {
+        this.value = value;
+    }
+
+    MonkeyObject execute(Environment env) {
+        return value;
+    }
+}
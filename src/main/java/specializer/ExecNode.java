@@ -0,0 +1,43 @@
+package specializer;
+
+import monkeyobject.Environment;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyObject;
+
+/*
+ * Executable counterpart of an ast node. Nodes that can specialize start
+ * out generic (or uninitialized) and replace themselves in their parent
+ * with a faster variant once they have seen what types flow through them,
+ * and back again when that assumption stops holding.
+ */
+abstract class ExecNode {
+    ExecNode parent;
+
+    abstract MonkeyObject execute(Environment env);
+
+    /*
+     * Swaps a direct child for its replacement. Only nodes whose children
+     * can rewrite themselves need to override this.
+     */
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        throw new IllegalStateException(getClass().getSimpleName()
+            + " does not have rewritable children");
+    }
+
+    <T extends ExecNode> T replace(T newNode) {
+        newNode.parent = parent;
+        parent.replaceChild(this, newNode);
+        return newNode;
+    }
+
+    <T extends ExecNode> T adopt(T child) {
+        if (child != null) {
+            child.parent = this;
+        }
+        return child;
+    }
+
+    static boolean isError(MonkeyObject obj) {
+        return obj instanceof MonkeyError;
+    }
+}
@@ -0,0 +1,19 @@
+package specializer;
+
+import ast.FunctionLiteral;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyObject;
+
+class FunctionNode extends ExecNode {
+    private final FunctionLiteral literal;
+    private final FunctionRoot root;
+
+    FunctionNode(FunctionLiteral literal, FunctionRoot root) {
+        this.literal = literal;
+        this.root = root;
+    }
+
+    MonkeyObject execute(Environment env) {
+        return new SpecializedFunction(literal, env, root);
+    }
+}
@@ -0,0 +1,83 @@
+package specializer;
+
+import evaluator.EvaluationContext;
+import evaluator.Evaluator;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyObject;
+import monkeyobject.MonkeyReturnValue;
+
+/*
+ * The executable body of one function literal, shared by every closure
+ * created from it so that specializations survive across calls.
+ */
+class FunctionRoot {
+    final ExecNode body;
+    final String[] parameters;
+    final int frameSize;
+
+    FunctionRoot(ExecNode body, String[] parameters, int frameSize) {
+        this.body = body;
+        this.parameters = parameters;
+        this.frameSize = frameSize;
+    }
+
+    /*
+     * Makes tail calls coming back from the body in a loop. The frame runs
+     * under the caller's limits, not those of the closure's creator.
+     */
+    MonkeyObject call(Environment closureEnv, MonkeyObject[] args,
+                      EvaluationContext context) {
+        FunctionRoot root = this;
+        while (true) {
+            if (context != null && context.tick()) {
+                return context.error();
+            } else if (args.length != root.parameters.length) {
+                return Evaluator.createNewError(Evaluator.WRONG_NUM_ARGUMENTS_ERR_FMT,
+                                                args.length, root.parameters.length);
+            }
+            long frame = 0;
+            if (context != null) {
+                frame = EvaluationContext.frameBytes(Math.max(root.frameSize,
+                                                              root.parameters.length));
+                if (context.allocate(frame)) {
+                    return context.error();
+                }
+            }
+
+            Environment env = root.bindArguments(closureEnv, args);
+            env.context = context;
+            MonkeyObject result = root.body.execute(env);
+            if (context != null) {
+                context.release(frame);
+            }
+            if (result instanceof MonkeyReturnValue) {
+                result = ((MonkeyReturnValue)result).value;
+            }
+            if (!(result instanceof TailCall)) {
+                return result;
+            }
+
+            TailCall call = (TailCall)result;
+            root = call.root;
+            closureEnv = call.env;
+            args = call.args;
+        }
+    }
+
+    private Environment bindArguments(Environment closureEnv,
+        MonkeyObject[] args) {
+        if (frameSize < 0) {
+            Environment env = new Environment(closureEnv);
+            for (int i = 0; i < parameters.length; i++) {
+                env.Set(parameters[i], args[i]);
+            }
+            return env;
+        }
+
+        Environment env = new Environment(closureEnv, frameSize);
+        for (int i = 0; i < args.length; i++) {
+            env.SetAt(i, args[i]);
+        }
+        return env;
+    }
+}
@@ -0,0 +1,67 @@
+package specializer;
+
+import evaluator.EvaluationContext;
+import evaluator.Evaluator;
+import monkeyobject.Environment;
+import monkeyobject.HashPair;
+import monkeyobject.Hashable;
+import monkeyobject.MonkeyHash;
+import monkeyobject.MonkeyObject;
+
+class HashNode extends ExecNode {
+    private final ExecNode[] keys;
+    private final ExecNode[] values;
+
+    HashNode(ExecNode[] keys, ExecNode[] values) {
+        this.keys = keys;
+        this.values = values;
+        for (int i = 0; i < keys.length; i++) {
+            adopt(keys[i]);
+            adopt(values[i]);
+        }
+    }
+
+    MonkeyObject execute(Environment env) {
+        MonkeyHash hash = new MonkeyHash();
+
+        for (int i = 0; i < keys.length; i++) {
+            MonkeyObject key = keys[i].execute(env);
+            if (isError(key)) {
+                return key;
+            }
+
+            if (!(key instanceof Hashable)) {
+                return Evaluator.createNewError(
+                    Evaluator.UNUSABLE_AS_HASH_OBJ_ERR_FMT, key.Type());
+            }
+
+            MonkeyObject value = values[i].execute(env);
+            if (isError(value)) {
+                return value;
+            }
+
+            hash = hash.put(((Hashable)key).getHashKey(), new HashPair(key, value));
+        }
+
+        EvaluationContext context = env.context;
+        if (context != null
+            && context.allocate(EvaluationContext.hashBytes(hash.size()))) {
+            return context.error();
+        }
+
+        return hash;
+    }
+
+    @Override
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == oldChild) {
+                keys[i] = newChild;
+                return;
+            } else if (values[i] == oldChild) {
+                values[i] = newChild;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package specializer;
+
+import monkeyobject.Environment;
+import monkeyobject.MonkeyBool;
+import monkeyobject.MonkeyNull;
+import monkeyobject.MonkeyObject;
+
+class IfNode extends ExecNode {
+    private ExecNode condition;
+    private final ExecNode consequence;
+    private final ExecNode alternative;
+
+    IfNode(ExecNode condition, ExecNode consequence, ExecNode alternative) {
+        this.condition = adopt(condition);
+        this.consequence = adopt(consequence);
+        this.alternative = adopt(alternative);
+    }
+
+    MonkeyObject execute(Environment env) {
+        MonkeyObject cond = condition.execute(env);
+        if (isError(cond)) {
+            return cond;
+        }
+
+        if (cond != MonkeyNull.NULL && cond != MonkeyBool.FALSE) {
+            return consequence.execute(env);
+        } else if (alternative != null) {
+            return alternative.execute(env);
+        }
+        return MonkeyNull.NULL;
+    }
+
+    @Override
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        condition = newChild;
+    }
+}
@@ -0,0 +1,39 @@
+package specializer;
+
+import evaluator.Evaluator;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyObject;
+
+class IndexNode extends ExecNode {
+    private ExecNode left;
+    private ExecNode index;
+
+    IndexNode(ExecNode left, ExecNode index) {
+        this.left = adopt(left);
+        this.index = adopt(index);
+    }
+
+    MonkeyObject execute(Environment env) {
+        MonkeyObject l = left.execute(env);
+        if (isError(l)) {
+            return l;
+        }
+
+        MonkeyObject i = index.execute(env);
+        if (isError(i)) {
+            return i;
+        }
+
+        return Evaluator.evalIndexExpression(l, i,
+                                             SpecializingInterpreter.invoker(env.context));
+    }
+
+    @Override
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        if (left == oldChild) {
+            left = newChild;
+        } else {
+            index = newChild;
+        }
+    }
+}
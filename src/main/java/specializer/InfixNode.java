@@ -0,0 +1,103 @@
+package specializer;
+
+import evaluator.EvaluationContext;
+import evaluator.Evaluator;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyObject;
+import monkeyobject.MonkeyString;
+
+/*
+ * Infix expressions start uninitialized and rewrite themselves according
+ * to the first operands they see:
+ *
+ *   Uninitialized -> IntInfixNode (one subclass per operator)
+ *                 -> StringConcatNode
+ *                 -> Generic
+ *
+ * A specialized node that is handed other operand types rewrites itself
+ * into the generic node for good, so a polymorphic site cannot flip back
+ * and forth.
+ */
+abstract class InfixNode extends ExecNode {
+    final String operator;
+    ExecNode left;
+    ExecNode right;
+
+    InfixNode(String operator, ExecNode left, ExecNode right) {
+        this.operator = operator;
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    final MonkeyObject execute(Environment env) {
+        MonkeyObject l = left.execute(env);
+        if (isError(l)) {
+            return l;
+        }
+
+        MonkeyObject r = right.execute(env);
+        if (isError(r)) {
+            return r;
+        }
+
+        MonkeyObject result = executeWith(l, r);
+        EvaluationContext context = env.context;
+        if (context != null && result instanceof MonkeyString
+            && context.allocate(EvaluationContext.stringBytes(((MonkeyString)r).length()))) {
+            return context.error();
+        }
+        return result;
+    }
+
+    abstract MonkeyObject executeWith(MonkeyObject l, MonkeyObject r);
+
+    MonkeyObject deoptimize(MonkeyObject l, MonkeyObject r) {
+        return replace(new Generic(operator, left, right)).executeWith(l, r);
+    }
+
+    @Override
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        if (left == oldChild) {
+            left = newChild;
+        } else {
+            right = newChild;
+        }
+    }
+
+    static InfixNode create(String operator, ExecNode left, ExecNode right) {
+        return new Uninitialized(operator, left, right);
+    }
+
+    static class Uninitialized extends InfixNode {
+        Uninitialized(String operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        MonkeyObject executeWith(MonkeyObject l, MonkeyObject r) {
+            InfixNode specialized = null;
+
+            if (l instanceof MonkeyInt && r instanceof MonkeyInt) {
+                specialized = IntInfixNode.create(operator, left, right);
+            } else if (l instanceof MonkeyString && r instanceof MonkeyString
+                       && operator.equals("+")) {
+                specialized = new StringConcatNode(operator, left, right);
+            }
+
+            if (specialized == null) {
+                specialized = new Generic(operator, left, right);
+            }
+            return replace(specialized).executeWith(l, r);
+        }
+    }
+
+    static class Generic extends InfixNode {
+        Generic(String operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        MonkeyObject executeWith(MonkeyObject l, MonkeyObject r) {
+            return Evaluator.evalInfixExpression(operator, l, r);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package specializer;
+
+import monkeyobject.MonkeyBool;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyObject;
+
+/*
+ * Infix node that has only ever seen two integers. Each operator gets its
+ * own subclass so the steady state is a type check and one long operation.
+ */
+abstract class IntInfixNode extends InfixNode {
+    IntInfixNode(String operator, ExecNode left, ExecNode right) {
+        super(operator, left, right);
+    }
+
+    final MonkeyObject executeWith(MonkeyObject l, MonkeyObject r) {
+        if (l instanceof MonkeyInt && r instanceof MonkeyInt) {
+            return compute(((MonkeyInt)l).value, ((MonkeyInt)r).value);
+        }
+        return deoptimize(l, r);
+    }
+
+    abstract MonkeyObject compute(long l, long r);
+
+    /*
+     * Null for operators integers do not support, which the caller
+     * leaves to the generic node (and its error message).
+     */
+    static IntInfixNode create(String operator, ExecNode left, ExecNode right) {
+        switch (operator) {
+            case "+":
+                return new Add(operator, left, right);
+            case "-":
+                return new Sub(operator, left, right);
+            case "*":
+                return new Mul(operator, left, right);
+            case "/":
+                return new Div(operator, left, right);
+            case "<":
+                return new LessThan(operator, left, right);
+            case ">":
+                return new GreaterThan(operator, left, right);
+            case "==":
+                return new Equal(operator, left, right);
+            case "!=":
+                return new NotEqual(operator, left, right);
+            default:
+                return null;
+        }
+    }
+
+    private static MonkeyObject bool(boolean value) {
+        return value ? MonkeyBool.TRUE : MonkeyBool.FALSE;
+    }
+
+    static final class Add extends IntInfixNode {
+        Add(String operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        MonkeyObject compute(long l, long r) { return MonkeyInt.valueOf(l + r); }
+    }
+
+    static final class Sub extends IntInfixNode {
+        Sub(String operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        MonkeyObject compute(long l, long r) { return MonkeyInt.valueOf(l - r); }
+    }
+
+    static final class Mul extends IntInfixNode {
+        Mul(String operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        MonkeyObject compute(long l, long r) { return MonkeyInt.valueOf(l * r); }
+    }
+
+    static final class Div extends IntInfixNode {
+        Div(String operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        MonkeyObject compute(long l, long r) { return MonkeyInt.valueOf(l / r); }
+    }
+
+    static final class LessThan extends IntInfixNode {
+        LessThan(String operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        MonkeyObject compute(long l, long r) { return bool(l < r); }
+    }
+
+    static final class GreaterThan extends IntInfixNode {
+        GreaterThan(String operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        MonkeyObject compute(long l, long r) { return bool(l > r); }
+    }
+
+    static final class Equal extends IntInfixNode {
+        Equal(String operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        MonkeyObject compute(long l, long r) { return bool(l == r); }
+    }
+
+    static final class NotEqual extends IntInfixNode {
+        NotEqual(String operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        MonkeyObject compute(long l, long r) { return bool(l != r); }
+    }
+}
@@ -0,0 +1,35 @@
+package specializer;
+
+import monkeyobject.Environment;
+import monkeyobject.MonkeyObject;
+
+class LetNode extends ExecNode {
+    private ExecNode value;
+    private final String name;
+    private final int slot;
+
+    LetNode(String name, int slot, ExecNode value) {
+        this.name = name;
+        this.slot = slot;
+        this.value = adopt(value);
+    }
+
+    MonkeyObject execute(Environment env) {
+        MonkeyObject val = value.execute(env);
+        if (isError(val)) {
+            return val;
+        }
+
+        if (slot >= 0) {
+            env.SetAt(slot, val);
+        } else {
+            env.Set(name, val);
+        }
+        return null;
+    }
+
+    @Override
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        value = newChild;
+    }
+}
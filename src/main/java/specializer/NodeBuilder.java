@@ -0,0 +1,132 @@
+package specializer;
+
+import java.util.ArrayList;
+
+import ast.ArrayLiteral;
+import ast.BlockStatement;
+import ast.Bool;
+import ast.CallExpression;
+import ast.Expression;
+import ast.ExpressionStatement;
+import ast.FunctionLiteral;
+import ast.HashLiteral;
+import ast.Identifier;
+import ast.IfExpression;
+import ast.IndexExpression;
+import ast.InfixExpression;
+import ast.IntegerLiteral;
+import ast.LetStatement;
+import ast.Node;
+import ast.PrefixExpression;
+import ast.Program;
+import ast.ReturnStatement;
+import ast.Statement;
+import ast.StringLiteral;
+import monkeyobject.MonkeyBool;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyString;
+
+/*
+ * Translates an ast tree into its executable node tree. This is the only
+ * place that still dispatches on ast node classes; it runs once per
+ * program, not once per evaluation of a node.
+ */
+final class NodeBuilder {
+    private NodeBuilder() {}
+
+    static ExecNode buildProgram(Program program) {
+        return new SequenceNode(buildStatements(program.statements), true);
+    }
+
+    static FunctionRoot buildRoot(ArrayList<Identifier> parameters,
+        BlockStatement body, int frameSize) {
+        String[] names = new String[parameters.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = parameters.get(i).value;
+        }
+        return new FunctionRoot(build(body), names, frameSize);
+    }
+
+    private static ExecNode[] buildStatements(Statement[] statements) {
+        ExecNode[] nodes = new ExecNode[statements.length];
+        for (int i = 0; i < statements.length; i++) {
+            nodes[i] = build(statements[i]);
+        }
+        return nodes;
+    }
+
+    private static ExecNode[] buildExpressions(Expression[] exprs) {
+        ExecNode[] nodes = new ExecNode[exprs.length];
+        for (int i = 0; i < exprs.length; i++) {
+            nodes[i] = build(exprs[i]);
+        }
+        return nodes;
+    }
+
+    private static ExecNode build(Node node) {
+        /* Statements */
+        if (node instanceof BlockStatement) {
+            return new SequenceNode(
+                buildStatements(((BlockStatement)node).statements), false);
+        } else if (node instanceof ExpressionStatement) {
+            return build(((ExpressionStatement)node).expression);
+        } else if (node instanceof LetStatement) {
+            LetStatement let = (LetStatement)node;
+            return new LetNode(let.name.value, let.name.slot, build(let.value));
+        } else if (node instanceof ReturnStatement) {
+            return new ReturnNode(build(((ReturnStatement)node).returnValue));
+        }
+        /* Expressions */
+        else if (node instanceof CallExpression) {
+            CallExpression call = (CallExpression)node;
+            return CallNode.create(build(call.function),
+                                   buildExpressions(call.arguments), call.tail);
+        } else if (node instanceof IfExpression) {
+            IfExpression expr = (IfExpression)node;
+            return new IfNode(build(expr.condition), build(expr.consequence),
+                expr.alternative != null ? build(expr.alternative) : null);
+        } else if (node instanceof InfixExpression) {
+            InfixExpression expr = (InfixExpression)node;
+            return InfixNode.create(expr.operator, build(expr.left),
+                                    build(expr.right));
+        } else if (node instanceof IndexExpression) {
+            IndexExpression expr = (IndexExpression)node;
+            return new IndexNode(build(expr.left), build(expr.index));
+        } else if (node instanceof PrefixExpression) {
+            PrefixExpression expr = (PrefixExpression)node;
+            return new PrefixNode(expr.operator, build(expr.right));
+        }
+        /* Literals/Others */
+        else if (node instanceof ArrayLiteral) {
+            return new ArrayNode(buildExpressions(((ArrayLiteral)node).elements));
+        } else if (node instanceof Bool) {
+            return new ConstantNode(((Bool)node).value ? MonkeyBool.TRUE
+                                                        : MonkeyBool.FALSE);
+        } else if (node instanceof FunctionLiteral) {
+            FunctionLiteral fn = (FunctionLiteral)node;
+            return new FunctionNode(fn, buildRoot(fn.parameters, fn.body,
+                                                  fn.frameSize));
+        } else if (node instanceof Identifier) {
+            Identifier ident = (Identifier)node;
+            return new ReadNode(ident.value, ident.depth, ident.slot);
+        } else if (node instanceof IntegerLiteral) {
+            return new ConstantNode(((IntegerLiteral)node).constant);
+        } else if (node instanceof HashLiteral) {
+            HashLiteral hash = (HashLiteral)node;
+            ExecNode[] keys = new ExecNode[hash.pairs.size()];
+            ExecNode[] values = new ExecNode[hash.pairs.size()];
+            int i = 0;
+            for (var entry : hash.pairs.entrySet()) {
+                keys[i] = build(entry.getKey());
+                values[i] = build(entry.getValue());
+                i++;
+            }
+            return new HashNode(keys, values);
+        } else if (node instanceof StringLiteral) {
+            return new ConstantNode(new MonkeyString(((StringLiteral)node).value));
+        }
+
+        // Matches Evaluator.eval handing back null for missing nodes.
+        return new ConstantNode(null);
+    }
+}
@@ -0,0 +1,39 @@
+package specializer;
+
+import evaluator.Evaluator;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyObject;
+
+/*
+ * The operator is fixed when the tree is built, so there is no string
+ * switch left at runtime; negating an integer skips the Evaluator.
+ */
+class PrefixNode extends ExecNode {
+    private final String operator;
+    private final boolean isMinus;
+    private ExecNode right;
+
+    PrefixNode(String operator, ExecNode right) {
+        this.operator = operator;
+        this.isMinus = operator.equals("-");
+        this.right = adopt(right);
+    }
+
+    MonkeyObject execute(Environment env) {
+        MonkeyObject val = right.execute(env);
+        if (isError(val)) {
+            return val;
+        }
+
+        if (isMinus && val instanceof MonkeyInt) {
+            return MonkeyInt.valueOf(-((MonkeyInt)val).value);
+        }
+        return Evaluator.evalPrefixExpression(operator, val);
+    }
+
+    @Override
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        right = newChild;
+    }
+}
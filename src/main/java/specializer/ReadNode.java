@@ -0,0 +1,49 @@
+package specializer;
+
+import evaluator.Evaluator;
+import monkeyobject.BuiltinFunction;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyObject;
+
+/*
+ * Identifier read. Resolved identifiers index straight into their frame;
+ * the by-name path covers globals, builtins and slots whose let has not
+ * run yet (parameters are always bound), just like Evaluator.evalIdentifier.
+ */
+class ReadNode extends ExecNode {
+    private final String name;
+    private final int depth;
+    private final int slot;
+
+    ReadNode(String name, int depth, int slot) {
+        this.name = name;
+        this.depth = depth;
+        this.slot = slot;
+    }
+
+    MonkeyObject execute(Environment env) {
+        if (slot >= 0) {
+            MonkeyObject val = env.GetAt(depth, slot);
+            if (val != null) {
+                return val;
+            }
+            return lookupByName(env);
+        }
+        return lookupByName(env.ancestor(depth));
+    }
+
+    private MonkeyObject lookupByName(Environment env) {
+        MonkeyObject val = env.Get(name);
+        if (val != null) {
+            return val;
+        }
+
+        BuiltinFunction builtin = Evaluator.getBuiltin(name);
+        if (builtin != null) {
+            return builtin;
+        }
+
+        return Evaluator.createNewError(Evaluator.IDENTIFIER_NOT_FOUND_ERR_FMT,
+                                        name);
+    }
+}
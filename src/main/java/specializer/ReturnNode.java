@@ -0,0 +1,26 @@
+package specializer;
+
+import monkeyobject.Environment;
+import monkeyobject.MonkeyObject;
+import monkeyobject.MonkeyReturnValue;
+
+class ReturnNode extends ExecNode {
+    private ExecNode value;
+
+    ReturnNode(ExecNode value) {
+        this.value = adopt(value);
+    }
+
+    MonkeyObject execute(Environment env) {
+        MonkeyObject val = value.execute(env);
+        if (isError(val)) {
+            return val;
+        }
+        return new MonkeyReturnValue(val);
+    }
+
+    @Override
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        value = newChild;
+    }
+}
@@ -0,0 +1,58 @@
+package specializer;
+
+import evaluator.EvaluationContext;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyObject;
+import monkeyobject.MonkeyReturnValue;
+
+/*
+ * A program or block statement. The program unwraps return values, a
+ * block hands them up to the enclosing function.
+ */
+class SequenceNode extends ExecNode {
+    private final ExecNode[] statements;
+    private final boolean isProgram;
+
+    SequenceNode(ExecNode[] statements, boolean isProgram) {
+        this.statements = statements;
+        this.isProgram = isProgram;
+        for (ExecNode stmt : statements) {
+            adopt(stmt);
+        }
+    }
+
+    MonkeyObject execute(Environment env) {
+        MonkeyObject result = null;
+        EvaluationContext context = env.context;
+
+        for (ExecNode stmt : statements) {
+            if (context != null && context.tick()) {
+                return context.error();
+            }
+            result = stmt.execute(env);
+
+            if (result instanceof MonkeyReturnValue) {
+                return isProgram ? ((MonkeyReturnValue)result).value : result;
+            } else if (result instanceof MonkeyError) {
+                return result;
+            }
+        }
+
+        return result;
+    }
+
+    ExecNode statement(int index) {
+        return statements[index];
+    }
+
+    @Override
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        for (int i = 0; i < statements.length; i++) {
+            if (statements[i] == oldChild) {
+                statements[i] = newChild;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package specializer;
+
+import ast.FunctionLiteral;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyFunction;
+
+/*
+ * A MonkeyFunction that also carries the node tree its body executes.
+ */
+class SpecializedFunction extends MonkeyFunction {
+    final FunctionRoot root;
+
+    SpecializedFunction(FunctionLiteral literal, Environment env,
+        FunctionRoot root) {
+        super(literal, env);
+        this.root = root;
+    }
+}
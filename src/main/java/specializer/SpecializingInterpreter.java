@@ -0,0 +1,74 @@
+package specializer;
+
+import ast.Program;
+import evaluator.EvaluationContext;
+import evaluator.Evaluator;
+import monkeyobject.Environment;
+import monkeyobject.Invoker;
+import monkeyobject.MonkeyObject;
+
+/*
+ * Tree-walking engine with self-specializing nodes. Same semantics and
+ * error messages as evaluator.Evaluator, but type dispatch happens once
+ * per node rewrite instead of on every evaluation.
+ */
+public final class SpecializingInterpreter {
+    private final static Invoker INVOKER = new CallbackInvoker(null);
+
+    private SpecializingInterpreter() {}
+
+    /*
+     * Calls functions back for builtins through a generic call site. Node
+     * rewrites aren't safe to race, so other threads, pmap's and tasks',
+     * get the tree-walker instead, which runs the same closures without
+     * touching their nodes.
+     */
+    private static class CallbackInvoker implements Invoker {
+        private final EvaluationContext context;
+        private final CallNode site = new CallNode.Generic(null, new ExecNode[0], false);
+
+        CallbackInvoker(EvaluationContext context) {
+            this.context = context;
+        }
+
+        public MonkeyObject call(MonkeyObject fn, MonkeyObject[] args) {
+            return site.dispatch(fn, args, context);
+        }
+
+        @Override
+        public Invoker fork(MonkeyObject fn) {
+            return context == null ? Evaluator.invoker(null).fork(fn) : null;
+        }
+
+        @Override
+        public Invoker task() {
+            return Evaluator.invoker(context == null ? null : context.forTask());
+        }
+
+        @Override
+        public EvaluationContext context() {
+            return context;
+        }
+    }
+
+    static Invoker invoker(EvaluationContext context) {
+        return context == null ? INVOKER : new CallbackInvoker(context);
+    }
+
+    public static MonkeyObject eval(Program program, Environment env) {
+        try {
+            return NodeBuilder.buildProgram(program).execute(env);
+        } catch (StackOverflowError e) {
+            // Only non-tail recursion gets here, as in the tree-walker.
+            return Evaluator.createNewError(Evaluator.STACK_OVERFLOW_ERR_FMT);
+        }
+    }
+
+    /* See Evaluator.eval(Program, Environment, EvaluationContext). */
+    public static MonkeyObject eval(Program program, Environment env,
+                                    EvaluationContext context) {
+        env.context = context;
+        MonkeyObject result = eval(program, env);
+        return context.error() != null ? context.error() : result;
+    }
+}
@@ -0,0 +1,17 @@
+package specializer;
+
+import monkeyobject.MonkeyObject;
+import monkeyobject.MonkeyString;
+
+class StringConcatNode extends InfixNode {
+    StringConcatNode(String operator, ExecNode left, ExecNode right) {
+        super(operator, left, right);
+    }
+
+    MonkeyObject executeWith(MonkeyObject l, MonkeyObject r) {
+        if (l instanceof MonkeyString && r instanceof MonkeyString) {
+            return ((MonkeyString)l).concat((MonkeyString)r);
+        }
+        return deoptimize(l, r);
+    }
+}
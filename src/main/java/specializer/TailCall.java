@@ -0,0 +1,26 @@
+package specializer;
+
+import monkeyobject.Environment;
+import monkeyobject.MonkeyObject;
+import monkeyobject.ObjectType;
+
+/*
+ * A call in tail position that has not been made yet; FunctionRoot.call
+ * makes it in a loop so tail recursion runs in constant Java stack. Never
+ * escapes the specializer.
+ */
+class TailCall implements MonkeyObject {
+    final FunctionRoot root;
+    final Environment env;
+    final MonkeyObject[] args;
+
+    TailCall(FunctionRoot root, Environment env, MonkeyObject[] args) {
+        this.root = root;
+        this.env = env;
+        this.args = args;
+    }
+
+    public ObjectType objectType() { return ObjectType.TAIL_CALL; }
+
+    public String Inspect() { return "tail call"; }
+}
@@ -3,42 +3,45 @@ package token;
 import java.util.Map;
 
 public class Token {
-    public String type;
+    public TokenType type;
     public String literal;
+    /* Where the token starts in the source, both counted from 1; 0 if unknown. */
+    public int line;
+    public int column;
 
-    /* Token Types */
-    public final static String ILLEGAL = "ILLEGAL";
-    public final static String EOF = "EOF";
-    public final static String IDENT = "IDENT";
-    public final static String INT = "INT";
-    public final static String ASSIGN = "=";
-    public final static String PLUS = "+";
-    public final static String MINUS = "-";
-    public final static String BANG = "!";
-    public final static String ASTERISK = "*";
-    public final static String SLASH = "/";
-    public final static String COMMA = ",";
-    public final static String COLON = ":";
-    public final static String SEMICOLON = ";";
-    public final static String LPAREN = "(";
-    public final static String RPAREN = ")";
-    public final static String LBRACE = "{";
-    public final static String RBRACE = "}";
-    public final static String LBRACKET = "[";
-    public final static String RBRACKET = "]";
-    public final static String LT = "<";
-    public final static String GT = ">";
-    public final static String EQ = "==";
-    public final static String NOTEQ = "!=";
-    public final static String FUNCTION = "FUNCTION";
-    public final static String LET = "LET";
-    public final static String TRUE = "TRUE";
-    public final static String FALSE = "FALSE";
-    public final static String IF = "IF";
-    public final static String ELSE = "ELSE";
-    public final static String RETURN = "RETURN";
-    public final static String STRING = "STRING";
-    public final static Map<String, String> keywords = Map.of(
+    /* Token Types, kept here so lexer and parser can say Token.LET */
+    public final static TokenType ILLEGAL = TokenType.ILLEGAL;
+    public final static TokenType EOF = TokenType.EOF;
+    public final static TokenType IDENT = TokenType.IDENT;
+    public final static TokenType INT = TokenType.INT;
+    public final static TokenType ASSIGN = TokenType.ASSIGN;
+    public final static TokenType PLUS = TokenType.PLUS;
+    public final static TokenType MINUS = TokenType.MINUS;
+    public final static TokenType BANG = TokenType.BANG;
+    public final static TokenType ASTERISK = TokenType.ASTERISK;
+    public final static TokenType SLASH = TokenType.SLASH;
+    public final static TokenType COMMA = TokenType.COMMA;
+    public final static TokenType COLON = TokenType.COLON;
+    public final static TokenType SEMICOLON = TokenType.SEMICOLON;
+    public final static TokenType LPAREN = TokenType.LPAREN;
+    public final static TokenType RPAREN = TokenType.RPAREN;
+    public final static TokenType LBRACE = TokenType.LBRACE;
+    public final static TokenType RBRACE = TokenType.RBRACE;
+    public final static TokenType LBRACKET = TokenType.LBRACKET;
+    public final static TokenType RBRACKET = TokenType.RBRACKET;
+    public final static TokenType LT = TokenType.LT;
+    public final static TokenType GT = TokenType.GT;
+    public final static TokenType EQ = TokenType.EQ;
+    public final static TokenType NOTEQ = TokenType.NOTEQ;
+    public final static TokenType FUNCTION = TokenType.FUNCTION;
+    public final static TokenType LET = TokenType.LET;
+    public final static TokenType TRUE = TokenType.TRUE;
+    public final static TokenType FALSE = TokenType.FALSE;
+    public final static TokenType IF = TokenType.IF;
+    public final static TokenType ELSE = TokenType.ELSE;
+    public final static TokenType RETURN = TokenType.RETURN;
+    public final static TokenType STRING = TokenType.STRING;
+    public final static Map<String, TokenType> keywords = Map.of(
         "fn", FUNCTION, 
         "let", LET,
         "true", TRUE,
@@ -48,15 +51,21 @@ public class Token {
         "return", RETURN
     );
 
-    public Token (String type){
+    public Token (TokenType type){
         this.type = type;
     }
 
-    public Token (String type, String literal){
+    public Token (TokenType type, String literal){
         this.type = type;
         this.literal = literal;
     }
 
+    public Token (TokenType type, String literal, int line, int column){
+        this(type, literal);
+        this.line = line;
+        this.column = column;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof Token)){
@@ -64,14 +73,14 @@ public class Token {
         }
 
         if (literal == null) {
-            return type.equals(((Token)o).type);
+            return type == ((Token)o).type;
         }
 
-        return (type.equals(((Token)(o)).type) && 
+        return (type == ((Token)(o)).type && 
                 literal.equals(((Token)(o)).literal));
     }
 
-    public static String lookupIdent(String ident) {
+    public static TokenType lookupIdent(String ident) {
         if (keywords.containsKey(ident)){
             return keywords.get(ident);
         }
@@ -81,7 +90,7 @@ public class Token {
     @Override
     public String toString() {
         if (literal == null){
-            return type;
+            return type.toString();
         }
         return "{Type:" + type + " Literal:" + literal+ "}";
     }
@@ -0,0 +1,50 @@
+package token;
+
+/*
+ * Kinds of token the lexer produces. toString() gives the spelling the
+ * string-based types used to have, which parser error messages rely on.
+ */
+public enum TokenType {
+    ILLEGAL("ILLEGAL"),
+    EOF("EOF"),
+    IDENT("IDENT"),
+    INT("INT"),
+    ASSIGN("="),
+    PLUS("+"),
+    MINUS("-"),
+    BANG("!"),
+    ASTERISK("*"),
+    SLASH("/"),
+    COMMA(","),
+    COLON(":"),
+    SEMICOLON(";"),
+    LPAREN("("),
+    RPAREN(")"),
+    LBRACE("{"),
+    RBRACE("}"),
+    LBRACKET("["),
+    RBRACKET("]"),
+    LT("<"),
+    GT(">"),
+    EQ("=="),
+    NOTEQ("!="),
+    FUNCTION("FUNCTION"),
+    LET("LET"),
+    TRUE("TRUE"),
+    FALSE("FALSE"),
+    IF("IF"),
+    ELSE("ELSE"),
+    RETURN("RETURN"),
+    STRING("STRING");
+
+    private final String name;
+
+    TokenType(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,19 @@
+package vm;
+
+import monkeyobject.MonkeyClosure;
+
+class Frame {
+    MonkeyClosure cl;
+    int ip;
+    int basePointer;
+
+    Frame(MonkeyClosure cl, int basePointer) {
+        this.cl = cl;
+        this.ip = -1;
+        this.basePointer = basePointer;
+    }
+
+    byte[] instructions() {
+        return cl.fn.instructions;
+    }
+}
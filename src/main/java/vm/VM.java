@@ -0,0 +1,597 @@
+package vm;
+
+import compiler.Bytecode;
+import compiler.Opcode;
+import evaluator.EvaluationContext;
+import evaluator.Evaluator;
+import monkeyobject.BuiltinFunction;
+import monkeyobject.HashPair;
+import monkeyobject.Invoker;
+import monkeyobject.Hashable;
+import monkeyobject.MonkeyArray;
+import monkeyobject.MonkeyBool;
+import monkeyobject.MonkeyClosure;
+import monkeyobject.MonkeyCompiledFunction;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyHash;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyNull;
+import monkeyobject.MonkeyObject;
+import monkeyobject.MonkeyString;
+
+import java.util.Arrays;
+
+/*
+ * Stack machine for the output of compiler.Compiler. Operators defer to the
+ * Evaluator for anything but the integer fast paths, so both engines agree
+ * on semantics and error messages. Like the tree-walker, the first
+ * MonkeyError produced aborts the run and becomes its result.
+ */
+public class VM implements Invoker {
+    /* Initial sizes; both stacks grow on demand, frames up to maxFrames. */
+    public final static int STACK_SIZE = 2048;
+    public final static int FRAMES_SIZE = 1024;
+    public final static int GLOBALS_SIZE = 65536;
+    public final static int MAX_FRAMES = 1024;
+
+    private final static MonkeyBool TRUE = MonkeyBool.TRUE;
+    private final static MonkeyBool FALSE = MonkeyBool.FALSE;
+    private final static MonkeyNull NULL = MonkeyNull.NULL;
+
+    private MonkeyObject[] constants;
+    private String[] globalNames;
+    private BuiltinFunction[] builtins;
+
+    private MonkeyObject[] stack = new MonkeyObject[STACK_SIZE];
+    private int sp; // points to the next free slot; top of stack is sp - 1
+    private MonkeyObject[] globals;
+
+    private Frame[] frames = new Frame[FRAMES_SIZE];
+    private int framesIndex;
+    private int maxFrames = MAX_FRAMES;
+    private EvaluationContext context;
+
+    private MonkeyObject result;
+
+    /* A run on its own only needs a slot per global the program names. */
+    public VM(Bytecode bytecode) {
+        this(bytecode, new MonkeyObject[bytecode.globalNames.length]);
+    }
+
+    /*
+     * Lets the REPL keep globals alive between lines.
+     */
+    public VM(Bytecode bytecode, MonkeyObject[] globals) {
+        this.constants = bytecode.constants;
+        this.globalNames = bytecode.globalNames;
+        this.globals = globals;
+
+        String[] names = Evaluator.builtinNames();
+        builtins = new BuiltinFunction[names.length];
+        for (int i = 0; i < names.length; i++) {
+            builtins[i] = Evaluator.getBuiltin(names[i]);
+        }
+
+        MonkeyCompiledFunction mainFn = new MonkeyCompiledFunction(
+            bytecode.instructions, 0, 0, new String[0]);
+        frames[0] = new Frame(new MonkeyClosure(mainFn, new MonkeyObject[0]), 0);
+        framesIndex = 1;
+    }
+
+    /*
+     * For calls from another thread: shares the parent's program and
+     * globals, but has stacks of its own. Only top-level code sets
+     * globals, and the values it stores never change.
+     */
+    private VM(VM parent) {
+        this.constants = parent.constants;
+        this.globalNames = parent.globalNames;
+        this.globals = parent.globals;
+        this.builtins = parent.builtins;
+        this.maxFrames = parent.maxFrames;
+
+        MonkeyCompiledFunction mainFn = new MonkeyCompiledFunction(
+            new byte[0], 0, 0, new String[0]);
+        frames[0] = new Frame(new MonkeyClosure(mainFn, new MonkeyObject[0]), 0);
+        framesIndex = 1;
+    }
+
+    /*
+     * How deep non-tail recursion may go before the run fails with a stack
+     * overflow. Frames live on the VM's own stack rather than the Java
+     * stack, so this can be raised well past what the tree-walker manages.
+     */
+    public void setMaxFrames(int maxFrames) {
+        this.maxFrames = maxFrames;
+    }
+
+    /* Charges every instruction to the context's limits. */
+    public void setContext(EvaluationContext context) {
+        this.context = context;
+    }
+
+    /*
+     * Value of the program, following the tree-walker: the last expression
+     * statement's value, null when the last statement was a let, or the
+     * error that aborted execution.
+     */
+    public MonkeyObject result() {
+        return result;
+    }
+
+    public MonkeyObject run() {
+        return execute(0);
+    }
+
+    /*
+     * Runs a closure to completion on top of the frames already running,
+     * for builtins that call functions back.
+     */
+    public MonkeyObject call(MonkeyObject fn, MonkeyObject[] args) {
+        if (fn instanceof BuiltinFunction) {
+            BuiltinFunction builtin = (BuiltinFunction)fn;
+            MonkeyObject returned = builtin.apply(args, this);
+            if (context != null
+                && context.allocate(EvaluationContext.resultBytes(builtin, args, returned))) {
+                return context.error();
+            }
+            return returned;
+        } else if (!(fn instanceof MonkeyClosure)) {
+            return Evaluator.createNewError(Evaluator.NOT_A_FUNCTION_ERR_FMT, fn.Type());
+        }
+
+        int depth = framesIndex;
+        int base = sp;
+        MonkeyObject saved = result;
+        push(fn);
+        for (MonkeyObject arg : args) {
+            push(arg);
+        }
+        MonkeyObject err = callClosure((MonkeyClosure)fn, args.length);
+        if (err != null) {
+            sp = base;
+            return err;
+        }
+
+        MonkeyObject returned = execute(depth);
+        if (!(returned instanceof MonkeyError)) {
+            result = saved;
+        }
+        return returned;
+    }
+
+    /*
+     * A closure the compiler found pure (see MonkeyCompiledFunction.pure)
+     * can run on a VM of its own on another thread. Runs under limits stay
+     * on this one, since they are charged to a single context.
+     */
+    @Override
+    public Invoker fork(MonkeyObject fn) {
+        if (context != null || !(fn instanceof MonkeyClosure)
+            || !((MonkeyClosure)fn).fn.pure) {
+            return null;
+        }
+        return new VM(this);
+    }
+
+    /* Tasks share the globals, as the tree-walker's tasks share scopes. */
+    @Override
+    public Invoker task() {
+        VM task = new VM(this);
+        task.context = context == null ? null : context.forTask();
+        return task;
+    }
+
+    @Override
+    public EvaluationContext context() {
+        return context;
+    }
+
+    /*
+     * The run loop. Returns once a return brings the frames back down to
+     * stopDepth, or at the end of the program when that is 0.
+     */
+    private MonkeyObject execute(int stopDepth) {
+        Frame frame = frames[framesIndex - 1];
+        byte[] ins = frame.instructions();
+        EvaluationContext context = this.context;
+
+        while (frame.ip < ins.length - 1) {
+            if (context != null && context.tick()) {
+                result = context.error();
+                return result;
+            }
+            frame.ip++;
+            int ip = frame.ip;
+            byte op = ins[ip];
+            MonkeyObject err = null;
+
+            switch (op) {
+                case Opcode.CONSTANT: {
+                    int constIndex = Opcode.readUint16(ins, ip + 1);
+                    frame.ip += 2;
+                    err = push(constants[constIndex]);
+                    break;
+                }
+                case Opcode.ADD:
+                case Opcode.SUB:
+                case Opcode.MUL:
+                case Opcode.DIV:
+                case Opcode.EQUAL:
+                case Opcode.NOT_EQUAL:
+                case Opcode.GREATER_THAN:
+                case Opcode.LESS_THAN:
+                    err = executeBinaryOperation(op);
+                    break;
+                case Opcode.POP:
+                    result = pop();
+                    break;
+                case Opcode.TRUE:
+                    err = push(TRUE);
+                    break;
+                case Opcode.FALSE:
+                    err = push(FALSE);
+                    break;
+                case Opcode.NULL:
+                    err = push(NULL);
+                    break;
+                case Opcode.MINUS:
+                    err = pushResult(Evaluator.evalPrefixExpression("-", pop()));
+                    break;
+                case Opcode.BANG:
+                    err = pushResult(Evaluator.evalPrefixExpression("!", pop()));
+                    break;
+                case Opcode.JUMP: {
+                    int pos = Opcode.readUint16(ins, ip + 1);
+                    frame.ip = pos - 1;
+                    break;
+                }
+                case Opcode.JUMP_NOT_TRUTHY: {
+                    int pos = Opcode.readUint16(ins, ip + 1);
+                    frame.ip += 2;
+                    if (!Evaluator.isTruthy(pop())) {
+                        frame.ip = pos - 1;
+                    }
+                    break;
+                }
+                case Opcode.SET_GLOBAL: {
+                    int globalIndex = Opcode.readUint16(ins, ip + 1);
+                    frame.ip += 2;
+                    globals[globalIndex] = pop();
+                    result = null;
+                    break;
+                }
+                case Opcode.GET_GLOBAL: {
+                    int globalIndex = Opcode.readUint16(ins, ip + 1);
+                    frame.ip += 2;
+                    MonkeyObject val = globals[globalIndex];
+                    if (val == null) {
+                        err = Evaluator.createNewError(
+                            Evaluator.IDENTIFIER_NOT_FOUND_ERR_FMT,
+                            globalNames[globalIndex]);
+                        break;
+                    }
+                    err = push(val);
+                    break;
+                }
+                case Opcode.SET_LOCAL: {
+                    int localIndex = Opcode.readUint8(ins, ip + 1);
+                    frame.ip += 1;
+                    stack[frame.basePointer + localIndex] = pop();
+                    break;
+                }
+                case Opcode.GET_LOCAL: {
+                    int localIndex = Opcode.readUint8(ins, ip + 1);
+                    frame.ip += 1;
+                    MonkeyObject val = stack[frame.basePointer + localIndex];
+                    if (val == null) {
+                        err = Evaluator.createNewError(
+                            Evaluator.IDENTIFIER_NOT_FOUND_ERR_FMT,
+                            frame.cl.fn.localNames[localIndex]);
+                        break;
+                    }
+                    err = push(val);
+                    break;
+                }
+                case Opcode.GET_BUILTIN: {
+                    int builtinIndex = Opcode.readUint8(ins, ip + 1);
+                    frame.ip += 1;
+                    err = push(builtins[builtinIndex]);
+                    break;
+                }
+                case Opcode.GET_FREE: {
+                    int freeIndex = Opcode.readUint8(ins, ip + 1);
+                    frame.ip += 1;
+                    err = push(frame.cl.free[freeIndex]);
+                    break;
+                }
+                case Opcode.CURRENT_CLOSURE:
+                    err = push(frame.cl);
+                    break;
+                case Opcode.ARRAY: {
+                    int numElements = Opcode.readUint16(ins, ip + 1);
+                    frame.ip += 2;
+                    MonkeyObject[] elements = new MonkeyObject[numElements];
+                    System.arraycopy(stack, sp - numElements, elements, 0,
+                                     numElements);
+                    sp -= numElements;
+                    if (context != null
+                        && context.allocate(EvaluationContext.arrayBytes(numElements))) {
+                        err = context.error();
+                        break;
+                    }
+                    err = push(new MonkeyArray(elements));
+                    break;
+                }
+                case Opcode.HASH: {
+                    int numElements = Opcode.readUint16(ins, ip + 1);
+                    frame.ip += 2;
+                    MonkeyObject hash = buildHash(sp - numElements, sp);
+                    sp -= numElements;
+                    if (context != null
+                        && context.allocate(EvaluationContext.hashBytes(numElements / 2))) {
+                        err = context.error();
+                        break;
+                    }
+                    err = pushResult(hash);
+                    break;
+                }
+                case Opcode.INDEX: {
+                    MonkeyObject index = pop();
+                    MonkeyObject left = pop();
+                    err = pushResult(Evaluator.evalIndexExpression(left, index, this));
+                    break;
+                }
+                case Opcode.CALL: {
+                    int numArgs = Opcode.readUint8(ins, ip + 1);
+                    frame.ip += 1;
+                    err = executeCall(numArgs);
+                    break;
+                }
+                case Opcode.TAIL_CALL: {
+                    int numArgs = Opcode.readUint8(ins, ip + 1);
+                    frame.ip += 1;
+                    err = executeTailCall(numArgs);
+                    break;
+                }
+                case Opcode.CLOSURE: {
+                    int constIndex = Opcode.readUint16(ins, ip + 1);
+                    int numFree = Opcode.readUint8(ins, ip + 3);
+                    frame.ip += 3;
+                    err = pushClosure(constIndex, numFree);
+                    break;
+                }
+                case Opcode.RETURN_VALUE: {
+                    MonkeyObject returnValue = pop();
+                    if (framesIndex == 1) {
+                        result = returnValue;
+                        return result;
+                    }
+                    Frame returning = popFrame();
+                    sp = returning.basePointer - 1;
+                    if (framesIndex == stopDepth) {
+                        return returnValue;
+                    }
+                    err = push(returnValue);
+                    break;
+                }
+                case Opcode.RETURN: {
+                    Frame returning = popFrame();
+                    sp = returning.basePointer - 1;
+                    if (framesIndex == stopDepth) {
+                        return NULL;
+                    }
+                    err = push(NULL);
+                    break;
+                }
+            }
+
+            if (err != null) {
+                result = err;
+                return result;
+            }
+
+            frame = frames[framesIndex - 1];
+            ins = frame.instructions();
+        }
+
+        return result;
+    }
+
+    private MonkeyObject executeBinaryOperation(byte op) {
+        MonkeyObject right = pop();
+        MonkeyObject left = pop();
+
+        if (left instanceof MonkeyInt && right instanceof MonkeyInt) {
+            long leftVal = ((MonkeyInt)left).value;
+            long rightVal = ((MonkeyInt)right).value;
+            switch (op) {
+                case Opcode.ADD:
+                    return push(MonkeyInt.valueOf(leftVal + rightVal));
+                case Opcode.SUB:
+                    return push(MonkeyInt.valueOf(leftVal - rightVal));
+                case Opcode.MUL:
+                    return push(MonkeyInt.valueOf(leftVal * rightVal));
+                case Opcode.DIV:
+                    return push(MonkeyInt.valueOf(leftVal / rightVal));
+                case Opcode.EQUAL:
+                    return push(leftVal == rightVal ? TRUE : FALSE);
+                case Opcode.NOT_EQUAL:
+                    return push(leftVal != rightVal ? TRUE : FALSE);
+                case Opcode.GREATER_THAN:
+                    return push(leftVal > rightVal ? TRUE : FALSE);
+                case Opcode.LESS_THAN:
+                    return push(leftVal < rightVal ? TRUE : FALSE);
+            }
+        }
+
+        MonkeyObject result = Evaluator.evalInfixExpression(operator(op), left, right);
+        if (context != null && result instanceof MonkeyString
+            && context.allocate(EvaluationContext.stringBytes(((MonkeyString)right).length()))) {
+            return context.error();
+        }
+        return pushResult(result);
+    }
+
+    private static String operator(byte op) {
+        switch (op) {
+            case Opcode.ADD:
+                return "+";
+            case Opcode.SUB:
+                return "-";
+            case Opcode.MUL:
+                return "*";
+            case Opcode.DIV:
+                return "/";
+            case Opcode.EQUAL:
+                return "==";
+            case Opcode.NOT_EQUAL:
+                return "!=";
+            case Opcode.GREATER_THAN:
+                return ">";
+            default:
+                return "<";
+        }
+    }
+
+    private MonkeyObject buildHash(int startIndex, int endIndex) {
+        MonkeyHash hash = new MonkeyHash();
+
+        for (int i = startIndex; i < endIndex; i += 2) {
+            MonkeyObject key = stack[i];
+            MonkeyObject value = stack[i + 1];
+
+            if (!(key instanceof Hashable)) {
+                return Evaluator.createNewError(
+                    Evaluator.UNUSABLE_AS_HASH_OBJ_ERR_FMT, key.Type());
+            }
+            hash = hash.put(((Hashable)key).getHashKey(), new HashPair(key, value));
+        }
+
+        return hash;
+    }
+
+    private MonkeyObject executeCall(int numArgs) {
+        MonkeyObject callee = stack[sp - 1 - numArgs];
+
+        if (callee instanceof MonkeyClosure) {
+            return callClosure((MonkeyClosure)callee, numArgs);
+        } else if (callee instanceof BuiltinFunction) {
+            return callBuiltin((BuiltinFunction)callee, numArgs);
+        }
+        return Evaluator.createNewError(Evaluator.NOT_A_FUNCTION_ERR_FMT,
+                                        callee.Type());
+    }
+
+    /*
+     * Replaces the current frame with the callee's: the callee and its
+     * arguments are moved down over the caller's, so tail recursion runs in
+     * a single frame.
+     */
+    private MonkeyObject executeTailCall(int numArgs) {
+        MonkeyObject callee = stack[sp - 1 - numArgs];
+        if (!(callee instanceof MonkeyClosure) || framesIndex == 1) {
+            return executeCall(numArgs);
+        }
+
+        MonkeyClosure cl = (MonkeyClosure)callee;
+        if (numArgs != cl.fn.numParameters) {
+            return Evaluator.createNewError(
+                Evaluator.WRONG_NUM_ARGUMENTS_ERR_FMT, numArgs,
+                cl.fn.numParameters);
+        }
+
+        Frame current = popFrame();
+        int calleeSlot = current.basePointer - 1;
+        System.arraycopy(stack, sp - 1 - numArgs, stack, calleeSlot, numArgs + 1);
+        sp = calleeSlot + 1 + numArgs;
+        return callClosure(cl, numArgs);
+    }
+
+    private MonkeyObject callClosure(MonkeyClosure cl, int numArgs) {
+        if (numArgs != cl.fn.numParameters) {
+            return Evaluator.createNewError(
+                Evaluator.WRONG_NUM_ARGUMENTS_ERR_FMT, numArgs,
+                cl.fn.numParameters);
+        }
+        if (framesIndex >= maxFrames) {
+            return Evaluator.createNewError(Evaluator.STACK_OVERFLOW_ERR_FMT);
+        }
+        if (framesIndex >= frames.length) {
+            frames = Arrays.copyOf(frames, Math.min(frames.length * 2, maxFrames));
+        }
+        ensureStack(sp - numArgs + cl.fn.numLocals);
+
+        if (context != null
+            && context.allocate(EvaluationContext.frameBytes(cl.fn.numLocals))) {
+            return context.error();
+        }
+        Frame frame = new Frame(cl, sp - numArgs);
+        frames[framesIndex++] = frame;
+        sp = frame.basePointer + cl.fn.numLocals;
+        // Locals bound by a let that has not run yet must not see stale slots.
+        Arrays.fill(stack, frame.basePointer + numArgs, sp, null);
+        return null;
+    }
+
+    private MonkeyObject callBuiltin(BuiltinFunction builtin, int numArgs) {
+        MonkeyObject[] args = new MonkeyObject[numArgs];
+        System.arraycopy(stack, sp - numArgs, args, 0, numArgs);
+
+        MonkeyObject returned = builtin.apply(args, this);
+        if (context != null
+            && context.allocate(EvaluationContext.resultBytes(builtin, args, returned))) {
+            return context.error();
+        }
+        sp = sp - numArgs - 1;
+        return pushResult(returned != null ? returned : NULL);
+    }
+
+    private MonkeyObject pushClosure(int constIndex, int numFree) {
+        MonkeyCompiledFunction fn = (MonkeyCompiledFunction)constants[constIndex];
+        MonkeyObject[] free = new MonkeyObject[numFree];
+        System.arraycopy(stack, sp - numFree, free, 0, numFree);
+        sp -= numFree;
+        return push(new MonkeyClosure(fn, free));
+    }
+
+    private Frame popFrame() {
+        framesIndex--;
+        Frame frame = frames[framesIndex];
+        frames[framesIndex] = null;
+        if (context != null) {
+            context.release(EvaluationContext.frameBytes(frame.cl.fn.numLocals));
+        }
+        return frame;
+    }
+
+    /*
+     * Pushes an operator or builtin result, or hands back the error if the
+     * result is one so the run loop can abort.
+     */
+    private MonkeyObject pushResult(MonkeyObject obj) {
+        if (obj instanceof MonkeyError) {
+            return obj;
+        }
+        return push(obj);
+    }
+
+    private void ensureStack(int size) {
+        if (size >= stack.length) {
+            stack = Arrays.copyOf(stack, Math.max(stack.length * 2, size + 1));
+        }
+    }
+
+    private MonkeyObject push(MonkeyObject obj) {
+        ensureStack(sp);
+        stack[sp] = obj;
+        sp++;
+        return null;
+    }
+
+    private MonkeyObject pop() {
+        MonkeyObject obj = stack[sp - 1];
+        sp--;
+        return obj;
+    }
+}
@@ -0,0 +1,113 @@
+package cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import evaluator.Evaluator;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyObject;
+import vm.VM;
+
+class ProgramCacheTest {
+    /* Helper Functions */
+    void testIntegerObject(MonkeyObject obj, long expected) {
+        assertEquals(expected, ((MonkeyInt)obj).value);
+    }
+
+    /* Tests */
+    @Test
+    void theSameSourceShouldOnlyBeParsedOnce() {
+        ProgramCache cache = new ProgramCache();
+        CachedProgram first = cache.get("let x = 2; x * 21");
+        CachedProgram second = cache.get("let x = 2; x * 21");
+
+        assertSame(first, second);
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.hits());
+        testIntegerObject(Evaluator.eval(second.program, new Environment()), 42);
+    }
+
+    @Test
+    void cachedProgramsShouldRunOnTheVmWithBytecodeCompiledOnce() {
+        ProgramCache cache = new ProgramCache();
+        CachedProgram program = cache.get("let add = fn(a, b) { a + b }; add(40, 2)");
+
+        assertSame(program.bytecode(), program.bytecode());
+        testIntegerObject(new VM(program.bytecode()).run(), 42);
+        testIntegerObject(new VM(cache.get(program.source).bytecode()).run(), 42);
+    }
+
+    @Test
+    void parseErrorsShouldBeCachedWithTheProgram() {
+        ProgramCache cache = new ProgramCache();
+        CachedProgram broken = cache.get("let = 5;");
+
+        assertTrue(broken.hasErrors());
+        assertSame(broken, cache.get("let = 5;"));
+        assertFalse(cache.get("let x = 5;").hasErrors());
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesShouldBeEvictedFirst() {
+        ProgramCache cache = new ProgramCache(2, ProgramCache.DEFAULT_MAX_SOURCE_CHARS);
+        CachedProgram one = cache.get("1");
+        cache.get("2");
+        cache.get("1");
+        cache.get("3");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+        assertSame(one, cache.get("1"));
+        cache.get("2");
+        assertEquals(4, cache.misses());
+    }
+
+    @Test
+    void entriesShouldBeEvictedWhenTheirSourceGetsTooLong() {
+        ProgramCache cache = new ProgramCache(100, 10);
+        cache.get("let a = 1;");
+        cache.get("let b = 2;");
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    void concurrentLookupsShouldAllSeeOneProgramPerSource() throws Exception {
+        ProgramCache cache = new ProgramCache(8, ProgramCache.DEFAULT_MAX_SOURCE_CHARS);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            ArrayList<Future<Long>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(pool.submit(() -> {
+                    long sum = 0;
+                    for (int i = 0; i < 2000; i++) {
+                        CachedProgram program = cache.get("1 + " + (i % 4));
+                        sum += ((MonkeyInt)Evaluator.eval(program.program, new Environment())).value;
+                    }
+                    return sum;
+                }));
+            }
+            for (Future<Long> result : results) {
+                assertEquals(500 * (1 + 2 + 3 + 4), result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(4, cache.size());
+        assertEquals(8 * 2000, cache.hits() + cache.misses());
+        assertNotSame(cache.get("1 + 0"), cache.get("1 + 1"));
+    }
+}
@@ -0,0 +1,112 @@
+package compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lexer.Lexer;
+import monkeyobject.MonkeyCompiledFunction;
+import parser.Parser;
+import vm.VM;
+
+class BytecodeImageTest {
+    /* Helper Functions */
+    Bytecode compile(String input) {
+        Compiler compiler = new Compiler();
+        compiler.compile(new Parser(new Lexer(input)).parseProgram());
+        return compiler.bytecode();
+    }
+
+    void testRoundTrip(String input) throws IOException {
+        Bytecode original = compile(input);
+        Bytecode loaded = BytecodeImage.read(ByteBuffer.wrap(BytecodeImage.write(original)));
+
+        assertEquals(new VM(original).run().Inspect(), new VM(loaded).run().Inspect());
+        for (int i = 0; i < original.constants.length; i++) {
+            if (original.constants[i] instanceof MonkeyCompiledFunction) {
+                assertEquals(((MonkeyCompiledFunction)original.constants[i]).pure,
+                             ((MonkeyCompiledFunction)loaded.constants[i]).pure);
+            }
+        }
+    }
+
+    /*
+     * The image with the int at offset into its payload replaced, and
+     * the checksum redone so only the lengths stand in the way.
+     */
+    byte[] withPayloadInt(byte[] image, int offset, int value) {
+        int payload = 14;
+        ByteBuffer buffer = ByteBuffer.wrap(image.clone());
+        buffer.putInt(payload + offset, value);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), payload, image.length - payload);
+        buffer.putInt(payload - 4, (int)crc.getValue());
+        return buffer.array();
+    }
+
+    void testTruncated(byte[] image) {
+        IOException e = assertThrows(IOException.class,
+            () -> BytecodeImage.read(ByteBuffer.wrap(image)));
+        assertEquals("image is truncated", e.getMessage());
+    }
+
+    /* Tests */
+    @Test
+    void imagesShouldRunLikeTheBytecodeTheyWereWrittenFrom() throws IOException {
+        testRoundTrip("1 + 2 * 3");
+        testRoundTrip("let s = \"h\u00e9llo\"; s + \" world\"");
+        testRoundTrip("let fib = fn(n) { if (n < 2) { return n; } fib(n - 1) + fib(n - 2) }; fib(15)");
+        testRoundTrip("let adder = fn(a) { fn(b) { a + b } }; adder(40)(2)");
+        testRoundTrip("let h = {\"k\": [1, 2, 3]}; len(h[\"k\"]) + first(h[\"k\"])");
+        testRoundTrip("let loud = fn(x) { puts(x) }; pmap([1, 2], fn(x) { x * 2 })");
+        testRoundTrip("x");
+    }
+
+    @Test
+    void imagesShouldSurviveATripThroughAFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("program.mkc");
+        BytecodeImage.write(compile("let x = 20; x * 2 + 2"), file);
+
+        assertEquals("42", new VM(BytecodeImage.read(file)).run().Inspect());
+    }
+
+    @Test
+    void corruptedImagesShouldBeRejected() {
+        byte[] image = BytecodeImage.write(compile("let x = 1; x"));
+        image[image.length - 3] ^= 0x40;
+
+        IOException e = assertThrows(IOException.class,
+            () -> BytecodeImage.read(ByteBuffer.wrap(image)));
+        assertEquals("image checksum mismatch", e.getMessage());
+    }
+
+    @Test
+    void imagesWithTheWrongMagicOrVersionShouldBeRejected() {
+        byte[] notAnImage = "let x = 1;".getBytes();
+        assertThrows(IOException.class, () -> BytecodeImage.read(ByteBuffer.wrap(notAnImage)));
+
+        byte[] image = BytecodeImage.write(compile("1"));
+        image[5] = (byte)(BytecodeImage.VERSION + 1);
+        IOException e = assertThrows(IOException.class,
+            () -> BytecodeImage.read(ByteBuffer.wrap(image)));
+        assertEquals("unsupported image version 3, expected 2", e.getMessage());
+    }
+
+    @Test
+    void lengthsPastTheEndOfTheImageShouldBeRejectedBeforeAllocating() {
+        byte[] image = BytecodeImage.write(compile("let x = \"a\"; x"));
+
+        // The number of builtin names, then the length of the first one.
+        testTruncated(withPayloadInt(image, 0, Integer.MAX_VALUE));
+        testTruncated(withPayloadInt(image, 0, -2));
+        testTruncated(withPayloadInt(image, 4, Integer.MAX_VALUE));
+        testTruncated(withPayloadInt(image, 4, -2));
+    }
+}
@@ -0,0 +1,225 @@
+package compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import lexer.Lexer;
+import monkeyobject.MonkeyCompiledFunction;
+import monkeyobject.MonkeyInt;
+import parser.Parser;
+
+class CompilerTest {
+    /* Helper Functions */
+    Bytecode testCompile(String input) {
+        Compiler compiler = new Compiler();
+        compiler.compile(new Parser(new Lexer(input)).parseProgram());
+        return compiler.bytecode();
+    }
+
+    byte[] concat(byte[]... instructions) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] ins : instructions) {
+            out.writeBytes(ins);
+        }
+        return out.toByteArray();
+    }
+
+    /* Distinct identifiers; Monkey names can't contain digits. */
+    String name(int i) {
+        StringBuilder name = new StringBuilder("v");
+        do {
+            name.append((char)('a' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return name.toString();
+    }
+
+    /* count integer constants, each in its own statement. */
+    String constants(int count) {
+        return "1;".repeat(count);
+    }
+
+    String arrayOf(int elements) {
+        return "let x = 1; [" + "x, ".repeat(elements - 1) + "x]";
+    }
+
+    /* A function with count locals, returning the last one. */
+    String locals(int count) {
+        StringBuilder input = new StringBuilder("fn() { ");
+        for (int i = 0; i < count; i++) {
+            input.append("let ").append(name(i)).append(" = ").append(i).append("; ");
+        }
+        return input.append(name(count - 1)).append(" }()").toString();
+    }
+
+    void testTooLarge(String input, String op, int operand, int max) {
+        CompileException e = assertThrows(CompileException.class, () -> testCompile(input));
+        assertEquals(String.format(Opcode.OPERAND_TOO_LARGE_ERR_FMT, op, operand, max),
+                     e.getMessage());
+    }
+
+    void testInstructions(byte[] expected, byte[] actual) {
+        assertEquals(Opcode.disassemble(expected), Opcode.disassemble(actual));
+    }
+
+    /* Tests */
+    @Test
+    void makeShouldEncodeOperandsBigEndian() {
+        byte[] ins = Opcode.make(Opcode.CONSTANT, 65534);
+        assertEquals(3, ins.length);
+        assertEquals(Opcode.CONSTANT, ins[0]);
+        assertEquals(65534, Opcode.readUint16(ins, 1));
+
+        ins = Opcode.make(Opcode.CLOSURE, 65534, 255);
+        assertEquals(255, Opcode.readUint8(ins, 3));
+    }
+
+    @Test
+    void disassembleShouldListOffsetsAndOperands() {
+        byte[] ins = concat(
+            Opcode.make(Opcode.ADD),
+            Opcode.make(Opcode.GET_LOCAL, 1),
+            Opcode.make(Opcode.CONSTANT, 2),
+            Opcode.make(Opcode.CLOSURE, 65535, 255)
+        );
+        String expected = "0000 OpAdd\n" +
+                          "0001 OpGetLocal 1\n" +
+                          "0003 OpConstant 2\n" +
+                          "0006 OpClosure 65535 255\n";
+        assertEquals(expected, Opcode.disassemble(ins));
+    }
+
+    @Test
+    void integerArithmeticShouldCompileToConstantsAndAnOperator() {
+        Bytecode bytecode = testCompile("1 + 2");
+
+        testInstructions(concat(
+            Opcode.make(Opcode.CONSTANT, 0),
+            Opcode.make(Opcode.CONSTANT, 1),
+            Opcode.make(Opcode.ADD),
+            Opcode.make(Opcode.POP)
+        ), bytecode.instructions);
+        assertEquals(1, ((MonkeyInt)bytecode.constants[0]).value);
+        assertEquals(2, ((MonkeyInt)bytecode.constants[1]).value);
+    }
+
+    @Test
+    void lessThanShouldNotBeRewrittenAsGreaterThan() {
+        testInstructions(concat(
+            Opcode.make(Opcode.CONSTANT, 0),
+            Opcode.make(Opcode.CONSTANT, 1),
+            Opcode.make(Opcode.LESS_THAN),
+            Opcode.make(Opcode.POP)
+        ), testCompile("1 < 2").instructions);
+    }
+
+    @Test
+    void conditionalsWithoutAlternativeShouldPushNull() {
+        testInstructions(concat(
+            Opcode.make(Opcode.TRUE),
+            Opcode.make(Opcode.JUMP_NOT_TRUTHY, 10),
+            Opcode.make(Opcode.CONSTANT, 0),
+            Opcode.make(Opcode.JUMP, 11),
+            Opcode.make(Opcode.NULL),
+            Opcode.make(Opcode.POP),
+            Opcode.make(Opcode.CONSTANT, 1),
+            Opcode.make(Opcode.POP)
+        ), testCompile("if (true) { 10 }; 3333;").instructions);
+    }
+
+    @Test
+    void globalLetStatementsShouldUseGlobalSlots() {
+        testInstructions(concat(
+            Opcode.make(Opcode.CONSTANT, 0),
+            Opcode.make(Opcode.SET_GLOBAL, 0),
+            Opcode.make(Opcode.GET_GLOBAL, 0),
+            Opcode.make(Opcode.POP)
+        ), testCompile("let one = 1; one;").instructions);
+    }
+
+    @Test
+    void functionBodiesShouldUseLocalsAndImplicitReturns() {
+        Bytecode bytecode = testCompile("fn(a) { let b = a; b }");
+
+        assertInstanceOf(MonkeyCompiledFunction.class, bytecode.constants[0]);
+        MonkeyCompiledFunction fn = (MonkeyCompiledFunction)bytecode.constants[0];
+        assertEquals(2, fn.numLocals);
+        assertEquals(1, fn.numParameters);
+        testInstructions(concat(
+            Opcode.make(Opcode.GET_LOCAL, 0),
+            Opcode.make(Opcode.SET_LOCAL, 1),
+            Opcode.make(Opcode.GET_LOCAL, 1),
+            Opcode.make(Opcode.RETURN_VALUE)
+        ), fn.instructions);
+    }
+
+    @Test
+    void callsInTailPositionShouldCompileToTailCalls() {
+        Bytecode bytecode = testCompile("fn(f) { f(1) }");
+
+        MonkeyCompiledFunction fn = (MonkeyCompiledFunction)bytecode.constants[1];
+        testInstructions(concat(
+            Opcode.make(Opcode.GET_LOCAL, 0),
+            Opcode.make(Opcode.CONSTANT, 0),
+            Opcode.make(Opcode.TAIL_CALL, 1),
+            Opcode.make(Opcode.RETURN_VALUE)
+        ), fn.instructions);
+    }
+
+    @Test
+    void builtinsShouldResolveToBuiltinScope() {
+        testInstructions(concat(
+            Opcode.make(Opcode.GET_BUILTIN, 0),
+            Opcode.make(Opcode.ARRAY, 0),
+            Opcode.make(Opcode.CALL, 1),
+            Opcode.make(Opcode.POP)
+        ), testCompile("len([])").instructions);
+    }
+
+    @Test
+    void freeVariablesShouldBeCapturedByClosures() {
+        Bytecode bytecode = testCompile("fn(a) { fn(b) { a + b } }");
+
+        MonkeyCompiledFunction inner = (MonkeyCompiledFunction)bytecode.constants[0];
+        testInstructions(concat(
+            Opcode.make(Opcode.GET_FREE, 0),
+            Opcode.make(Opcode.GET_LOCAL, 0),
+            Opcode.make(Opcode.ADD),
+            Opcode.make(Opcode.RETURN_VALUE)
+        ), inner.instructions);
+
+        MonkeyCompiledFunction outer = (MonkeyCompiledFunction)bytecode.constants[1];
+        testInstructions(concat(
+            Opcode.make(Opcode.GET_LOCAL, 0),
+            Opcode.make(Opcode.CLOSURE, 0, 1),
+            Opcode.make(Opcode.RETURN_VALUE)
+        ), outer.instructions);
+    }
+
+    @Test
+    void makeShouldRejectOperandsWiderThanTheirEncoding() {
+        assertThrows(CompileException.class, () -> Opcode.make(Opcode.CONSTANT, 65536));
+        assertThrows(CompileException.class, () -> Opcode.make(Opcode.GET_LOCAL, 256));
+        assertThrows(CompileException.class, () -> Opcode.make(Opcode.CLOSURE, 0, 256));
+        assertThrows(CompileException.class, () -> Opcode.make(Opcode.JUMP, -1));
+    }
+
+    @Test
+    void programsUpToTheOperandLimitsShouldCompile() {
+        assertEquals(65536, testCompile(constants(65536)).constants.length);
+        testCompile(arrayOf(65535));
+        testCompile(locals(256));
+    }
+
+    @Test
+    void programsPastTheOperandLimitsShouldFailToCompile() {
+        testTooLarge(constants(65537), "OpConstant", 65536, 65535);
+        testTooLarge(arrayOf(70000), "OpArray", 70000, 65535);
+        testTooLarge(locals(257), "OpSetLocal", 256, 255);
+    }
+}
@@ -0,0 +1,205 @@
+package evaluator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import ast.Program;
+import compiler.Compiler;
+import lexer.Lexer;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyObject;
+import parser.Parser;
+import specializer.SpecializingInterpreter;
+import vm.VM;
+
+class EvaluationContextTest {
+    final static String FOREVER = "let f = fn(x) { f(x) }; f(1);";
+    final static String FILL =
+        "let fill = fn(arr, n) { if (n == 0) { arr } else { fill(push(arr, n), n - 1) } };" +
+        "len(fill([], 1000000));";
+
+    /* Helper Functions */
+    Program parse(String input) {
+        return new Parser(new Lexer(input)).parseProgram();
+    }
+
+    MonkeyObject runVM(String input, EvaluationContext context) {
+        Compiler compiler = new Compiler();
+        compiler.compile(parse(input));
+        VM machine = new VM(compiler.bytecode());
+        machine.setContext(context);
+        return machine.run();
+    }
+
+    EvaluationContext withFuel(long steps) {
+        EvaluationContext context = new EvaluationContext();
+        context.setFuel(steps);
+        return context;
+    }
+
+    void testError(MonkeyObject obj, String expected) {
+        assertInstanceOf(MonkeyError.class, obj);
+        assertEquals(expected, ((MonkeyError)obj).message);
+    }
+
+    /* Tests */
+    @Test
+    void endlessTailRecursionShouldRunOutOfFuelOnEveryEngine() {
+        String expected = String.format(Evaluator.OUT_OF_FUEL_ERR_FMT, 100000);
+
+        EvaluationContext context = withFuel(100000);
+        testError(Evaluator.eval(parse(FOREVER), new Environment(), context), expected);
+        assertEquals(100000, context.stepsUsed());
+
+        context = withFuel(100000);
+        testError(SpecializingInterpreter.eval(parse(FOREVER), new Environment(), context),
+                  expected);
+        assertEquals(100000, context.stepsUsed());
+
+        context = withFuel(100000);
+        testError(runVM(FOREVER, context), expected);
+        assertEquals(100000, context.stepsUsed());
+    }
+
+    @Test
+    void programsWithinTheirBudgetShouldFinishNormally() {
+        String input = "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } }; fib(15);";
+        EvaluationContext context = withFuel(1000000);
+
+        MonkeyObject result = Evaluator.eval(parse(input), new Environment(), context);
+
+        assertInstanceOf(MonkeyInt.class, result);
+        assertEquals(610, ((MonkeyInt)result).value);
+        assertTrue(context.stepsUsed() > 0 && context.stepsUsed() < 1000000);
+        assertEquals(null, context.error());
+    }
+
+    @Test
+    void deadlineShouldStopAnEndlessLoop() {
+        EvaluationContext context = new EvaluationContext();
+        context.setTimeout(50);
+
+        testError(Evaluator.eval(parse(FOREVER), new Environment(), context),
+                  String.format(Evaluator.TIMEOUT_ERR_FMT, 50));
+    }
+
+    @Test
+    void cancellingFromAnotherThreadShouldStopEvaluation() throws InterruptedException {
+        EvaluationContext context = new EvaluationContext();
+        Thread canceller = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            context.cancel();
+        });
+        canceller.start();
+
+        testError(runVM(FOREVER, context), Evaluator.CANCELLED_ERR_FMT);
+        canceller.join();
+        assertTrue(context.isCancelled());
+    }
+
+    @Test
+    void closuresShouldRunUnderTheirCallersLimits() {
+        Environment env = new Environment();
+        Evaluator.eval(parse("let make = fn() { fn(x) { f(x) } }; let f = make();"),
+                       env, new EvaluationContext());
+
+        EvaluationContext context = withFuel(5000);
+        testError(Evaluator.eval(parse("f(1);"), env, context),
+                  String.format(Evaluator.OUT_OF_FUEL_ERR_FMT, 5000));
+    }
+
+    @Test
+    void pushingWithoutEndShouldHitTheMemoryLimitOnEveryEngine() {
+        String expected = String.format(Evaluator.OUT_OF_MEMORY_ERR_FMT, 1000000);
+
+        EvaluationContext context = new EvaluationContext();
+        context.setMemoryLimit(1000000);
+        testError(Evaluator.eval(parse(FILL), new Environment(), context), expected);
+        assertTrue(context.peakBytes() > 1000000);
+
+        context = new EvaluationContext();
+        context.setMemoryLimit(1000000);
+        testError(SpecializingInterpreter.eval(parse(FILL), new Environment(), context),
+                  expected);
+
+        context = new EvaluationContext();
+        context.setMemoryLimit(1000000);
+        testError(runVM(FILL, context), expected);
+    }
+
+    @Test
+    void framesShouldBeReleasedWhenTheirCallsReturn() {
+        String input = "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } }; fib(15);";
+
+        EvaluationContext context = new EvaluationContext();
+        context.setMemoryLimit(4096);
+        MonkeyObject result = Evaluator.eval(parse(input), new Environment(), context);
+        assertInstanceOf(MonkeyInt.class, result);
+        assertEquals(0, context.bytesInUse());
+        assertTrue(context.peakBytes() <= 4096);
+        assertTrue(context.totalBytes() > 100 * context.peakBytes());
+
+        context = new EvaluationContext();
+        context.setMemoryLimit(4096);
+        assertInstanceOf(MonkeyInt.class, runVM(input, context));
+        assertEquals(0, context.bytesInUse());
+    }
+
+    @Test
+    void stringsShouldBeChargedForTheCharactersTheyAdd() {
+        EvaluationContext context = new EvaluationContext();
+        Evaluator.eval(parse("let s = \"abc\" + \"defgh\"; [s, s];"), new Environment(), context);
+
+        assertEquals(EvaluationContext.stringBytes(5) + EvaluationContext.arrayBytes(2),
+                     context.totalBytes());
+    }
+
+    @Test
+    void builtinsThatBuildNewArraysShouldBeChargedForEveryElement() {
+        EvaluationContext context = new EvaluationContext();
+        Evaluator.eval(parse("let a = [[1], [2], [3]];"
+                             + "[push(a, 4), rest(a), take(a, 3), take(a, 2), map(a, len), filter(a, len)];"),
+                       new Environment(), context);
+
+        long literals = 3 * EvaluationContext.arrayBytes(1) + EvaluationContext.arrayBytes(3)
+            + EvaluationContext.arrayBytes(6);
+        // push and rest share a; taking all of a gives a back.
+        long shared = 2 * EvaluationContext.arrayBytes(1);
+        long built = EvaluationContext.arrayBytes(2) + 2 * EvaluationContext.arrayBytes(3);
+        assertEquals(literals + shared + built, context.totalBytes());
+    }
+
+    @Test
+    void tasksShouldDrawTheirStepsFromTheContextTheyCameFrom() {
+        EvaluationContext context = withFuel(10 * EvaluationContext.SLICE);
+        EvaluationContext task = context.forTask();
+
+        int steps = 0;
+        while (!task.tick()) {
+            steps++;
+        }
+        assertEquals(10 * EvaluationContext.SLICE, steps);
+        testError(task.error(), String.format(Evaluator.OUT_OF_FUEL_ERR_FMT,
+                                              10 * EvaluationContext.SLICE));
+        assertTrue(context.tick());
+    }
+
+    @Test
+    void cancellingAContextShouldStopItsTasks() {
+        EvaluationContext context = new EvaluationContext();
+        EvaluationContext task = context.forTask();
+
+        context.cancel();
+        assertTrue(task.check());
+        testError(task.error(), Evaluator.CANCELLED_ERR_FMT);
+    }
+}
@@ -2,13 +2,15 @@ package evaluator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import org.junit.jupiter.api.Test;
 
 import ast.Program;
 import lexer.Lexer;
 import monkeyobject.Environment;
-import monkeyobject.HashKey;
+import monkeyobject.HashPair;
 import monkeyobject.MonkeyArray;
 import monkeyobject.MonkeyBool;
 import monkeyobject.MonkeyError;
@@ -92,7 +94,7 @@ class EvaluatorTest {
         assertInstanceOf(MonkeyString.class, obj);
 
         MonkeyString str = (MonkeyString)obj;
-        assertEquals(expected, str.value);
+        assertEquals(expected, str.value());
     }
 
     MonkeyObject testEvalFunctions(String input, String[] expectedParams,
@@ -118,10 +120,10 @@ class EvaluatorTest {
         assertInstanceOf(MonkeyArray.class, obj);
         MonkeyArray arr = (MonkeyArray)obj;
         
-        assertEquals(expected.length, arr.elements.length);
+        assertEquals(expected.length, arr.size());
 
         for (int i = 0; i < expected.length; i++) {
-            testIntegerObject(arr.elements[i], expected[i]);
+            testIntegerObject(arr.get(i), expected[i]);
         }
     }
 
@@ -148,11 +150,11 @@ class EvaluatorTest {
         assertInstanceOf(MonkeyHash.class, obj);
 
         MonkeyHash result = (MonkeyHash)obj;
-        assertEquals(1, result.pairs.size());
+        assertEquals(1, result.size());
 
-        HashKey key = (HashKey)(result.pairs.keySet().toArray()[0]);
-        assertEquals((new MonkeyString(expectedKey)).getHashKey(), key);
-        testIntegerObject(result.pairs.get(key).value, expectedValue);
+        HashPair pair = result.get((new MonkeyString(expectedKey)).getHashKey());
+        assertNotNull(pair);
+        testIntegerObject(pair.value, expectedValue);
     }
 
     void testEvalHashObjects(MonkeyObject obj, long expectedKey,
@@ -160,11 +162,11 @@ class EvaluatorTest {
         assertInstanceOf(MonkeyHash.class, obj);
 
         MonkeyHash result = (MonkeyHash)obj;
-        assertEquals(1, result.pairs.size());
+        assertEquals(1, result.size());
 
-        HashKey key = (HashKey)(result.pairs.keySet().toArray()[0]);
-        assertEquals((new MonkeyInt(expectedKey)).getHashKey(), key);
-        testIntegerObject(result.pairs.get(key).value, expectedValue);
+        HashPair pair = result.get((new MonkeyInt(expectedKey)).getHashKey());
+        assertNotNull(pair);
+        testIntegerObject(pair.value, expectedValue);
     }
 
     void testEvalHashObjects(MonkeyObject obj, boolean expectedKey,
@@ -172,11 +174,11 @@ class EvaluatorTest {
         assertInstanceOf(MonkeyHash.class, obj);
 
         MonkeyHash result = (MonkeyHash)obj;
-        assertEquals(1, result.pairs.size());
+        assertEquals(1, result.size());
 
-        HashKey key = (HashKey)(result.pairs.keySet().toArray()[0]);
-        assertEquals((new MonkeyBool(expectedKey)).getHashKey(), key);
-        testIntegerObject(result.pairs.get(key).value, expectedValue);
+        HashPair pair = result.get((new MonkeyBool(expectedKey)).getHashKey());
+        assertNotNull(pair);
+        testIntegerObject(pair.value, expectedValue);
     }
 
     /* Tests */
@@ -920,6 +922,90 @@ class EvaluatorTest {
         testEvalErrorHandling(input, "wrong number of arguments: got=3, want=2");
     }
 
+    @Test
+    void stringsBuiltInALoopShouldHaveTheLengthOfEveryFragment() {
+        String input = "let build = fn(s, n) { if (n == 0) { return s; } build(s + \"ab\", n - 1) };"
+                     + "len(build(\"\", 100000))";
+        testIntegerObject(testEval(input), 200000);
+    }
+
+    @Test
+    void builtinPutShouldAddAPairWithoutChangingTheOriginalHash() {
+        String input = "let h = {\"a\": 1}; let g = put(h, \"b\", 2); [len(h), len(g), g[\"b\"]]";
+        testEvalArrayObject(
+            testEval(input),
+            new MonkeyArray(
+                new MonkeyObject[] {
+                    new MonkeyInt(1),
+                    new MonkeyInt(2),
+                    new MonkeyInt(2)
+                }
+            )
+        );
+    }
+
+    @Test
+    void builtinPutShouldReplaceTheValueOfAnExistingKey() {
+        String input = "put({\"a\": 1}, \"a\", 5)";
+        testEvalHashObjects(testEval(input), "a", 5);
+    }
+
+    @Test
+    void builtinPutShouldProduceAnUnusableAsHashKeyErrorWhenGivenAFunctionKey() {
+        String input = "put({}, fn(x) { x }, 1)";
+        testEvalErrorHandling(input, "unusable as hash key: FUNCTION");
+    }
+
+    @Test
+    void builtinDeleteShouldRemoveAKeyWithoutChangingTheOriginalHash() {
+        String input = "let h = {\"a\": 1, \"b\": 2}; let g = delete(h, \"b\"); [len(h), len(g), g[\"b\"]]";
+        MonkeyObject result = testEval(input);
+        assertInstanceOf(MonkeyArray.class, result);
+        MonkeyArray arr = (MonkeyArray)result;
+        testIntegerObject(arr.get(0), 2);
+        testIntegerObject(arr.get(1), 1);
+        testEvalNullObject(arr.get(2));
+    }
+
+    @Test
+    void builtinDeleteShouldProduceAnArgumentNotSupportedErrorWhenGivenAnArray() {
+        String input = "delete([1], 1)";
+        testEvalErrorHandling(input, "argument to \'delete\' not supported, got ARRAY");
+    }
+
+    @Test
+    void builtinMapShouldCallTheFunctionOnEveryElement() {
+        testEvalArrayLiterals(testEval("map([1, 2, 3], fn(x) { x * x })"), 1, 4, 9);
+        testEvalArrayLiterals(testEval("map([\"a\", \"bc\"], len)"), 1, 2);
+    }
+
+    @Test
+    void builtinFilterShouldKeepTheElementsTheFunctionIsTruthyFor() {
+        testEvalArrayLiterals(testEval("filter([1, 2, 3, 4], fn(x) { x > 2 })"), 3, 4);
+    }
+
+    @Test
+    void builtinReduceShouldFoldTheArrayFromTheLeft() {
+        testIntegerObject(testEval("reduce([1, 2, 3, 4], 0, fn(acc, x) { acc * 10 + x })"), 1234);
+        testIntegerObject(testEval("reduce([], 7, fn(acc, x) { acc + x })"), 7);
+    }
+
+    @Test
+    void builtinMapShouldStopAtTheFirstErrorFromTheFunction() {
+        testEvalErrorHandling("map([1, true, \"a\"], fn(x) { -x })", "unknown operator: -BOOLEAN");
+    }
+
+    @Test
+    void builtinMapShouldProduceAnArgumentNotSupportedErrorWhenNotGivenAFunction() {
+        testEvalErrorHandling("map([1], 2)", "argument to 'map' not supported, got INTEGER");
+        testEvalErrorHandling("pfilter(1, len)", "argument to 'pfilter' not supported, got INTEGER");
+    }
+
+    @Test
+    void userDefinedMapShouldShadowTheBuiltin() {
+        testIntegerObject(testEval("let map = fn(arr, f) { 42 }; map([1], len)"), 42);
+    }
+
     @Test
     void arrayLiteralElementsShouldBeEvaluated() {
         String input = "[1, 2 * 2, 3 + 3]";
@@ -1096,4 +1182,73 @@ class EvaluatorTest {
 
         testEvalErrorHandling(input, "unusable as hash key: FUNCTION");
     }
-}
\ No newline at end of file
+
+    @Test
+    void tailRecursionShouldNotOverflowTheJavaStack() {
+        String input = "let build = fn(n, acc) { if (n == 0) { return acc; } build(n - 1, push(acc, n)) };"
+                     + "let sum = fn(arr, acc) { if (len(arr) == 0) { acc } else { sum(rest(arr), acc + first(arr)) } };"
+                     + "sum(build(5000, []), 0)";
+
+        testIntegerObject(testEval(input), 12502500);
+    }
+
+    @Test
+    void mutuallyTailRecursiveFunctionsShouldNotOverflowTheJavaStack() {
+        String input = "let isEven = fn(n) { if (n == 0) { true } else { isOdd(n - 1) } };"
+                     + "let isOdd = fn(n) { if (n == 0) { false } else { isEven(n - 1) } };"
+                     + "isEven(100001)";
+
+        testBoolObject(testEval(input), false);
+    }
+
+    @Test
+    void callsWithTheWrongNumberOfArgumentsShouldProduceAnError() {
+        // A missing argument must not read the outer b instead.
+        testEvalErrorHandling("let b = 99; let x = fn(a, b) { b }; x(1)",
+                              "wrong number of arguments: got=1, want=2");
+        testEvalErrorHandling("fn(a) { a }(1, 2)",
+                              "wrong number of arguments: got=2, want=1");
+        testEvalErrorHandling("let f = fn(n) { if (n == 0) { 0 } else { f() } }; f(3)",
+                              "wrong number of arguments: got=0, want=1");
+    }
+
+    @Test
+    void runawayNonTailRecursionShouldProduceAStackOverflowError() {
+        String input = "let f = fn(n) { 1 + f(n + 1) }; f(0)";
+
+        testEvalErrorHandling(input, "stack overflow");
+    }
+
+    @Test
+    void integerLiteralsShouldEvaluateToTheSameObjectEachTime() {
+        Program prog = new Parser(new Lexer("100000")).parseProgram();
+        Environment env = new Environment();
+
+        assertSame(Evaluator.eval(prog, env), Evaluator.eval(prog, env));
+    }
+
+    @Test
+    void unboxedArithmeticShouldMatchBoxedArithmetic() {
+        String[] inputs = {
+            "(5 + 10 * 2 + 15 / 3) * 2 + -10",
+            "let a = 7; let b = 3; a * a - b * b == (a + b) * (a - b)",
+            "let f = fn(x) { x * 2 }; f(3) + f(4) * 2 - 1",
+            "1 + 2 + true",
+            "1 + true + 2",
+            "\"a\" + \"b\" + \"c\"",
+            "(1 + 2) + foo",
+            "9223372036854775807 + 1 - 1",
+        };
+
+        for (String input : inputs) {
+            Evaluator.setUnboxedArithmetic(false);
+            MonkeyObject boxed = testEval(input);
+            Evaluator.setUnboxedArithmetic(true);
+            MonkeyObject unboxed = testEval(input);
+            Evaluator.setUnboxedArithmetic(false);
+
+            assertEquals(boxed.Type(), unboxed.Type(), input);
+            assertEquals(boxed.Inspect(), unboxed.Inspect(), input);
+        }
+    }
+}
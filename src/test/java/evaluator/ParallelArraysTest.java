@@ -0,0 +1,183 @@
+package evaluator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ast.Program;
+import compiler.Compiler;
+import compiler.SymbolTable;
+import lexer.Lexer;
+import monkeyobject.Environment;
+import monkeyobject.Invoker;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyObject;
+import parser.Parser;
+import specializer.SpecializingInterpreter;
+import vm.VM;
+
+class ParallelArraysTest {
+    private final static String NUMBERS =
+        "let numbers = fn(n, acc) { if (n == 0) { acc } else { numbers(n - 1, push(acc, n)) } };"
+        + "let xs = numbers(2000, []);";
+
+    private ForkJoinPool pool;
+
+    /* Helper Functions */
+    @BeforeEach
+    void splitSmallArraysOnFourThreads() {
+        pool = new ForkJoinPool(4);
+        ParallelArrays.setPool(pool);
+        ParallelArrays.setThreshold(16);
+    }
+
+    @AfterEach
+    void restoreDefaults() {
+        ParallelArrays.setPool(ForkJoinPool.commonPool());
+        ParallelArrays.setThreshold(ParallelArrays.DEFAULT_THRESHOLD);
+        pool.shutdown();
+    }
+
+    Program parse(String input) {
+        return new Parser(new Lexer(input)).parseProgram();
+    }
+
+    MonkeyObject[] runEverywhere(String input) {
+        Compiler compiler = new Compiler();
+        compiler.compile(parse(input));
+        return new MonkeyObject[] {
+            Evaluator.eval(parse(input), new Environment()),
+            SpecializingInterpreter.eval(parse(input), new Environment()),
+            new VM(compiler.bytecode()).run()
+        };
+    }
+
+    void testSameEverywhere(String parallel, String sequential) {
+        String expected = Evaluator.eval(parse(sequential), new Environment()).Inspect();
+        for (MonkeyObject result : runEverywhere(parallel)) {
+            assertEquals(expected, result.Inspect());
+        }
+    }
+
+    /* Tests */
+    @Test
+    void pmapShouldMatchMapOnEveryEngine() {
+        testSameEverywhere(NUMBERS + "let k = 3; pmap(xs, fn(x) { x * k + 1 })",
+                           NUMBERS + "let k = 3; map(xs, fn(x) { x * k + 1 })");
+    }
+
+    @Test
+    void pfilterShouldMatchFilterOnEveryEngine() {
+        testSameEverywhere(NUMBERS + "pfilter(xs, fn(x) { x / 7 * 7 == x })",
+                           NUMBERS + "filter(xs, fn(x) { x / 7 * 7 == x })");
+    }
+
+    @Test
+    void nestedParallelCallsShouldMatchSequentialOnes() {
+        testSameEverywhere(NUMBERS + "reduce(pmap(xs, fn(x) { len(pfilter(xs, fn(y) { y < x })) }), 0, fn(a, b) { a + b })",
+                           NUMBERS + "reduce(map(xs, fn(x) { len(filter(xs, fn(y) { y < x })) }), 0, fn(a, b) { a + b })");
+    }
+
+    @Test
+    void pmapShouldReportTheErrorOfTheFirstFailingElement() {
+        String input = NUMBERS + "pmap(xs, fn(x) { if (x < 100) { x + true } else { if (x < 1000) { -true } else { x } } })";
+        for (MonkeyObject result : runEverywhere(input)) {
+            assertInstanceOf(MonkeyError.class, result);
+            assertEquals("unknown operator: -BOOLEAN", ((MonkeyError)result).message);
+        }
+    }
+
+    @Test
+    void largeArraysShouldBeSplitAcrossThePool() {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        Invoker recording = new Invoker() {
+            public MonkeyObject call(MonkeyObject fn, MonkeyObject[] args) {
+                threads.add(Thread.currentThread());
+                long value = ((MonkeyInt)args[0]).value;
+                for (long spin = 0; spin < 20000; spin++) {
+                    value = value * 31 % 1000003;
+                }
+                return MonkeyInt.valueOf(value);
+            }
+
+            @Override
+            public Invoker fork(MonkeyObject fn) {
+                return this;
+            }
+        };
+
+        MonkeyObject[] elements = new MonkeyObject[4096];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = MonkeyInt.valueOf(i);
+        }
+        MonkeyObject[] results = new MonkeyObject[elements.length];
+
+        assertNull(ParallelArrays.callEach(elements, null, recording, results, true));
+        assertTrue(threads.size() > 1, "ran on " + threads.size() + " thread(s)");
+        for (MonkeyObject result : results) {
+            assertNotNull(result);
+        }
+    }
+
+    @Test
+    void onlyFunctionsThatCallLeafBuiltinsShouldBeForked() {
+        String input = "let quiet = fn(xs) { len(push(xs, 1)) };"
+            + "let loud = fn(x) { puts(x) };"
+            + "let sends = fn(c) { send(c, 1) };"
+            + "let indirect = fn(x) { quiet(x) };"
+            + "let callsBack = fn(f) { f(1) };"
+            + "let maps = fn(xs) { map(xs, fn(x) { x }) };"
+            + "let makesLoud = fn(x) { fn() { puts(x) } };";
+        String[] impure = {"loud", "sends", "indirect", "callsBack", "maps", "makesLoud"};
+
+        Environment env = new Environment();
+        Evaluator.eval(parse(input), env);
+        Invoker invoker = Evaluator.invoker(null);
+        assertNotNull(invoker.fork(env.Get("quiet")));
+        for (String name : impure) {
+            assertNull(invoker.fork(env.Get(name)), name);
+        }
+        assertNull(Evaluator.invoker(new EvaluationContext()).fork(env.Get("quiet")));
+
+        Compiler compiler = new Compiler();
+        compiler.compile(parse(input));
+        MonkeyObject[] globals = new MonkeyObject[VM.GLOBALS_SIZE];
+        VM machine = new VM(compiler.bytecode(), globals);
+        machine.run();
+        assertNotNull(machine.fork(globals[0]));
+        for (int i = 1; i <= impure.length; i++) {
+            assertNull(machine.fork(globals[i]), impure[i - 1]);
+        }
+    }
+
+    @Test
+    void functionsShouldNotBeForkedOnceABuiltinTheyCallIsRedefined() {
+        Environment env = new Environment();
+        Evaluator.eval(parse("let len = fn(x) { puts(x) };"), env);
+        Evaluator.eval(parse("let size = fn(x) { len(x) };"), env);
+        assertNull(Evaluator.invoker(null).fork(env.Get("size")));
+
+        SymbolTable symbols = Compiler.newGlobalSymbolTable();
+        ArrayList<MonkeyObject> constants = new ArrayList<>();
+        MonkeyObject[] globals = new MonkeyObject[VM.GLOBALS_SIZE];
+        for (String line : new String[] {"let len = fn(x) { puts(x) };",
+                                         "let size = fn(x) { len(x) };"}) {
+            Compiler compiler = new Compiler(symbols, constants);
+            compiler.compile(parse(line));
+            new VM(compiler.bytecode(), globals).run();
+        }
+        assertNull(new VM(new Compiler().bytecode()).fork(globals[1]));
+    }
+}
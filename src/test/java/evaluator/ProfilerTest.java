@@ -0,0 +1,116 @@
+package evaluator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import ast.Program;
+import jit.Jit;
+import lexer.Lexer;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyObject;
+import parser.Parser;
+
+class ProfilerTest {
+    /* Helper Functions */
+    Profiler profile(String input) {
+        Profiler profiler = new Profiler();
+        Evaluator.setProfiler(profiler);
+        Program prog = new Parser(new Lexer(input)).parseProgram();
+        MonkeyObject result = Evaluator.eval(prog, new Environment());
+        Evaluator.setProfiler(null);
+
+        assertInstanceOf(MonkeyInt.class, result);
+        return profiler;
+    }
+
+    Profiler.Stats find(Iterable<Profiler.Stats> stats, String name) {
+        for (Profiler.Stats s : stats) {
+            if (s.name.equals(name)) {
+                return s;
+            }
+        }
+        throw new AssertionError("no stats for " + name);
+    }
+
+    @AfterEach
+    void stopProfiling() {
+        Evaluator.setProfiler(null);
+        Jit.setEnabled(true);
+    }
+
+    /* Tests */
+    @Test
+    void profilerShouldCountCallsPerFunctionAndCallSite() {
+        Profiler profiler = profile(
+            "let fib = fn(n) {\n" +
+            "  if (n < 2) { return n; }\n" +
+            "  fib(n - 1) + fib(n - 2)\n" +
+            "};\n" +
+            "fib(10);");
+
+        Profiler.Stats fib = find(profiler.functions(), "fib@1:11");
+        assertEquals(177, fib.calls);
+        assertTrue(fib.exclusiveNanos <= fib.inclusiveNanos);
+
+        assertEquals(1, find(profiler.callSites(), "fib@5:4").calls);
+        assertEquals(88, find(profiler.callSites(), "fib@3:6").calls);
+        assertEquals(88, find(profiler.callSites(), "fib@3:19").calls);
+    }
+
+    @Test
+    void collapsedStacksShouldNestCallersBeforeCallees() {
+        Profiler profiler = profile(
+            "let leaf = fn(x) { x * 2 };\n" +
+            "let outer = fn(x) { leaf(x) + fn(y) { y }(x) };\n" +
+            "outer(1) + outer(2);");
+
+        String collapsed = profiler.collapsed();
+        for (String line : collapsed.split("\n")) {
+            assertTrue(line.matches("[^ ]+ \\d+"), line);
+        }
+        assertTrue(collapsed.contains("outer@2:13;leaf@1:12 "), collapsed);
+        assertTrue(collapsed.contains("outer@2:13;fn@2:31 "), collapsed);
+        assertEquals(2, find(profiler.functions(), "leaf@1:12").calls);
+        assertEquals(2, find(profiler.callSites(), "call@2:42").calls);
+    }
+
+    @Test
+    void tailCallsShouldStayOneFrameDeep() {
+        // Compiled code would make most of these calls out of sight.
+        Jit.setEnabled(false);
+        Profiler profiler = profile(
+            "let loop = fn(n) { if (n == 0) { 0 } else { loop(n - 1) } };\n" +
+            "loop(100000);");
+
+        assertEquals(100001, find(profiler.functions(), "loop@1:12").calls);
+        for (String line : profiler.collapsed().split("\n")) {
+            assertTrue(line.startsWith("loop@1:12 "), line);
+        }
+    }
+
+    @Test
+    void recursiveInclusiveTimeShouldOnlyCountTheOutermostCall() {
+        Profiler profiler = profile(
+            "let down = fn(n) { if (n == 0) { 0 } else { 1 + down(n - 1) } };\n" +
+            "down(200);");
+
+        Profiler.Stats down = find(profiler.functions(), "down@1:12");
+        assertEquals(201, down.calls);
+        assertTrue(down.inclusiveNanos >= down.exclusiveNanos);
+    }
+
+    @Test
+    void evaluatorShouldRecordNothingWithoutAProfiler() {
+        Profiler profiler = new Profiler();
+        Program prog = new Parser(new Lexer("let f = fn() { 1 }; f();")).parseProgram();
+        Evaluator.eval(prog, new Environment());
+
+        assertTrue(profiler.functions().isEmpty());
+        assertEquals("", profiler.collapsed());
+    }
+}
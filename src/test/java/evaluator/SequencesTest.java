@@ -0,0 +1,196 @@
+package evaluator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import ast.Program;
+import compiler.Compiler;
+import lexer.Lexer;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyObject;
+import parser.Parser;
+import specializer.SpecializingInterpreter;
+import vm.VM;
+
+class SequencesTest {
+    /* Helper Functions */
+    Program parse(String input) {
+        return new Parser(new Lexer(input)).parseProgram();
+    }
+
+    MonkeyObject[] runEverywhere(String input) {
+        Compiler compiler = new Compiler();
+        compiler.compile(parse(input));
+        return new MonkeyObject[] {
+            Evaluator.eval(parse(input), new Environment()),
+            SpecializingInterpreter.eval(parse(input), new Environment()),
+            new VM(compiler.bytecode()).run()
+        };
+    }
+
+    MonkeyObject[] runEverywhere(String input, long memoryLimit) {
+        return runEverywhere(input, () -> withMemoryLimit(memoryLimit));
+    }
+
+    /* Each engine runs under a fresh context from contexts. */
+    MonkeyObject[] runEverywhere(String input, Supplier<EvaluationContext> contexts) {
+        Compiler compiler = new Compiler();
+        compiler.compile(parse(input));
+        VM machine = new VM(compiler.bytecode());
+        machine.setContext(contexts.get());
+        return new MonkeyObject[] {
+            Evaluator.eval(parse(input), new Environment(), contexts.get()),
+            SpecializingInterpreter.eval(parse(input), new Environment(), contexts.get()),
+            machine.run()
+        };
+    }
+
+    EvaluationContext withMemoryLimit(long bytes) {
+        EvaluationContext context = new EvaluationContext();
+        context.setMemoryLimit(bytes);
+        return context;
+    }
+
+    EvaluationContext withFuel(long steps) {
+        EvaluationContext context = new EvaluationContext();
+        context.setFuel(steps);
+        return context;
+    }
+
+    EvaluationContext withTimeout(long millis) {
+        EvaluationContext context = new EvaluationContext();
+        context.setTimeout(millis);
+        return context;
+    }
+
+    EvaluationContext cancelledAfter(ScheduledExecutorService timer, long millis) {
+        EvaluationContext context = new EvaluationContext();
+        timer.schedule(context::cancel, millis, TimeUnit.MILLISECONDS);
+        return context;
+    }
+
+    void testEverywhere(String input, String expected) {
+        for (MonkeyObject result : runEverywhere(input)) {
+            assertEquals(expected, result.Inspect());
+        }
+    }
+
+    void testErrors(MonkeyObject[] results, String expected) {
+        for (MonkeyObject result : results) {
+            assertInstanceOf(MonkeyError.class, result);
+            assertEquals(expected, ((MonkeyError)result).message);
+        }
+    }
+
+    /* Tests */
+    @Test
+    void rangesShouldWorkWithTheArrayBuiltinsAndIndexing() {
+        testEverywhere("let r = range(0, 10, 3); [len(r), first(r), last(r), r[2], r[4], r[-1]]",
+                       "[4, 0, 9, 6, null, null]");
+        testEverywhere("let r = range(3, 0, -1); [len(r), first(rest(r)), len(rest(rest(rest(r))))]",
+                       "[3, 2, 0]");
+        testEverywhere("let r = range(0, 0); [len(r), first(r), last(r)]", "[0, null, null]");
+        testEverywhere("range(0, 5)", "range(0, 5, 1)");
+    }
+
+    @Test
+    void mapFilterAndTakeShouldComposeOverSequences() {
+        testEverywhere("let evens = filter(range(0, 100), fn(x) { x / 2 * 2 == x });"
+                       + "let squares = map(evens, fn(x) { x * x });"
+                       + "[len(evens), squares[3], last(take(squares, 4)), first(rest(squares))]",
+                       "[50, 36, 36, 4]");
+        testEverywhere("reduce(take(map(range(1, 1000000), fn(x) { x * 2 }), 10), 0, fn(a, b) { a + b })",
+                       "110");
+        testEverywhere("take([1, 2, 3], 2)", "[1, 2]");
+        testEverywhere("len(take(range(0, 3), 10))", "3");
+    }
+
+    @Test
+    void parallelBuiltinsShouldTurnSequencesIntoArrays() {
+        testEverywhere("pmap(range(0, 4), fn(x) { x * 10 })", "[0, 10, 20, 30]");
+        testEverywhere("pfilter(map(range(0, 6), fn(x) { x + 1 }), fn(x) { x > 3 })", "[4, 5, 6]");
+    }
+
+    @Test
+    void functionsShouldOnlyRunForTheElementsThatAreUsed() {
+        // Only the third element is ever mapped, so the bad ones never fail.
+        testEverywhere("map(range(0, 5), fn(x) { if (x == 2) { x } else { x + true } })[2]", "2");
+        testEverywhere("len(map(range(0, 5), fn(x) { x + true }))", "5");
+        testErrors(runEverywhere("reduce(map(range(0, 5), fn(x) { x + true }), 0, fn(a, b) { a + b })"),
+                   "type mismatch: INTEGER + BOOLEAN");
+        testErrors(runEverywhere("len(filter(range(0, 5), fn(x) { -true }))"),
+                   "unknown operator: -BOOLEAN");
+    }
+
+    @Test
+    void pipelinesOverMillionsOfElementsShouldFitInASmallMemoryLimit() {
+        String input = "reduce(map(filter(range(0, 2000000), fn(x) { x / 3 * 3 == x }), fn(x) { x * 2 }),"
+            + " 0, fn(a, b) { a + b })";
+        for (MonkeyObject result : runEverywhere(input, 64 * 1024)) {
+            assertEquals("1333332666666", result.Inspect());
+        }
+    }
+
+    @Test
+    void walksOverHugeRangesShouldStopAtTheStepTimeAndCancelLimits() {
+        String huge = "range(0, 1000000000000000)";
+        String[] walks = {
+            "reduce(" + huge + ", [], take)",
+            "len(pmap(" + huge + ", fn(x) { x }))",
+            "len(take(filter(" + huge + ", fn(x) { false }), 1))",
+            "last(filter(" + huge + ", fn(x) { true }))",
+            "filter(" + huge + ", fn(x) { false })[0]",
+            "len(rest(filter(" + huge + ", fn(x) { true })))"
+        };
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        try {
+            for (String walk : walks) {
+                testErrors(runEverywhere(walk, () -> withFuel(100000)),
+                           "step limit exceeded: 100000");
+                testErrors(runEverywhere(walk, () -> withTimeout(50)),
+                           "time limit exceeded: 50 ms");
+                testErrors(runEverywhere(walk, () -> cancelledAfter(timer, 50)),
+                           "evaluation cancelled");
+            }
+        } finally {
+            timer.shutdownNow();
+        }
+    }
+
+    @Test
+    void turningAHugeSequenceIntoAnArrayShouldStopAtTheMemoryLimit() {
+        testErrors(runEverywhere("pfilter(range(0, 30000000), fn(x) { false })", 100000),
+                   "memory limit exceeded: 100000 bytes");
+        testErrors(runEverywhere("len(pmap(range(0, 1000000000000000), fn(x) { x }))", 100000),
+                   "memory limit exceeded: 100000 bytes");
+    }
+
+    @Test
+    void scriptsShouldStillBeAbleToDefineTheirOwnRange() {
+        testEverywhere("let range = fn(n, acc) { if (n == 0) { acc } else { range(n - 1, push(acc, n)) } };"
+                       + "range(3, [])",
+                       "[3, 2, 1]");
+    }
+
+    @Test
+    void sequenceBuiltinsShouldRejectTheWrongArguments() {
+        testErrors(runEverywhere("range(0, 5, 0)"),
+                   "argument to 'range' not supported, got INTEGER");
+        testErrors(runEverywhere("range(0, true)"),
+                   "argument to 'range' not supported, got BOOLEAN");
+        testErrors(runEverywhere("range(0)"),
+                   "wrong number of arguments: got=1, want=2");
+        testErrors(runEverywhere("take(range(0, 5), -1)"),
+                   "argument to 'take' not supported, got INTEGER");
+        testErrors(runEverywhere("take(1, 2)"),
+                   "argument to 'take' not supported, got INTEGER");
+    }
+}
@@ -0,0 +1,204 @@
+package evaluator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import ast.Program;
+import compiler.Compiler;
+import lexer.Lexer;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyObject;
+import parser.Parser;
+import specializer.SpecializingInterpreter;
+import vm.VM;
+
+class TasksTest {
+    /* Helper Functions */
+    Program parse(String input) {
+        return new Parser(new Lexer(input)).parseProgram();
+    }
+
+    MonkeyObject[] runEverywhere(String input, Supplier<EvaluationContext> contexts) {
+        Compiler compiler = new Compiler();
+        compiler.compile(parse(input));
+        VM machine = new VM(compiler.bytecode());
+        machine.setContext(contexts.get());
+        return new MonkeyObject[] {
+            Evaluator.eval(parse(input), new Environment(), contexts.get()),
+            SpecializingInterpreter.eval(parse(input), new Environment(), contexts.get()),
+            machine.run()
+        };
+    }
+
+    MonkeyObject[] runEverywhere(String input) {
+        Compiler compiler = new Compiler();
+        compiler.compile(parse(input));
+        return new MonkeyObject[] {
+            Evaluator.eval(parse(input), new Environment()),
+            SpecializingInterpreter.eval(parse(input), new Environment()),
+            new VM(compiler.bytecode()).run()
+        };
+    }
+
+    void testEverywhere(String input, String expected) {
+        for (MonkeyObject result : runEverywhere(input)) {
+            assertEquals(expected, result.Inspect());
+        }
+    }
+
+    void testErrors(MonkeyObject[] results, String expected) {
+        for (MonkeyObject result : results) {
+            assertInstanceOf(MonkeyError.class, result);
+            assertEquals(expected, ((MonkeyError)result).message);
+        }
+    }
+
+    EvaluationContext withTimeout(long millis) {
+        EvaluationContext context = new EvaluationContext();
+        context.setTimeout(millis);
+        return context;
+    }
+
+    EvaluationContext withFuel(long steps) {
+        EvaluationContext context = new EvaluationContext();
+        context.setFuel(steps);
+        return context;
+    }
+
+    EvaluationContext withMemoryLimit(long bytes) {
+        EvaluationContext context = new EvaluationContext();
+        context.setMemoryLimit(bytes);
+        return context;
+    }
+
+    /* Tests */
+    @Test
+    void awaitShouldReturnWhatTheSpawnedFunctionReturns() {
+        testEverywhere("let add = fn(a, b) { a + b }; await(spawn(add, 40, 2))", "42");
+        testEverywhere("let t = spawn(fn() { [1, 2, 3] }); [await(t), await(t)]",
+                       "[[1, 2, 3], [1, 2, 3]]");
+    }
+
+    @Test
+    void aProducerAndAConsumerShouldTalkOverABufferedChannel() {
+        testEverywhere("let ch = chan(2);"
+                       + "let producer = fn(n) { if (n == 0) { send(ch, 0) } else { send(ch, n); producer(n - 1) } };"
+                       + "let consumer = fn(acc) { let v = recv(ch); if (v == 0) { acc } else { consumer(acc + v) } };"
+                       + "spawn(producer, 100);"
+                       + "await(spawn(consumer, 0))",
+                       "5050");
+    }
+
+    @Test
+    void workersShouldHandOffOverAnUnbufferedChannel() {
+        testEverywhere("let results = chan(0);"
+                       + "let workers = map([1, 2, 3, 4], fn(i) { spawn(fn() { send(results, i * 10); i }) });"
+                       + "let got = recv(results) + recv(results) + recv(results) + recv(results);"
+                       + "reduce(map(workers, await), got, fn(a, b) { a + b })",
+                       "110");
+    }
+
+    @Test
+    void awaitShouldHandBackTheErrorOfAFailedTask() {
+        testErrors(runEverywhere("await(spawn(fn() { 1 + true }))"),
+                   "type mismatch: INTEGER + BOOLEAN");
+    }
+
+    @Test
+    void tasksShouldSeeGlobalsSetBeforeTheyWereSignalled() {
+        testEverywhere("let ch = chan(0);"
+                       + "let t = spawn(fn() { recv(ch); late });"
+                       + "let late = 5;"
+                       + "send(ch, 1);"
+                       + "await(t)",
+                       "5");
+    }
+
+    @Test
+    void blockedChannelsShouldGiveUpWhenTimeRunsOut() {
+        String expected = String.format(Evaluator.TIMEOUT_ERR_FMT, 50);
+        testErrors(runEverywhere("let ch = chan(1); send(ch, 1); send(ch, 2)",
+                                 () -> withTimeout(50)), expected);
+        testErrors(runEverywhere("recv(chan(0))", () -> withTimeout(50)), expected);
+        testErrors(runEverywhere("await(spawn(fn() { recv(chan(0)) }))",
+                                 () -> withTimeout(50)), expected);
+    }
+
+    @Test
+    void tasksShouldRunOutOfTheFuelOfTheirSpawner() {
+        testErrors(runEverywhere("let f = fn(x) { f(x) }; await(spawn(f, 1))",
+                                 () -> withFuel(100000)),
+                   String.format(Evaluator.OUT_OF_FUEL_ERR_FMT, 100000));
+    }
+
+    @Test
+    void hugeChannelsShouldOnlyTakeRoomForWhatTheyHold() {
+        testEverywhere("let c = chan(2000000000); send(c, 1); send(c, 2); [c, recv(c) + recv(c)]",
+                       "[Channel[2000000000], 3]");
+    }
+
+    @Test
+    void valuesWaitingInAChannelShouldCountAgainstTheMemoryLimit() {
+        testErrors(runEverywhere("let c = chan(2000000000); "
+                                 + "reduce(range(0, 1000000), 0, fn(a, i) { send(c, i); a + 1 })",
+                                 () -> withMemoryLimit(100000)),
+                   String.format(Evaluator.OUT_OF_MEMORY_ERR_FMT, 100000));
+    }
+
+    @Test
+    void receivedValuesShouldGiveTheirRoomBack() {
+        String input = "let c = chan(10); "
+            + "reduce(range(0, 100000), 0, fn(a, i) { send(c, i); a + recv(c) })";
+        for (MonkeyObject result : runEverywhere(input, () -> withMemoryLimit(100000))) {
+            assertEquals("4999950000", result.Inspect());
+        }
+    }
+
+    @Test
+    void spawnedTasksShouldCountAgainstTheMemoryLimit() {
+        testErrors(runEverywhere("reduce(range(0, 1000000), 0, fn(a, i) { spawn(fn() { i }); a + 1 })",
+                                 () -> withMemoryLimit(100000)),
+                   String.format(Evaluator.OUT_OF_MEMORY_ERR_FMT, 100000));
+    }
+
+    @Test
+    void platformThreadsShouldRunOutBeforeTheJVMDoes() throws InterruptedException {
+        assumeFalse(Tasks.hasVirtualThreads());
+
+        List<EvaluationContext> contexts = new ArrayList<>();
+        try {
+            testErrors(runEverywhere("let c = chan(0); "
+                                     + "let f = fn(i) { let t = spawn(fn() { recv(c) }); f(i + 1) }; f(0)",
+                                     () -> {
+                                         EvaluationContext context = new EvaluationContext();
+                                         contexts.add(context);
+                                         return context;
+                                     }),
+                       String.format(Tasks.TOO_MANY_TASKS_ERR_FMT, Tasks.MAX_PLATFORM_THREADS));
+        } finally {
+            // Let the blocked tasks go, so the threads are free for the next test.
+            contexts.forEach(EvaluationContext::cancel);
+            Thread.sleep(100);
+        }
+    }
+
+    @Test
+    void taskBuiltinsShouldRejectTheWrongArguments() {
+        testErrors(runEverywhere("chan(-1)"),
+                   "argument to 'chan' not supported, got INTEGER");
+        testErrors(runEverywhere("await(1)"),
+                   "argument to 'await' not supported, got INTEGER");
+        testErrors(runEverywhere("send(1, 2)"),
+                   "argument to 'send' not supported, got INTEGER");
+        testErrors(runEverywhere("spawn(1)"),
+                   "argument to 'spawn' not supported, got INTEGER");
+    }
+}
@@ -0,0 +1,167 @@
+package isolate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import ast.Program;
+import evaluator.Evaluator;
+import lexer.Lexer;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyObject;
+import parser.Parser;
+import repl.Engine;
+
+public class IsolateTest {
+    final static String TENANT_PROGRAM =
+        "let counter = counter + 1;" +
+        "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } };" +
+        "let data = {\"id\": id, \"fib\": fib(12), \"items\": push([1, 2, 3], id)};" +
+        "data[\"fib\"] + data[\"items\"][3] * 1000 + counter * 1000000;";
+
+    /* Helper Functions */
+    static Program parse(String input) {
+        return new Parser(new Lexer(input)).parseProgram();
+    }
+
+    void testIntegerObject(MonkeyObject obj, long expected) {
+        assertInstanceOf(MonkeyInt.class, obj);
+        assertEquals(expected, ((MonkeyInt)obj).value);
+    }
+
+    void testError(MonkeyObject obj, String expected) {
+        assertInstanceOf(MonkeyError.class, obj);
+        assertEquals(expected, ((MonkeyError)obj).message);
+    }
+
+    /* Tests */
+    @Test
+    void globalsShouldPersistWithinAnIsolateButNotAcrossThem() {
+        for (Engine engine : Engine.values()) {
+            Isolate first = new Isolate(engine);
+            Isolate second = new Isolate(engine);
+
+            first.eval("let x = 5;");
+            testIntegerObject(first.eval("x * 2;"), 10);
+            testError(second.eval("x;"),
+                      String.format(Evaluator.IDENTIFIER_NOT_FOUND_ERR_FMT, "x"));
+        }
+    }
+
+    @Test
+    void hostDefinedGlobalsShouldBeVisibleToScripts() {
+        for (Engine engine : Engine.values()) {
+            Isolate isolate = new Isolate(engine);
+            isolate.define("limit", MonkeyInt.valueOf(42));
+
+            testIntegerObject(isolate.eval("limit + 1;"), 43);
+        }
+    }
+
+    @Test
+    void vmIsolatesShouldRunTheSameProgramForever() {
+        Isolate isolate = new Isolate(Engine.VM);
+        isolate.define("counter", MonkeyInt.valueOf(0));
+        Program program = parse("let counter = counter + 1;"
+                                + "let f = fn(x) { x * 2 + 1 };"
+                                + "{\"a\": f(counter), \"b\": \"text\"}[\"a\"] - 3;");
+        String source = "let counter = counter + 10; counter - 7;";
+
+        for (int i = 1; i <= 30000; i++) {
+            testIntegerObject(isolate.eval(program), (11 * i - 10) * 2 + 1 - 3);
+            testIntegerObject(isolate.eval(source), 11 * i - 7);
+        }
+    }
+
+    @Test
+    void reusedVMProgramsShouldSeeFunctionsCompiledAfterThem() {
+        Isolate isolate = new Isolate(Engine.VM);
+        Program call = parse("g();");
+        isolate.eval(call);
+        isolate.eval("let g = fn() { 40 + 2 };");
+
+        testIntegerObject(isolate.eval(call), 42);
+    }
+
+    @Test
+    void parseErrorsShouldComeBackAsErrors() {
+        MonkeyObject result = new Isolate().eval("let = 5;");
+
+        assertInstanceOf(MonkeyError.class, result);
+        assertTrue(((MonkeyError)result).message.startsWith("parse error: "));
+    }
+
+    @Test
+    void limitsShouldApplyToEveryEval() {
+        for (Engine engine : Engine.values()) {
+            Isolate isolate = new Isolate(engine);
+            isolate.setFuel(10000);
+
+            testError(isolate.eval("let f = fn(x) { f(x) }; f(1);"),
+                      String.format(Evaluator.OUT_OF_FUEL_ERR_FMT, 10000));
+            testIntegerObject(isolate.eval("1 + 1;"), 2);
+            assertNotNull(isolate.lastContext());
+            assertTrue(isolate.lastContext().stepsUsed() < 10000);
+        }
+    }
+
+    @Test
+    void cancelShouldStopTheRunningEval() throws Exception {
+        Isolate isolate = new Isolate();
+        Thread canceller = new Thread(() -> {
+            while (true) {
+                isolate.cancel();
+                if (isolate.lastContext() != null) {
+                    return;
+                }
+                Thread.onSpinWait();
+            }
+        });
+        canceller.start();
+
+        testError(isolate.eval("let f = fn(x) { f(x) }; f(1);"), Evaluator.CANCELLED_ERR_FMT);
+        canceller.join();
+    }
+
+    @Test
+    void isolatesShouldRunOneSharedProgramConcurrently() throws Exception {
+        Program shared = parse(TENANT_PROGRAM);
+        int threads = 8;
+        int rounds = 50;
+
+        for (Engine engine : Engine.values()) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    long id = t;
+                    futures.add(pool.submit(() -> {
+                        Isolate isolate = new Isolate(engine);
+                        isolate.define("id", MonkeyInt.valueOf(id));
+                        isolate.define("counter", MonkeyInt.valueOf(0));
+                        for (int round = 1; round <= rounds; round++) {
+                            testIntegerObject(isolate.eval(shared),
+                                              144 + id * 1000 + round * 1000000L);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
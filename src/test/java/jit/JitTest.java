@@ -0,0 +1,174 @@
+package jit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import ast.ExpressionStatement;
+import ast.FunctionLiteral;
+import ast.LetStatement;
+import ast.Program;
+import evaluator.Evaluator;
+import lexer.Lexer;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyFunction;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyObject;
+import parser.Parser;
+
+class JitTest {
+    /* Helper Functions */
+    Program parse(String input) {
+        return new Parser(new Lexer(input)).parseProgram();
+    }
+
+    FunctionLiteral firstFunction(String input) {
+        var stmt = parse(input).statements[0];
+        if (stmt instanceof LetStatement) {
+            return (FunctionLiteral)((LetStatement)stmt).value;
+        }
+        return (FunctionLiteral)((ExpressionStatement)stmt).expression;
+    }
+
+    CompiledCode compile(String input) {
+        return Jit.compiledCodeFor(firstFunction(input));
+    }
+
+    MonkeyObject run(String input, Environment env) {
+        return Evaluator.eval(parse(input), env);
+    }
+
+    void testSameAsInterpreter(String input) {
+        Jit.setEnabled(false);
+        MonkeyObject expected = run(input, new Environment());
+        Jit.setEnabled(true);
+        Jit.setThreshold(1);
+        MonkeyObject actual = run(input, new Environment());
+
+        assertEquals(expected.Type(), actual.Type(), input);
+        assertEquals(expected.Inspect(), actual.Inspect(), input);
+    }
+
+    @AfterEach
+    void restoreDefaults() {
+        Jit.setEnabled(true);
+        Jit.setThreshold(Jit.DEFAULT_THRESHOLD);
+    }
+
+    /* Tests */
+    @Test
+    void recursiveFibonacciShouldCompileToWorkingCode() {
+        CompiledCode code = compile(
+            "let fib = fn(n) { if (n < 2) { return n; } fib(n - 1) + fib(n - 2) };");
+
+        assertTrue(code.isCompiled());
+        assertEquals("fib", code.selfName);
+        assertEquals(6765, code.function.invoke(new long[] {20}));
+    }
+
+    @Test
+    void integerOnlyFunctionsShouldCompile() {
+        String[] inputs = {
+            "fn(x) { x * 2 + 1 }",
+            "fn(a, b) { let c = a - b; c / 2 }",
+            "fn(x) { if (x > 10) { 1 } else { -1 } }",
+            "fn(x) { if (!(x > 10) == false) { return 1; } 0 }",
+            "fn(x) { if (x == 1) { return 5; } if (x != 2) { 7 } else { 8 } }",
+            "fn() { 9223372036854775807 }",
+        };
+
+        for (String input : inputs) {
+            assertTrue(compile(input).isCompiled(), input);
+        }
+    }
+
+    @Test
+    void unsupportedConstructsShouldFallBackToTheInterpreter() {
+        String[] inputs = {
+            "fn(x) { \"hello\" }",
+            "fn(x) { [x] }",
+            "fn(x) { len(x) }",
+            "fn(x) { fn(y) { x + y } }",
+            "fn(x) { if (x > 1) { 1 } }",
+            "fn(x) { let y = 1; }",
+            "fn(x) { x > 1 }",
+            "fn(x) { x + true }",
+            "fn(x) { if (x) { 1 } else { 2 } }",
+            "fn(x) { let y = if (x > 1) { return 1; } else { 2 }; y }",
+            "let f = fn(x) { g(x) + f(x) };",
+        };
+
+        for (String input : inputs) {
+            assertFalse(compile(input).isCompiled(), input);
+        }
+    }
+
+    @Test
+    void hotFunctionsShouldSwitchToCompiledCode() {
+        Jit.setThreshold(10);
+        Environment env = new Environment();
+        MonkeyObject result = run(
+            "let fib = fn(n) { if (n < 2) { return n; } fib(n - 1) + fib(n - 2) };"
+            + "fib(15)", env);
+
+        assertInstanceOf(MonkeyInt.class, result);
+        assertEquals(610, ((MonkeyInt)result).value);
+        MonkeyFunction fib = (MonkeyFunction)env.Get("fib");
+        assertTrue(fib.compiled.isCompiled());
+    }
+
+    @Test
+    void compiledCodeShouldMatchTheInterpreter() {
+        String[] inputs = {
+            "let fib = fn(n) { if (n < 2) { return n; } fib(n - 1) + fib(n - 2) }; fib(12)",
+            "let f = fn(a, b) { let c = a * b; if (c > 100) { c - 100 } else { c } };"
+                + "f(3, 4) + f(30, 4)",
+            "let sum = fn(n) { if (n == 0) { 0 } else { n + sum(n - 1) } }; sum(50)",
+            "let f = fn(x) { if (!(x < 0)) { return x; } -x }; f(-5) * f(5)",
+            "let f = fn(x) { 9223372036854775807 + x }; f(1)",
+        };
+
+        for (String input : inputs) {
+            testSameAsInterpreter(input);
+        }
+    }
+
+    @Test
+    void nonIntegerArgumentsShouldStillBeInterpreted() {
+        Jit.setThreshold(1);
+        MonkeyObject result = run(
+            "let f = fn(x) { x + 1 }; f(1); f(\"one\")", new Environment());
+
+        assertInstanceOf(MonkeyError.class, result);
+        assertEquals("type mismatch: STRING + INTEGER",
+                     ((MonkeyError)result).message);
+    }
+
+    @Test
+    void rebindingTheSelfNameShouldDisableTheCompiledCall() {
+        Jit.setThreshold(1);
+        MonkeyObject result = run(
+            "let f = fn(n) { if (n < 1) { return 0; } f(n - 1) + 1 };"
+            + "let g = f; f(3);"
+            + "let f = fn(n) { 100 };"
+            + "g(3)", new Environment());
+
+        assertInstanceOf(MonkeyInt.class, result);
+        assertEquals(101, ((MonkeyInt)result).value);
+    }
+
+    @Test
+    void disabledJitShouldNeverCompile() {
+        Jit.setEnabled(false);
+        Jit.setThreshold(1);
+        Environment env = new Environment();
+        run("let f = fn(x) { x + 1 }; f(1); f(2)", env);
+
+        assertEquals(null, ((MonkeyFunction)env.Get("f")).compiled);
+    }
+}
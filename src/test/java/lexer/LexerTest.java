@@ -1,12 +1,45 @@
 package lexer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.api.Test;
 import token.Token;
+import token.TokenType;
 
 //TODO:refactor this whole file sometime
 public class LexerTest{
-    public static void testMultilineInput(String output, String[] expectedOutput) {
+    static String largeInput() {
+        StringBuilder out = new StringBuilder("let data = [");
+        for (int i = 0; i < 20000; i++) {
+            out.append("{\"id\": ").append(i).append(", \"name\": \"item").append(i).append("\"}, ");
+        }
+        // A single token longer than the lexer's window.
+        out.append("\"").append("x".repeat(200000)).append("\"];");
+        return out.toString();
+    }
+
+    static void testSameTokens(String input, Lexer streaming) {
+        Lexer l = new Lexer(input);
+        Token expected;
+        do {
+            expected = l.nextToken();
+            Token actual = streaming.nextToken();
+            assertEquals(expected, actual);
+            assertEquals(expected.line, actual.line);
+            assertEquals(expected.column, actual.column);
+        } while (expected.type != Token.EOF);
+    }
+
+    public static void testMultilineInput(String output, TokenType[] expectedOutput) {
         var l = new Lexer(output);
         for (int i = 0; i < expectedOutput.length; i++) {
             Token tok = l.nextToken();
@@ -200,7 +233,7 @@ public class LexerTest{
         
         let result = add(five,  ten);""";
 
-        String expectedOutput[] = {
+        TokenType expectedOutput[] = {
             Token.LET,
             Token.IDENT,
             Token.ASSIGN,
@@ -255,7 +288,7 @@ public class LexerTest{
             return false;
         }
         """;
-        String expectedOutput[] = {
+        TokenType expectedOutput[] = {
             Token.BANG,
             Token.MINUS,
             Token.SLASH,
@@ -296,7 +329,7 @@ public class LexerTest{
         String input = """
             10 == 10;
             10 != 9;""";
-        String expectedOutput[] = {
+        TokenType expectedOutput[] = {
             Token.INT,
             Token.EQ,
             Token.INT,
@@ -367,4 +400,135 @@ public class LexerTest{
             assertEquals(tok, l.nextToken());
         }
     }
+
+    @Test
+    void tokenizeShouldMatchNextTokenForEveryToken() {
+        String input = "let add = fn(x, y) { x + y; };\n"
+                     + "if (add(1, 22) != 23) { return \"no\"; } else { [true, false][0] == !5 }"
+                     + "{\"k\": 1}; 10 < 9 > 8 * 7 / 6 - 5 @";
+        TokenBuffer buffer = new Lexer(input).tokenize(new TokenBuffer());
+        Lexer l = new Lexer(input);
+
+        for (int i = 0; i < buffer.size(); i++) {
+            Token expected = l.nextToken();
+            assertEquals(expected.type, buffer.type(i));
+            assertEquals(expected.literal, buffer.literal(i));
+        }
+        assertEquals(Token.EOF, buffer.type(buffer.size() - 1));
+    }
+
+    @Test
+    void tokenizeShouldRecordTokenBoundsInTheSource() {
+        String input = "let answer = \"forty two\";";
+        TokenBuffer buffer = new Lexer(input).tokenize(new TokenBuffer());
+
+        assertEquals(6, buffer.size());
+        assertEquals(4, buffer.start(1));
+        assertEquals(10, buffer.end(1));
+        // String bounds leave out the quotes.
+        assertEquals(Token.STRING, buffer.type(3));
+        assertEquals(14, buffer.start(3));
+        assertEquals(23, buffer.end(3));
+    }
+
+    @Test
+    void tokenBuffersShouldBeReusable() {
+        TokenBuffer buffer = new TokenBuffer();
+        new Lexer("let x = 1; let y = 2; let z = 3;").tokenize(buffer);
+        new Lexer("x").tokenize(buffer);
+
+        assertEquals(2, buffer.size());
+        assertEquals(new Token(Token.IDENT, "x"), buffer.token(0));
+        assertEquals(Token.EOF, buffer.type(1));
+    }
+
+    @Test
+    void repeatedIdentifiersShouldShareOneString() {
+        Lexer l = new Lexer("counter + counter");
+        Token first = l.nextToken();
+        l.nextToken();
+        Token second = l.nextToken();
+
+        assertSame(first.literal, second.literal);
+    }
+
+    @Test
+    void readerLexerShouldMatchStringLexerAcrossWindowBoundaries() {
+        String input = largeInput();
+        testSameTokens(input, new Lexer(new StringReader(input)));
+    }
+
+    @Test
+    void mappedFileLexerShouldMatchStringLexer(@TempDir Path dir) throws IOException {
+        String input = largeInput() + " let greeting = \"h\u00e9llo w\u00f6rld \u2713\";";
+        Path file = dir.resolve("data.monkey");
+        Files.writeString(file, input, StandardCharsets.UTF_8);
+
+        testSameTokens(input, Lexer.mapFile(file));
+    }
+
+    @Test
+    void surrogatePairsShouldSurviveTheEdgeOfTheWindow(@TempDir Path dir) throws IOException {
+        // The first 64k window ends right before the emoji; sliding it past
+        // the opening quote leaves room for just one char.
+        String input = "\"" + "a".repeat((1 << 16) - 1) + "\ud83d\ude00\" + 1";
+        Path file = dir.resolve("emoji.monkey");
+        Files.writeString(file, input, StandardCharsets.UTF_8);
+
+        testSameTokens(input, Lexer.mapFile(file));
+    }
+
+    @Test
+    void tokenizeShouldRefuseAStreamingLexer() {
+        Lexer l = new Lexer(new StringReader("let x = 1;"));
+        assertThrows(IllegalStateException.class, () -> l.tokenize(new TokenBuffer()));
+    }
+
+    @Test
+    void manyDistinctIdentifiersShouldAllKeepTheirSpelling() {
+        StringBuilder input = new StringBuilder();
+        for (char a = 'a'; a <= 'z'; a++) {
+            for (char b = 'a'; b <= 'z'; b++) {
+                input.append("let v").append(a).append(b).append(" = 1;");
+            }
+        }
+
+        Lexer l = new Lexer(input.toString());
+        for (char a = 'a'; a <= 'z'; a++) {
+            for (char b = 'a'; b <= 'z'; b++) {
+                assertEquals(new Token(Token.LET, "let"), l.nextToken());
+                assertEquals(new Token(Token.IDENT, "v" + a + b), l.nextToken());
+                l.nextToken();
+                l.nextToken();
+                l.nextToken();
+            }
+        }
+    }
+
+    @Test
+    void tokensShouldCarryTheirLineAndColumn() {
+        String input = "let five = 5;\n\n  let s = \"two\nlines\";\n\tfn(x) {\n x }";
+        int[][] expected = {
+            {1, 1}, {1, 5}, {1, 10}, {1, 12}, {1, 13},
+            {3, 3}, {3, 7}, {3, 9}, {3, 11}, {4, 7},
+            {5, 2}, {5, 4}, {5, 5}, {5, 6}, {5, 8},
+            {6, 2}, {6, 4}, {6, 5},
+        };
+
+        Lexer l = new Lexer(input);
+        TokenBuffer buffer = new Lexer(input).tokenize(new TokenBuffer());
+        for (int i = 0; i < expected.length; i++) {
+            Token tok = l.nextToken();
+            assertEquals(expected[i][0], tok.line, "line of token " + i);
+            assertEquals(expected[i][1], tok.column, "column of token " + i);
+            assertEquals(expected[i][0], buffer.line(i), "buffered line of token " + i);
+            assertEquals(expected[i][1], buffer.column(i), "buffered column of token " + i);
+        }
+    }
+
+    @Test
+    void streamingLexerShouldKeepCountingLinesAcrossWindows() {
+        String input = largeInput().replace(", ", ",\n");
+        testSameTokens(input, new Lexer(new StringReader(input)));
+    }
 }
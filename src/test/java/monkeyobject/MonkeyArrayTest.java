@@ -0,0 +1,80 @@
+package monkeyobject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class MonkeyArrayTest {
+    /* Helper Functions */
+    MonkeyObject[] integers(int from, int to) {
+        MonkeyObject[] out = new MonkeyObject[to - from];
+        for (int i = from; i < to; i++) {
+            out[i - from] = MonkeyInt.valueOf(i);
+        }
+        return out;
+    }
+
+    void testContents(MonkeyArray arr, int from, int to) {
+        assertEquals(to - from, arr.size());
+        for (int i = 0; i < arr.size(); i++) {
+            assertEquals(from + i, ((MonkeyInt)arr.get(i)).value, "index " + i);
+        }
+    }
+
+    /* Tests */
+    @Test
+    void arraysBuiltFromLargeInputsShouldKeepEveryElement() {
+        // Crosses several leaf and level boundaries of the trie.
+        for (int size : new int[] {0, 1, 31, 32, 33, 1024, 1025, 1056, 40000}) {
+            testContents(new MonkeyArray(integers(0, size)), 0, size);
+        }
+    }
+
+    @Test
+    void pushShouldLeaveTheOriginalUntouched() {
+        MonkeyArray arr = new MonkeyArray(new MonkeyObject[0]);
+        MonkeyArray[] versions = new MonkeyArray[2000];
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = arr;
+            arr = arr.push(MonkeyInt.valueOf(i));
+        }
+
+        testContents(arr, 0, 2000);
+        for (int i = 0; i < versions.length; i += 97) {
+            testContents(versions[i], 0, i);
+        }
+    }
+
+    @Test
+    void restShouldBeAViewOfTheSameElements() {
+        MonkeyArray arr = new MonkeyArray(integers(0, 100));
+        MonkeyArray tail = arr.rest().rest();
+
+        testContents(tail, 2, 100);
+        assertSame(arr.get(2), tail.first());
+        assertSame(arr.last(), tail.last());
+        testContents(arr, 0, 100);
+    }
+
+    @Test
+    void pushAfterRestShouldAppendToTheView() {
+        MonkeyArray arr = new MonkeyArray(integers(0, 10));
+        for (int i = 0; i < 500; i++) {
+            arr = arr.rest().push(MonkeyInt.valueOf(10 + i));
+        }
+
+        testContents(arr, 500, 510);
+    }
+
+    @Test
+    void arraysWithTheSameElementsShouldBeEqual() {
+        MonkeyArray built = new MonkeyArray(integers(0, 50));
+        MonkeyArray pushed = new MonkeyArray(integers(0, 49)).push(MonkeyInt.valueOf(49));
+        MonkeyArray rested = new MonkeyArray(integers(-1, 50)).rest();
+
+        assertEquals(built, pushed);
+        assertEquals(built, rested);
+        assertEquals("[1, 2]", new MonkeyArray(integers(0, 3)).rest().Inspect());
+    }
+}
@@ -0,0 +1,112 @@
+package monkeyobject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class MonkeyHashTest {
+    /* Helper Functions */
+    MonkeyHash integers(int from, int to) {
+        MonkeyHash hash = new MonkeyHash();
+        for (int i = from; i < to; i++) {
+            MonkeyInt key = MonkeyInt.valueOf(i);
+            hash = hash.put(key.getHashKey(), new HashPair(key, MonkeyInt.valueOf(i * 2)));
+        }
+        return hash;
+    }
+
+    void testContents(MonkeyHash hash, int from, int to) {
+        assertEquals(to - from, hash.size());
+        for (int i = from; i < to; i++) {
+            HashPair pair = hash.get(MonkeyInt.valueOf(i).getHashKey());
+            assertEquals(i * 2, ((MonkeyInt)pair.value).value, "key " + i);
+        }
+    }
+
+    /* Tests */
+    @Test
+    void hashesWithManyKeysShouldKeepEveryPair() {
+        for (int size : new int[] {0, 1, 32, 33, 1025, 40000}) {
+            testContents(integers(0, size), 0, size);
+        }
+    }
+
+    @Test
+    void putShouldLeaveTheOriginalUntouched() {
+        MonkeyHash before = integers(0, 100);
+        MonkeyInt key = MonkeyInt.valueOf(5);
+        MonkeyHash after = before.put(key.getHashKey(), new HashPair(key, MonkeyInt.valueOf(-1)));
+
+        testContents(before, 0, 100);
+        assertEquals(100, after.size());
+        assertEquals(-1, ((MonkeyInt)after.get(key.getHashKey()).value).value);
+    }
+
+    @Test
+    void deleteShouldRemoveOnlyTheGivenKey() {
+        MonkeyHash hash = integers(0, 2000);
+        for (int i = 1000; i < 2000; i++) {
+            hash = hash.delete(MonkeyInt.valueOf(i).getHashKey());
+        }
+
+        testContents(hash, 0, 1000);
+        assertNull(hash.get(MonkeyInt.valueOf(1500).getHashKey()));
+        testContents(integers(0, 2000), 0, 2000);
+    }
+
+    @Test
+    void deletingAMissingKeyShouldReturnTheSameHash() {
+        MonkeyHash hash = integers(0, 10);
+        assertSame(hash, hash.delete(MonkeyInt.valueOf(42).getHashKey()));
+    }
+
+    @Test
+    void keysWithTheSameHashShouldBeKeptApart() {
+        MonkeyInt seven = MonkeyInt.valueOf(7);
+        MonkeyInt eight = MonkeyInt.valueOf(8);
+        HashKey low = new HashKey(ObjectType.INTEGER, 42, seven);
+        HashKey high = new HashKey(ObjectType.INTEGER, 42, eight);
+        MonkeyHash hash = new MonkeyHash()
+            .put(low, new HashPair(seven, MonkeyInt.valueOf(1)))
+            .put(high, new HashPair(eight, MonkeyInt.valueOf(2)));
+
+        assertEquals(2, hash.size());
+        assertEquals(1, ((MonkeyInt)hash.get(low).value).value);
+        assertEquals(2, ((MonkeyInt)hash.get(high).value).value);
+
+        hash = hash.delete(low);
+        assertEquals(1, hash.size());
+        assertNull(hash.get(low));
+        assertEquals(2, ((MonkeyInt)hash.get(high).value).value);
+    }
+
+    @Test
+    void largeIntegerKeysShouldNotCollideAfterTruncation() {
+        MonkeyHash hash = new MonkeyHash();
+        for (long i = 0; i < 1000; i++) {
+            MonkeyInt key = MonkeyInt.valueOf(i << 32);
+            hash = hash.put(key.getHashKey(), new HashPair(key, key));
+        }
+
+        assertEquals(1000, hash.size());
+        for (long i = 0; i < 1000; i++) {
+            MonkeyInt key = MonkeyInt.valueOf(i << 32);
+            assertEquals(i << 32, ((MonkeyInt)hash.get(key.getHashKey()).value).value);
+        }
+    }
+
+    @Test
+    void inspectShouldListPairsSortedByKey() {
+        MonkeyHash hash = new MonkeyHash();
+        MonkeyObject[] keys = {new MonkeyString("d"), MonkeyInt.valueOf(10), new MonkeyString("a"),
+                               MonkeyBool.TRUE, MonkeyInt.valueOf(-3), new MonkeyString("c"),
+                               MonkeyBool.FALSE};
+        for (MonkeyObject key : keys) {
+            hash = hash.put(((Hashable)key).getHashKey(), new HashPair(key, MonkeyInt.valueOf(1)));
+        }
+
+        assertEquals("{-3: 1, 10: 1, false: 1, true: 1, a: 1, c: 1, d: 1}", hash.Inspect());
+    }
+}
@@ -0,0 +1,62 @@
+package monkeyobject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class MonkeyRangeTest {
+    /* Helper Functions */
+    void testContents(MonkeyRange range, long... expected) {
+        assertEquals(expected.length, range.knownLength());
+
+        MonkeySequence.Cursor cursor = range.cursor(null);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], ((MonkeyInt)range.get(i, null)).value, "index " + i);
+            assertEquals(expected[i], ((MonkeyInt)cursor.next()).value, "element " + i);
+        }
+        assertNull(cursor.next());
+        assertSame(MonkeyNull.NULL, range.get(expected.length, null));
+    }
+
+    /* Tests */
+    @Test
+    void rangesShouldStopBeforeTheirEnd() {
+        testContents(new MonkeyRange(0, 5, 1), 0, 1, 2, 3, 4);
+        testContents(new MonkeyRange(1, 10, 3), 1, 4, 7);
+        testContents(new MonkeyRange(1, 11, 3), 1, 4, 7, 10);
+        testContents(new MonkeyRange(-2, 2, 1), -2, -1, 0, 1);
+    }
+
+    @Test
+    void negativeStepsShouldCountDown() {
+        testContents(new MonkeyRange(5, 0, -1), 5, 4, 3, 2, 1);
+        testContents(new MonkeyRange(10, 0, -4), 10, 6, 2);
+    }
+
+    @Test
+    void rangesThatNeverReachTheirEndShouldBeEmpty() {
+        testContents(new MonkeyRange(5, 5, 1));
+        testContents(new MonkeyRange(5, 0, 1));
+        testContents(new MonkeyRange(0, 5, -1));
+    }
+
+    @Test
+    void restShouldDropOneElementAtATime() {
+        MonkeyRange range = new MonkeyRange(0, 7, 3);
+        testContents(range.rest(), 3, 6);
+        testContents(range.rest().rest(), 6);
+        testContents(range.rest().rest().rest());
+        testContents(range.rest().rest().rest().rest());
+    }
+
+    @Test
+    void hugeRangesShouldNotOverflowTheirLength() {
+        assertEquals(Long.MAX_VALUE, new MonkeyRange(Long.MIN_VALUE, Long.MAX_VALUE, 1).knownLength());
+        assertEquals(3, new MonkeyRange(Long.MIN_VALUE, Long.MAX_VALUE, Long.MAX_VALUE).knownLength());
+        assertEquals(2, new MonkeyRange(Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE).knownLength());
+        assertEquals(Long.MAX_VALUE - 1,
+                     ((MonkeyInt)new MonkeyRange(0, Long.MAX_VALUE, 1).get(Long.MAX_VALUE - 1, null)).value);
+    }
+}
@@ -1,6 +1,9 @@
 package monkeyobject;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import org.junit.jupiter.api.Test;
 
@@ -16,4 +19,88 @@ public class ObjectTest {
         assert(diff1.getHashKey().equals(diff2.getHashKey()));
         assertFalse(hello1.getHashKey().equals(diff2.getHashKey()));
     }
+
+    @Test
+    void stringsWithEqualJavaHashCodesShouldHaveDifferentHashKeys() {
+        // "Aa" and "BB" share a String.hashCode().
+        MonkeyString aa = new MonkeyString("Aa");
+        MonkeyString bb = new MonkeyString("BB");
+
+        assertEquals(aa.value().hashCode(), bb.value().hashCode());
+        assertFalse(aa.getHashKey().equals(bb.getHashKey()));
+    }
+
+    @Test
+    void hashKeysShouldComparePastTheHashToTheKeyItself() {
+        HashKey one = new HashKey(ObjectType.STRING, 99, new MonkeyString("one"));
+        HashKey two = new HashKey(ObjectType.STRING, 99, new MonkeyString("two"));
+
+        assertFalse(one.equals(two));
+        assertEquals(one, new HashKey(ObjectType.STRING, 99, new MonkeyString("one")));
+    }
+
+    @Test
+    void concatenatedStringsShouldFlattenInOrder() {
+        MonkeyString str = new MonkeyString("");
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            String fragment = "fragment " + i + ", ";
+            str = str.concat(new MonkeyString(fragment));
+            expected.append(fragment);
+        }
+
+        assertEquals(expected.length(), str.length());
+        assertEquals(expected.toString(), str.Inspect());
+    }
+
+    @Test
+    void concatenatedStringsShouldHashAndCompareLikeFlatOnes() {
+        String longText = "a fragment long enough to skip the eager copy ";
+        MonkeyString rope = new MonkeyString(longText).concat(new MonkeyString(longText));
+        MonkeyString flat = new MonkeyString(longText + longText);
+
+        assertEquals(flat, rope);
+        assertEquals(flat.getHashKey(), rope.getHashKey());
+    }
+
+    @Test
+    void hashKeysShouldBeCachedOnStringsAndIntegers() {
+        MonkeyString str = new MonkeyString("cached");
+        MonkeyInt num = new MonkeyInt(1L << 40);
+
+        assertSame(str.getHashKey(), str.getHashKey());
+        assertSame(num.getHashKey(), num.getHashKey());
+        assertEquals(new MonkeyInt(1L << 40).getHashKey(), num.getHashKey());
+    }
+
+    @Test
+    void typeNamesShouldMatchTheirTags() {
+        assertEquals(ObjectType.INTEGER, new MonkeyInt(1).objectType());
+        assertEquals("INTEGER", new MonkeyInt(1).Type());
+        assertEquals("BOOLEAN", MonkeyBool.TRUE.Type());
+        assertEquals("NULL", MonkeyNull.NULL.Type());
+        assertEquals("STRING", new MonkeyString("").Type());
+        assertEquals("ERROR", new MonkeyError("oops").Type());
+    }
+
+    @Test
+    void closuresShouldReportTheSameTypeAsFunctions() {
+        MonkeyClosure closure = new MonkeyClosure(
+            new MonkeyCompiledFunction(new byte[0], 0, 0, new String[0]),
+            new MonkeyObject[0]);
+
+        assertEquals(ObjectType.FUNCTION, closure.objectType());
+        assertEquals("FUNCTION", closure.Type());
+    }
+
+    @Test
+    void smallIntegersShouldComeFromTheCache() {
+        assertSame(MonkeyInt.valueOf(0), MonkeyInt.valueOf(0));
+        assertSame(MonkeyInt.valueOf(MonkeyInt.CACHE_LOW), MonkeyInt.valueOf(MonkeyInt.CACHE_LOW));
+        assertSame(MonkeyInt.valueOf(MonkeyInt.CACHE_HIGH), MonkeyInt.valueOf(MonkeyInt.CACHE_HIGH));
+        assertNotSame(MonkeyInt.valueOf(MonkeyInt.CACHE_HIGH + 1),
+                      MonkeyInt.valueOf(MonkeyInt.CACHE_HIGH + 1));
+        assertEquals(-5, MonkeyInt.valueOf(-5).value);
+        assertEquals(1L << 40, MonkeyInt.valueOf(1L << 40).value);
+    }
 }
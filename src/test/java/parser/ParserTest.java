@@ -30,6 +30,7 @@ import ast.ReturnStatement;
 import ast.Statement;
 import ast.StringLiteral;
 import lexer.Lexer;
+import lexer.TokenBuffer;
 import token.Token;
 
 //TODO: refactor me!
@@ -1190,4 +1191,14 @@ public class ParserTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    void programsParsedFromATokenBufferShouldMatchThoseParsedFromTheLexer() {
+        String input = "let f = fn(a, b) { if (a < b) { a * (b + 2) } else { [a, {\"k\": b}][1] } }; f(1, 2);";
+        TokenBuffer buffer = new Lexer(input).tokenize(new TokenBuffer());
+        var p = new Parser(buffer);
+        var prog = p.parseProgram();
+        checkParseErrors(p);
+
+        assertEquals(new Parser(new Lexer(input)).parseProgram().toString(), prog.toString());
+    }
+}
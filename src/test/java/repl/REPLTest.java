@@ -0,0 +1,51 @@
+package repl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class REPLTest {
+    @TempDir
+    Path dir;
+
+    /* Helper Functions */
+    String runFile(String input, Engine engine, long maxSteps, long timeoutMillis,
+                   long maxMemory) throws IOException {
+        Path script = dir.resolve("script.mk");
+        Files.writeString(script, input);
+
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out, true));
+        try {
+            REPL.runFile(script, engine, 10000, maxSteps, timeoutMillis, maxMemory);
+        } finally {
+            System.setOut(stdout);
+        }
+        return out.toString().trim();
+    }
+
+    /* Tests */
+    @Test
+    void runFileShouldEnforceTheLimitsItIsGivenOnEveryEngine() throws IOException {
+        String loop = "let loop = fn(n) { loop(n + 1) }; loop(0);";
+        String grow = "let grow = fn(acc) { grow(push(acc, acc)) }; grow([]);";
+        for (Engine engine : Engine.values()) {
+            assertEquals("ERROR: step limit exceeded: 1000",
+                         runFile(loop, engine, 1000, -1, -1), engine.toString());
+            assertEquals("ERROR: time limit exceeded: 50 ms",
+                         runFile(loop, engine, -1, 50, -1), engine.toString());
+            assertEquals("ERROR: memory limit exceeded: 10000 bytes",
+                         runFile(grow, engine, -1, -1, 10000), engine.toString());
+            assertEquals("3", runFile("puts(1 + 2);", engine, 1000, 1000, 10000),
+                         engine.toString());
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package resolver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import ast.BlockStatement;
+import ast.CallExpression;
+import ast.ExpressionStatement;
+import ast.FunctionLiteral;
+import ast.Identifier;
+import ast.IfExpression;
+import ast.InfixExpression;
+import ast.LetStatement;
+import ast.Program;
+import ast.ReturnStatement;
+import evaluator.Evaluator;
+import lexer.Lexer;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyObject;
+import parser.Parser;
+
+class ResolverTest {
+    /* Helper Functions */
+    Program parse(String input) {
+        return new Parser(new Lexer(input)).parseProgram();
+    }
+
+    FunctionLiteral firstFunction(Program prog) {
+        var stmt = prog.statements[0];
+        if (stmt instanceof LetStatement) {
+            return (FunctionLiteral)((LetStatement)stmt).value;
+        }
+        return (FunctionLiteral)((ExpressionStatement)stmt).expression;
+    }
+
+    void testCoordinate(Identifier ident, int depth, int slot) {
+        assertEquals(depth, ident.depth, "depth of " + ident.value);
+        assertEquals(slot, ident.slot, "slot of " + ident.value);
+    }
+
+    void testEvalInteger(String input, long expected) {
+        MonkeyObject evaluated = Evaluator.eval(parse(input), new Environment());
+        assertInstanceOf(MonkeyInt.class, evaluated);
+        assertEquals(expected, ((MonkeyInt)evaluated).value);
+    }
+
+    /* Tests */
+    @Test
+    void parametersAndLetsShouldGetSlotsInDeclarationOrder() {
+        FunctionLiteral fn = firstFunction(parse("fn(a, b) { let c = a; b }"));
+
+        assertEquals(3, fn.frameSize);
+        testCoordinate(fn.parameters.get(0), 0, 0);
+        testCoordinate(fn.parameters.get(1), 0, 1);
+
+        LetStatement let = (LetStatement)fn.body.statements[0];
+        testCoordinate(let.name, 0, 2);
+        testCoordinate((Identifier)let.value, 0, 0);
+    }
+
+    @Test
+    void freeVariablesShouldPointAtTheEnclosingFrame() {
+        FunctionLiteral outer = firstFunction(parse("fn(a) { fn(b) { a + b } }"));
+        var innerStmt = (ExpressionStatement)outer.body.statements[0];
+        FunctionLiteral inner = (FunctionLiteral)innerStmt.expression;
+        var sum = (InfixExpression)((ExpressionStatement)inner.body.statements[0]).expression;
+
+        testCoordinate((Identifier)sum.left, 1, 0);
+        testCoordinate((Identifier)sum.right, 0, 0);
+    }
+
+    @Test
+    void globalsShouldBeLookedUpByNameAtTheTopLevel() {
+        Program prog = parse("let x = 1; let f = fn() { fn() { x } }; x");
+
+        FunctionLiteral outer = (FunctionLiteral)((LetStatement)prog.statements[1]).value;
+        var inner = (FunctionLiteral)((ExpressionStatement)outer.body.statements[0]).expression;
+        var read = (Identifier)((ExpressionStatement)inner.body.statements[0]).expression;
+        testCoordinate(read, 2, -1);
+
+        var topLevelRead = (Identifier)((ExpressionStatement)prog.statements[2]).expression;
+        testCoordinate(topLevelRead, 0, -1);
+        testCoordinate(((LetStatement)prog.statements[0]).name, 0, -1);
+    }
+
+    @Test
+    void readsBeforeALetInTheSameFunctionShouldSeeTheOuterBinding() {
+        FunctionLiteral fn = firstFunction(parse("fn(x) { fn() { let y = y; y } }"));
+        var inner = (FunctionLiteral)((ExpressionStatement)fn.body.statements[0]).expression;
+        LetStatement let = (LetStatement)inner.body.statements[0];
+
+        testCoordinate((Identifier)let.value, 2, -1);
+        var after = (Identifier)((ExpressionStatement)inner.body.statements[1]).expression;
+        testCoordinate(after, 0, 0);
+    }
+
+    @Test
+    void letsInsideIfBlocksShouldShareTheFunctionFrame() {
+        FunctionLiteral fn = firstFunction(parse("fn(c) { if (c) { let a = 1; } else { let b = 2; }; 0 }"));
+        assertEquals(3, fn.frameSize);
+    }
+
+    @Test
+    void returnStatementsShouldBeResolvedToo() {
+        FunctionLiteral fn = firstFunction(parse("fn(n) { return n; }"));
+        var ret = (ReturnStatement)fn.body.statements[0];
+        testCoordinate((Identifier)ret.returnValue, 0, 0);
+    }
+
+    @Test
+    void nestedFunctionsShouldSeeSiblingsBoundLater() {
+        testEvalInteger("let f = fn() { let a = fn() { b() }; let b = fn() { 7 }; a() }; f()", 7);
+    }
+
+    @Test
+    void shadowingAnOuterNameShouldOnlyAffectLaterReads() {
+        testEvalInteger("let x = 10; let f = fn() { let y = x + 1; let x = 1; x + y }; f()", 12);
+    }
+
+    @Test
+    void emptySlotsShouldFallBackToOuterBindings() {
+        testEvalInteger("let x = 5; let f = fn(c) { if (c) { let x = 1; } x }; f(false)", 5);
+        testEvalInteger("let x = 5; let f = fn(c) { if (c) { let x = 1; } x }; f(true)", 1);
+    }
+
+    @Test
+    void deeplyNestedClosuresShouldReadTheRightFrames() {
+        testEvalInteger("let f = fn(a) { fn(b) { fn(c) { a * 100 + b * 10 + c } } }; f(1)(2)(3)", 123);
+    }
+
+    @Test
+    void callArgumentsShouldBeResolved() {
+        Program prog = parse("fn(f, x) { f(x) }");
+        FunctionLiteral fn = firstFunction(prog);
+        var call = (CallExpression)((ExpressionStatement)fn.body.statements[0]).expression;
+        testCoordinate((Identifier)call.function, 0, 0);
+        testCoordinate((Identifier)call.arguments[0], 0, 1);
+        assertInstanceOf(BlockStatement.class, fn.body);
+    }
+
+    @Test
+    void callsWhoseValueIsReturnedShouldBeMarkedAsTailCalls() {
+        FunctionLiteral fn = firstFunction(parse(
+            "fn(n) { if (n == 0) { return f(n); } let x = g(n); if (x) { h(x) } else { k(x) } }"));
+
+        var guard = (IfExpression)((ExpressionStatement)fn.body.statements[0]).expression;
+        var returned = (ReturnStatement)guard.consequence.statements[0];
+        assertTrue(((CallExpression)returned.returnValue).tail);
+
+        var let = (LetStatement)fn.body.statements[1];
+        assertFalse(((CallExpression)let.value).tail);
+
+        var last = (IfExpression)((ExpressionStatement)fn.body.statements[2]).expression;
+        var h = ((ExpressionStatement)last.consequence.statements[0]).expression;
+        var k = ((ExpressionStatement)last.alternative.statements[0]).expression;
+        assertTrue(((CallExpression)h).tail);
+        assertTrue(((CallExpression)k).tail);
+    }
+
+    @Test
+    void callsUsedAsOperandsShouldNotBeMarkedAsTailCalls() {
+        FunctionLiteral fn = firstFunction(parse("fn(n) { f(n); 1 + g(n) }"));
+
+        var first = ((ExpressionStatement)fn.body.statements[0]).expression;
+        var sum = (InfixExpression)((ExpressionStatement)fn.body.statements[1]).expression;
+        assertFalse(((CallExpression)first).tail);
+        assertFalse(((CallExpression)sum.right).tail);
+
+        var topLevel = ((ExpressionStatement)parse("f(1)").statements[0]).expression;
+        assertFalse(((CallExpression)topLevel).tail);
+    }
+
+    @Test
+    void onlyFunctionsThatCallNothingButLeafBuiltinsShouldBeMarkedPure() {
+        assertTrue(firstFunction(parse("fn(x) { x * 2 }")).pure);
+        assertTrue(firstFunction(parse("fn(xs) { len(push(xs, first(xs))) }")).pure);
+        assertTrue(firstFunction(parse("fn(x) { let f = fn() { x }; f }")).pure);
+        assertFalse(firstFunction(parse("fn(x) { puts(x) }")).pure);
+        assertFalse(firstFunction(parse("fn(x) { fn() { puts(x) } }")).pure);
+        assertFalse(firstFunction(parse("fn(c) { send(c, 1) }")).pure);
+        assertFalse(firstFunction(parse("fn(c) { recv(c) }")).pure);
+        assertFalse(firstFunction(parse("fn(f) { spawn(f) }")).pure);
+        assertFalse(firstFunction(parse("fn(xs) { map(xs, fn(x) { x }) }")).pure);
+        assertFalse(firstFunction(parse("fn(puts) { puts(1) }")).pure);
+        assertFalse(firstFunction(parse("fn(x) { g(x) }")).pure);
+        assertFalse(firstFunction(parse("fn(x) { fn(y) { y }(x) }")).pure);
+        assertFalse(firstFunction(parse("fn(x) { len(x) }; let len = fn(x) { puts(x) };")).pure);
+    }
+}
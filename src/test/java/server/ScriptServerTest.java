@@ -0,0 +1,193 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import cache.ProgramCache;
+import evaluator.Evaluator;
+import repl.Engine;
+
+public class ScriptServerTest {
+    /* Helper Functions */
+    static byte[] requests(String... sources) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < sources.length; i++) {
+            Frames.write(out, Integer.toString(i), sources[i]);
+        }
+        return out.toByteArray();
+    }
+
+    static Map<Long, Response> responses(byte[] bytes) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        Map<Long, Response> responses = new HashMap<>();
+        String[] header;
+        while ((header = Frames.readHeader(in)) != null) {
+            long id = Long.parseLong(header[0]);
+            responses.put(id, new Response(id, header[1].equals("OK"),
+                                           Frames.readBody(in, header[2])));
+        }
+        return responses;
+    }
+
+    void testOk(Response response, String expected) {
+        assertTrue(response.ok, response.toString());
+        assertEquals(expected, response.body);
+    }
+
+    void testErr(Response response, String expected) {
+        assertFalse(response.ok, response.toString());
+        assertEquals(expected, response.body);
+    }
+
+    /* Tests */
+    @Test
+    void clientsShouldGetResultsAndErrorsBackOverTheSocket() throws IOException {
+        for (Engine engine : Engine.values()) {
+            try (ScriptServer server = new ScriptServer(engine, new ProgramCache());
+                 ScriptClient client = new ScriptClient(server.listen(0))) {
+                testOk(client.eval("1 + 2;"), "3");
+                testOk(client.eval("let s = \"mon\" + \"key\"; s;"), "monkey");
+                testErr(client.eval("5 + true;"),
+                        String.format(Evaluator.TYPE_MISMATCH_ERR_FMT, "INTEGER", "+", "BOOLEAN"));
+                assertTrue(client.eval("let = 5;").body.startsWith("parse error: "));
+            }
+        }
+    }
+
+    @Test
+    void scriptsShouldNotSeeEachOthersGlobals() throws IOException {
+        for (Engine engine : Engine.values()) {
+            try (ScriptServer server = new ScriptServer(engine, new ProgramCache());
+                 ScriptClient client = new ScriptClient(server.listen(0))) {
+                testOk(client.eval("let x = 5; x;"), "5");
+                testErr(client.eval("x;"),
+                        String.format(Evaluator.IDENTIFIER_NOT_FOUND_ERR_FMT, "x"));
+            }
+        }
+    }
+
+    @Test
+    void limitsShouldApplyToEveryScript() throws IOException {
+        for (Engine engine : Engine.values()) {
+            try (ScriptServer server = new ScriptServer(engine, new ProgramCache())) {
+                server.setFuel(10000);
+                try (ScriptClient client = new ScriptClient(server.listen(0))) {
+                    testErr(client.eval("let f = fn(x) { f(x) }; f(1);"),
+                            String.format(Evaluator.OUT_OF_FUEL_ERR_FMT, 10000));
+                    testOk(client.eval("1 + 1;"), "2");
+                }
+            }
+        }
+    }
+
+    @Test
+    void scriptsBlockedOnAChannelShouldTimeOut() throws IOException {
+        for (Engine engine : Engine.values()) {
+            try (ScriptServer server = new ScriptServer(engine, new ProgramCache())) {
+                server.setTimeout(50);
+                try (ScriptClient client = new ScriptClient(server.listen(0))) {
+                    testErr(client.eval("recv(chan(0));"),
+                            String.format(Evaluator.TIMEOUT_ERR_FMT, 50));
+                    testOk(client.eval("await(spawn(fn(x) { x * 2 }, 21));"), "42");
+                }
+            }
+        }
+    }
+
+    @Test
+    void repeatedScriptsShouldComeFromTheCache() throws IOException {
+        ProgramCache cache = new ProgramCache();
+        try (ScriptServer server = new ScriptServer(Engine.VM, cache);
+             ScriptClient client = new ScriptClient(server.listen(0))) {
+            for (int i = 0; i < 5; i++) {
+                testOk(client.eval("len([1, 2, 3]);"), "3");
+            }
+            assertEquals(1, cache.misses());
+            assertEquals(4, cache.hits());
+            assertEquals(5, server.served());
+        }
+    }
+
+    @Test
+    void streamsShouldCarryManyRequestsAnsweredById() throws IOException {
+        byte[] input = requests("1 + 2;", "let = 5;", "puts(\"hi\"); [1, \"a\"][1];",
+                                "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } }; fib(15);");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (ScriptServer server = new ScriptServer(Engine.EVALUATOR, new ProgramCache())) {
+            server.serve(new ByteArrayInputStream(input), output);
+        }
+
+        Map<Long, Response> responses = responses(output.toByteArray());
+        assertEquals(4, responses.size());
+        testOk(responses.get(0L), "3");
+        assertTrue(responses.get(1L).body.startsWith("parse error: "));
+        testOk(responses.get(2L), "a");
+        testOk(responses.get(3L), "610");
+    }
+
+    @Test
+    void aConnectionShouldOnlyHaveMaxInFlightScriptsRunning() throws IOException {
+        byte[] input = requests("recv(chan(0));", "1 + 2;");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (ScriptServer server = new ScriptServer(Engine.EVALUATOR, new ProgramCache())) {
+            server.setTimeout(100);
+            server.setMaxInFlight(1);
+            server.serve(new ByteArrayInputStream(input), output);
+        }
+
+        // The second script can't start, let alone finish, before the first is answered.
+        ByteArrayInputStream in = new ByteArrayInputStream(output.toByteArray());
+        String[] first = Frames.readHeader(in);
+        assertEquals("0", first[0]);
+        assertEquals(String.format(Evaluator.TIMEOUT_ERR_FMT, 100), Frames.readBody(in, first[2]));
+        assertEquals("1", Frames.readHeader(in)[0]);
+    }
+
+    @Test
+    void manyClientsShouldBeServedAtOnce() throws Exception {
+        int clients = 32;
+        int requests = 20;
+
+        try (ScriptServer server = new ScriptServer(Engine.EVALUATOR, new ProgramCache())) {
+            int port = server.listen(0);
+            ExecutorService pool = Executors.newFixedThreadPool(clients);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int c = 0; c < clients; c++) {
+                    int n = c;
+                    futures.add(pool.submit(() -> {
+                        try (ScriptClient client = new ScriptClient(port)) {
+                            for (int i = 0; i < requests; i++) {
+                                testOk(client.eval(String.format("%d * %d;", n, i)),
+                                       Integer.toString(n * i));
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+            assertEquals(clients * requests, server.served());
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package specializer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import ast.Program;
+import evaluator.Evaluator;
+import lexer.Lexer;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyObject;
+import parser.Parser;
+
+class SpecializingInterpreterTest {
+    /* Helper Functions */
+    Program parse(String input) {
+        return new Parser(new Lexer(input)).parseProgram();
+    }
+
+    void testSameAsEvaluator(String input) {
+        MonkeyObject expected = Evaluator.eval(parse(input), new Environment());
+        MonkeyObject actual = SpecializingInterpreter.eval(parse(input),
+                                                           new Environment());
+
+        assertEquals(expected.Type(), actual.Type());
+        assertEquals(expected.Inspect(), actual.Inspect());
+    }
+
+    /*
+     * Builds "let f = fn(a, b) { a <op> b };" and hands back the node tree
+     * so tests can look at the infix node inside f after calling it.
+     */
+    SequenceNode buildAdder(String op) {
+        String input = "let f = fn(a, b) { a " + op + " b };";
+        return (SequenceNode)NodeBuilder.buildProgram(parse(input));
+    }
+
+    ExecNode infixNodeOf(Environment env) {
+        SpecializedFunction f = (SpecializedFunction)env.Get("f");
+        return ((SequenceNode)f.root.body).statement(0);
+    }
+
+    MonkeyObject call(Environment env, String input) {
+        return SpecializingInterpreter.eval(parse(input), env);
+    }
+
+    /* Tests */
+    @Test
+    void runawayNonTailRecursionShouldProduceAStackOverflowError() {
+        MonkeyObject result = SpecializingInterpreter.eval(
+            parse("let f = fn(n) { 1 + f(n + 1) }; f(0)"), new Environment());
+
+        assertInstanceOf(MonkeyError.class, result);
+        assertEquals(Evaluator.STACK_OVERFLOW_ERR_FMT, ((MonkeyError)result).message);
+    }
+
+    @Test
+    void integerArithmeticShouldMatchEvaluator() {
+        testSameAsEvaluator("(5 + 10 * 2 + 15 / 3) * 2 + -10");
+        testSameAsEvaluator("1 < 2 == true");
+    }
+
+    @Test
+    void stringsArraysAndHashesShouldMatchEvaluator() {
+        testSameAsEvaluator("\"Hello\" + \" \" + \"World!\"");
+        testSameAsEvaluator("let a = [1, 2 * 2, 3 + 3]; a[1] + a[2]");
+        testSameAsEvaluator("{\"one\": 10 - 9, true: 2}[\"one\"]");
+        testSameAsEvaluator("let map = fn(arr, f) { if (len(arr) == 0) { [] } else { let h = f(first(arr)); push(map(rest(arr), f), h) } }; map([1, 2, 3], fn(x) { x * 2 })");
+    }
+
+    @Test
+    void functionsAndClosuresShouldMatchEvaluator() {
+        testSameAsEvaluator("let fib = fn(x) { if (x < 2) { return x; } fib(x - 1) + fib(x - 2) }; fib(15)");
+        testSameAsEvaluator("let newAdder = fn(x) { fn(y) { x + y } }; let addTwo = newAdder(2); addTwo(3)");
+        testSameAsEvaluator("if (10 > 1) { if (10 > 1) { return 10; } return 1; }");
+    }
+
+    @Test
+    void tailRecursionShouldNotOverflowTheJavaStack() {
+        testSameAsEvaluator("let count = fn(n, acc) { if (n == 0) { acc } else { count(n - 1, acc + 1) } }; count(100000, 0)");
+        testSameAsEvaluator("let isEven = fn(n) { if (n == 0) { true } else { return isOdd(n - 1); } };"
+                            + "let isOdd = fn(n) { if (n == 0) { false } else { isEven(n - 1) } };"
+                            + "isEven(100001)");
+    }
+
+    @Test
+    void errorsShouldMatchEvaluator() {
+        testSameAsEvaluator("5 + true; 5;");
+        testSameAsEvaluator("-true");
+        testSameAsEvaluator("if (10 > 1) { true + false; }");
+        testSameAsEvaluator("\"Hello\" - \"World\"");
+        testSameAsEvaluator("foobar");
+        testSameAsEvaluator("{\"name\": \"Monkey\"}[fn(x) {x}];");
+        testSameAsEvaluator("len(1)");
+    }
+
+    @Test
+    void letStatementsShouldHaveNoValue() {
+        assertNull(SpecializingInterpreter.eval(parse("let a = 1;"), new Environment()));
+    }
+
+    @Test
+    void infixNodesShouldSpecializeOnIntegers() {
+        Environment env = new Environment();
+        buildAdder("+").execute(env);
+        assertInstanceOf(InfixNode.Uninitialized.class, infixNodeOf(env));
+
+        call(env, "f(1, 2)");
+        assertInstanceOf(IntInfixNode.Add.class, infixNodeOf(env));
+    }
+
+    @Test
+    void infixNodesShouldSpecializeOnStrings() {
+        Environment env = new Environment();
+        buildAdder("+").execute(env);
+
+        call(env, "f(\"a\", \"b\")");
+        assertInstanceOf(StringConcatNode.class, infixNodeOf(env));
+    }
+
+    @Test
+    void specializedNodesShouldDeoptimizeOnATypeChange() {
+        Environment env = new Environment();
+        buildAdder("+").execute(env);
+
+        call(env, "f(1, 2)");
+        MonkeyObject result = call(env, "f(\"a\", \"b\")");
+        assertEquals("ab", result.Inspect());
+        assertInstanceOf(InfixNode.Generic.class, infixNodeOf(env));
+
+        assertEquals("3", call(env, "f(1, 2)").Inspect());
+        assertInstanceOf(InfixNode.Generic.class, infixNodeOf(env));
+    }
+
+    @Test
+    void deoptimizedNodesShouldKeepTheEvaluatorsErrorMessages() {
+        Environment env = new Environment();
+        buildAdder("+").execute(env);
+
+        call(env, "f(1, 2)");
+        MonkeyObject result = call(env, "f(1, true)");
+        assertInstanceOf(MonkeyError.class, result);
+        assertEquals("type mismatch: INTEGER + BOOLEAN", ((MonkeyError)result).message);
+    }
+
+    @Test
+    void callSitesShouldCacheTheirTarget() {
+        SequenceNode prog = (SequenceNode)NodeBuilder.buildProgram(
+            parse("let f = fn(x) { x }; f(1); f(2);"));
+        prog.execute(new Environment());
+
+        assertInstanceOf(CallNode.Cached.class, prog.statement(1));
+        assertInstanceOf(CallNode.Cached.class, prog.statement(2));
+    }
+
+    @Test
+    void callSitesShouldStayCachedForClosuresOfTheSameLiteral() {
+        SequenceNode prog = (SequenceNode)NodeBuilder.buildProgram(parse(
+            "let adder = fn(x) { fn(y) { x + y } };" +
+            "let apply = fn(f) { f(1) };" +
+            "apply(adder(1)) + apply(adder(2))"));
+        MonkeyObject result = prog.execute(new Environment());
+
+        assertEquals("5", result.Inspect());
+    }
+
+    @Test
+    void callSitesShouldDeoptimizeWhenTheTargetChanges() {
+        Environment env = new Environment();
+        SequenceNode prog = (SequenceNode)NodeBuilder.buildProgram(parse(
+            "let apply = fn(f) { f(1) }; apply(fn(x) { x + 1 }); apply(fn(x) { x * 10 })"));
+        MonkeyObject result = prog.execute(env);
+
+        assertEquals("10", result.Inspect());
+        SpecializedFunction apply = (SpecializedFunction)env.Get("apply");
+        assertInstanceOf(CallNode.Generic.class, ((SequenceNode)apply.root.body).statement(0));
+    }
+
+    @Test
+    void higherOrderBuiltinsShouldMatchEvaluator() {
+        testSameAsEvaluator("let k = 10; map([1, 2, 3], fn(x) { x * k })");
+        testSameAsEvaluator("filter([1, 2, 3, 4], fn(x) { x > 2 })");
+        testSameAsEvaluator("reduce([1, 2, 3], 0, fn(a, b) { a + b })");
+        testSameAsEvaluator("pfilter(map([[1, 2], [3]], fn(xs) { pmap(xs, fn(x) { x + 1 }) }), fn(xs) { len(xs) > 1 })");
+    }
+
+    @Test
+    void callsWithTheWrongNumberOfArgumentsShouldMatchEvaluator() {
+        testSameAsEvaluator("let b = 99; let x = fn(a, b) { b }; x(1)");
+        testSameAsEvaluator("fn(a) { a }(1, 2)");
+        testSameAsEvaluator("let f = fn(n) { if (n == 0) { 0 } else { f() } }; f(3)");
+    }
+}
@@ -0,0 +1,257 @@
+package vm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import ast.Program;
+import compiler.Compiler;
+import evaluator.Evaluator;
+import lexer.Lexer;
+import monkeyobject.Environment;
+import monkeyobject.MonkeyArray;
+import monkeyobject.MonkeyBool;
+import monkeyobject.MonkeyError;
+import monkeyobject.MonkeyHash;
+import monkeyobject.MonkeyInt;
+import monkeyobject.MonkeyNull;
+import monkeyobject.MonkeyObject;
+import monkeyobject.MonkeyString;
+import parser.Parser;
+
+class VMTest {
+    /* Helper Functions */
+    Program parse(String input) {
+        Parser p = new Parser(new Lexer(input));
+        return p.parseProgram();
+    }
+
+    MonkeyObject testRun(String input) {
+        Compiler compiler = new Compiler();
+        compiler.compile(parse(input));
+        return new VM(compiler.bytecode()).run();
+    }
+
+    /*
+     * The VM is meant to be a drop-in replacement for the tree-walker, so
+     * most tests simply check that both engines agree.
+     */
+    void testSameAsEvaluator(String input) {
+        MonkeyObject expected = Evaluator.eval(parse(input), new Environment());
+        MonkeyObject actual = testRun(input);
+
+        assertEquals(expected.Type(), actual.Type());
+        assertEquals(expected.Inspect(), actual.Inspect());
+    }
+
+    void testIntegerObject(MonkeyObject obj, long expected) {
+        assertInstanceOf(MonkeyInt.class, obj);
+        assertEquals(expected, ((MonkeyInt)obj).value);
+    }
+
+    void testErrorObject(MonkeyObject obj, String expected) {
+        assertInstanceOf(MonkeyError.class, obj);
+        assertEquals(expected, ((MonkeyError)obj).message);
+    }
+
+    /* Tests */
+    @Test
+    void integerArithmeticShouldRespectPrecedence() {
+        testIntegerObject(testRun("(5 + 10 * 2 + 15 / 3) * 2 + -10"), 50);
+    }
+
+    @Test
+    void comparisonsShouldProduceBools() {
+        assertEquals(MonkeyBool.TRUE, testRun("1 < 2"));
+        assertEquals(MonkeyBool.FALSE, testRun("1 > 2"));
+        assertEquals(MonkeyBool.TRUE, testRun("(1 < 2) == true"));
+        assertEquals(MonkeyBool.TRUE, testRun("!(1 == 2)"));
+    }
+
+    @Test
+    void ifWithoutAlternativeShouldProduceNullWhenConditionIsFalse() {
+        assertInstanceOf(MonkeyNull.class, testRun("if (false) { 10 }"));
+        testIntegerObject(testRun("if (1 > 2) { 10 } else { 20 }"), 20);
+    }
+
+    @Test
+    void globalLetStatementsShouldBeReadable() {
+        testIntegerObject(testRun("let one = 1; let two = one + one; one + two"), 3);
+    }
+
+    @Test
+    void programEndingInALetStatementShouldHaveNoValue() {
+        assertNull(testRun("let a = 5;"));
+    }
+
+    @Test
+    void stringConcatenationShouldMatchEvaluator() {
+        testSameAsEvaluator("\"mon\" + \"key\" + \"banana\"");
+    }
+
+    @Test
+    void arrayAndHashLiteralsShouldMatchEvaluator() {
+        testSameAsEvaluator("[1, 2 * 2, 3 + 3]");
+        testSameAsEvaluator("[1, 2, 3][1 + 1]");
+        testSameAsEvaluator("{1: 2}[1]");
+        testSameAsEvaluator("{\"one\": 1}[\"two\"]");
+        assertInstanceOf(MonkeyArray.class, testRun("[]"));
+        assertInstanceOf(MonkeyHash.class, testRun("{}"));
+    }
+
+    @Test
+    void functionsWithReturnStatementsShouldReturnEarly() {
+        testIntegerObject(testRun("let f = fn() { return 99; 100; }; f();"), 99);
+        testIntegerObject(testRun("let f = fn() { return 5; }; f() + 1"), 6);
+    }
+
+    @Test
+    void functionsWithoutAReturnValueShouldProduceNull() {
+        assertInstanceOf(MonkeyNull.class, testRun("let f = fn() { }; f();"));
+    }
+
+    @Test
+    void closuresShouldCaptureTheirFreeVariables() {
+        String input = "let newAdder = fn(a, b) { fn(c) { a + b + c } };" +
+                       "let adder = newAdder(1, 2); adder(8);";
+        testIntegerObject(testRun(input), 11);
+    }
+
+    @Test
+    void recursiveClosuresDefinedInsideFunctionsShouldWork() {
+        String input = "let wrapper = fn() {" +
+                       "  let countDown = fn(x) { if (x == 0) { return 0; } else { countDown(x - 1); } };" +
+                       "  countDown(1);" +
+                       "}; wrapper();";
+        testIntegerObject(testRun(input), 0);
+    }
+
+    @Test
+    void globalsBoundLaterShouldBeVisibleInsideFunctions() {
+        String input = "let isEven = fn(n) { if (n == 0) { true } else { isOdd(n - 1) } };" +
+                       "let isOdd = fn(n) { if (n == 0) { false } else { isEven(n - 1) } };" +
+                       "isEven(10)";
+        assertEquals(MonkeyBool.TRUE, testRun(input));
+    }
+
+    @Test
+    void fibonacciShouldMatchEvaluator() {
+        testSameAsEvaluator(
+            "let fib = fn(x) { if (x < 2) { return x; } fib(x - 1) + fib(x - 2) }; fib(20)");
+    }
+
+    @Test
+    void builtinFunctionsShouldBeCallable() {
+        testIntegerObject(testRun("len(\"four\")"), 4);
+        testIntegerObject(testRun("last(push([1, 2], 3))"), 3);
+        testSameAsEvaluator("rest([1, 2, 3])");
+    }
+
+    @Test
+    void runtimeErrorsShouldUseTheEvaluatorsMessages() {
+        testErrorObject(testRun("5 + true; 5;"), "type mismatch: INTEGER + BOOLEAN");
+        testErrorObject(testRun("-true"), "unknown operator: -BOOLEAN");
+        testErrorObject(testRun("true < false"), "unknown operator: BOOLEAN < BOOLEAN");
+        testErrorObject(testRun("\"a\" - \"b\""), "unknown operator: STRING - STRING");
+        testErrorObject(testRun("foobar"), "identifier not found: foobar");
+        testErrorObject(testRun("{fn(x) { x }: 1}"), "unusable as hash key: FUNCTION");
+        testErrorObject(testRun("1(2)"), "not a function: INTEGER");
+        testErrorObject(testRun("len(1)"), "argument to 'len' not supported, got INTEGER");
+        testErrorObject(testRun("fn(a) { a }(1, 2)"), "wrong number of arguments: got=2, want=1");
+    }
+
+    @Test
+    void errorsShouldAbortTheRestOfTheProgram() {
+        testErrorObject(testRun("let f = fn() { 1 + \"a\" }; f(); 10"),
+                        "type mismatch: INTEGER + STRING");
+    }
+
+    @Test
+    void globalsShouldPersistAcrossRunsWhenStateIsShared() {
+        var symbolTable = Compiler.newGlobalSymbolTable();
+        var constants = new java.util.ArrayList<MonkeyObject>();
+        var globals = new MonkeyObject[VM.GLOBALS_SIZE];
+
+        Compiler first = new Compiler(symbolTable, constants);
+        first.compile(parse("let greeting = \"hello\";"));
+        new VM(first.bytecode(), globals).run();
+
+        Compiler second = new Compiler(symbolTable, constants);
+        second.compile(parse("greeting + \" world\""));
+        MonkeyObject result = new VM(second.bytecode(), globals).run();
+
+        assertInstanceOf(MonkeyString.class, result);
+        assertEquals("hello world", result.Inspect());
+    }
+
+    @Test
+    void tailCallsShouldReuseTheCallersFrame() {
+        testIntegerObject(testRun(
+            "let loop = fn(n, acc) { if (n == 0) { acc } else { loop(n - 1, acc + n) } }; loop(100000, 0)"),
+            5000050000L);
+    }
+
+    @Test
+    void deepNonTailRecursionShouldBeLimitedByMaxFrames() {
+        String input = "let depth = fn(n) { if (n == 0) { 0 } else { 1 + depth(n - 1) } }; depth(50000)";
+        Compiler compiler = new Compiler();
+        compiler.compile(parse(input));
+
+        VM limited = new VM(compiler.bytecode());
+        testErrorObject(limited.run(), "stack overflow");
+
+        VM deep = new VM(compiler.bytecode());
+        deep.setMaxFrames(100000);
+        testIntegerObject(deep.run(), 50000);
+    }
+
+    @Test
+    void higherOrderBuiltinsShouldCallClosuresBackLikeTheEvaluator() {
+        testSameAsEvaluator("let k = 10; map([1, 2, 3], fn(x) { x * k })");
+        testSameAsEvaluator("filter([1, 2, 3, 4], fn(x) { x > 2 })");
+        testSameAsEvaluator("let add = fn(a, b) { a + b }; reduce(map([1, 2, 3], fn(x) { add(x, x) }), 0, add)");
+        testSameAsEvaluator("let loop = fn(n) { if (n == 0) { 0 } else { loop(n - 1) } }; map([10, 20], loop)");
+        testSameAsEvaluator("map([[1, 2], [3]], fn(xs) { map(xs, fn(x) { x + 1 }) })");
+        testSameAsEvaluator("let x = pmap([1, 2], fn(x) { x * 3 }); x");
+        testSameAsEvaluator("map([1, true], fn(x) { -x })");
+    }
+
+    @Test
+    void programsAtTheOperandLimitsShouldRunCorrectly() {
+        // The last constant, the longest array and the last local slot.
+        testIntegerObject(testRun("1;".repeat(65535) + "71999"), 71999);
+        testIntegerObject(testRun("let x = 1; len([" + "x, ".repeat(65534) + "x])"), 65535);
+
+        StringBuilder locals = new StringBuilder("fn() { ");
+        String last = null;
+        for (int i = 0; i < 256; i++) {
+            last = "v" + (char)('a' + i % 26) + (char)('a' + i / 26);
+            locals.append("let ").append(last).append(" = ").append(i).append("; ");
+        }
+        testIntegerObject(testRun(locals.append(last).append(" }()").toString()), 255);
+    }
+
+    @Test
+    void localFunctionsShouldOnlySeeLocalsBoundBeforeThem() {
+        // Closures copy their free variables when they are made, so unlike
+        // the tree-walker the VM can't see a local let that comes later.
+        String evenOdd = "let even = fn(n) { if (n == 0) { true } else { odd(n - 1) } };"
+            + "let odd = fn(n) { if (n == 0) { false } else { even(n - 1) } };"
+            + "even(10)";
+        testErrorObject(testRun("fn() { " + evenOdd + " }()"),
+                        String.format(Evaluator.IDENTIFIER_NOT_FOUND_ERR_FMT, "odd"));
+        assertEquals(MonkeyBool.TRUE,
+                     Evaluator.eval(parse("fn() { " + evenOdd + " }()"), new Environment()));
+
+        // Globals are declared up front, so mutual recursion works at the top level.
+        testSameAsEvaluator(evenOdd);
+    }
+
+    @Test
+    void callsWithTheWrongNumberOfArgumentsShouldMatchEvaluator() {
+        testSameAsEvaluator("let b = 99; let x = fn(a, b) { b }; x(1)");
+        testSameAsEvaluator("fn(a) { a }(1, 2)");
+    }
+}